@@ -0,0 +1,256 @@
+package com.revolsys.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.revolsys.collection.json.JsonList;
+import com.revolsys.collection.json.JsonObject;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.elevation.cloud.las.zip.LasZipCompressorType;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+
+/**
+ * Synthetic data sets for the benchmarks. All the data is generated from a
+ * fixed seed so each run of the benchmarks uses the same data and no files need
+ * to be downloaded.
+ */
+public class BenchmarkData {
+
+  public static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory
+    .fixed2d(EpsgId.nad83Utm(10), 1000.0, 1000.0);
+
+  public static final long SEED = 20240601L;
+
+  private static final double MIN_X = 500000;
+
+  private static final double MIN_Y = 5400000;
+
+  private static final double SIZE = 100000;
+
+  /**
+   * Generate the bounding boxes as minX, minY, maxX, maxY for count items
+   * spread over the data extent.
+   *
+   * @param count The number of bounding boxes.
+   * @param maxSize The maximum width or height of a bounding box.
+   * @return The coordinates, 4 per bounding box.
+   */
+  public static double[] boundingBoxes(final int count, final double maxSize) {
+    final Random random = new Random(SEED);
+    final double[] bounds = new double[count * 4];
+    for (int i = 0; i < count; i++) {
+      final double x = MIN_X + random.nextDouble() * SIZE;
+      final double y = MIN_Y + random.nextDouble() * SIZE;
+      bounds[i * 4] = x;
+      bounds[i * 4 + 1] = y;
+      bounds[i * 4 + 2] = x + random.nextDouble() * maxSize;
+      bounds[i * 4 + 3] = y + random.nextDouble() * maxSize;
+    }
+    return bounds;
+  }
+
+  /**
+   * Generate a CSV document with a header row and rowCount rows including
+   * quoted values and values with embedded separators.
+   *
+   * @param rowCount The number of rows.
+   * @return The CSV text.
+   */
+  public static String csv(final int rowCount) {
+    final Random random = new Random(SEED);
+    final StringBuilder csv = new StringBuilder(rowCount * 64);
+    csv.append("ID,NAME,DESCRIPTION,X,Y,COUNT\n");
+    for (int i = 0; i < rowCount; i++) {
+      csv.append(i);
+      csv.append(",Name ");
+      csv.append(random.nextInt(1000));
+      csv.append(",\"Description, with \"\"quotes\"\" ");
+      csv.append(i);
+      csv.append("\",");
+      csv.append(MIN_X + random.nextDouble() * SIZE);
+      csv.append(',');
+      csv.append(MIN_Y + random.nextDouble() * SIZE);
+      csv.append(',');
+      csv.append(random.nextInt());
+      csv.append('\n');
+    }
+    return csv.toString();
+  }
+
+  /**
+   * Generate a JSON document with a list of objects with nested objects, lists,
+   * strings and numbers.
+   *
+   * @param objectCount The number of objects.
+   * @return The JSON text.
+   */
+  public static String json(final int objectCount) {
+    final Random random = new Random(SEED);
+    final JsonList features = JsonList.array();
+    for (int i = 0; i < objectCount; i++) {
+      final JsonList coordinates = JsonList.array();
+      for (int j = 0; j < 10; j++) {
+        coordinates.add(JsonList.array(MIN_X + random.nextDouble() * SIZE,
+          MIN_Y + random.nextDouble() * SIZE));
+      }
+      final JsonObject properties = JsonObject.hash()
+        .addValue("id", i)
+        .addValue("name", "Feature \"" + i + "\"")
+        .addValue("value", random.nextDouble())
+        .addValue("flag", random.nextBoolean());
+      final JsonObject feature = JsonObject.hash()
+        .addValue("type", "Feature")
+        .addValue("properties", properties)
+        .addValue("geometry", JsonObject.hash()
+          .addValue("type", "LineString")
+          .addValue("coordinates", coordinates));
+      features.add(feature);
+    }
+    return JsonObject.hash()
+      .addValue("type", "FeatureCollection")
+      .addValue("features", features)
+      .toJsonString();
+  }
+
+  /**
+   * Generate line strings with random walks of vertexCount vertices.
+   *
+   * @param count The number of lines.
+   * @param vertexCount The number of vertices per line.
+   * @return The lines.
+   */
+  public static LineString[] lines(final int count, final int vertexCount) {
+    final Random random = new Random(SEED);
+    final LineString[] lines = new LineString[count];
+    for (int i = 0; i < count; i++) {
+      final double[] coordinates = new double[vertexCount * 2];
+      double x = MIN_X + random.nextDouble() * SIZE;
+      double y = MIN_Y + random.nextDouble() * SIZE;
+      for (int j = 0; j < vertexCount; j++) {
+        coordinates[j * 2] = x;
+        coordinates[j * 2 + 1] = y;
+        x += random.nextDouble() * 20 - 10;
+        y += random.nextDouble() * 20 - 10;
+      }
+      lines[i] = GEOMETRY_FACTORY.lineString(2, coordinates);
+    }
+    return lines;
+  }
+
+  /**
+   * Generate geographic coordinates (longitude, latitude) within UTM zone 10.
+   *
+   * @param vertexCount The number of vertices.
+   * @return The coordinates, 2 per vertex.
+   */
+  public static double[] lonLatCoordinates(final int vertexCount) {
+    final Random random = new Random(SEED);
+    final double[] coordinates = new double[vertexCount * 2];
+    for (int i = 0; i < vertexCount; i++) {
+      coordinates[i * 2] = -126 + random.nextDouble() * 6;
+      coordinates[i * 2 + 1] = 48 + random.nextDouble() * 6;
+    }
+    return coordinates;
+  }
+
+  /**
+   * Create a temporary directory for the benchmark files. The directory and its
+   * files are deleted when the JVM exits.
+   *
+   * @param prefix The directory name prefix.
+   * @return The directory.
+   */
+  public static Path newTempDirectory(final String prefix) {
+    try {
+      final Path directory = Files.createTempDirectory(prefix);
+      directory.toFile()
+        .deleteOnExit();
+      return directory;
+    } catch (final Exception e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  /**
+   * Write a LAZ file with pointCount points in a grid with random elevations.
+   *
+   * @param file The file to write.
+   * @param pointCount The number of points.
+   * @param compressor The LAZ compressor.
+   */
+  public static void writeLaz(final Path file, final int pointCount,
+    final LasZipCompressorType compressor) {
+    final Random random = new Random(SEED);
+    final GeometryFactory geometryFactory = GeometryFactory.fixed3d(EpsgId.nad83Utm(10), 1000.0,
+      1000.0, 1000.0);
+    try (
+      LasPointCloud pointCloud = new LasPointCloud(LasPointFormat.Core, geometryFactory)) {
+      final int width = (int)Math.ceil(Math.sqrt(pointCount));
+      for (int i = 0; i < pointCount; i++) {
+        final double x = MIN_X + i % width * 0.5 + random.nextDouble() * 0.1;
+        final double y = MIN_Y + i / width * 0.5 + random.nextDouble() * 0.1;
+        final double z = 100 + random.nextGaussian() * 5;
+        pointCloud.addPoint(x, y, z);
+      }
+      final JsonObject properties = JsonObject.hash("lasZipVersion", 2)
+        .addValue("compressor", compressor);
+      pointCloud.writePointCloud(file, properties);
+    }
+    file.toFile()
+      .deleteOnExit();
+  }
+
+  /**
+   * Write a shapefile with recordCount line string records with integer,
+   * string and double attributes.
+   *
+   * @param file The .shp file to write.
+   * @param recordCount The number of records.
+   */
+  public static void writeShapefile(final Path file, final int recordCount) {
+    final Random random = new Random(SEED);
+    final RecordDefinition recordDefinition = new RecordDefinitionBuilder("/BENCHMARK")
+      .addField("ID", DataTypes.INT)
+      .addField("NAME", DataTypes.STRING, 30)
+      .addField("VALUE", DataTypes.DOUBLE, 19, 6)
+      .addField("GEOMETRY", GeometryDataTypes.LINE_STRING)
+      .setGeometryFactory(GEOMETRY_FACTORY)
+      .getRecordDefinition();
+    final LineString[] lines = lines(recordCount, 20);
+    try (
+      RecordWriter writer = RecordWriter.newRecordWriter(recordDefinition, file)) {
+      for (int i = 0; i < recordCount; i++) {
+        final Record record = recordDefinition.newRecord();
+        record.setValue("ID", i);
+        record.setValue("NAME", "Name " + random.nextInt(1000));
+        record.setValue("VALUE", random.nextDouble() * 1000);
+        record.setGeometryValue(lines[i]);
+        writer.write(record);
+      }
+    }
+    final String baseName = file.getFileName()
+      .toString()
+      .replaceAll("\\.shp$", "");
+    for (final String extension : new String[] {
+      "shp", "shx", "dbf", "prj"
+    }) {
+      file.resolveSibling(baseName + "." + extension)
+        .toFile()
+        .deleteOnExit();
+    }
+  }
+
+  private BenchmarkData() {
+  }
+}
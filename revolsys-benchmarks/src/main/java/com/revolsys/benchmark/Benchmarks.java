@@ -0,0 +1,32 @@
+package com.revolsys.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks. The arguments are the standard JMH command line options.
+ * Unless a result format is specified the results are written as JSON to
+ * jmh-result.json so they can be compared between runs.
+ *
+ * <pre>
+ * java -jar revolsys-benchmarks/target/benchmarks.jar SpatialIndex -rff index.json
+ * </pre>
+ */
+public class Benchmarks {
+  public static void main(final String[] args) throws Exception {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+    if (!commandLineOptions.getResultFormat()
+      .hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!commandLineOptions.getResult()
+      .hasValue()) {
+      options.result("jmh-result.json");
+    }
+    new Runner(options.build()).run();
+  }
+}
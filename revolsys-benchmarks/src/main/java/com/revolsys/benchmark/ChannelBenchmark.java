@@ -0,0 +1,65 @@
+package com.revolsys.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.channel.store.Buffer;
+
+/**
+ * Benchmarks for the throughput of a {@link Channel} with one writer thread
+ * and one reader thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChannelBenchmark {
+
+  private static final int VALUE_COUNT = 100000;
+
+  /** The buffer size, 0 for a synchronous (zero buffer) channel. */
+  @Param({
+    "0", "1000"
+  })
+  public int bufferSize;
+
+  private Channel<Integer> newChannel() {
+    if (this.bufferSize == 0) {
+      return new Channel<>();
+    } else {
+      return new Channel<>(new Buffer<>(this.bufferSize));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VALUE_COUNT)
+  public void readWrite(final Blackhole blackhole) throws InterruptedException {
+    final Channel<Integer> channel = newChannel();
+    final Thread writer = Thread.ofPlatform()
+      .start(() -> {
+        for (int i = 0; i < VALUE_COUNT; i++) {
+          channel.write(i);
+        }
+      });
+    for (int i = 0; i < VALUE_COUNT; i++) {
+      blackhole.consume(channel.read());
+    }
+    writer.join();
+    channel.close();
+  }
+}
@@ -0,0 +1,153 @@
+package com.revolsys.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.geometry.index.quadtree.ConcurrentQuadTree;
+import com.revolsys.geometry.index.quadtree.QuadTree;
+
+/**
+ * Benchmarks for querying a spatial index from several threads while another
+ * thread moves items. The lockedQuadTree is a {@link QuadTree} guarded by a
+ * read write lock, which is what shared layers had to do before the
+ * {@link ConcurrentQuadTree}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentSpatialIndexBenchmark {
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    private final Random random = new Random(BenchmarkData.SEED);
+  }
+
+  private static final double QUERY_SIZE = 2000;
+
+  private double[] bounds;
+
+  private ConcurrentQuadTree<Integer> concurrentQuadTree;
+
+  @Param({
+    "concurrentQuadTree", "lockedQuadTree"
+  })
+  public String indexType;
+
+  @Param({
+    "100000"
+  })
+  public int itemCount;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private QuadTree<Integer> quadTree;
+
+  private double[] queries;
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(1)
+  public void move(final ThreadState state) {
+    final Random random = state.random;
+    final int item = random.nextInt(this.itemCount);
+    final int offset = item * 4;
+    final double[] bounds = this.bounds;
+    final double minX = bounds[offset];
+    final double minY = bounds[offset + 1];
+    final double maxX = bounds[offset + 2];
+    final double maxY = bounds[offset + 3];
+    final double dx = random.nextDouble() * 200 - 100;
+    final double dy = random.nextDouble() * 200 - 100;
+    bounds[offset] += dx;
+    bounds[offset + 1] += dy;
+    bounds[offset + 2] += dx;
+    bounds[offset + 3] += dy;
+    if (this.concurrentQuadTree == null) {
+      this.lock.writeLock()
+        .lock();
+      try {
+        this.quadTree.removeItem(minX, minY, maxX, maxY, item);
+        this.quadTree.insertItem(minX + dx, minY + dy, maxX + dx, maxY + dy, item);
+      } finally {
+        this.lock.writeLock()
+          .unlock();
+      }
+    } else {
+      this.concurrentQuadTree.removeItem(minX, minY, maxX, maxY, item);
+      this.concurrentQuadTree.insertItem(minX + dx, minY + dy, maxX + dx, maxY + dy, item);
+    }
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(3)
+  public void query(final ThreadState state, final Blackhole blackhole) {
+    final double[] queries = this.queries;
+    final int offset = state.random.nextInt(queries.length / 4) * 4;
+    final double minX = queries[offset];
+    final double minY = queries[offset + 1];
+    final double maxX = queries[offset + 2];
+    final double maxY = queries[offset + 3];
+    if (this.concurrentQuadTree == null) {
+      this.lock.readLock()
+        .lock();
+      try {
+        this.quadTree.forEach(minX, minY, maxX, maxY, blackhole::consume);
+      } finally {
+        this.lock.readLock()
+          .unlock();
+      }
+    } else {
+      this.concurrentQuadTree.forEach(minX, minY, maxX, maxY, blackhole::consume);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    this.bounds = BenchmarkData.boundingBoxes(this.itemCount, 100);
+    this.queries = BenchmarkData.boundingBoxes(1000, QUERY_SIZE);
+    switch (this.indexType) {
+      case "concurrentQuadTree":
+        this.concurrentQuadTree = new ConcurrentQuadTree<>(BenchmarkData.GEOMETRY_FACTORY);
+        // The items are boxed on each call so compare using equals
+        this.concurrentQuadTree.setUseEquals(true);
+      break;
+      case "lockedQuadTree":
+        this.quadTree = new QuadTree<>(BenchmarkData.GEOMETRY_FACTORY);
+        this.quadTree.setUseEquals(true);
+      break;
+      default:
+        throw new IllegalArgumentException("Unknown index type: " + this.indexType);
+    }
+    final double[] bounds = this.bounds;
+    for (int i = 0; i < this.itemCount; i++) {
+      final int offset = i * 4;
+      if (this.concurrentQuadTree == null) {
+        this.quadTree.insertItem(bounds[offset], bounds[offset + 1], bounds[offset + 2],
+          bounds[offset + 3], i);
+      } else {
+        this.concurrentQuadTree.insertItem(bounds[offset], bounds[offset + 1], bounds[offset + 2],
+          bounds[offset + 3], i);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.revolsys.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.coordinatesystem.operation.CoordinatesOperation;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.wkb.ParseException;
+import com.revolsys.geometry.wkb.WKBReader;
+import com.revolsys.geometry.wkb.WKBWriter;
+
+/**
+ * Benchmarks for WKB encoding and coordinate projection. See
+ * {@link GeometryFactoryLookupBenchmark} for the {@link GeometryFactory} lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeometryBenchmark {
+
+  @Param({
+    "10", "1000"
+  })
+  public int vertexCount;
+
+  private LineString[] lines;
+
+  private byte[][] wkbs;
+
+  private double[] lonLatCoordinates;
+
+  private CoordinatesOperation projectOperation;
+
+  @Benchmark
+  public double[] project() {
+    final double[] coordinates = this.lonLatCoordinates.clone();
+    this.projectOperation.perform(2, coordinates, 0, this.vertexCount);
+    return coordinates;
+  }
+
+  @Setup
+  public void setup() {
+    this.lines = BenchmarkData.lines(100, this.vertexCount);
+    final WKBWriter writer = new WKBWriter(2);
+    this.wkbs = new byte[this.lines.length][];
+    for (int i = 0; i < this.lines.length; i++) {
+      this.wkbs[i] = writer.write(this.lines[i]);
+    }
+    this.lonLatCoordinates = BenchmarkData.lonLatCoordinates(this.vertexCount);
+    final GeometryFactory geographic = GeometryFactory.floating2d(EpsgId.NAD83);
+    this.projectOperation = geographic.getCoordinatesOperation(BenchmarkData.GEOMETRY_FACTORY);
+  }
+
+  @Benchmark
+  public void wkbRead(final Blackhole blackhole) throws ParseException {
+    final WKBReader reader = new WKBReader(BenchmarkData.GEOMETRY_FACTORY);
+    for (final byte[] wkb : this.wkbs) {
+      final Geometry geometry = reader.read(wkb);
+      blackhole.consume(geometry);
+    }
+  }
+
+  @Benchmark
+  public void wkbWrite(final Blackhole blackhole) {
+    final WKBWriter writer = new WKBWriter(2);
+    for (final LineString line : this.lines) {
+      blackhole.consume(writer.write(line));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.revolsys.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * Benchmarks for looking up the {@link GeometryFactory} instances from 64
+ * threads. The synchronizedRegistry holds a global lock for each lookup,
+ * which is what the registry did before the lookups were made lock-free.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class GeometryFactoryLookupBenchmark {
+
+  private static final Object LOCK = new Object();
+
+  private static void lookup(final Blackhole blackhole) {
+    blackhole.consume(GeometryFactory.fixed2d(EpsgId.nad83Utm(10), 1000.0, 1000.0));
+    blackhole.consume(GeometryFactory.floating3d(EpsgId.WGS84));
+    blackhole.consume(GeometryFactory.fixed3d(EpsgId.NAD83, 10000000.0, 10000000.0, 1000.0));
+  }
+
+  @Param({
+    "lockFreeRegistry", "synchronizedRegistry"
+  })
+  public String registryType;
+
+  private boolean synchronizedRegistry;
+
+  @Benchmark
+  public void geometryFactoryLookup(final Blackhole blackhole) {
+    if (this.synchronizedRegistry) {
+      synchronized (LOCK) {
+        lookup(blackhole);
+      }
+    } else {
+      lookup(blackhole);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    switch (this.registryType) {
+      case "lockFreeRegistry":
+        this.synchronizedRegistry = false;
+      break;
+      case "synchronizedRegistry":
+        this.synchronizedRegistry = true;
+      break;
+      default:
+        throw new IllegalArgumentException("Unknown registry type: " + this.registryType);
+    }
+    // Create the instances so only the lookups are measured
+    GeometryFactory.fixed2d(EpsgId.nad83Utm(10), 1000.0, 1000.0);
+    GeometryFactory.floating3d(EpsgId.WGS84);
+    GeometryFactory.fixed3d(EpsgId.NAD83, 10000000.0, 10000000.0, 1000.0);
+  }
+}
@@ -0,0 +1,70 @@
+package com.revolsys.benchmark;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.collection.json.JsonObject;
+import com.revolsys.elevation.cloud.PointCloud;
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.zip.LasZipCompressorType;
+import com.revolsys.elevation.cloud.las.zip.LasZipParallelChunkedIterator;
+
+/**
+ * Benchmark for decoding all the points in a LAZ file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LasZipBenchmark {
+
+  @Param({
+    "POINTWISE", "POINTWISE_CHUNKED"
+  })
+  public LasZipCompressorType compressor;
+
+  @Param({
+    "1000000"
+  })
+  public int pointCount;
+
+  /** The number of decoding threads, only used for chunked files. */
+  @Param({
+    "1", "4"
+  })
+  public int workerCount;
+
+  private Path file;
+
+  @Benchmark
+  public void decode(final Blackhole blackhole) {
+    final JsonObject properties = JsonObject.hash(LasZipParallelChunkedIterator.WORKER_COUNT,
+      this.workerCount);
+    try (
+      LasPointCloud pointCloud = PointCloud.newPointCloud(this.file, properties)) {
+      pointCloud.forEachPoint(blackhole::consume);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    final Path directory = BenchmarkData.newTempDirectory("laz");
+    this.file = directory.resolve("benchmark.laz");
+    BenchmarkData.writeLaz(this.file, this.pointCount, this.compressor);
+  }
+}
@@ -0,0 +1,136 @@
+package com.revolsys.benchmark;
+
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.gis.postgresql.type.PostgreSQLBinaryWriter;
+import com.revolsys.gis.postgresql.type.PostgreSQLEwkbReader;
+import com.revolsys.gis.postgresql.type.PostgreSQLGeometryWrapper;
+
+/**
+ * Round trip benchmarks for the PostGIS geometry transfer formats without a
+ * database. The text path writes EWKT and reads the hex EWKB returned for a
+ * geometry column. The binary path writes and reads the EWKB bytes used with
+ * ST_GeomFromEWKB and ST_AsEWKB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostgreSQLGeometryBenchmark {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = BenchmarkData.GEOMETRY_FACTORY;
+
+  @Param({
+    "10", "1000"
+  })
+  public int vertexCount;
+
+  private byte[][] ewkbs;
+
+  private String[] hexEwkbs;
+
+  private LineString[] lines;
+
+  @Benchmark
+  public void binaryRead(final Blackhole blackhole) {
+    for (final byte[] ewkb : this.ewkbs) {
+      blackhole.consume(PostgreSQLEwkbReader.read(GEOMETRY_FACTORY, ewkb));
+    }
+  }
+
+  @Benchmark
+  public void binaryRoundTrip(final Blackhole blackhole) {
+    final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter();
+    final int srid = GEOMETRY_FACTORY.getHorizontalCoordinateSystemId();
+    for (final LineString line : this.lines) {
+      writer.reset();
+      writer.putEwkb(line, GeometryDataTypes.LINE_STRING, 2, srid);
+      final byte[] ewkb = writer.toByteArray();
+      blackhole.consume(PostgreSQLEwkbReader.read(GEOMETRY_FACTORY, ewkb));
+    }
+  }
+
+  @Benchmark
+  public void binaryWrite(final Blackhole blackhole) {
+    final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter();
+    final int srid = GEOMETRY_FACTORY.getHorizontalCoordinateSystemId();
+    for (final LineString line : this.lines) {
+      writer.reset();
+      writer.putEwkb(line, GeometryDataTypes.LINE_STRING, 2, srid);
+      blackhole.consume(writer.toByteArray());
+    }
+  }
+
+  private Geometry readText(final String hexEwkb) throws SQLException {
+    final PostgreSQLGeometryWrapper wrapper = new PostgreSQLGeometryWrapper();
+    wrapper.setValue(hexEwkb);
+    return wrapper.getGeometry(GEOMETRY_FACTORY);
+  }
+
+  @Setup
+  public void setup() {
+    this.lines = BenchmarkData.lines(100, this.vertexCount);
+    final int srid = GEOMETRY_FACTORY.getHorizontalCoordinateSystemId();
+    final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter();
+    this.ewkbs = new byte[this.lines.length][];
+    this.hexEwkbs = new String[this.lines.length];
+    for (int i = 0; i < this.lines.length; i++) {
+      writer.reset();
+      writer.putEwkb(this.lines[i], GeometryDataTypes.LINE_STRING, 2, srid);
+      this.ewkbs[i] = writer.toByteArray();
+      this.hexEwkbs[i] = HexFormat.of()
+        .withUpperCase()
+        .formatHex(this.ewkbs[i]);
+    }
+  }
+
+  @Benchmark
+  public void textRead(final Blackhole blackhole) throws SQLException {
+    for (final String hexEwkb : this.hexEwkbs) {
+      blackhole.consume(readText(hexEwkb));
+    }
+  }
+
+  /**
+   * Write the EWKT then read the hex EWKB that PostGIS would return for it.
+   */
+  @Benchmark
+  public void textRoundTrip(final Blackhole blackhole) throws SQLException {
+    for (int i = 0; i < this.lines.length; i++) {
+      final PostgreSQLGeometryWrapper wrapper = new PostgreSQLGeometryWrapper(
+        GeometryDataTypes.LINE_STRING, GEOMETRY_FACTORY, this.lines[i]);
+      blackhole.consume(wrapper.getValue());
+      blackhole.consume(readText(this.hexEwkbs[i]));
+    }
+  }
+
+  @Benchmark
+  public void textWrite(final Blackhole blackhole) {
+    for (final LineString line : this.lines) {
+      final PostgreSQLGeometryWrapper wrapper = new PostgreSQLGeometryWrapper(
+        GeometryDataTypes.LINE_STRING, GEOMETRY_FACTORY, line);
+      blackhole.consume(wrapper.getValue());
+    }
+  }
+}
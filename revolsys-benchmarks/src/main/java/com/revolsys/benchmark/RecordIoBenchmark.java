@@ -0,0 +1,85 @@
+package com.revolsys.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.collection.json.JsonParser;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.format.csv.CsvIterator;
+import com.revolsys.record.io.format.shp.ShapefileRecordReader;
+import com.revolsys.spring.resource.Resource;
+
+/**
+ * Benchmarks for reading records from Shapefiles, CSV and JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordIoBenchmark {
+
+  @Param({
+    "10000"
+  })
+  public int recordCount;
+
+  private String csv;
+
+  private String json;
+
+  private Path shapefile;
+
+  @Benchmark
+  public void csvIterator(final Blackhole blackhole) {
+    try (
+      CsvIterator iterator = new CsvIterator(new StringReader(this.csv))) {
+      for (final List<String> row : iterator) {
+        blackhole.consume(row);
+      }
+    }
+  }
+
+  @Benchmark
+  public Object jsonParser() {
+    return JsonParser.read(this.json);
+  }
+
+  @Setup
+  public void setup() {
+    this.csv = BenchmarkData.csv(this.recordCount);
+    this.json = BenchmarkData.json(this.recordCount);
+    final Path directory = BenchmarkData.newTempDirectory("shapefile");
+    this.shapefile = directory.resolve("benchmark.shp");
+    BenchmarkData.writeShapefile(this.shapefile, this.recordCount);
+  }
+
+  @Benchmark
+  public void shapefileRecordReader(final Blackhole blackhole) throws IOException {
+    final Resource resource = Resource.getResource(this.shapefile);
+    try (
+      ShapefileRecordReader reader = new ShapefileRecordReader(resource, ArrayRecord.FACTORY)) {
+      for (final Record record : reader) {
+        blackhole.consume(record);
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.revolsys.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.revolsys.geometry.index.SpatialIndex;
+import com.revolsys.geometry.index.quadtree.ConcurrentQuadTree;
+import com.revolsys.geometry.index.quadtree.QuadTree;
+import com.revolsys.geometry.index.rstartree.RStarTree;
+import com.revolsys.geometry.index.strtree.StrTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * Benchmarks for inserting into and querying the {@link QuadTree},
+ * {@link ConcurrentQuadTree}, {@link StrTree} and {@link RStarTree} spatial
+ * indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+  private static final int QUERY_COUNT = 1000;
+
+  @Param({
+    "quadTree", "concurrentQuadTree", "strTree", "rStarTree"
+  })
+  public String indexType;
+
+  @Param({
+    "100000"
+  })
+  public int itemCount;
+
+  private BoundingBox[] boundingBoxes;
+
+  private SpatialIndex<Integer> index;
+
+  private double[] queries;
+
+  private SpatialIndex<Integer> insertAll() {
+    final SpatialIndex<Integer> index = newIndex();
+    final BoundingBox[] boundingBoxes = this.boundingBoxes;
+    for (int i = 0; i < boundingBoxes.length; i++) {
+      index.insertItem(boundingBoxes[i], i);
+    }
+    return index;
+  }
+
+  @Benchmark
+  public SpatialIndex<Integer> insert() {
+    return insertAll();
+  }
+
+  private SpatialIndex<Integer> newIndex() {
+    final GeometryFactory geometryFactory = BenchmarkData.GEOMETRY_FACTORY;
+    switch (this.indexType) {
+      case "quadTree":
+        return new QuadTree<>(geometryFactory);
+      case "concurrentQuadTree":
+        return new ConcurrentQuadTree<>(geometryFactory);
+      case "strTree":
+        return new StrTree<>();
+      case "rStarTree":
+        return new RStarTree<>(geometryFactory);
+      default:
+        throw new IllegalArgumentException("Unknown index type: " + this.indexType);
+    }
+  }
+
+  @Benchmark
+  public void query(final Blackhole blackhole) {
+    final double[] queries = this.queries;
+    for (int i = 0; i < QUERY_COUNT; i++) {
+      final int offset = i * 4;
+      this.index.forEach(queries[offset], queries[offset + 1], queries[offset + 2],
+        queries[offset + 3], blackhole::consume);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    final GeometryFactory geometryFactory = BenchmarkData.GEOMETRY_FACTORY;
+    final double[] bounds = BenchmarkData.boundingBoxes(this.itemCount, 100);
+    this.boundingBoxes = new BoundingBox[this.itemCount];
+    for (int i = 0; i < this.itemCount; i++) {
+      final int offset = i * 4;
+      this.boundingBoxes[i] = geometryFactory.newBoundingBox(bounds[offset], bounds[offset + 1],
+        bounds[offset + 2], bounds[offset + 3]);
+    }
+    this.queries = BenchmarkData.boundingBoxes(QUERY_COUNT, 2000);
+    this.index = insertAll();
+    // Build the STR tree before the query measurements
+    this.index.forEach(0, 0, 0, 0, item -> {
+    });
+  }
+}
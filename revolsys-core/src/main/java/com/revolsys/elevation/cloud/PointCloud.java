@@ -10,7 +10,7 @@ import com.revolsys.elevation.cloud.las.LasPointCloud;
 import com.revolsys.elevation.gridded.GriddedElevationModel;
 import com.revolsys.elevation.gridded.IntArrayScaleGriddedElevationModel;
 import com.revolsys.elevation.tin.TriangulatedIrregularNetwork;
-import com.revolsys.elevation.tin.quadedge.QuadEdgeDelaunayTinBuilder;
+import com.revolsys.elevation.tin.quadedge.intscale.IntArrayDelaunayTinBuilder;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
 import com.revolsys.geometry.model.GeometryFactory;
@@ -132,7 +132,7 @@ public interface PointCloud<P extends Point>
   default TriangulatedIrregularNetwork newTriangulatedIrregularNetwork(
     final Predicate<? super P> filter) {
     final GeometryFactory geometryFactory = getGeometryFactory();
-    final QuadEdgeDelaunayTinBuilder tinBuilder = new QuadEdgeDelaunayTinBuilder(geometryFactory);
+    final IntArrayDelaunayTinBuilder tinBuilder = new IntArrayDelaunayTinBuilder(geometryFactory);
     forEachPoint(point -> {
       if (filter.test(point)) {
         tinBuilder.insertVertex(point);
@@ -23,7 +23,7 @@ import com.revolsys.elevation.cloud.las.zip.LasZipCompressorType;
 import com.revolsys.elevation.cloud.las.zip.LasZipHeader;
 import com.revolsys.elevation.cloud.las.zip.LasZipPointCloudWriterFactory;
 import com.revolsys.elevation.tin.TriangulatedIrregularNetwork;
-import com.revolsys.elevation.tin.quadedge.QuadEdgeDelaunayTinBuilder;
+import com.revolsys.elevation.tin.quadedge.intscale.IntArrayDelaunayTinBuilder;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.Point;
@@ -66,6 +66,8 @@ public class LasPointCloud extends BaseObjectWithProperties
 
   private boolean classificationsLoaded;
 
+  private LasPointColumns columns;
+
   private boolean exists;
 
   private double fileGpsTime = 0;
@@ -116,6 +118,7 @@ public class LasPointCloud extends BaseObjectWithProperties
   public <P extends LasPoint> P addPoint(final double x, final double y, final double z) {
     final LasPoint lasPoint = newLasPoint(x, y, z);
     this.points.add(lasPoint);
+    this.columns = null;
     this.header.addCounts(lasPoint);
     return (P)lasPoint;
   }
@@ -124,6 +127,7 @@ public class LasPointCloud extends BaseObjectWithProperties
     closeReader();
     this.header.clear();
     this.points = new ArrayList<>();
+    this.columns = null;
   }
 
   @Override
@@ -208,6 +212,15 @@ public class LasPointCloud extends BaseObjectWithProperties
     return this.header.getPointFormat();
   }
 
+  /**
+   * Get the columnar point store if {@link #loadPointColumns()} has been called.
+   *
+   * @return The columns or null if not loaded.
+   */
+  public LasPointColumns getPointColumns() {
+    return this.columns;
+  }
+
   public List<LasPoint> getPoints() {
     loadAllPoints();
     return this.points;
@@ -268,6 +281,36 @@ public class LasPointCloud extends BaseObjectWithProperties
     }
   }
 
+  /**
+   * Load the points into a read-only {@link LasPointColumns} view. After
+   * loading, {@link #newTriangulatedIrregularNetwork()} and
+   * {@link #refreshClassificationCounts()} use the columns instead of reading
+   * the file. This uses much less memory than {@link #getPoints()}. The columns
+   * don't contain all the point attributes, so {@link #forEachPoint(Consumer)}
+   * and {@link #getPoints()} still read the full points. Adding a point
+   * discards the columns.
+   *
+   * @return The columns.
+   */
+  public synchronized LasPointColumns loadPointColumns() {
+    if (this.columns == null) {
+      final long pointCount = getPointCount();
+      if (pointCount > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException(
+          "Too many points to load into memory: " + pointCount + " " + this.resource);
+      }
+      final LasPointColumns columns = new LasPointColumns(this, (int)pointCount);
+      if (this.allLoaded || !this.points.isEmpty()) {
+        this.points.forEach(columns::addPoint);
+      } else {
+        forEachPoint(columns::addPoint);
+      }
+      columns.trimToSize();
+      this.columns = columns;
+    }
+    return this.columns;
+  }
+
   public LasPoint newLasPoint(final double x, final double y, final double z) {
     return this.header.newLasPoint(this, x, y, z);
   }
@@ -275,10 +318,14 @@ public class LasPointCloud extends BaseObjectWithProperties
   @Override
   public TriangulatedIrregularNetwork newTriangulatedIrregularNetwork() {
     final GeometryFactory geometryFactory = getGeometryFactory();
-    final QuadEdgeDelaunayTinBuilder tinBuilder = new QuadEdgeDelaunayTinBuilder(geometryFactory);
-    forEachPoint(lasPoint -> {
-      tinBuilder.insertVertex(lasPoint);
-    });
+    final IntArrayDelaunayTinBuilder tinBuilder = new IntArrayDelaunayTinBuilder(geometryFactory);
+    final LasPointColumns columns = this.columns;
+    if (columns == null) {
+      forEachPoint(tinBuilder::insertVertex);
+    } else {
+      // The builder uses the point cloud's scales so the ints don't need converting
+      columns.forEachXyzInt(tinBuilder::insertVertexInt);
+    }
     final TriangulatedIrregularNetwork tin = tinBuilder.newTriangulatedIrregularNetwork();
     return tin;
   }
@@ -302,6 +349,21 @@ public class LasPointCloud extends BaseObjectWithProperties
     }
   }
 
+  /**
+   * Open a new reader on the LAS file independent of the reader used by the
+   * point cloud. Used by workers that read different parts of the file at the
+   * same time.
+   *
+   * @return The reader or null if the point cloud doesn't have a file.
+   */
+  public AbstractDataReader newLasReader() {
+    if (this.lasResource == null) {
+      return null;
+    } else {
+      return this.lasResource.newChannelReader(8192, ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
   private AbstractDataReader open() {
     final AbstractDataReader reader;
     if (this.lasResource == null) {
@@ -329,10 +391,15 @@ public class LasPointCloud extends BaseObjectWithProperties
   @Override
   public void refreshClassificationCounts() {
     Arrays.fill(this.classificationCounts, 0);
-    forEachPoint(point -> {
-      final short classification = point.getClassification();
-      this.classificationCounts[classification]++;
-    });
+    final LasPointColumns columns = this.columns;
+    if (columns == null) {
+      forEachPoint(point -> {
+        final short classification = point.getClassification();
+        this.classificationCounts[classification]++;
+      });
+    } else {
+      columns.countClassifications(this.classificationCounts);
+    }
     this.classificationsLoaded = true;
   }
 
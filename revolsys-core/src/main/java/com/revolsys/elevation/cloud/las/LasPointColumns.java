@@ -0,0 +1,287 @@
+package com.revolsys.elevation.cloud.las;
+
+import java.util.Arrays;
+
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.function.Consumer3Double;
+import com.revolsys.function.Consumer3Int;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * A read-only view of the points of a {@link LasPointCloud} with one primitive
+ * array per attribute instead of one {@link LasPoint} object per point. It is
+ * used to build TINs and grids and count the classifications. The scaled int
+ * x, y, z, intensity, return number and count, classification and
+ * classification flags are stored for all formats. The GPS time and RGB are only
+ * stored if the point format has them. Other attributes (e.g. scan angle, user
+ * data, point source ID, NIR and wave packets) are not retained, so the columns
+ * must not be used to write or replace the points.
+ */
+public class LasPointColumns {
+  private static final byte FLAG_EDGE_OF_FLIGHT_LINE = 0b10000;
+
+  private static final byte FLAG_KEY_POINT = 0b10;
+
+  private static final byte FLAG_SCAN_DIRECTION = 0b1000;
+
+  private static final byte FLAG_SYNTHETIC = 0b1;
+
+  private static final byte FLAG_WITHHELD = 0b100;
+
+  private short[] blue;
+
+  private byte[] classifications;
+
+  private byte[] flags;
+
+  private double[] gpsTimes;
+
+  private short[] green;
+
+  private short[] intensities;
+
+  private final LasPointCloud pointCloud;
+
+  private int pointCount;
+
+  private final LasPointFormat pointFormat;
+
+  private short[] red;
+
+  private byte[] returns;
+
+  private int[] x;
+
+  private int[] y;
+
+  private int[] z;
+
+  public LasPointColumns(final LasPointCloud pointCloud, final int capacity) {
+    this.pointCloud = pointCloud;
+    this.pointFormat = pointCloud.getPointFormat();
+    final int initialCapacity = Math.max(capacity, 16);
+    this.x = new int[initialCapacity];
+    this.y = new int[initialCapacity];
+    this.z = new int[initialCapacity];
+    this.intensities = new short[initialCapacity];
+    this.returns = new byte[initialCapacity];
+    this.classifications = new byte[initialCapacity];
+    this.flags = new byte[initialCapacity];
+    if (this.pointFormat.isHasGpsTime()) {
+      this.gpsTimes = new double[initialCapacity];
+    }
+    if (this.pointFormat.isHasRgb()) {
+      this.red = new short[initialCapacity];
+      this.green = new short[initialCapacity];
+      this.blue = new short[initialCapacity];
+    }
+  }
+
+  void addPoint(final LasPoint point) {
+    final int index = this.pointCount;
+    if (index == this.x.length) {
+      setCapacity(Math.max(16, index + (index >> 1)));
+    }
+    this.x[index] = point.getXInt();
+    this.y[index] = point.getYInt();
+    this.z[index] = point.getZInt();
+    this.intensities[index] = (short)point.getIntensity();
+    this.returns[index] = (byte)(point.getReturnNumber() | point.getNumberOfReturns() << 4);
+    this.classifications[index] = (byte)point.getClassification();
+    byte flags = 0;
+    if (point.isSynthetic()) {
+      flags |= FLAG_SYNTHETIC;
+    }
+    if (point.isKeyPoint()) {
+      flags |= FLAG_KEY_POINT;
+    }
+    if (point.isWithheld()) {
+      flags |= FLAG_WITHHELD;
+    }
+    if (point.isScanDirectionFlag()) {
+      flags |= FLAG_SCAN_DIRECTION;
+    }
+    if (point.isEdgeOfFlightLine()) {
+      flags |= FLAG_EDGE_OF_FLIGHT_LINE;
+    }
+    this.flags[index] = flags;
+    if (this.gpsTimes != null) {
+      this.gpsTimes[index] = point.getGpsTime();
+    }
+    if (this.red != null) {
+      this.red[index] = (short)point.getRed();
+      this.green[index] = (short)point.getGreen();
+      this.blue[index] = (short)point.getBlue();
+    }
+    this.pointCount++;
+  }
+
+  /**
+   * Add the number of points with each classification to the counts.
+   *
+   * @param counts The counts indexed by classification.
+   */
+  public void countClassifications(final long[] counts) {
+    final byte[] classifications = this.classifications;
+    for (int i = 0; i < this.pointCount; i++) {
+      counts[classifications[i] & 0xFF]++;
+    }
+  }
+
+  /**
+   * Pass the x, y, z of each point to the action without creating a
+   * {@link LasPoint}.
+   *
+   * @param action The action to perform on each point's coordinates.
+   */
+  public void forEachXyz(final Consumer3Double action) {
+    final GeometryFactory geometryFactory = this.pointCloud.getGeometryFactory();
+    final int[] xs = this.x;
+    final int[] ys = this.y;
+    final int[] zs = this.z;
+    for (int i = 0; i < this.pointCount; i++) {
+      final double x = geometryFactory.toDoubleX(xs[i]);
+      final double y = geometryFactory.toDoubleY(ys[i]);
+      final double z = geometryFactory.toDoubleZ(zs[i]);
+      action.accept(x, y, z);
+    }
+  }
+
+  /**
+   * Pass the x, y, z of each point to the action as integers without creating a
+   * {@link LasPoint} or converting them to doubles. The values are the
+   * coordinates multiplied by the scales of the point cloud's geometry factory
+   * (e.g. round(x * scaleX)), the geometry factory's offsets are added back.
+   *
+   * @param action The action to perform on each point's coordinates.
+   */
+  public void forEachXyzInt(final Consumer3Int action) {
+    final GeometryFactory geometryFactory = this.pointCloud.getGeometryFactory();
+    final int offsetX = toIntOffset(geometryFactory.getOffsetX(), geometryFactory.getScaleX());
+    final int offsetY = toIntOffset(geometryFactory.getOffsetY(), geometryFactory.getScaleY());
+    final int offsetZ = toIntOffset(geometryFactory.getOffsetZ(), geometryFactory.getScaleZ());
+    final int[] xs = this.x;
+    final int[] ys = this.y;
+    final int[] zs = this.z;
+    for (int i = 0; i < this.pointCount; i++) {
+      final int x = Math.addExact(xs[i], offsetX);
+      final int y = Math.addExact(ys[i], offsetY);
+      final int z = Math.addExact(zs[i], offsetZ);
+      action.accept(x, y, z);
+    }
+  }
+
+  public short getClassification(final int index) {
+    return (short)(this.classifications[index] & 0xFF);
+  }
+
+  public double getGpsTime(final int index) {
+    if (this.gpsTimes == null) {
+      return 315964800;
+    } else {
+      return this.gpsTimes[index];
+    }
+  }
+
+  public int getIntensity(final int index) {
+    return this.intensities[index] & 0xFFFF;
+  }
+
+  /**
+   * Get a new {@link LasPoint} with the stored values of the point at the index.
+   * The attributes that are not stored have their default values.
+   *
+   * @param index The point index.
+   * @return The point.
+   */
+  public LasPoint getPoint(final int index) {
+    final LasPoint point = this.pointFormat.newLasPoint(this.pointCloud);
+    return getPoint(index, point);
+  }
+
+  /**
+   * Set the values of the point to the values of the point at the index.
+   *
+   * @param index The point index.
+   * @param point The point to update.
+   * @return The point.
+   */
+  public LasPoint getPoint(final int index, final LasPoint point) {
+    if (index < 0 || index >= this.pointCount) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    point.setXYZ(this.x[index], this.y[index], this.z[index]);
+    point.setIntensity(this.intensities[index] & 0xFFFF);
+    final byte returns = this.returns[index];
+    point.setReturnNumber((byte)(returns & 0b1111));
+    point.setNumberOfReturns((byte)(returns >> 4 & 0b1111));
+    point.setClassification(getClassification(index));
+    final byte flags = this.flags[index];
+    point.setSynthetic((flags & FLAG_SYNTHETIC) != 0);
+    point.setKeyPoint((flags & FLAG_KEY_POINT) != 0);
+    point.setWithheld((flags & FLAG_WITHHELD) != 0);
+    point.setScanDirectionFlag((flags & FLAG_SCAN_DIRECTION) != 0);
+    point.setEdgeOfFlightLine((flags & FLAG_EDGE_OF_FLIGHT_LINE) != 0);
+    if (this.gpsTimes != null) {
+      point.setGpsTime(this.gpsTimes[index]);
+    }
+    if (this.red != null) {
+      point.setRed(this.red[index] & 0xFFFF);
+      point.setGreen(this.green[index] & 0xFFFF);
+      point.setBlue(this.blue[index] & 0xFFFF);
+    }
+    return point;
+  }
+
+  public int getPointCount() {
+    return this.pointCount;
+  }
+
+  public LasPointFormat getPointFormat() {
+    return this.pointFormat;
+  }
+
+  public int getXInt(final int index) {
+    return this.x[index];
+  }
+
+  public int getYInt(final int index) {
+    return this.y[index];
+  }
+
+  public int getZInt(final int index) {
+    return this.z[index];
+  }
+
+  private void setCapacity(final int capacity) {
+    this.x = Arrays.copyOf(this.x, capacity);
+    this.y = Arrays.copyOf(this.y, capacity);
+    this.z = Arrays.copyOf(this.z, capacity);
+    this.intensities = Arrays.copyOf(this.intensities, capacity);
+    this.returns = Arrays.copyOf(this.returns, capacity);
+    this.classifications = Arrays.copyOf(this.classifications, capacity);
+    this.flags = Arrays.copyOf(this.flags, capacity);
+    if (this.gpsTimes != null) {
+      this.gpsTimes = Arrays.copyOf(this.gpsTimes, capacity);
+    }
+    if (this.red != null) {
+      this.red = Arrays.copyOf(this.red, capacity);
+      this.green = Arrays.copyOf(this.green, capacity);
+      this.blue = Arrays.copyOf(this.blue, capacity);
+    }
+  }
+
+  private int toIntOffset(final double offset, final double scale) {
+    return Math.toIntExact(Math.round(offset * scale));
+  }
+
+  /**
+   * Reduce the arrays to the number of points.
+   */
+  void trimToSize() {
+    if (this.pointCount < this.x.length) {
+      setCapacity(this.pointCount);
+    }
+  }
+}
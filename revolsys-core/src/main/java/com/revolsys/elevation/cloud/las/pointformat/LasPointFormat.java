@@ -142,6 +142,15 @@ public enum LasPointFormat implements Code {
     return this.recordReader;
   }
 
+  public boolean isHasGpsTime() {
+    return this.id == 1 || this.id >= 3;
+  }
+
+  public boolean isHasRgb() {
+    return this.id == 2 || this.id == 3 || this.id == 5 || this.id == 7 || this.id == 8
+      || this.id == 10;
+  }
+
   public LasPoint newLasPoint(final LasPointCloud pointCloud) {
     return this.constructor.apply(pointCloud);
   }
@@ -176,11 +185,10 @@ public enum LasPointFormat implements Code {
       .addField("pointSourceID", DataTypes.INT, true) //
       .setGeometryFactory(geometryFactory) //
     ;
-    if (this.id == 1 || this.id >= 3) {
+    if (isHasGpsTime()) {
       builder.addField("gpsTime", DataTypes.DOUBLE, true);
     }
-    if (this.id == 2 || this.id == 3 || this.id == 5 || this.id == 7 || this.id == 8
-      || this.id == 10) {
+    if (isHasRgb()) {
       builder.addField("red", DataTypes.INT, true);
       builder.addField("green", DataTypes.INT, true);
       builder.addField("blue", DataTypes.INT, true);
@@ -0,0 +1,109 @@
+package com.revolsys.elevation.cloud.las.zip;
+
+import com.revolsys.io.channels.DataReader;
+import com.revolsys.math.arithmeticcoding.ArithmeticCodingInteger;
+import com.revolsys.math.arithmeticcoding.ArithmeticDecoder;
+
+/**
+ * The chunk table written at the end of a chunked LAZ file. The table records
+ * the start position of each chunk and, for variable sized chunks, the number
+ * of points in each chunk. Each chunk resets the arithmetic decoder so chunks
+ * can be decoded independently.
+ */
+public class LasZipChunkTable {
+  /** The chunk size (U32_MAX) used when each chunk has a different size. */
+  public static final long VARIABLE_CHUNK_SIZE = 0xFFFFFFFFL;
+
+  /**
+   * Read the chunk table. The reader must be positioned at the chunk table
+   * offset immediately after the LAS header and variable length records. The
+   * reader is returned to that position.
+   *
+   * @param reader The reader.
+   * @param chunkSize The number of points per chunk or
+   *          {@link #VARIABLE_CHUNK_SIZE} for variable sized chunks.
+   * @param pointCount The number of points in the file.
+   * @return The chunk table or null if the file doesn't have a complete chunk
+   *         table or the reader isn't seekable.
+   */
+  public static LasZipChunkTable read(final DataReader reader, final long chunkSize,
+    final long pointCount) {
+    if (!reader.isSeekable()) {
+      return null;
+    }
+    final long startPosition = reader.position();
+    try {
+      long chunkTablePosition = reader.getLong();
+      final long chunksStart = reader.position();
+      if (chunkTablePosition + 8 == chunksStart) {
+        // compressor was interrupted before writing the chunk table
+        return null;
+      }
+      if (chunkTablePosition == -1) {
+        reader.seekEnd(8);
+        chunkTablePosition = reader.getLong();
+      }
+      reader.seek(chunkTablePosition);
+      final int version = reader.getInt();
+      if (version != 0) {
+        return null;
+      }
+      final int chunkCount = reader.getInt();
+      final boolean variable = chunkSize == VARIABLE_CHUNK_SIZE
+        || chunkSize == Integer.MAX_VALUE;
+      final long[] chunkStarts = new long[chunkCount + 1];
+      final long[] chunkTotals = new long[chunkCount + 1];
+      chunkStarts[0] = chunksStart;
+      if (chunkCount > 0) {
+        final ArithmeticDecoder decoder = new ArithmeticDecoder();
+        decoder.init(reader);
+        final ArithmeticCodingInteger ic = new ArithmeticCodingInteger(decoder, 32, 2);
+        ic.initDecompressor();
+        int lastTotal = 0;
+        int lastSize = 0;
+        for (int i = 1; i <= chunkCount; i++) {
+          if (variable) {
+            lastTotal = ic.decompress(lastTotal, 0);
+            chunkTotals[i] = chunkTotals[i - 1] + lastTotal;
+          } else {
+            chunkTotals[i] = Math.min(pointCount, i * chunkSize);
+          }
+          lastSize = ic.decompress(lastSize, 1);
+          chunkStarts[i] = chunkStarts[i - 1] + lastSize;
+          if (chunkStarts[i] <= chunkStarts[i - 1]) {
+            return null;
+          }
+        }
+      }
+      if (chunkTotals[chunkCount] != pointCount) {
+        return null;
+      }
+      return new LasZipChunkTable(chunkStarts, chunkTotals);
+    } catch (final RuntimeException e) {
+      return null;
+    } finally {
+      reader.seek(startPosition);
+    }
+  }
+
+  private final long[] chunkStarts;
+
+  private final long[] chunkTotals;
+
+  private LasZipChunkTable(final long[] chunkStarts, final long[] chunkTotals) {
+    this.chunkStarts = chunkStarts;
+    this.chunkTotals = chunkTotals;
+  }
+
+  public int getChunkCount() {
+    return this.chunkStarts.length - 1;
+  }
+
+  public int getChunkPointCount(final int chunkIndex) {
+    return (int)(this.chunkTotals[chunkIndex + 1] - this.chunkTotals[chunkIndex]);
+  }
+
+  public long getChunkStart(final int chunkIndex) {
+    return this.chunkStarts[chunkIndex];
+  }
+}
@@ -9,8 +9,12 @@ import com.revolsys.io.channels.AbstractDataReader;
 
 public enum LasZipCompressorType {
   POINTWISE(1, LasZipPointwiseIterator::new), //
-  POINTWISE_CHUNKED(2, LasZipPointwiseChunkedIterator::new), //
-  LAYERED_CHUNKED(3, LasZipLayeredChunkedIterator::new) //
+  POINTWISE_CHUNKED(2,
+    (pointCloud, reader) -> LasZipParallelChunkedIterator.newIterator(pointCloud, reader, false,
+      LasZipPointwiseChunkedIterator::new)), //
+  LAYERED_CHUNKED(3,
+    (pointCloud, reader) -> LasZipParallelChunkedIterator.newIterator(pointCloud, reader, true,
+      LasZipLayeredChunkedIterator::new)) //
   ;
 
   private static final IntHashMap<LasZipCompressorType> FORMAT_BY_ID = new IntHashMap<>();
@@ -0,0 +1,247 @@
+package com.revolsys.elevation.cloud.las.zip;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.LasPointCloudIterator;
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.io.channels.AbstractDataReader;
+import com.revolsys.io.channels.DataReader;
+import com.revolsys.math.arithmeticcoding.ArithmeticDecoder;
+import com.revolsys.number.Integers;
+import com.revolsys.util.BaseCloseable;
+import com.revolsys.util.Booleans;
+import com.revolsys.util.concurrent.Concurrent;
+import com.revolsys.util.concurrent.Parallel;
+import com.revolsys.util.concurrent.ThreadFactoryEx;
+
+/**
+ * Decode the chunks of a chunked LAZ file on worker threads. Each worker opens
+ * its own reader on the file and decodes the next undecoded chunk using the
+ * positions from the {@link LasZipChunkTable}. The points are returned in file
+ * order or in the order the chunks finish decoding.
+ */
+public class LasZipParallelChunkedIterator extends LasPointCloudIterator {
+
+  /** The point cloud property with the number of worker threads. */
+  public static final String WORKER_COUNT = "lasZipWorkerCount";
+
+  /** The point cloud property, if false the points are returned unordered. */
+  public static final String ORDERED = "lasZipOrdered";
+
+  private static final int ERROR = -1;
+
+  /**
+   * Construct a parallel iterator if the {@link #WORKER_COUNT} property is &gt; 1
+   * and the file has a chunk table. Otherwise construct the sequential
+   * iterator.
+   *
+   * @param pointCloud The point cloud.
+   * @param reader The reader positioned at the chunk table offset.
+   * @param layered True if the chunks use the layered compressor.
+   * @param sequentialConstructor The constructor for the sequential iterator.
+   * @return The iterator.
+   */
+  public static LasPointCloudIterator newIterator(final LasPointCloud pointCloud,
+    final AbstractDataReader reader, final boolean layered,
+    final BiFunction<LasPointCloud, AbstractDataReader, LasPointCloudIterator> sequentialConstructor) {
+    final Integer workerCount = Integers.toInteger(pointCloud.getProperty(WORKER_COUNT));
+    if (workerCount != null && workerCount > 1) {
+      final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(pointCloud);
+      final LasZipChunkTable chunkTable = LasZipChunkTable.read(reader,
+        lasZipHeader.getChunkSize(), pointCloud.getPointCount());
+      if (chunkTable != null && chunkTable.getChunkCount() > 0) {
+        final boolean ordered = !Booleans.isFalse(pointCloud.getProperty(ORDERED));
+        return new LasZipParallelChunkedIterator(pointCloud, reader, chunkTable, layered,
+          workerCount, ordered, Concurrent.platform("LasZipDecoder-"));
+      }
+    }
+    return sequentialConstructor.apply(pointCloud, reader);
+  }
+
+  private LasPoint[] chunk = new LasPoint[0];
+
+  private int chunkIndex = 0;
+
+  private int chunkOffset = 0;
+
+  private final AtomicReferenceArray<LasPoint[]> chunks;
+
+  private final LasZipChunkTable chunkTable;
+
+  private volatile boolean closed = false;
+
+  private final BlockingQueue<Integer> completedChunks = new LinkedBlockingQueue<>();
+
+  private volatile Throwable exception;
+
+  private final boolean layered;
+
+  private final AtomicInteger nextChunkIndex = new AtomicInteger();
+
+  private final boolean ordered;
+
+  private Parallel parallel;
+
+  private final Semaphore permits;
+
+  private final int workerCount;
+
+  public LasZipParallelChunkedIterator(final LasPointCloud pointCloud, final DataReader reader,
+    final LasZipChunkTable chunkTable, final boolean layered, final int workerCount,
+    final boolean ordered, final ThreadFactoryEx threadFactory) {
+    super(pointCloud, reader);
+    this.chunkTable = chunkTable;
+    this.layered = layered;
+    this.ordered = ordered;
+    final int chunkCount = chunkTable.getChunkCount();
+    this.chunks = new AtomicReferenceArray<>(chunkCount);
+    this.workerCount = Math.max(1, Math.min(workerCount, chunkCount));
+    this.permits = new Semaphore(this.workerCount * 2);
+    this.parallel = threadFactory.parallel();
+    for (int i = 0; i < this.workerCount; i++) {
+      this.parallel.run(this::decodeChunks);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!this.closed) {
+      this.closed = true;
+      this.permits.release(this.workerCount);
+      final Parallel parallel = this.parallel;
+      this.parallel = null;
+      if (parallel != null) {
+        try {
+          parallel.close();
+        } catch (final RuntimeException e) {
+          if (this.exception == null) {
+            throw e;
+          }
+        }
+      }
+    }
+    super.close();
+  }
+
+  private LasPoint[] decodeChunk(final DataReader reader, final ArithmeticDecoder decoder,
+    final LasZipItemCodec[] codecs, final int chunkIndex) {
+    final int count = this.chunkTable.getChunkPointCount(chunkIndex);
+    final LasPoint[] points = new LasPoint[count];
+    if (count > 0) {
+      reader.seek(this.chunkTable.getChunkStart(chunkIndex));
+      LasPoint point = this.pointFormat.readLasPoint(this.pointCloud, reader);
+      int context = 0;
+      if (this.layered) {
+        decoder.init(reader, false);
+        reader.getInt(); // count unused
+        for (final LasZipItemCodec codec : codecs) {
+          codec.readChunkSizes();
+        }
+        for (final LasZipItemCodec codec : codecs) {
+          context = codec.init(point, context);
+        }
+      } else {
+        for (final LasZipItemCodec codec : codecs) {
+          context = codec.init(point, context);
+        }
+        decoder.init(reader);
+      }
+      points[0] = point;
+      for (int i = 1; i < count; i++) {
+        point = this.pointFormat.newLasPoint(this.pointCloud);
+        for (final LasZipItemCodec codec : codecs) {
+          context = codec.read(point, context);
+        }
+        points[i] = point;
+      }
+    }
+    return points;
+  }
+
+  private void decodeChunks() {
+    final AbstractDataReader reader = this.pointCloud.newLasReader();
+    try {
+      final ArithmeticDecoder decoder = new ArithmeticDecoder();
+      final LasZipHeader lasZipHeader = LasZipHeader.getLasZipHeader(this.pointCloud);
+      final LasZipItemCodec[] codecs = lasZipHeader.newLazCodecs(decoder);
+      final int chunkCount = this.chunkTable.getChunkCount();
+      while (!this.closed) {
+        this.permits.acquire();
+        final int chunkIndex = this.nextChunkIndex.getAndIncrement();
+        if (this.closed || chunkIndex >= chunkCount) {
+          this.permits.release();
+          return;
+        }
+        final LasPoint[] points = decodeChunk(reader, decoder, codecs, chunkIndex);
+        this.chunks.set(chunkIndex, points);
+        this.completedChunks.add(chunkIndex);
+      }
+    } catch (final InterruptedException e) {
+    } catch (final Throwable e) {
+      if (!this.closed) {
+        this.exception = e;
+        this.completedChunks.add(ERROR);
+      }
+    } finally {
+      BaseCloseable.closeSilent(reader);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return this.index < this.pointCount;
+  }
+
+  @Override
+  public Iterator<LasPoint> iterator() {
+    return this;
+  }
+
+  private LasPoint[] nextChunk() throws InterruptedException {
+    int chunkIndex;
+    if (this.ordered) {
+      chunkIndex = this.chunkIndex;
+      while (this.chunks.get(chunkIndex) == null) {
+        if (this.completedChunks.take() == ERROR) {
+          throw Exceptions.wrap("Error decompressing: " + this.pointCloud.getResource(),
+            this.exception);
+        }
+      }
+    } else {
+      chunkIndex = this.completedChunks.take();
+      if (chunkIndex == ERROR) {
+        throw Exceptions.wrap("Error decompressing: " + this.pointCloud.getResource(),
+          this.exception);
+      }
+    }
+    this.chunkIndex++;
+    final LasPoint[] points = this.chunks.getAndSet(chunkIndex, null);
+    this.permits.release();
+    return points;
+  }
+
+  @Override
+  protected LasPoint readNext() {
+    try {
+      while (this.chunkOffset >= this.chunk.length) {
+        this.chunk = nextChunk();
+        this.chunkOffset = 0;
+      }
+      return this.chunk[this.chunkOffset++];
+    } catch (final InterruptedException e) {
+      close();
+      throw Exceptions.toRuntimeException(e);
+    } catch (final RuntimeException | Error e) {
+      close();
+      throw e;
+    }
+  }
+}
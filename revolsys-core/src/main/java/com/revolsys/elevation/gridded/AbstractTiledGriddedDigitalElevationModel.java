@@ -1,20 +1,31 @@
 package com.revolsys.elevation.gridded;
 
-import java.util.Map;
-
-import com.revolsys.collection.map.LruMap;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.grid.AbstractGrid;
-import com.revolsys.util.IntPair;
+import com.revolsys.grid.GridTileCache;
 
 public abstract class AbstractTiledGriddedDigitalElevationModel extends AbstractGrid
   implements GriddedElevationModel {
 
+  /**
+   * The last tile used by a thread, so runs of cells in the same tile don't
+   * access the tile cache.
+   */
+  private static class LastTile {
+    private int tileIndexX;
+
+    private int tileIndexY;
+
+    private GriddedElevationModel model;
+  }
+
   protected int gridTileSize;
 
-  private final LruMap<IntPair, GriddedElevationModel> models = new LruMap<>(5000);
+  /** Replaced when the tiles are cleared so threads don't use the old tiles. */
+  private volatile ThreadLocal<LastTile> lastTile = ThreadLocal.withInitial(LastTile::new);
 
-  private final IntPair getKey = new IntPair();
+  private final GridTileCache<GriddedElevationModel> models = new GridTileCache<>(5000,
+    this::newTileModel);
 
   private final double tileWidth;
 
@@ -30,9 +41,8 @@ public abstract class AbstractTiledGriddedDigitalElevationModel extends Abstract
 
   @Override
   public void clear() {
-    synchronized (this.models) {
-      this.models.clear();
-    }
+    this.models.clear();
+    this.lastTile = ThreadLocal.withInitial(LastTile::new);
   }
 
   @Override
@@ -40,9 +50,7 @@ public abstract class AbstractTiledGriddedDigitalElevationModel extends Abstract
     try {
       closeDo();
     } finally {
-      synchronized (this.models) {
-        this.models.clear();
-      }
+      clear();
     }
   }
 
@@ -55,28 +63,41 @@ public abstract class AbstractTiledGriddedDigitalElevationModel extends Abstract
   }
 
   protected GriddedElevationModel getModel(final int gridX, final int gridY) {
-    GriddedElevationModel model;
-    final Map<IntPair, GriddedElevationModel> models = this.models;
-    final int tileIndexX = (int)Math.floor(gridX / this.tileWidth);
-    final int tileIndexY = (int)Math.floor(gridY / this.tileHeight);
-    synchronized (models) {
-      final IntPair getKey = this.getKey;
-      getKey.setValues(tileIndexX, tileIndexY);
-
-      model = models.get(getKey);
-      if (model == null) {
-        final double tileX = tileIndexX * this.tileWidth;
-        final double tileY = tileIndexY * this.tileHeight;
-        model = newModel(tileX, tileY);
-        models.put(getKey.clone(), model);
-      }
-    }
-    return model;
+    final int tileIndexX = getTileIndexX(gridX);
+    final int tileIndexY = getTileIndexY(gridY);
+    return this.models.getTile(tileIndexX, tileIndexY);
+  }
+
+  /**
+   * Get the cache of tile models. Can be used to get the hit, miss and eviction
+   * counts or to change the cache's maximum weight and weigher.
+   *
+   * @return The tile cache.
+   */
+  public GridTileCache<GriddedElevationModel> getTileCache() {
+    return this.models;
+  }
+
+  private int getTileIndexX(final int gridX) {
+    return (int)Math.floor(gridX / this.tileWidth);
+  }
+
+  private int getTileIndexY(final int gridY) {
+    return (int)Math.floor(gridY / this.tileHeight);
   }
 
   @Override
   public double getValueFast(final int gridX, final int gridY) {
-    final GriddedElevationModel model = getModel(gridX, gridY);
+    final int tileIndexX = getTileIndexX(gridX);
+    final int tileIndexY = getTileIndexY(gridY);
+    final LastTile lastTile = this.lastTile.get();
+    GriddedElevationModel model = lastTile.model;
+    if (model == null || lastTile.tileIndexX != tileIndexX || lastTile.tileIndexY != tileIndexY) {
+      model = this.models.getTile(tileIndexX, tileIndexY);
+      lastTile.tileIndexX = tileIndexX;
+      lastTile.tileIndexY = tileIndexY;
+      lastTile.model = model;
+    }
     if (model == null) {
       return Double.NaN;
     } else {
@@ -105,8 +126,14 @@ public abstract class AbstractTiledGriddedDigitalElevationModel extends Abstract
 
   protected abstract GriddedElevationModel newModel(double tileX, double tileY);
 
+  private GriddedElevationModel newTileModel(final int tileIndexX, final int tileIndexY) {
+    final double tileX = tileIndexX * this.tileWidth;
+    final double tileY = tileIndexY * this.tileHeight;
+    return newModel(tileX, tileY);
+  }
+
   public AbstractTiledGriddedDigitalElevationModel setCacheSize(final int cacheSize) {
-    this.models.setMaxSize(cacheSize);
+    this.models.setMaxWeight(cacheSize);
     return this;
   }
 
@@ -3,6 +3,7 @@ package com.revolsys.elevation.gridded;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.image.SampleModel;
 import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
@@ -13,6 +14,12 @@ import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.raster.AbstractGeoreferencedImage;
 
 public class GriddedElevationModelImage extends AbstractGeoreferencedImage {
+  /**
+   * Larger images that aren't cached use a buffer that calculates each pixel
+   * when it is read instead of allocating the whole image (64MB).
+   */
+  private static final long MAX_IN_MEMORY_PIXEL_COUNT = 4096L * 4096;
+
   private DataBuffer imageBuffer;
 
   private GriddedElevationModelRasterizer rasterizer;
@@ -64,9 +71,16 @@ public class GriddedElevationModelImage extends AbstractGeoreferencedImage {
         final int width = elevationModel.getGridWidth();
         final int height = elevationModel.getGridHeight();
         if (width > 0 && height > 0) {
+          final long pixelCount = (long)width * height;
+          if (pixelCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+              "Image " + width + "x" + height + " has more than " + Integer.MAX_VALUE + " pixels");
+          }
           final ColorModel colorModel = ColorModel.getRGBdefault();
           if (cached) {
             imageBuffer = new TempFileMappedIntDataBuffer(width, height);
+          } else if (pixelCount <= MAX_IN_MEMORY_PIXEL_COUNT) {
+            imageBuffer = new DataBufferInt((int)pixelCount);
           } else {
             imageBuffer = new GriddedElevationModelRasterizerDataBuffer(rasterizer);
           }
@@ -83,11 +97,11 @@ public class GriddedElevationModelImage extends AbstractGeoreferencedImage {
 
           setRenderedImage(image);
           this.imageBuffer = imageBuffer;
-          if (cached) {
+          if (!(imageBuffer instanceof GriddedElevationModelRasterizerDataBuffer)) {
             rasterizer.rasterize(imageBuffer);
           }
         }
-      } else if (cached) {
+      } else if (!(imageBuffer instanceof GriddedElevationModelRasterizerDataBuffer)) {
         rasterizer.rasterize(imageBuffer);
       }
     }
@@ -104,6 +118,11 @@ public class GriddedElevationModelImage extends AbstractGeoreferencedImage {
   }
 
   public void setElevationModel(final GriddedElevationModel elevationModel) {
+    synchronized (this) {
+      if (this.elevationModel != elevationModel) {
+        this.imageBuffer = null;
+      }
+    }
     this.elevationModel = elevationModel;
     this.rasterizer.setElevationModel(elevationModel);
     if (elevationModel != null) {
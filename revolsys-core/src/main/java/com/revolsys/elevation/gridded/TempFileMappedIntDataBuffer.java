@@ -28,7 +28,7 @@ public class TempFileMappedIntDataBuffer extends DataBuffer {
     try {
       this.channel = FileChannel.open(this.file.toPath(), Paths.OPEN_OPTIONS_READ_WRITE_SET,
         Paths.FILE_ATTRIBUTES_NONE);
-      this.byteBuffer = this.channel.map(MapMode.READ_WRITE, 0, size * 4);
+      this.byteBuffer = this.channel.map(MapMode.READ_WRITE, 0, size * 4L);
       this.intBuffer = this.byteBuffer.asIntBuffer();
     } catch (final IOException e) {
       throw Exceptions.toRuntimeException(e);
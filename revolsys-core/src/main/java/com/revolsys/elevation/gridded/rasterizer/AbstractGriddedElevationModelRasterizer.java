@@ -1,13 +1,22 @@
 package com.revolsys.elevation.gridded.rasterizer;
 
+import java.awt.image.DataBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
 import com.revolsys.collection.json.JsonObject;
 import com.revolsys.elevation.gridded.GriddedElevationModel;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.properties.BaseObjectWithPropertiesAndChange;
+import com.revolsys.util.concurrent.Concurrent;
 
 public abstract class AbstractGriddedElevationModelRasterizer
   extends BaseObjectWithPropertiesAndChange implements GriddedElevationModelRasterizer {
 
+  /** The number of image rows rasterized by each task. */
+  private static final int BAND_ROW_COUNT = 64;
+
   protected GriddedElevationModel elevationModel;
 
   protected double maxZ = Double.NaN;
@@ -73,6 +82,55 @@ public abstract class AbstractGriddedElevationModelRasterizer
     return this.width;
   }
 
+  /**
+   * Rasterize the elevation model into the image buffer. Rasters taller than
+   * {@link #BAND_ROW_COUNT} rows are split into bands of rows that are
+   * rasterized in parallel.
+   */
+  @Override
+  public void rasterize(final DataBuffer imageBuffer) {
+    final int height = this.height;
+    final int threadCount = Runtime.getRuntime()
+      .availableProcessors();
+    if (height <= BAND_ROW_COUNT || threadCount == 1) {
+      rasterizeRows(imageBuffer, 0, height);
+    } else {
+      final Semaphore semaphore = new Semaphore(threadCount);
+      final List<Integer> bandStartRows = new ArrayList<>();
+      for (int startRow = 0; startRow < height; startRow += BAND_ROW_COUNT) {
+        bandStartRows.add(startRow);
+      }
+      Concurrent.virtual("ElevationRasterizer-")
+        .parallel(parallel -> parallel.forkIterable(semaphore, bandStartRows, startRow -> {
+          final int endRow = Math.min(height, startRow + BAND_ROW_COUNT);
+          rasterizeRows(imageBuffer, startRow, endRow);
+        }));
+    }
+  }
+
+  /**
+   * Rasterize the image rows from startRow (inclusive) to endRow (exclusive).
+   * Image row 0 is the top row of the elevation model (gridY = height - 1).
+   * Different bands of rows may be rasterized at the same time by different
+   * threads.
+   *
+   * @param imageBuffer The buffer to write the pixels to.
+   * @param startRow The first image row.
+   * @param endRow The image row after the last row.
+   */
+  protected void rasterizeRows(final DataBuffer imageBuffer, final int startRow,
+    final int endRow) {
+    final int width = this.width;
+    int index = startRow * width;
+    for (int row = startRow; row < endRow; row++) {
+      final int gridY = this.height - 1 - row;
+      for (int gridX = 0; gridX < width; gridX++) {
+        final int value = getValue(gridX, gridY);
+        imageBuffer.setElem(index++, value);
+      }
+    }
+  }
+
   @Override
   public void setElevationModel(final GriddedElevationModel elevationModel) {
     this.elevationModel = elevationModel;
@@ -0,0 +1,199 @@
+package com.revolsys.elevation.gridded.rasterizer;
+
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+
+import com.revolsys.elevation.gridded.GriddedElevationModel;
+import com.revolsys.grid.Grid;
+
+/**
+ * <p>
+ * Base class for rasterizers that calculate the colour of a cell from the 3x3
+ * neighbourhood of cells around it.
+ * </p>
+ *
+ * <pre>
+ * a b c   (gridY + 1)
+ * d e f   (gridY)
+ * g h i   (gridY - 1)
+ * </pre>
+ *
+ * <p>
+ * Neighbours that are outside the grid or don't have a value are estimated
+ * from the other cells in the neighbourhood. The cell colour is null if e
+ * doesn't have a value.
+ * </p>
+ *
+ * <p>
+ * When rasterizing the whole grid the rows are streamed three at a time into
+ * arrays, so each cell is read from the elevation model once per band of rows
+ * instead of nine times.
+ * </p>
+ */
+public abstract class AbstractKernelGriddedElevationModelRasterizer
+  extends AbstractGriddedElevationModelRasterizer {
+
+  public AbstractKernelGriddedElevationModelRasterizer(final String type,
+    final String iconName) {
+    super(type, iconName);
+  }
+
+  /**
+   * Calculate the colour of cell e from its neighbourhood of cells. All the
+   * values are finite.
+   */
+  protected abstract int getKernelValue(double a, double b, double c, double d, double e,
+    double f, double g, double h, double i);
+
+  private int getValue(double a, double b, double c, double d, final double e, double f,
+    double g, double h, double i) {
+    if (!Double.isFinite(d)) {
+      if (Double.isFinite(f)) {
+        d = e - (f - e);
+      } else {
+        d = e;
+        f = e;
+      }
+    } else if (!Double.isFinite(f)) {
+      f = e;
+    }
+    if (!Double.isFinite(a)) {
+      if (Double.isFinite(g)) {
+        a = d - (g - d);
+      } else {
+        a = d;
+      }
+    }
+    if (!Double.isFinite(b)) {
+      if (Double.isFinite(h)) {
+        b = e - (h - e);
+      } else {
+        b = e;
+      }
+    }
+    if (!Double.isFinite(c)) {
+      if (Double.isFinite(i)) {
+        c = f - (i - f);
+      } else {
+        c = f;
+      }
+    }
+    if (!Double.isFinite(g)) {
+      g = d - (a - d);
+    }
+    if (!Double.isFinite(h)) {
+      h = e - (b - e);
+    }
+    if (!Double.isFinite(i)) {
+      i = f - (c - f);
+    }
+    return getKernelValue(a, b, c, d, e, f, g, h, i);
+  }
+
+  @Override
+  public int getValue(final int gridX, final int gridY) {
+    final GriddedElevationModel elevationModel = this.elevationModel;
+    final int width = this.width;
+    final int height = this.height;
+
+    double a = Double.NaN;
+    double b = Double.NaN;
+    double c = Double.NaN;
+    double d = Double.NaN;
+    final double e = elevationModel.getValueFast(gridX, gridY);
+    if (Double.isFinite(e)) {
+      double f = Double.NaN;
+      double g = Double.NaN;
+      double h = Double.NaN;
+      double i = Double.NaN;
+
+      final boolean firstX = gridX == 0;
+      final boolean firstY = gridY == 0;
+      final boolean lastX = gridX == width - 1;
+      final boolean lastY = gridY == height - 1;
+      final int gridX0 = gridX - 1;
+      final int gridX2 = gridX + 1;
+      if (!lastY) {
+        final int gridY2 = gridY + 1;
+        if (!firstX) {
+          a = elevationModel.getValueFast(gridX0, gridY2);
+        }
+        b = elevationModel.getValueFast(gridX, gridY2);
+        if (!lastX) {
+          c = elevationModel.getValueFast(gridX2, gridY2);
+        }
+      }
+      if (!firstX) {
+        d = elevationModel.getValueFast(gridX0, gridY);
+      }
+      if (!lastX) {
+        f = elevationModel.getValueFast(gridX2, gridY);
+      }
+      if (!firstY) {
+        final int gridY0 = gridY - 1;
+        if (!firstX) {
+          g = elevationModel.getValueFast(gridX0, gridY0);
+        }
+        h = elevationModel.getValueFast(gridX, gridY0);
+        if (!lastX) {
+          i = elevationModel.getValueFast(gridX2, gridY0);
+        }
+      }
+      return getValue(a, b, c, d, e, f, g, h, i);
+    } else {
+      return Grid.NULL_COLOUR;
+    }
+  }
+
+  @Override
+  protected void rasterizeRows(final DataBuffer imageBuffer, final int startRow,
+    final int endRow) {
+    final int width = this.width;
+    // The rows have an extra NaN cell before and after the grid cells
+    double[] rowAbove = new double[width + 2];
+    double[] row = new double[width + 2];
+    double[] rowBelow = new double[width + 2];
+    final int[] values = new int[width];
+
+    int gridY = this.height - 1 - startRow;
+    readRow(rowAbove, gridY + 1);
+    readRow(row, gridY);
+    int index = startRow * width;
+    for (int imageRow = startRow; imageRow < endRow; imageRow++) {
+      readRow(rowBelow, gridY - 1);
+      for (int gridX = 0; gridX < width; gridX++) {
+        final double e = row[gridX + 1];
+        if (Double.isFinite(e)) {
+          values[gridX] = getValue(rowAbove[gridX], rowAbove[gridX + 1], rowAbove[gridX + 2],
+            row[gridX], e, row[gridX + 2], rowBelow[gridX], rowBelow[gridX + 1],
+            rowBelow[gridX + 2]);
+        } else {
+          values[gridX] = Grid.NULL_COLOUR;
+        }
+      }
+      for (int gridX = 0; gridX < width; gridX++) {
+        imageBuffer.setElem(index++, values[gridX]);
+      }
+
+      final double[] nextRowBelow = rowAbove;
+      rowAbove = row;
+      row = rowBelow;
+      rowBelow = nextRowBelow;
+      gridY--;
+    }
+  }
+
+  private void readRow(final double[] values, final int gridY) {
+    if (gridY < 0 || gridY >= this.height) {
+      Arrays.fill(values, Double.NaN);
+    } else {
+      final GriddedElevationModel elevationModel = this.elevationModel;
+      final int width = this.width;
+      values[0] = Double.NaN;
+      for (int gridX = 0; gridX < width; gridX++) {
+        values[gridX + 1] = elevationModel.getValueFast(gridX, gridY);
+      }
+      values[width + 1] = Double.NaN;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.revolsys.elevation.gridded.rasterizer;
 
+import java.awt.image.DataBuffer;
 import java.util.Map;
 
 import com.revolsys.collection.json.JsonObject;
@@ -51,6 +52,26 @@ public class ColorGradientGriddedElevationModelRasterizer
 
   }
 
+  @Override
+  protected void rasterizeRows(final DataBuffer imageBuffer, final int startRow,
+    final int endRow) {
+    final GriddedElevationModel elevationModel = this.elevationModel;
+    final LinearGradient gradient = this.gradient;
+    final int width = this.width;
+    final double[] elevations = new double[width];
+    int index = startRow * width;
+    for (int row = startRow; row < endRow; row++) {
+      final int gridY = this.height - 1 - row;
+      for (int gridX = 0; gridX < width; gridX++) {
+        elevations[gridX] = elevationModel.getValueFast(gridX, gridY);
+      }
+      for (int gridX = 0; gridX < width; gridX++) {
+        final int value = gradient.getColorIntForValue(elevations[gridX]);
+        imageBuffer.setElem(index++, value);
+      }
+    }
+  }
+
   public void setGradient(final LinearGradient gradient) {
     this.gradient = gradient;
     updateValues();
@@ -0,0 +1,119 @@
+package com.revolsys.elevation.tin.quadedge.intscale;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * Calculate a biased randomized insertion order (BRIO) for the vertices of a
+ * Delaunay triangulation. The vertices are shuffled and split into rounds that
+ * double in size. The vertices within each round are sorted along a Hilbert
+ * curve.
+ * </p>
+ *
+ * <p>
+ * Consecutive vertices are close to each other so the locate walk from the
+ * last inserted vertex is short. The random rounds avoid the worst case of
+ * inserting long runs of collinear or sorted vertices.
+ * </p>
+ */
+public final class HilbertInsertionOrder {
+
+  /** The number of bits per axis of the Hilbert curve. */
+  private static final int HILBERT_ORDER = 16;
+
+  private static final int HILBERT_SIZE = 1 << HILBERT_ORDER;
+
+  /** Rounds smaller than this are not split into smaller rounds. */
+  private static final int MIN_ROUND_SIZE = 64;
+
+  private static final int PARALLEL_SORT_SIZE = 1 << 16;
+
+  /**
+   * Get the index of the cell along a Hilbert curve of 2^16 x 2^16 cells.
+   *
+   * @param x The x cell index (0..65535).
+   * @param y The y cell index (0..65535).
+   * @return The distance along the curve.
+   */
+  public static long hilbertIndex(int x, int y) {
+    long index = 0;
+    for (int size = HILBERT_SIZE >> 1; size > 0; size >>= 1) {
+      final int rx = (x & size) > 0 ? 1 : 0;
+      final int ry = (y & size) > 0 ? 1 : 0;
+      index += (long)size * size * (3 * rx ^ ry);
+      if (ry == 0) {
+        if (rx == 1) {
+          x = HILBERT_SIZE - 1 - x;
+          y = HILBERT_SIZE - 1 - y;
+        }
+        final int t = x;
+        x = y;
+        y = t;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Reorder the vertex indexes into a biased randomized insertion order.
+   *
+   * @param vertexIndexes The indexes of the vertices to reorder.
+   * @param count The number of vertex indexes.
+   * @param xs The x coordinates of all the vertices.
+   * @param ys The y coordinates of all the vertices.
+   */
+  public static void sort(final int[] vertexIndexes, final int count, final int[] xs,
+    final int[] ys) {
+    if (count > 1) {
+      int minX = Integer.MAX_VALUE;
+      int minY = Integer.MAX_VALUE;
+      int maxX = Integer.MIN_VALUE;
+      int maxY = Integer.MIN_VALUE;
+      for (int i = 0; i < count; i++) {
+        final int vertexIndex = vertexIndexes[i];
+        final int x = xs[vertexIndex];
+        final int y = ys[vertexIndex];
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+      final long size = Math.max(1, Math.max((long)maxX - minX, (long)maxY - minY));
+
+      // Fixed seed so the triangulation is the same each time
+      final Random random = new Random(count);
+      for (int i = count - 1; i > 0; i--) {
+        final int j = random.nextInt(i + 1);
+        final int t = vertexIndexes[i];
+        vertexIndexes[i] = vertexIndexes[j];
+        vertexIndexes[j] = t;
+      }
+
+      final long[] keys = new long[count];
+      int end = count;
+      while (end > 0) {
+        final int start = end > MIN_ROUND_SIZE ? end / 2 : 0;
+        for (int i = start; i < end; i++) {
+          final int vertexIndex = vertexIndexes[i];
+          final int cellX = (int)(((long)xs[vertexIndex] - minX) * (HILBERT_SIZE - 1) / size);
+          final int cellY = (int)(((long)ys[vertexIndex] - minY) * (HILBERT_SIZE - 1) / size);
+          // The curve index uses 32 bits and the vertex index 31 bits
+          keys[i] = hilbertIndex(cellX, cellY) << 31 | vertexIndex;
+        }
+        if (end - start > PARALLEL_SORT_SIZE) {
+          Arrays.parallelSort(keys, start, end);
+        } else {
+          Arrays.sort(keys, start, end);
+        }
+        for (int i = start; i < end; i++) {
+          vertexIndexes[i] = (int)(keys[i] & Integer.MAX_VALUE);
+        }
+        end = start;
+      }
+    }
+  }
+
+  private HilbertInsertionOrder() {
+  }
+}
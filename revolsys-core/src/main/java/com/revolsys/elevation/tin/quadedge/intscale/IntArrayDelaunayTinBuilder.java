@@ -0,0 +1,793 @@
+package com.revolsys.elevation.tin.quadedge.intscale;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import com.revolsys.elevation.tin.IntArrayScaleTriangulatedIrregularNetwork;
+import com.revolsys.elevation.tin.TinBuilder;
+import com.revolsys.elevation.tin.TriangleConsumer;
+import com.revolsys.elevation.tin.TriangulatedIrregularNetwork;
+import com.revolsys.elevation.tin.quadedge.QuadEdgeDelaunayTinBuilder;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Triangle;
+import com.revolsys.geometry.model.impl.PointDoubleXYZ;
+import com.revolsys.geometry.model.impl.TriangleDoubleXYZ;
+import com.revolsys.util.concurrent.Concurrent;
+
+/**
+ * <p>
+ * Create a Delaunay triangulation from a large number of points. The
+ * coordinates are stored as scaled ints in arrays and the triangulation uses
+ * the {@link IntArrayQuadEdgeSubdivision} with the vertices inserted in
+ * {@link HilbertInsertionOrder}.
+ * </p>
+ *
+ * <p>
+ * If there are more than 2 * {@link #getTilePointCount()} vertices the points
+ * are split into a grid of tiles that are triangulated in parallel. Each tile
+ * also includes the points within a buffer around the tile. A triangle from a
+ * tile is used if its circumcircle is inside the buffered tile, as there can't
+ * be another point in the circumcircle. Each triangle is only used by the tile
+ * that contains the centre of the circumcircle. The vertices of the other
+ * triangles are triangulated again and those triangles are used if there are
+ * no points in their circumcircle.
+ * </p>
+ *
+ * <p>
+ * The frame triangle must enclose the vertices using int coordinates, see
+ * {@link #isFrameSupported()}. If the extent of the scaled coordinates is too
+ * large {@link #newTriangulatedIrregularNetwork()} uses a
+ * {@link QuadEdgeDelaunayTinBuilder} instead and the other triangle methods
+ * throw an {@link IllegalArgumentException}.
+ * </p>
+ */
+public class IntArrayDelaunayTinBuilder implements TinBuilder {
+
+  private class TileGrid {
+    private final double originX;
+
+    private final double originY;
+
+    private final double tileWidth;
+
+    private final double tileHeight;
+
+    private final int tileCountX;
+
+    private final int tileCountY;
+
+    private final double buffer;
+
+    private final double certifyBuffer;
+
+    private TileGrid(final int tileCount) {
+      final double width = (double)IntArrayDelaunayTinBuilder.this.maxX
+        - IntArrayDelaunayTinBuilder.this.minX + 1;
+      final double height = (double)IntArrayDelaunayTinBuilder.this.maxY
+        - IntArrayDelaunayTinBuilder.this.minY + 1;
+      this.tileCountX = (int)Math.max(1,
+        Math.min(tileCount, Math.round(Math.sqrt(tileCount * width / height))));
+      this.tileCountY = Math.max(1, (tileCount + this.tileCountX - 1) / this.tileCountX);
+      this.originX = IntArrayDelaunayTinBuilder.this.minX - TILE_ORIGIN_OFFSET;
+      this.originY = IntArrayDelaunayTinBuilder.this.minY - TILE_ORIGIN_OFFSET;
+      this.tileWidth = (width + TILE_ORIGIN_OFFSET) / this.tileCountX;
+      this.tileHeight = (height + TILE_ORIGIN_OFFSET) / this.tileCountY;
+      final double spacing = Math
+        .sqrt(width * height / IntArrayDelaunayTinBuilder.this.vertexCount);
+      this.buffer = Math.min(TILE_BUFFER_SPACING_COUNT * spacing,
+        Math.min(this.tileWidth, this.tileHeight) / 2);
+      // Allow for the rounding of the circumcircle calculations
+      this.certifyBuffer = this.buffer * 0.999;
+    }
+
+    private int getTileCount() {
+      return this.tileCountX * this.tileCountY;
+    }
+
+    private int getTileIndex(final double x, final double y) {
+      return getTileY(y) * this.tileCountX + getTileX(x);
+    }
+
+    private int getTileX(final double x) {
+      final double tileX = Math.floor((x - this.originX) / this.tileWidth);
+      return (int)Math.max(0, Math.min(this.tileCountX - 1, tileX));
+    }
+
+    private int getTileY(final double y) {
+      final double tileY = Math.floor((y - this.originY) / this.tileHeight);
+      return (int)Math.max(0, Math.min(this.tileCountY - 1, tileY));
+    }
+
+    /**
+     * Check if the circle is inside the tile expanded by the certify buffer. The
+     * tiles on the edge of the grid extend to infinity as there are no points
+     * outside the grid.
+     */
+    private boolean isCircleInTile(final int tileIndex, final double[] circle) {
+      final int tileX = tileIndex % this.tileCountX;
+      final int tileY = tileIndex / this.tileCountX;
+      final double centreX = circle[0];
+      final double centreY = circle[1];
+      final double radius = circle[2];
+      if (tileX > 0) {
+        final double minX = this.originX + tileX * this.tileWidth - this.certifyBuffer;
+        if (centreX - radius < minX) {
+          return false;
+        }
+      }
+      if (tileX < this.tileCountX - 1) {
+        final double maxX = this.originX + (tileX + 1) * this.tileWidth + this.certifyBuffer;
+        if (centreX + radius > maxX) {
+          return false;
+        }
+      }
+      if (tileY > 0) {
+        final double minY = this.originY + tileY * this.tileHeight - this.certifyBuffer;
+        if (centreY - radius < minY) {
+          return false;
+        }
+      }
+      if (tileY < this.tileCountY - 1) {
+        final double maxY = this.originY + (tileY + 1) * this.tileHeight + this.certifyBuffer;
+        if (centreY + radius > maxY) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static class TriangleList implements TriangleVertexConsumer {
+    private int[] vertexIndexes;
+
+    private int size;
+
+    private TriangleList(final int capacity) {
+      this.vertexIndexes = new int[Math.max(16, capacity) * 3];
+    }
+
+    @Override
+    public void accept(final int vertexIndex1, final int vertexIndex2, final int vertexIndex3) {
+      if (this.size + 3 > this.vertexIndexes.length) {
+        this.vertexIndexes = Arrays.copyOf(this.vertexIndexes,
+          this.vertexIndexes.length + (this.vertexIndexes.length >> 1) + 3);
+      }
+      this.vertexIndexes[this.size++] = vertexIndex1;
+      this.vertexIndexes[this.size++] = vertexIndex2;
+      this.vertexIndexes[this.size++] = vertexIndex3;
+    }
+  }
+
+  /**
+   * A grid of cells containing all the vertices, used to check that there are
+   * no vertices inside a circumcircle.
+   */
+  private static class VertexGrid {
+    private final int[] xs;
+
+    private final int[] ys;
+
+    private final double minX;
+
+    private final double minY;
+
+    private final double cellSize;
+
+    private final int cellCountX;
+
+    private final int cellCountY;
+
+    private final int[] cellOffsets;
+
+    private final int[] cellVertexIndexes;
+
+    private VertexGrid(final int[] xs, final int[] ys, final int vertexCount, final int minX,
+      final int minY, final int maxX, final int maxY) {
+      this.xs = xs;
+      this.ys = ys;
+      this.minX = minX;
+      this.minY = minY;
+      final double width = (double)maxX - minX + 1;
+      final double height = (double)maxY - minY + 1;
+      // Average of 4 vertices per cell
+      this.cellSize = Math.max(1, 2 * Math.sqrt(width * height / vertexCount));
+      this.cellCountX = (int)Math.ceil(width / this.cellSize);
+      this.cellCountY = (int)Math.ceil(height / this.cellSize);
+      final int cellCount = this.cellCountX * this.cellCountY;
+      final int[] cellOffsets = new int[cellCount + 1];
+      final int[] cellIndexes = new int[vertexCount];
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        final int cellIndex = getCellY(ys[vertexIndex]) * this.cellCountX
+          + getCellX(xs[vertexIndex]);
+        cellIndexes[vertexIndex] = cellIndex;
+        cellOffsets[cellIndex + 1]++;
+      }
+      for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+        cellOffsets[cellIndex + 1] += cellOffsets[cellIndex];
+      }
+      final int[] cellSizes = new int[cellCount];
+      final int[] cellVertexIndexes = new int[vertexCount];
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        final int cellIndex = cellIndexes[vertexIndex];
+        cellVertexIndexes[cellOffsets[cellIndex] + cellSizes[cellIndex]++] = vertexIndex;
+      }
+      this.cellOffsets = cellOffsets;
+      this.cellVertexIndexes = cellVertexIndexes;
+    }
+
+    private int getCellX(final double x) {
+      final double cellX = Math.floor((x - this.minX) / this.cellSize);
+      return (int)Math.max(0, Math.min(this.cellCountX - 1, cellX));
+    }
+
+    private int getCellY(final double y) {
+      final double cellY = Math.floor((y - this.minY) / this.cellSize);
+      return (int)Math.max(0, Math.min(this.cellCountY - 1, cellY));
+    }
+
+    /**
+     * Check that there are no vertices inside the circumcircle of the CCW
+     * triangle. Only the cells in each row that overlap the circle are checked.
+     */
+    private boolean isCircleEmpty(final int vertexIndex1, final int vertexIndex2,
+      final int vertexIndex3, final double[] circle) {
+      final int[] xs = this.xs;
+      final int[] ys = this.ys;
+      final int x1 = xs[vertexIndex1];
+      final int y1 = ys[vertexIndex1];
+      final int x2 = xs[vertexIndex2];
+      final int y2 = ys[vertexIndex2];
+      final int x3 = xs[vertexIndex3];
+      final int y3 = ys[vertexIndex3];
+      final double centreX = circle[0];
+      final double centreY = circle[1];
+      // Expand the circle so the exact in circle test is used for the edge cases
+      final double radius = circle[2] * (1 + 1e-9) + 1;
+      final int minCellY = getCellY(centreY - radius);
+      final int maxCellY = getCellY(centreY + radius);
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        final double cellMinY = this.minY + cellY * this.cellSize;
+        final double cellMaxY = cellMinY + this.cellSize;
+        double deltaY = 0;
+        if (centreY < cellMinY) {
+          deltaY = cellMinY - centreY;
+        } else if (centreY > cellMaxY) {
+          deltaY = centreY - cellMaxY;
+        }
+        if (deltaY <= radius) {
+          final double halfWidth = Math.sqrt(radius * radius - deltaY * deltaY);
+          final int minCellX = getCellX(centreX - halfWidth);
+          final int maxCellX = getCellX(centreX + halfWidth);
+          final int rowOffset = cellY * this.cellCountX;
+          final int start = this.cellOffsets[rowOffset + minCellX];
+          final int end = this.cellOffsets[rowOffset + maxCellX + 1];
+          for (int i = start; i < end; i++) {
+            final int vertexIndex = this.cellVertexIndexes[i];
+            if (vertexIndex != vertexIndex1 && vertexIndex != vertexIndex2
+              && vertexIndex != vertexIndex3 && IntArrayQuadEdgeSubdivision.isInCircle(x1, y1, x2,
+                y2, x3, y3, xs[vertexIndex], ys[vertexIndex])) {
+              return false;
+            }
+          }
+        }
+      }
+      return true;
+    }
+  }
+
+  /** The width of the buffer around a tile as a multiple of the average point spacing. */
+  private static final double TILE_BUFFER_SPACING_COUNT = 16;
+
+  /** Offset the tile grid so points are less likely to be on the edge of a tile. */
+  private static final double TILE_ORIGIN_OFFSET = 0.3183098861837907;
+
+  private final GeometryFactory geometryFactory;
+
+  private final double scaleX;
+
+  private final double scaleY;
+
+  private final double scaleZ;
+
+  private int[] xs = new int[1024];
+
+  private int[] ys = new int[1024];
+
+  private int[] zs = new int[1024];
+
+  private int vertexCount;
+
+  private int minX = Integer.MAX_VALUE;
+
+  private int minY = Integer.MAX_VALUE;
+
+  private int maxX = Integer.MIN_VALUE;
+
+  private int maxY = Integer.MIN_VALUE;
+
+  private int tilePointCount = 1_000_000;
+
+  private int[] triangleVertexIndexes;
+
+  private int triangleCount;
+
+  public IntArrayDelaunayTinBuilder(final GeometryFactory geometryFactory) {
+    if (geometryFactory == null) {
+      throw new NullPointerException("A geometryFactory must be specified");
+    } else {
+      double scaleX = geometryFactory.getScaleX();
+      double scaleY = geometryFactory.getScaleY();
+      double scaleZ = geometryFactory.getScaleZ();
+      if (scaleX <= 0) {
+        if (geometryFactory.isGeographic()) {
+          scaleX = 10000000;
+        } else {
+          scaleX = 1000;
+        }
+      }
+      if (scaleY <= 0) {
+        if (geometryFactory.isGeographic()) {
+          scaleY = 10000000;
+        } else {
+          scaleY = 1000;
+        }
+      }
+      if (scaleZ <= 0) {
+        scaleZ = 1000;
+      }
+      this.scaleX = scaleX;
+      this.scaleY = scaleY;
+      this.scaleZ = scaleZ;
+      this.geometryFactory = geometryFactory.convertAxisCountAndScales(3, scaleX, scaleY,
+        scaleZ);
+    }
+  }
+
+  public void buildTin() {
+    if (this.triangleVertexIndexes == null) {
+      if (!isFrameSupported()) {
+        throw new IllegalArgumentException("The extent " + getBoundingBox()
+          + " is too large for the int coordinates, use QuadEdgeDelaunayTinBuilder");
+      }
+      final TriangleList triangles;
+      if (this.vertexCount < 3) {
+        triangles = new TriangleList(0);
+      } else if (this.vertexCount < 2L * this.tilePointCount) {
+        final int[] vertexIndexes = new int[this.vertexCount];
+        for (int i = 0; i < vertexIndexes.length; i++) {
+          vertexIndexes[i] = i;
+        }
+        final IntArrayQuadEdgeSubdivision subdivision = newSubdivision(vertexIndexes,
+          vertexIndexes.length);
+        triangles = new TriangleList(this.vertexCount * 2);
+        subdivision.forEachTriangle(triangles);
+      } else {
+        triangles = buildTinTiles();
+      }
+      this.triangleCount = triangles.size / 3;
+      this.triangleVertexIndexes = triangles.vertexIndexes;
+    }
+  }
+
+  /**
+   * Triangulate the vertices of the tile triangles that could not be used and
+   * add the triangles that are not in a tile's triangles and don't have any
+   * vertices in their circumcircle.
+   */
+  private void buildTinSeam(final TileGrid grid, final byte[] seamVertices,
+    final int seamVertexCount, final TriangleList triangles) {
+    if (seamVertexCount >= 3) {
+      final int vertexCount = this.vertexCount;
+      final int[] vertexIndexes = new int[seamVertexCount];
+      int count = 0;
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        if (seamVertices[vertexIndex] != 0) {
+          vertexIndexes[count++] = vertexIndex;
+        }
+      }
+      final IntArrayQuadEdgeSubdivision subdivision = newSubdivision(vertexIndexes, count);
+      final VertexGrid vertexGrid = new VertexGrid(this.xs, this.ys, vertexCount, this.minX,
+        this.minY, this.maxX, this.maxY);
+      final double[] circle = new double[3];
+      subdivision.forEachTriangle((vertexIndex1, vertexIndex2, vertexIndex3) -> {
+        if (getCircumcircle(vertexIndex1, vertexIndex2, vertexIndex3, circle)) {
+          final int ownerTileIndex = grid.getTileIndex(circle[0], circle[1]);
+          if (!grid.isCircleInTile(ownerTileIndex, circle)
+            && vertexGrid.isCircleEmpty(vertexIndex1, vertexIndex2, vertexIndex3, circle)) {
+            triangles.accept(vertexIndex1, vertexIndex2, vertexIndex3);
+          }
+        }
+      });
+    }
+  }
+
+  private TriangleList buildTinTile(final TileGrid grid, final int tileIndex,
+    final int[] vertexIndexes, final int count, final byte[] seamVertices) {
+    final IntArrayQuadEdgeSubdivision subdivision = newSubdivision(vertexIndexes, count);
+    final TriangleList triangles = new TriangleList(count * 2);
+    final double[] circle = new double[3];
+    subdivision.forEachTriangle((vertexIndex1, vertexIndex2, vertexIndex3) -> {
+      boolean seam = true;
+      if (vertexIndex1 >= 0 && vertexIndex2 >= 0 && vertexIndex3 >= 0) {
+        if (getCircumcircle(vertexIndex1, vertexIndex2, vertexIndex3, circle)
+          && grid.isCircleInTile(tileIndex, circle)) {
+          final int ownerTileIndex = grid.getTileIndex(circle[0], circle[1]);
+          if (grid.isCircleInTile(ownerTileIndex, circle)) {
+            seam = false;
+            if (ownerTileIndex == tileIndex) {
+              triangles.accept(vertexIndex1, vertexIndex2, vertexIndex3);
+            }
+          }
+        }
+      }
+      if (seam) {
+        // The triangle may not be in the final triangulation so the vertices
+        // in this tile must be triangulated again
+        setSeamVertex(grid, tileIndex, vertexIndex1, seamVertices);
+        setSeamVertex(grid, tileIndex, vertexIndex2, seamVertices);
+        setSeamVertex(grid, tileIndex, vertexIndex3, seamVertices);
+      }
+    }, true);
+    return triangles;
+  }
+
+  private TriangleList buildTinTiles() {
+    final int vertexCount = this.vertexCount;
+    final int targetTileCount = (int)((vertexCount + this.tilePointCount - 1L)
+      / this.tilePointCount);
+    final TileGrid grid = new TileGrid(targetTileCount);
+    final int tileCount = grid.getTileCount();
+
+    // Index the vertices in each buffered tile
+    final int[] tileOffsets = new int[tileCount + 1];
+    indexTileVertices(grid, tileOffsets, null);
+    for (int tileIndex = 0; tileIndex < tileCount; tileIndex++) {
+      tileOffsets[tileIndex + 1] += tileOffsets[tileIndex];
+    }
+    final int[] tileVertexIndexes = new int[tileOffsets[tileCount]];
+    indexTileVertices(grid, tileOffsets, tileVertexIndexes);
+
+    final TriangleList[] tileTriangles = new TriangleList[tileCount];
+    final byte[] seamVertices = new byte[vertexCount];
+    final List<Integer> tileIndexes = new ArrayList<>(tileCount);
+    for (int tileIndex = 0; tileIndex < tileCount; tileIndex++) {
+      tileIndexes.add(tileIndex);
+    }
+    final Semaphore semaphore = new Semaphore(Runtime.getRuntime()
+      .availableProcessors());
+    Concurrent.virtual("TinBuilder-")
+      .parallel(parallel -> parallel.forkIterable(semaphore, tileIndexes, tileIndex -> {
+        final int start = tileOffsets[tileIndex];
+        final int end = tileOffsets[tileIndex + 1];
+        final int[] vertexIndexes = Arrays.copyOfRange(tileVertexIndexes, start, end);
+        tileTriangles[tileIndex] = buildTinTile(grid, tileIndex, vertexIndexes,
+          vertexIndexes.length, seamVertices);
+      }));
+
+    int seamVertexCount = 0;
+    int triangleCount = 0;
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      if (seamVertices[vertexIndex] != 0) {
+        seamVertexCount++;
+      }
+    }
+    for (final TriangleList triangles : tileTriangles) {
+      triangleCount += triangles.size / 3;
+    }
+    final TriangleList triangles = new TriangleList(triangleCount + seamVertexCount * 2);
+    for (final TriangleList tile : tileTriangles) {
+      System.arraycopy(tile.vertexIndexes, 0, triangles.vertexIndexes, triangles.size, tile.size);
+      triangles.size += tile.size;
+    }
+    buildTinSeam(grid, seamVertices, seamVertexCount, triangles);
+    return triangles;
+  }
+
+  @Override
+  public void forEachTriangle(final Consumer<? super Triangle> action) {
+    forEachTriangle((x1, y1, z1, x2, y2, z2, x3, y3, z3) -> {
+      final Triangle triangle = new TriangleDoubleXYZ(x1, y1, z1, x2, y2, z2, x3, y3, z3);
+      action.accept(triangle);
+    });
+  }
+
+  @Override
+  public void forEachTriangle(final TriangleConsumer action) {
+    final double scaleX = this.scaleX;
+    final double scaleY = this.scaleY;
+    final double scaleZ = this.scaleZ;
+    final int[] xs = this.xs;
+    final int[] ys = this.ys;
+    final int[] zs = this.zs;
+    forEachTriangleVertex((vertexIndex1, vertexIndex2, vertexIndex3) -> {
+      action.accept(xs[vertexIndex1] / scaleX, ys[vertexIndex1] / scaleY,
+        zs[vertexIndex1] / scaleZ, xs[vertexIndex2] / scaleX, ys[vertexIndex2] / scaleY,
+        zs[vertexIndex2] / scaleZ, xs[vertexIndex3] / scaleX, ys[vertexIndex3] / scaleY,
+        zs[vertexIndex3] / scaleZ);
+    });
+  }
+
+  /**
+   * Visit the vertex indexes of each triangle. The indexes are in the order
+   * the vertices were inserted.
+   *
+   * @param action The action to call with the CCW vertex indexes of the
+   *          triangle.
+   */
+  public void forEachTriangleVertex(final TriangleVertexConsumer action) {
+    buildTin();
+    final int[] triangleVertexIndexes = this.triangleVertexIndexes;
+    final int coordinateCount = this.triangleCount * 3;
+    for (int i = 0; i < coordinateCount;) {
+      action.accept(triangleVertexIndexes[i++], triangleVertexIndexes[i++],
+        triangleVertexIndexes[i++]);
+    }
+  }
+
+  @Override
+  public void forEachVertex(final Consumer<Point> action) {
+    for (int vertexIndex = 0; vertexIndex < this.vertexCount; vertexIndex++) {
+      final Point point = newVertex(vertexIndex);
+      action.accept(point);
+    }
+  }
+
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (this.vertexCount == 0) {
+      return this.geometryFactory.bboxEmpty();
+    } else {
+      return this.geometryFactory.newBoundingBox(2, this.minX / this.scaleX,
+        this.minY / this.scaleY, this.maxX / this.scaleX, this.maxY / this.scaleY);
+    }
+  }
+
+  /**
+   * Calculate the circumcircle of the triangle. The vertices are always used in
+   * the same order so that each tile calculates exactly the same circle.
+   *
+   * @return False if the vertices are collinear.
+   */
+  private boolean getCircumcircle(final int vertexIndex1, final int vertexIndex2,
+    final int vertexIndex3, final double[] circle) {
+    final int vertexIndexA = Math.min(vertexIndex1, Math.min(vertexIndex2, vertexIndex3));
+    final int vertexIndexC = Math.max(vertexIndex1, Math.max(vertexIndex2, vertexIndex3));
+    final int vertexIndexB = vertexIndex1 + vertexIndex2 + vertexIndex3 - vertexIndexA
+      - vertexIndexC;
+    final int[] xs = this.xs;
+    final int[] ys = this.ys;
+    final int ax = xs[vertexIndexA];
+    final int ay = ys[vertexIndexA];
+    final double bx = (double)xs[vertexIndexB] - ax;
+    final double by = (double)ys[vertexIndexB] - ay;
+    final double cx = (double)xs[vertexIndexC] - ax;
+    final double cy = (double)ys[vertexIndexC] - ay;
+    final double d = 2 * (bx * cy - by * cx);
+    if (d == 0) {
+      return false;
+    } else {
+      final double b2 = bx * bx + by * by;
+      final double c2 = cx * cx + cy * cy;
+      final double ux = (cy * b2 - by * c2) / d;
+      final double uy = (bx * c2 - cx * b2) / d;
+      circle[0] = ax + ux;
+      circle[1] = ay + uy;
+      circle[2] = Math.sqrt(ux * ux + uy * uy);
+      return Double.isFinite(circle[2]);
+    }
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  /**
+   * Get the target number of points in each tile that is triangulated in
+   * parallel.
+   *
+   * @return The number of points.
+   */
+  public int getTilePointCount() {
+    return this.tilePointCount;
+  }
+
+  @Override
+  public int getTriangleCount() {
+    buildTin();
+    return this.triangleCount;
+  }
+
+  @Override
+  public int getVertexCount() {
+    return this.vertexCount;
+  }
+
+  /**
+   * Count the vertices in each buffered tile, or if tileVertexIndexes is not
+   * null add the vertex indexes using the tile offsets from the count.
+   */
+  private void indexTileVertices(final TileGrid grid, final int[] tileOffsets,
+    final int[] tileVertexIndexes) {
+    final int[] xs = this.xs;
+    final int[] ys = this.ys;
+    final double buffer = grid.buffer;
+    final int[] tileSizes = new int[tileOffsets.length - 1];
+    for (int vertexIndex = 0; vertexIndex < this.vertexCount; vertexIndex++) {
+      final int x = xs[vertexIndex];
+      final int y = ys[vertexIndex];
+      final int minTileX = grid.getTileX(x - buffer);
+      final int maxTileX = grid.getTileX(x + buffer);
+      final int minTileY = grid.getTileY(y - buffer);
+      final int maxTileY = grid.getTileY(y + buffer);
+      for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+        for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+          final int tileIndex = tileY * grid.tileCountX + tileX;
+          if (tileVertexIndexes == null) {
+            tileOffsets[tileIndex + 1]++;
+          } else {
+            tileVertexIndexes[tileOffsets[tileIndex] + tileSizes[tileIndex]++] = vertexIndex;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Insert the vertex and return it as a new point for the {@link TinBuilder}
+   * interface. Use {@link #insertVertexInt(int, int, int)} or
+   * {@link #insertVertex(Point)} to insert many vertices without creating a
+   * point for each vertex.
+   */
+  @Override
+  public Point insertVertex(final double x, final double y, final double z) {
+    final int xInt = toInt(x, this.scaleX);
+    final int yInt = toInt(y, this.scaleY);
+    final int zInt = toInt(z, this.scaleZ);
+    insertVertexInt(xInt, yInt, zInt);
+    return newVertex(this.vertexCount - 1);
+  }
+
+  @Override
+  public void insertVertex(final Point point) {
+    // The point is only converted if it is in a different coordinate system
+    final Point convertedPoint = point.convertPoint2d(this.geometryFactory);
+    final int x = toInt(convertedPoint.getX(), this.scaleX);
+    final int y = toInt(convertedPoint.getY(), this.scaleY);
+    final int z = toInt(point.getZ(), this.scaleZ);
+    insertVertexInt(x, y, z);
+  }
+
+  /**
+   * Insert a vertex using the coordinates already scaled to ints using the
+   * scales of the {@link #getGeometryFactory()}.
+   *
+   * @param x The x coordinate.
+   * @param y The y coordinate.
+   * @param z The z coordinate.
+   */
+  public void insertVertexInt(final int x, final int y, final int z) {
+    final int vertexIndex = this.vertexCount;
+    if (vertexIndex == this.xs.length) {
+      final int capacity = vertexIndex + (vertexIndex >> 1);
+      this.xs = Arrays.copyOf(this.xs, capacity);
+      this.ys = Arrays.copyOf(this.ys, capacity);
+      this.zs = Arrays.copyOf(this.zs, capacity);
+    }
+    this.xs[vertexIndex] = x;
+    this.ys[vertexIndex] = y;
+    this.zs[vertexIndex] = z;
+    this.vertexCount++;
+    if (x < this.minX) {
+      this.minX = x;
+    }
+    if (x > this.maxX) {
+      this.maxX = x;
+    }
+    if (y < this.minY) {
+      this.minY = y;
+    }
+    if (y > this.maxY) {
+      this.maxY = y;
+    }
+    this.triangleVertexIndexes = null;
+    this.triangleCount = 0;
+  }
+
+  /**
+   * Check if the frame triangle can enclose the vertices using int
+   * coordinates. The scaled width and height must be less than 2^29.
+   *
+   * @return True if the vertices can be triangulated.
+   */
+  public boolean isFrameSupported() {
+    return this.vertexCount == 0 || IntArrayQuadEdgeSubdivision.isFrameSupported(this.minX,
+      this.minY, this.maxX, this.maxY);
+  }
+
+  /**
+   * Triangulate the vertices. All the subdivisions use the same frame so that
+   * the tile and seam triangles are the same as triangulating all the vertices
+   * at once.
+   */
+  private IntArrayQuadEdgeSubdivision newSubdivision(final int[] vertexIndexes, final int count) {
+    HilbertInsertionOrder.sort(vertexIndexes, count, this.xs, this.ys);
+    final IntArrayQuadEdgeSubdivision subdivision = new IntArrayQuadEdgeSubdivision(this.xs,
+      this.ys, this.minX, this.minY, this.maxX, this.maxY, count);
+    subdivision.insertVertices(vertexIndexes, count);
+    return subdivision;
+  }
+
+  @Override
+  public TriangulatedIrregularNetwork newTriangulatedIrregularNetwork() {
+    if (!isFrameSupported()) {
+      final QuadEdgeDelaunayTinBuilder tinBuilder = new QuadEdgeDelaunayTinBuilder(
+        this.geometryFactory);
+      forEachVertex(tinBuilder::insertVertex);
+      return tinBuilder.newTriangulatedIrregularNetwork();
+    }
+    buildTin();
+    final BoundingBox boundingBox = getBoundingBox();
+    final int triangleCount = this.triangleCount;
+    final int[] triangleXCoordinates = new int[triangleCount * 3];
+    final int[] triangleYCoordinates = new int[triangleCount * 3];
+    final int[] triangleZCoordinates = new int[triangleCount * 3];
+    final int[] triangleVertexIndexes = this.triangleVertexIndexes;
+    for (int i = 0; i < triangleXCoordinates.length; i++) {
+      final int vertexIndex = triangleVertexIndexes[i];
+      triangleXCoordinates[i] = this.xs[vertexIndex];
+      triangleYCoordinates[i] = this.ys[vertexIndex];
+      triangleZCoordinates[i] = this.zs[vertexIndex];
+    }
+    return new IntArrayScaleTriangulatedIrregularNetwork(this.geometryFactory, boundingBox,
+      triangleCount, triangleXCoordinates, triangleYCoordinates, triangleZCoordinates);
+  }
+
+  private Point newVertex(final int vertexIndex) {
+    final double x = this.xs[vertexIndex] / this.scaleX;
+    final double y = this.ys[vertexIndex] / this.scaleY;
+    final double z = this.zs[vertexIndex] / this.scaleZ;
+    return new PointDoubleXYZ(x, y, z);
+  }
+
+  /**
+   * Mark the vertex to be triangulated again if it is inside the tile (not the
+   * buffer). Only one tile sets the value for each vertex.
+   */
+  private void setSeamVertex(final TileGrid grid, final int tileIndex, final int vertexIndex,
+    final byte[] seamVertices) {
+    if (vertexIndex >= 0
+      && grid.getTileIndex(this.xs[vertexIndex], this.ys[vertexIndex]) == tileIndex) {
+      seamVertices[vertexIndex] = 1;
+    }
+  }
+
+  /**
+   * Set the target number of points in each tile that is triangulated in
+   * parallel.
+   *
+   * @param tilePointCount The number of points.
+   */
+  public void setTilePointCount(final int tilePointCount) {
+    if (tilePointCount < 1) {
+      throw new IllegalArgumentException("tilePointCount must be > 0");
+    }
+    this.tilePointCount = tilePointCount;
+    this.triangleVertexIndexes = null;
+    this.triangleCount = 0;
+  }
+
+  private int toInt(final double value, final double scale) {
+    final long scaledValue = Math.round(value * scale);
+    if (scaledValue < Integer.MIN_VALUE || scaledValue > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "Coordinate " + value + " * scale " + scale + " is outside the int range");
+    }
+    return (int)scaledValue;
+  }
+}
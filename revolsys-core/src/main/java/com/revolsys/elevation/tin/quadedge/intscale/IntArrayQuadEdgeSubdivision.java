@@ -0,0 +1,491 @@
+package com.revolsys.elevation.tin.quadedge.intscale;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A Delaunay triangulation of integer coordinates that stores the quad-edge
+ * structure in primitive int arrays instead of a {@link QuadEdge} object for
+ * each edge.
+ * </p>
+ *
+ * <p>
+ * Each quad-edge uses 4 consecutive edge ids (edge = quadIndex * 4 + rotation).
+ * The {@link #next} array contains the next CCW edge around the origin of each
+ * edge and {@link #edgeVertices} contains the origin vertex of the primal edges
+ * (rotation 0 and 2). The vertices are indexes into the x, y coordinate arrays
+ * shared by all the subdivisions of a TIN builder. The frame vertices that
+ * surround the triangulation use the negative indexes -1, -2 and -3.
+ * </p>
+ *
+ * <p>
+ * The insertion algorithm is based on Guibas and Stolfi (1985) and the JTS
+ * {@link QuadEdgeSubdivision}. If a vertex is inserted more than once at the
+ * same x, y the vertex with the lowest index is kept.
+ * </p>
+ */
+public class IntArrayQuadEdgeSubdivision {
+
+  private static final int DELETED = Integer.MIN_VALUE;
+
+  /**
+   * Get the distance from the bounds to the frame vertices. Use a large frame
+   * so fewer triangles on the convex hull are replaced by frame triangles, but
+   * small enough that the frame coordinates are ints and the orientation tests
+   * can't overflow.
+   */
+  private static long getFrameOffset(final int minX, final int minY, final int maxX,
+    final int maxY) {
+    final long size = getFrameSize(minX, minY, maxX, maxY);
+    long offset = (1L << 30) - size;
+    offset = Math.min(offset, (long)minX - Integer.MIN_VALUE);
+    offset = Math.min(offset, (long)minY - Integer.MIN_VALUE);
+    offset = Math.min(offset, Integer.MAX_VALUE - (long)maxX);
+    offset = Math.min(offset, Integer.MAX_VALUE - (long)maxY);
+    return offset;
+  }
+
+  private static long getFrameSize(final int minX, final int minY, final int maxX,
+    final int maxY) {
+    final long width = (long)maxX - minX;
+    final long height = (long)maxY - minY;
+    return Math.max(1, Math.max(width, height));
+  }
+
+  private static int invRot(final int edge) {
+    return edge & ~3 | edge + 3 & 3;
+  }
+
+  /**
+   * Check if the frame triangle can enclose the bounds. The frame vertices
+   * must be at least the width or height of the bounds from the bounds, so the
+   * width and height must be less than 2^29 and the bounds must not be too
+   * close to the int limits.
+   *
+   * @param minX The minimum x of the vertices that will be inserted.
+   * @param minY The minimum y of the vertices that will be inserted.
+   * @param maxX The maximum x of the vertices that will be inserted.
+   * @param maxY The maximum y of the vertices that will be inserted.
+   * @return True if the frame encloses the bounds.
+   */
+  public static boolean isFrameSupported(final int minX, final int minY, final int maxX,
+    final int maxY) {
+    return getFrameOffset(minX, minY, maxX, maxY) >= getFrameSize(minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Check if the point is inside the circumcircle of the CCW triangle a, b, c.
+   */
+  public static boolean isInCircle(final int ax, final int ay, final int bx, final int by,
+    final int cx, final int cy, final int x, final int y) {
+    final long deltaX1 = (long)ax - x;
+    final long deltaY1 = (long)ay - y;
+    final long deltaX2 = (long)bx - x;
+    final long deltaY2 = (long)by - y;
+    final long deltaX3 = (long)cx - x;
+    final long deltaY3 = (long)cy - y;
+
+    final double abdet = (double)deltaX1 * deltaY2 - (double)deltaX2 * deltaY1;
+    final double bcdet = (double)deltaX2 * deltaY3 - (double)deltaX3 * deltaY2;
+    final double cadet = (double)deltaX3 * deltaY1 - (double)deltaX1 * deltaY3;
+    final double alift = (double)deltaX1 * deltaX1 + (double)deltaY1 * deltaY1;
+    final double blift = (double)deltaX2 * deltaX2 + (double)deltaY2 * deltaY2;
+    final double clift = (double)deltaX3 * deltaX3 + (double)deltaY3 * deltaY3;
+
+    final double disc = alift * bcdet + blift * cadet + clift * abdet;
+    return disc > 0;
+  }
+
+  /**
+   * Get the orientation of the point relative to the line from x1, y1 to x2,
+   * y2.
+   *
+   * @return > 0 if the point is to the left, < 0 if it is to the right and 0 if
+   *         it is on the line.
+   */
+  private static long orientation(final int x1, final int y1, final int x2, final int y2,
+    final int x, final int y) {
+    final long deltaX1 = (long)x1 - x;
+    final long deltaY1 = (long)y1 - y;
+    final long deltaX2 = (long)x2 - x;
+    final long deltaY2 = (long)y2 - y;
+    return deltaX1 * deltaY2 - deltaY1 * deltaX2;
+  }
+
+  private static int rot(final int edge) {
+    return edge & ~3 | edge + 1 & 3;
+  }
+
+  private static int sym(final int edge) {
+    return edge ^ 2;
+  }
+
+  private final int[] xs;
+
+  private final int[] ys;
+
+  private final int[] frameXs = new int[3];
+
+  private final int[] frameYs = new int[3];
+
+  private int[] next;
+
+  private int[] edgeVertices;
+
+  private int quadCount;
+
+  private int freeQuadIndex = -1;
+
+  private int edgeCount;
+
+  private int lastEdge;
+
+  /**
+   * Create a new subdivision with a frame triangle that surrounds the bounds.
+   *
+   * @param xs The x coordinates of the vertices.
+   * @param ys The y coordinates of the vertices.
+   * @param minX The minimum x of the vertices that will be inserted.
+   * @param minY The minimum y of the vertices that will be inserted.
+   * @param maxX The maximum x of the vertices that will be inserted.
+   * @param maxY The maximum y of the vertices that will be inserted.
+   * @param vertexCapacity The expected number of vertices.
+   * @throws IllegalArgumentException If the frame can't enclose the bounds. See
+   *           {@link #isFrameSupported(int, int, int, int)}.
+   */
+  public IntArrayQuadEdgeSubdivision(final int[] xs, final int[] ys, final int minX,
+    final int minY, final int maxX, final int maxY, final int vertexCapacity) {
+    final long offset = getFrameOffset(minX, minY, maxX, maxY);
+    if (offset < getFrameSize(minX, minY, maxX, maxY)) {
+      throw new IllegalArgumentException("The bounds " + minX + "," + minY + " " + maxX + ","
+        + maxY + " are too large or too close to the int limits for the frame triangle");
+    }
+    this.xs = xs;
+    this.ys = ys;
+    final int quadCapacity = 3 * Math.max(vertexCapacity, 16) + 3;
+    this.next = new int[quadCapacity * 4];
+    this.edgeVertices = new int[quadCapacity * 2];
+
+    final long width = (long)maxX - minX;
+    setFrameVertex(0, minX + width / 2, maxY + offset);
+    setFrameVertex(1, minX - offset, minY - offset);
+    setFrameVertex(2, maxX + offset, minY - offset);
+
+    final int edge1 = makeEdge(-1, -2);
+    final int edge2 = makeEdge(-2, -3);
+    splice(sym(edge1), edge2);
+    final int edge3 = makeEdge(-3, -1);
+    splice(sym(edge2), edge3);
+    splice(sym(edge3), edge1);
+    this.lastEdge = edge1;
+  }
+
+  /**
+   * Connect the destination of edge to the origin of startEdge, and around the
+   * face until the new vertex is connected to all the vertices of the
+   * containing polygon.
+   */
+  private int connectEdges(int edge, final int startEdge) {
+    int base = startEdge;
+    do {
+      final int edge2 = sym(base);
+      base = makeEdge(getToVertex(edge), getFromVertex(edge2));
+      splice(base, lNext(edge));
+      splice(sym(base), edge2);
+      edge = oPrev(base);
+    } while (lNext(edge) != startEdge);
+    return edge;
+  }
+
+  private void deleteEdge(final int edge) {
+    final int edgeSym = sym(edge);
+    if ((this.lastEdge & ~3) == (edge & ~3)) {
+      this.lastEdge = oPrev(edge);
+    }
+    splice(edge, oPrev(edge));
+    splice(edgeSym, oPrev(edgeSym));
+    this.edgeVertices[edge >> 1] = DELETED;
+    this.edgeVertices[edgeSym >> 1] = DELETED;
+    final int quadIndex = edge >> 2;
+    this.next[quadIndex << 2] = this.freeQuadIndex;
+    this.freeQuadIndex = quadIndex;
+    this.edgeCount--;
+  }
+
+  /**
+   * Locate an edge of the triangle that contains the point. The point is either
+   * on the edge, or inside the triangle to the left of the edge.
+   *
+   * @param x The point's x coordinate.
+   * @param y The point's y coordinate.
+   * @return The edge.
+   * @throws LocateFailureException if the location algorithm fails to converge
+   *           in a reasonable number of iterations
+   */
+  public int findEdge(final int x, final int y) {
+    int edge = this.lastEdge;
+    final int maxIterations = this.edgeCount + 3;
+    for (int iterationCount = 0; iterationCount < maxIterations; iterationCount++) {
+      final int fromVertex = getFromVertex(edge);
+      final int x1 = getX(fromVertex);
+      final int y1 = getY(fromVertex);
+      final int toVertex = getToVertex(edge);
+      final int x2 = getX(toVertex);
+      final int y2 = getY(toVertex);
+      if (x == x1 && y == y1 || x == x2 && y == y2) {
+        this.lastEdge = edge;
+        return edge;
+      } else if (orientation(x1, y1, x2, y2, x, y) < 0) {
+        edge = sym(edge);
+      } else {
+        final int fromNextEdge = this.next[edge];
+        final int fromNextVertex = getToVertex(fromNextEdge);
+        if (orientation(x1, y1, getX(fromNextVertex), getY(fromNextVertex), x, y) >= 0) {
+          edge = fromNextEdge;
+        } else {
+          final int toPreviousEdge = invRot(this.next[invRot(edge)]);
+          final int toPreviousVertex = getFromVertex(toPreviousEdge);
+          if (orientation(getX(toPreviousVertex), getY(toPreviousVertex), x2, y2, x, y) >= 0) {
+            edge = toPreviousEdge;
+          } else {
+            this.lastEdge = edge;
+            return edge;
+          }
+        }
+      }
+    }
+    throw new LocateFailureException("Locate failed to converge for POINT(" + x + " " + y
+      + ").  Possible causes include invalid Subdivision topology or very close sites");
+  }
+
+  /**
+   * Visit each triangle that doesn't include a frame vertex.
+   *
+   * @param action The action to call with the CCW vertex indexes of the
+   *          triangle.
+   */
+  public void forEachTriangle(final TriangleVertexConsumer action) {
+    forEachTriangle(action, false);
+  }
+
+  /**
+   * Visit each triangle. Frame vertices have a negative vertex index. The
+   * frame triangle and the face outside the frame are never included.
+   *
+   * @param action The action to call with the CCW vertex indexes of the
+   *          triangle.
+   * @param includeFrame True if the triangles with a frame vertex should be
+   *          included.
+   */
+  public void forEachTriangle(final TriangleVertexConsumer action, final boolean includeFrame) {
+    final int edgeLimit = this.quadCount << 2;
+    for (int edge = 0; edge < edgeLimit; edge += 2) {
+      final int vertex1 = this.edgeVertices[edge >> 1];
+      if (vertex1 != DELETED) {
+        final int edge2 = lNext(edge);
+        if (edge2 > edge) {
+          final int edge3 = lNext(edge2);
+          if (edge3 > edge && lNext(edge3) == edge) {
+            final int vertex2 = getFromVertex(edge2);
+            final int vertex3 = getFromVertex(edge3);
+            if (vertex1 >= 0 && vertex2 >= 0 && vertex3 >= 0) {
+              action.accept(vertex1, vertex2, vertex3);
+            } else if (includeFrame && (vertex1 >= 0 || vertex2 >= 0 || vertex3 >= 0)) {
+              action.accept(vertex1, vertex2, vertex3);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private int getFromVertex(final int edge) {
+    return this.edgeVertices[edge >> 1];
+  }
+
+  private int getToVertex(final int edge) {
+    return this.edgeVertices[sym(edge) >> 1];
+  }
+
+  public int getX(final int vertexIndex) {
+    if (vertexIndex >= 0) {
+      return this.xs[vertexIndex];
+    } else {
+      return this.frameXs[-1 - vertexIndex];
+    }
+  }
+
+  public int getY(final int vertexIndex) {
+    if (vertexIndex >= 0) {
+      return this.ys[vertexIndex];
+    } else {
+      return this.frameYs[-1 - vertexIndex];
+    }
+  }
+
+  /**
+   * Insert the vertex and fix the affected edges so that the result is still a
+   * Delaunay triangulation.
+   *
+   * @param vertexIndex The index of the vertex's coordinates.
+   * @throws LocateFailureException if the location algorithm fails to converge
+   *           in a reasonable number of iterations
+   */
+  public void insertVertex(final int vertexIndex) {
+    final int x = this.xs[vertexIndex];
+    final int y = this.ys[vertexIndex];
+    int edge = findEdge(x, y);
+
+    final int fromVertex = getFromVertex(edge);
+    final int x1 = getX(fromVertex);
+    final int y1 = getY(fromVertex);
+    if (x1 == x && y1 == y) {
+      replaceVertex(edge, vertexIndex);
+      return;
+    }
+    final int toVertex = getToVertex(edge);
+    final int x2 = getX(toVertex);
+    final int y2 = getY(toVertex);
+    if (x2 == x && y2 == y) {
+      replaceVertex(sym(edge), vertexIndex);
+      return;
+    }
+    if (orientation(x1, y1, x2, y2, x, y) == 0) {
+      // On the edge so replace it with edges to the vertices of the quadrilateral
+      edge = oPrev(edge);
+      deleteEdge(this.next[edge]);
+    }
+
+    final int startEdge = makeEdge(getFromVertex(edge), vertexIndex);
+    splice(startEdge, edge);
+    edge = connectEdges(edge, startEdge);
+    swapEdges(startEdge, edge, x, y);
+  }
+
+  /**
+   * Insert the vertices in the order they are in the array.
+   *
+   * @param vertexIndexes The indexes of the vertices.
+   * @param count The number of vertices to insert.
+   */
+  public void insertVertices(final int[] vertexIndexes, final int count) {
+    for (int i = 0; i < count; i++) {
+      insertVertex(vertexIndexes[i]);
+    }
+  }
+
+  private boolean isSwapRequired(final int edge, final int x, final int y) {
+    final int previousToVertex = getToVertex(oPrev(edge));
+    final int previousToX = getX(previousToVertex);
+    final int previousToY = getY(previousToVertex);
+
+    final int fromVertex = getFromVertex(edge);
+    final int fromX = getX(fromVertex);
+    final int fromY = getY(fromVertex);
+
+    final int toVertex = getToVertex(edge);
+    final int toX = getX(toVertex);
+    final int toY = getY(toVertex);
+
+    if (orientation(fromX, fromY, toX, toY, previousToX, previousToY) < 0) {
+      return isInCircle(fromX, fromY, previousToX, previousToY, toX, toY, x, y);
+    }
+    return false;
+  }
+
+  private int lNext(final int edge) {
+    return rot(this.next[invRot(edge)]);
+  }
+
+  private int makeEdge(final int fromVertex, final int toVertex) {
+    int quadIndex = this.freeQuadIndex;
+    if (quadIndex == -1) {
+      quadIndex = this.quadCount++;
+      if (quadIndex << 2 >= this.next.length) {
+        final int quadCapacity = quadIndex + (quadIndex >> 1) + 16;
+        this.next = Arrays.copyOf(this.next, quadCapacity * 4);
+        this.edgeVertices = Arrays.copyOf(this.edgeVertices, quadCapacity * 2);
+      }
+    } else {
+      this.freeQuadIndex = this.next[quadIndex << 2];
+    }
+    final int edge = quadIndex << 2;
+    final int[] next = this.next;
+    next[edge] = edge;
+    next[edge + 1] = edge + 3;
+    next[edge + 2] = edge + 2;
+    next[edge + 3] = edge + 1;
+    this.edgeVertices[edge >> 1] = fromVertex;
+    this.edgeVertices[(edge >> 1) + 1] = toVertex;
+    this.edgeCount++;
+    return edge;
+  }
+
+  private int oPrev(final int edge) {
+    return rot(this.next[rot(edge)]);
+  }
+
+  /**
+   * Replace the vertex at the origin of the edge if the vertex index is lower,
+   * so the same vertex is kept for duplicate points regardless of the order
+   * they were inserted.
+   */
+  private void replaceVertex(final int edge, final int vertexIndex) {
+    final int oldVertexIndex = getFromVertex(edge);
+    if (oldVertexIndex >= 0 && vertexIndex < oldVertexIndex) {
+      int currentEdge = edge;
+      do {
+        this.edgeVertices[currentEdge >> 1] = vertexIndex;
+        currentEdge = this.next[currentEdge];
+      } while (currentEdge != edge);
+    }
+  }
+
+  private void setFrameVertex(final int index, final long x, final long y) {
+    this.frameXs[index] = (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, x));
+    this.frameYs[index] = (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, y));
+  }
+
+  private void splice(final int edge1, final int edge2) {
+    final int[] next = this.next;
+    final int alpha = rot(next[edge1]);
+    final int beta = rot(next[edge2]);
+    final int fromNextEdge1 = next[edge1];
+    final int fromNextEdge2 = next[edge2];
+    final int alphaNext = next[alpha];
+    final int betaNext = next[beta];
+    next[edge1] = fromNextEdge2;
+    next[edge2] = fromNextEdge1;
+    next[alpha] = betaNext;
+    next[beta] = alphaNext;
+  }
+
+  private void swap(final int edge) {
+    final int edgeSym = sym(edge);
+    final int previousEdge = oPrev(edge);
+    final int previousSymEdge = oPrev(edgeSym);
+    splice(edge, previousEdge);
+    splice(edgeSym, previousSymEdge);
+    splice(edge, lNext(previousEdge));
+    splice(edgeSym, lNext(previousSymEdge));
+    this.edgeVertices[edge >> 1] = getToVertex(previousEdge);
+    this.edgeVertices[edgeSym >> 1] = getToVertex(previousSymEdge);
+  }
+
+  private void swapEdges(final int startEdge, int edge, final int x, final int y) {
+    // Examine suspect edges to ensure that the Delaunay condition is satisfied
+    do {
+      if (isSwapRequired(edge, x, y)) {
+        swap(edge);
+        edge = oPrev(edge);
+      } else {
+        final int fromNextEdge = this.next[edge];
+        if (fromNextEdge == startEdge) {
+          return;
+        } else {
+          edge = sym(this.next[fromNextEdge]);
+        }
+      }
+    } while (true);
+  }
+}
@@ -33,7 +33,6 @@
 package com.revolsys.elevation.tin.quadedge.intscale;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -167,7 +166,23 @@ public class IntQuadEdgeDelaunayTinBuilder {
   protected void insertVertices(final QuadEdgeSubdivision subdivision,
     final List<PointIntXYZ> vertices) {
     if (this.sortVertices) {
-      Collections.sort(vertices);
+      final int vertexCount = vertices.size();
+      final int[] xs = new int[vertexCount];
+      final int[] ys = new int[vertexCount];
+      final int[] vertexIndexes = new int[vertexCount];
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        final PointIntXYZ vertex = vertices.get(vertexIndex);
+        xs[vertexIndex] = vertex.getX();
+        ys[vertexIndex] = vertex.getY();
+        vertexIndexes[vertexIndex] = vertexIndex;
+      }
+      HilbertInsertionOrder.sort(vertexIndexes, vertexCount, xs, ys);
+      final List<PointIntXYZ> sortedVertices = new ArrayList<>(vertexCount);
+      for (final int vertexIndex : vertexIndexes) {
+        sortedVertices.add(vertices.get(vertexIndex));
+      }
+      vertices.clear();
+      vertices.addAll(sortedVertices);
     }
     subdivision.insertVertices(vertices);
   }
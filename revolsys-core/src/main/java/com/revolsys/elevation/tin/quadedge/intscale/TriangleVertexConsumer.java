@@ -0,0 +1,5 @@
+package com.revolsys.elevation.tin.quadedge.intscale;
+
+public interface TriangleVertexConsumer {
+  void accept(int vertexIndex1, int vertexIndex2, int vertexIndex3);
+}
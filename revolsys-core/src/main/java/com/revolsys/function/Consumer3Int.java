@@ -0,0 +1,6 @@
+package com.revolsys.function;
+
+@FunctionalInterface
+public interface Consumer3Int {
+  void accept(int parameter1, int parameter2, int parameter3);
+}
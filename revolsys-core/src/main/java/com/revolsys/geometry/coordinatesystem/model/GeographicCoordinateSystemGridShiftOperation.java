@@ -27,6 +27,25 @@ public class GeographicCoordinateSystemGridShiftOperation implements Coordinates
     }
   }
 
+  @Override
+  public void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final List<HorizontalShiftOperation> operations = this.operations;
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      point.setPoint(coordinates[coordinateOffset], coordinates[coordinateOffset + 1],
+        axisCount > 2 ? coordinates[coordinateOffset + 2] : Double.NaN);
+      for (final HorizontalShiftOperation operation : operations) {
+        if (operation.horizontalShift(point)) {
+          coordinates[coordinateOffset] = point.x;
+          coordinates[coordinateOffset + 1] = point.y;
+          break;
+        }
+      }
+    }
+  }
+
   @Override
   public void perform(final CoordinatesOperationPoint point) {
     for (final HorizontalShiftOperation operation : this.operations) {
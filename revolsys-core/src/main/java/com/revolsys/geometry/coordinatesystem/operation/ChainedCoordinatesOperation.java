@@ -19,6 +19,60 @@ public class ChainedCoordinatesOperation implements CoordinatesOperation {
     this.operations.add(operation);
   }
 
+  /**
+   * The operations are split across threads separately, so the chain is only
+   * thread safe if all the operations are.
+   */
+  @Override
+  public boolean isThreadSafe() {
+    for (final CoordinatesOperation operation : this.operations) {
+      if (!operation.isThreadSafe()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    perform(axisCount, coordinates, offset, vertexCount, false);
+  }
+
+  /**
+   * Apply each operation to all the vertices in turn. Vertices without a z
+   * coordinate are copied to a 3D array as an operation may set the z used by
+   * the next operation.
+   */
+  private void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount, final boolean parallel) {
+    if (axisCount < 3) {
+      final double[] coordinates3d = new double[vertexCount * 3];
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        final int sourceOffset = offset + vertexIndex * axisCount;
+        final int targetOffset = vertexIndex * 3;
+        coordinates3d[targetOffset] = coordinates[sourceOffset];
+        coordinates3d[targetOffset + 1] = coordinates[sourceOffset + 1];
+        coordinates3d[targetOffset + 2] = Double.NaN;
+      }
+      perform(3, coordinates3d, 0, vertexCount, parallel);
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        final int sourceOffset = vertexIndex * 3;
+        final int targetOffset = offset + vertexIndex * axisCount;
+        coordinates[targetOffset] = coordinates3d[sourceOffset];
+        coordinates[targetOffset + 1] = coordinates3d[sourceOffset + 1];
+      }
+    } else {
+      for (final CoordinatesOperation operation : this.operations) {
+        if (parallel) {
+          operation.performParallel(axisCount, coordinates, offset, vertexCount);
+        } else {
+          operation.perform(axisCount, coordinates, offset, vertexCount);
+        }
+      }
+    }
+  }
+
   @Override
   public void perform(final CoordinatesOperationPoint point) {
     for (final CoordinatesOperation operation : this.operations) {
@@ -26,6 +80,12 @@ public class ChainedCoordinatesOperation implements CoordinatesOperation {
     }
   }
 
+  @Override
+  public void performParallel(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    perform(axisCount, coordinates, offset, vertexCount, true);
+  }
+
   @Override
   public String toString() {
     return this.operations.toString();
@@ -1,9 +1,51 @@
 package com.revolsys.geometry.coordinatesystem.operation;
 
+import java.util.stream.IntStream;
+
 import com.revolsys.function.BiConsumerDouble;
 
 public interface CoordinatesOperation {
 
+  /** The minimum number of vertices processed by one fork/join task. */
+  int PARALLEL_VERTEX_COUNT = 65536;
+
+  /**
+   * Check if the operation can be performed on different vertices from multiple
+   * threads at the same time. Operations that don't declare themselves thread
+   * safe are never split across threads by
+   * {@link #performParallel(int, double[], int, int)}.
+   *
+   * @return True if the operation is thread safe.
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
+
+  /**
+   * Perform the operation on the vertices stored in the coordinates array,
+   * replacing the coordinates with the result. The vertices are stored with
+   * axisCount coordinates per vertex starting at offset. Vertices with less
+   * than 3 or 4 axes have NaN for the missing z and m.
+   *
+   * @param axisCount The number of axes per vertex.
+   * @param coordinates The coordinates to update.
+   * @param offset The index of the first vertex's x coordinate.
+   * @param vertexCount The number of vertices.
+   */
+  default void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      point.x = coordinates[coordinateOffset];
+      point.y = coordinates[coordinateOffset + 1];
+      point.z = axisCount > 2 ? coordinates[coordinateOffset + 2] : Double.NaN;
+      point.m = axisCount > 3 ? coordinates[coordinateOffset + 3] : Double.NaN;
+      perform(point);
+      point.copyCoordinatesTo(coordinates, coordinateOffset, axisCount);
+    }
+  }
+
   void perform(CoordinatesOperationPoint point);
 
   default void perform2d(final CoordinatesOperationPoint point, final double x, final double y,
@@ -12,4 +54,32 @@ public interface CoordinatesOperation {
     perform(point);
     point.apply2d(action);
   }
+
+  /**
+   * Perform the operation on the vertices as in
+   * {@link #perform(int, double[], int, int)}. Arrays with more than
+   * {@link #PARALLEL_VERTEX_COUNT} vertices are split into ranges that are
+   * transformed on the common fork/join pool if the operation
+   * {@link #isThreadSafe()}.
+   *
+   * @param axisCount The number of axes per vertex.
+   * @param coordinates The coordinates to update.
+   * @param offset The index of the first vertex's x coordinate.
+   * @param vertexCount The number of vertices.
+   */
+  default void performParallel(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final int taskCount = vertexCount / PARALLEL_VERTEX_COUNT;
+    if (taskCount < 2 || !isThreadSafe()) {
+      perform(axisCount, coordinates, offset, vertexCount);
+    } else {
+      IntStream.range(0, taskCount)
+        .parallel()
+        .forEach(taskIndex -> {
+          final int startIndex = (int)((long)vertexCount * taskIndex / taskCount);
+          final int endIndex = (int)((long)vertexCount * (taskIndex + 1) / taskCount);
+          perform(axisCount, coordinates, offset + startIndex * axisCount, endIndex - startIndex);
+        });
+    }
+  }
 }
@@ -7,10 +7,20 @@ public class NoOpOperation implements CoordinatesOperation {
   private NoOpOperation() {
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
   @Override
   public void perform(final CoordinatesOperationPoint point) {
   }
 
+  @Override
+  public void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+  }
+
   @Override
   public String toString() {
     return "noOp";
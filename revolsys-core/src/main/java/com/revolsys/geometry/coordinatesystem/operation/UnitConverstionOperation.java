@@ -25,6 +25,26 @@ public class UnitConverstionOperation<Q extends Quantity<Q>> implements Coordina
     this.converter = sourceUnit.getConverterTo(targetUnit);
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final UnitConverter converter = this.converter;
+    final boolean convertZ = this.axisCount > 2 && axisCount > 2;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      coordinates[coordinateOffset] = converter.convert(coordinates[coordinateOffset]);
+      coordinates[coordinateOffset + 1] = converter.convert(coordinates[coordinateOffset + 1]);
+      if (convertZ) {
+        coordinates[coordinateOffset + 2] = converter.convert(coordinates[coordinateOffset + 2]);
+      }
+    }
+  }
+
   @Override
   public void perform(final CoordinatesOperationPoint point) {
     final UnitConverter converter = this.converter;
@@ -7,6 +7,20 @@ public interface HorizontalShiftOperation extends CoordinatesOperation {
 
   boolean horizontalShift(CoordinatesOperationPoint point);
 
+  @Override
+  default void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      point.setPoint(coordinates[coordinateOffset], coordinates[coordinateOffset + 1],
+        axisCount > 2 ? coordinates[coordinateOffset + 2] : Double.NaN);
+      if (horizontalShift(point)) {
+        point.copyCoordinatesTo(coordinates, coordinateOffset, Math.min(axisCount, 3));
+      }
+    }
+  }
+
   @Override
   default void perform(final CoordinatesOperationPoint point) {
     horizontalShift(point);
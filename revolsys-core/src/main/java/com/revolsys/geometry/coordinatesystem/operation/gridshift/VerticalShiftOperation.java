@@ -5,6 +5,20 @@ import com.revolsys.geometry.coordinatesystem.operation.CoordinatesOperationPoin
 
 public interface VerticalShiftOperation extends CoordinatesOperation {
 
+  @Override
+  default void perform(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      point.setPoint(coordinates[coordinateOffset], coordinates[coordinateOffset + 1],
+        axisCount > 2 ? coordinates[coordinateOffset + 2] : Double.NaN);
+      if (verticalShift(point)) {
+        point.copyCoordinatesTo(coordinates, coordinateOffset, Math.min(axisCount, 3));
+      }
+    }
+  }
+
   @Override
   default void perform(final CoordinatesOperationPoint point) {
     verticalShift(point);
@@ -1,12 +1,45 @@
 package com.revolsys.geometry.coordinatesystem.operation.projection;
 
 import com.revolsys.geometry.coordinatesystem.operation.CoordinatesOperation;
+import com.revolsys.geometry.coordinatesystem.operation.CoordinatesOperationPoint;
 
 public abstract class AbstractCoordinatesProjection implements CoordinatesProjection {
 
-  private final CoordinatesOperation inverseOperation = this::inverse;
+  private final CoordinatesOperation inverseOperation = new CoordinatesOperation() {
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
 
-  private final CoordinatesOperation projectOperation = this::project;
+    @Override
+    public void perform(final CoordinatesOperationPoint point) {
+      inverse(point);
+    }
+
+    @Override
+    public void perform(final int axisCount, final double[] coordinates, final int offset,
+      final int vertexCount) {
+      inverse(axisCount, coordinates, offset, vertexCount);
+    }
+  };
+
+  private final CoordinatesOperation projectOperation = new CoordinatesOperation() {
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    public void perform(final CoordinatesOperationPoint point) {
+      project(point);
+    }
+
+    @Override
+    public void perform(final int axisCount, final double[] coordinates, final int offset,
+      final int vertexCount) {
+      project(axisCount, coordinates, offset, vertexCount);
+    }
+  };
 
   @Override
   public CoordinatesOperation getInverseOperation() {
@@ -235,6 +235,27 @@ public class AlbersConicEqualArea extends AbstractCoordinatesProjection {
     point.y = this.yo + this.ρo - ρ * Math.cos(θ);
   }
 
+  @Override
+  public void project(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double a = this.a;
+    final double c = this.c;
+    final double n = this.n;
+    final double xo = this.xo;
+    final double yoPlusρo = this.yo + this.ρo;
+    final double λo = this.λo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double λ = coordinates[coordinateOffset];
+      final double φ = coordinates[coordinateOffset + 1];
+      final double θ = n * (λ - λo);
+      final double ρ = a * (Math.sqrt(c - n * q(φ)) / n);
+
+      coordinates[coordinateOffset] = xo + ρ * Math.sin(θ);
+      coordinates[coordinateOffset + 1] = yoPlusρo - ρ * Math.cos(θ);
+    }
+  }
+
   /**
    * <pre>
    * (1 - sq(e)) *
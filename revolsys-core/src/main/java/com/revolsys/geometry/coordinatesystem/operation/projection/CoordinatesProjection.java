@@ -8,7 +8,41 @@ public interface CoordinatesProjection {
 
   CoordinatesOperation getProjectOperation();
 
+  /**
+   * Inverse project the x, y of the vertices in the coordinates array in place.
+   *
+   * @see CoordinatesOperation#perform(int, double[], int, int)
+   */
+  default void inverse(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      point.setPoint(coordinates[coordinateOffset], coordinates[coordinateOffset + 1]);
+      inverse(point);
+      coordinates[coordinateOffset] = point.x;
+      coordinates[coordinateOffset + 1] = point.y;
+    }
+  }
+
   void inverse(CoordinatesOperationPoint point);
 
+  /**
+   * Project the x, y of the vertices in the coordinates array in place.
+   *
+   * @see CoordinatesOperation#perform(int, double[], int, int)
+   */
+  default void project(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      point.setPoint(coordinates[coordinateOffset], coordinates[coordinateOffset + 1]);
+      project(point);
+      coordinates[coordinateOffset] = point.x;
+      coordinates[coordinateOffset + 1] = point.y;
+    }
+  }
+
   void project(CoordinatesOperationPoint point);
 }
@@ -101,6 +101,26 @@ public class LambertConicConformal extends AbstractCoordinatesProjection {
     return Math.cos(φ) / Math.sqrt(1 - this.ee * sinPhi * sinPhi);
   }
 
+  @Override
+  public void project(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double aTimesF = this.a * this.f;
+    final double n = this.n;
+    final double x0 = this.x0;
+    final double y0PlusRho0 = this.y0 + this.rho0;
+    final double λ0 = this.λ0;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double λ = coordinates[coordinateOffset];
+      final double φ = coordinates[coordinateOffset + 1];
+
+      final double rho = aTimesF * Math.pow(t(φ), n);
+      final double theta = n * (λ - λ0);
+      coordinates[coordinateOffset] = x0 + rho * Math.sin(theta);
+      coordinates[coordinateOffset + 1] = y0PlusRho0 - rho * Math.cos(theta);
+    }
+  }
+
   @Override
   public void project(final CoordinatesOperationPoint point) {
     final double λ = point.x;
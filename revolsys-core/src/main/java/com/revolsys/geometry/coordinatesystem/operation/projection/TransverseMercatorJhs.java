@@ -16,11 +16,29 @@ import com.revolsys.math.Angle;
  */
 public class TransverseMercatorJhs extends TransverseMercator {
 
+  /**
+   * Calculate h1 * cos(2ξ) * sinh(2η) + ... + h4 * cos(8ξ) * sinh(8η).
+   */
+  private static double cosSinhSeries(final double h1, final double h2, final double h3,
+    final double h4, final double ξ, final double η) {
+    return h1 * Math.cos(2 * ξ) * Math.sinh(2 * η) + h2 * Math.cos(4 * ξ) * Math.sinh(4 * η)
+      + h3 * Math.cos(6 * ξ) * Math.sinh(6 * η) + h4 * Math.cos(8 * ξ) * Math.sinh(8 * η);
+  }
+
   public static TransverseMercatorJhs newUtm(final Ellipsoid ellipsoid,
     final double utmReferenceMeridian) {
     return new TransverseMercatorJhs("UTM", ellipsoid, utmReferenceMeridian, 0, 0.9996, 500000, 0);
   }
 
+  /**
+   * Calculate h1 * sin(2ξ) * cosh(2η) + ... + h4 * sin(8ξ) * cosh(8η).
+   */
+  private static double sinCoshSeries(final double h1, final double h2, final double h3,
+    final double h4, final double ξ, final double η) {
+    return h1 * Math.sin(2 * ξ) * Math.cosh(2 * η) + h2 * Math.sin(4 * ξ) * Math.cosh(4 * η)
+      + h3 * Math.sin(6 * ξ) * Math.cosh(6 * η) + h4 * Math.sin(8 * ξ) * Math.cosh(8 * η);
+  }
+
   private final double n;
 
   private final double B;
@@ -85,36 +103,71 @@ public class TransverseMercatorJhs extends TransverseMercator {
     this.mo = mo(this.φo);
   }
 
+  /**
+   * Inverse project the x, y of the vertices in place using the same series as
+   * {@link #inverse(CoordinatesOperationPoint)}.
+   */
+  @Override
+  public void inverse(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double bKo = this.B * this.ko;
+    final double xo = this.xo;
+    final double yo = this.yo - this.ko * this.mo;
+    final double h1Prime = this.h1Prime;
+    final double h2Prime = this.h2Prime;
+    final double h3Prime = this.h3Prime;
+    final double h4Prime = this.h4Prime;
+    final double λo = this.λo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double ηPrime = (coordinates[coordinateOffset] - xo) / bKo;
+      final double ξPrime = (coordinates[coordinateOffset + 1] - yo) / bKo;
+
+      final double ξ0Prime = ξPrime
+        - sinCoshSeries(h1Prime, h2Prime, h3Prime, h4Prime, ξPrime, ηPrime);
+      final double η0Prime = ηPrime
+        - cosSinhSeries(h1Prime, h2Prime, h3Prime, h4Prime, ξPrime, ηPrime);
+      final double βPrime = Math.asin(Math.sin(ξ0Prime) / Math.cosh(η0Prime));
+
+      coordinates[coordinateOffset] = λo + Math.asin(Math.tanh(η0Prime) / Math.cos(βPrime));
+      coordinates[coordinateOffset + 1] = inverseφ(βPrime);
+    }
+  }
+
   /**
    * Project the projected coordinates in metres to lon/lat cordinates in degrees.
    * @param point The coordinates to convert.
    */
   @Override
   public void inverse(final CoordinatesOperationPoint point) {
-    final double ηPrime = (point.x - this.xo) / (this.B * this.ko);
-    final double ξPrime = (point.y - this.yo + this.ko * this.mo) / (this.B * this.ko);
-
-    final double ξ1Prime = this.h1Prime * Math.sin(2 * ξPrime) * Math.cosh(2 * ηPrime);
-    final double η1Prime = this.h1Prime * Math.cos(2 * ξPrime) * Math.sinh(2 * ηPrime);
-    final double ξ2Prime = this.h2Prime * Math.sin(4 * ξPrime) * Math.cosh(4 * ηPrime);
-    final double η2Prime = this.h2Prime * Math.cos(4 * ξPrime) * Math.sinh(4 * ηPrime);
-    final double ξ3Prime = this.h3Prime * Math.sin(6 * ξPrime) * Math.cosh(6 * ηPrime);
-    final double η3Prime = this.h3Prime * Math.cos(6 * ξPrime) * Math.sinh(6 * ηPrime);
-    final double ξ4Prime = this.h4Prime * Math.sin(8 * ξPrime) * Math.cosh(8 * ηPrime);
-    final double η4Prime = this.h4Prime * Math.cos(8 * ξPrime) * Math.sinh(8 * ηPrime);
-    final double ξ0Prime = ξPrime - (ξ1Prime + ξ2Prime + ξ3Prime + ξ4Prime);
-    final double η0Prime = ηPrime - (η1Prime + η2Prime + η3Prime + η4Prime);
+    final double bKo = this.B * this.ko;
+    final double ηPrime = (point.x - this.xo) / bKo;
+    final double ξPrime = (point.y - (this.yo - this.ko * this.mo)) / bKo;
+
+    final double ξ0Prime = ξPrime
+      - sinCoshSeries(this.h1Prime, this.h2Prime, this.h3Prime, this.h4Prime, ξPrime, ηPrime);
+    final double η0Prime = ηPrime
+      - cosSinhSeries(this.h1Prime, this.h2Prime, this.h3Prime, this.h4Prime, ξPrime, ηPrime);
     final double βPrime = Math.asin(Math.sin(ξ0Prime) / Math.cosh(η0Prime));
+
+    point.x = this.λo + Math.asin(Math.tanh(η0Prime) / Math.cos(βPrime));
+    point.y = inverseφ(βPrime);
+  }
+
+  /**
+   * Calculate φ from β' using the iteration of
+   * {@link #inverse(CoordinatesOperationPoint)}.
+   */
+  private double inverseφ(final double βPrime) {
+    final double e = this.e;
     final double QPrime = Angle.asinh(Math.tan(βPrime));
-    double QPrimePrime = QPrime + this.e * Angle.atanh(this.e * Math.tanh(QPrime));
+    double QPrimePrime = QPrime + e * Angle.atanh(e * Math.tanh(QPrime));
     final double lastQPrimePrime = QPrimePrime;
     int i = 0;
     do {
-      QPrimePrime = QPrime + this.e * Angle.atanh(this.e * Math.tanh(QPrimePrime));
+      QPrimePrime = QPrime + e * Angle.atanh(e * Math.tanh(QPrimePrime));
     } while (Math.abs(lastQPrimePrime - QPrimePrime) < 1.0e-011 && ++i < 100);
-
-    point.x = this.λo + Math.asin(Math.tanh(η0Prime) / Math.cos(βPrime));
-    point.y = Math.atan(Math.sinh(QPrimePrime));
+    return Math.atan(Math.sinh(QPrimePrime));
   }
 
   private double mo(final double φ) {
@@ -143,6 +196,41 @@ public class TransverseMercatorJhs extends TransverseMercator {
     }
   }
 
+  /**
+   * Project the lon/lat ordinates of the vertices in place using the same
+   * series as {@link #project(CoordinatesOperationPoint)}.
+   */
+  @Override
+  public void project(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double bKo = this.B * this.ko;
+    final double xo = this.xo;
+    final double yo = this.yo - this.ko * this.mo;
+    final double e = this.e;
+    final double h1 = this.h1;
+    final double h2 = this.h2;
+    final double h3 = this.h3;
+    final double h4 = this.h4;
+    final double λo = this.λo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double λ = coordinates[coordinateOffset];
+      final double φ = coordinates[coordinateOffset + 1];
+
+      final double Q = Angle.asinh(Math.tan(φ)) - e * Angle.atanh(e * Math.sin(φ));
+      final double β = Math.atan(Math.sinh(Q));
+
+      final double η0 = Angle.atanh(Math.cos(β) * Math.sin(λ - λo));
+      final double ξ0 = Math.asin(Math.sin(β) * Math.cosh(η0));
+
+      final double η = η0 + cosSinhSeries(h1, h2, h3, h4, ξ0, η0);
+      final double ξ = ξ0 + sinCoshSeries(h1, h2, h3, h4, ξ0, η0);
+
+      coordinates[coordinateOffset] = xo + bKo * η;
+      coordinates[coordinateOffset + 1] = yo + bKo * ξ;
+    }
+  }
+
   /**
    * Project the lon/lat ordinates in degrees to projected coordinates in metres.
    * @param point The coordinates to convert.
@@ -152,13 +240,8 @@ public class TransverseMercatorJhs extends TransverseMercator {
     final double λ = point.x;
     final double φ = point.y;
 
-    final double ko = this.ko;
-    final double B = this.B;
+    final double bKo = this.B * this.ko;
     final double e = this.e;
-    final double h1 = this.h1;
-    final double h2 = this.h2;
-    final double h3 = this.h3;
-    final double h4 = this.h4;
 
     final double Q = Angle.asinh(Math.tan(φ)) - e * Angle.atanh(e * Math.sin(φ));
     final double β = Math.atan(Math.sinh(Q));
@@ -166,21 +249,10 @@ public class TransverseMercatorJhs extends TransverseMercator {
     final double η0 = Angle.atanh(Math.cos(β) * Math.sin(λ - this.λo));
     final double ξ0 = Math.asin(Math.sin(β) * Math.cosh(η0));
 
-    final double η1 = h1 * Math.cos(2 * ξ0) * Math.sinh(2 * η0);
-    final double η2 = h2 * Math.cos(4 * ξ0) * Math.sinh(4 * η0);
-    final double η3 = h3 * Math.cos(6 * ξ0) * Math.sinh(6 * η0);
-    final double η4 = h4 * Math.cos(8 * ξ0) * Math.sinh(8 * η0);
-    final double η = η0 + η1 + η2 + η3 + η4;
-
-    final double ξ1 = h1 * Math.sin(2 * ξ0) * Math.cosh(2 * η0);
-    final double ξ2 = h2 * Math.sin(4 * ξ0) * Math.cosh(4 * η0);
-    final double ξ3 = h3 * Math.sin(6 * ξ0) * Math.cosh(6 * η0);
-    final double ξ4 = h4 * Math.sin(8 * ξ0) * Math.cosh(8 * η0);
-    final double ξ = ξ0 + ξ1 + ξ2 + ξ3 + ξ4;
-
-    final double x = this.xo + ko * B * η;
-    final double y = this.yo + ko * (B * ξ - this.mo);
-    point.x = x;
-    point.y = y;
+    final double η = η0 + cosSinhSeries(this.h1, this.h2, this.h3, this.h4, ξ0, η0);
+    final double ξ = ξ0 + sinCoshSeries(this.h1, this.h2, this.h3, this.h4, ξ0, η0);
+
+    point.x = this.xo + bKo * η;
+    point.y = this.yo - this.ko * this.mo + bKo * ξ;
   }
 }
@@ -89,6 +89,41 @@ public class TransverseMercatorUsgs extends TransverseMercator {
 
   }
 
+  /**
+   * Inverse project the x, y of the vertices in place using the same series as
+   * {@link #inverse(CoordinatesOperationPoint)}.
+   */
+  @Override
+  public void inverse(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double ePow2 = this.ePow2;
+    final double a = this.a;
+    final double ko = this.ko;
+    final double ePrimePow2 = this.ePrimePow2;
+    final double xo = this.xo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double x = coordinates[coordinateOffset];
+      final double y = coordinates[coordinateOffset + 1];
+
+      final double φ1 = φ1(y);
+      final double cosφ1 = Math.cos(φ1);
+      final double sinφ = Math.sin(φ1);
+      final double tanφ1 = Math.tan(φ1);
+
+      final double sinφPow2 = Math.pow(sinφ, 2);
+      final double oneMinusESqSinφ1Sq = 1 - ePow2 * sinφPow2;
+      final double ν1 = a / Math.sqrt(oneMinusESqSinφ1Sq);
+      final double ρ1 = a * (1 - ePow2) / Math.pow(oneMinusESqSinφ1Sq, 1.5);
+      final double C1 = ePrimePow2 * Math.pow(cosφ1, 2);
+      final double D = (x - xo) / (ν1 * ko);
+      final double T1 = Math.pow(tanφ1, 2);
+
+      coordinates[coordinateOffset] = inverseλ(cosφ1, C1, D, T1);
+      coordinates[coordinateOffset + 1] = inverseφ(φ1, tanφ1, ν1, ρ1, C1, D, T1);
+    }
+  }
+
   /**
    * Project the projected coordinates in metres to lon/lat ordinates in
    * degrees.
@@ -133,11 +168,7 @@ public class TransverseMercatorUsgs extends TransverseMercator {
     final double ko = this.ko;
     final double ePrimePow2 = this.ePrimePow2;
 
-    final double M1 = this.mo + (point.y - this.yo) / ko;
-    final double μ1 = M1 / this.aTimes1MinusEsqDiv4MinesEPow4Times3Div64MinusEPow6Times5Div256;
-    final double φ1 = μ1 + this.threeTimesE1Div2Minus27TimeE1Pow3Div32 * Math.sin(2 * μ1)
-      + this.e1Pow2Times21Div16MinusE1Pow4Times55Div32 * Math.sin(4 * μ1)
-      + this.e1Pow3Times151Div96 * Math.sin(6 * μ1) + this.e1Pow4Times1097Div512 * Math.sin(8 * μ1);
+    final double φ1 = φ1(point.y);
     final double cosφ1 = Math.cos(φ1);
     final double sinφ = Math.sin(φ1);
     final double tanφ1 = Math.tan(φ1);
@@ -148,19 +179,36 @@ public class TransverseMercatorUsgs extends TransverseMercator {
     final double ρ1 = a * (1 - ePow2) / Math.pow(oneMinusESqSinφ1Sq, 1.5);
     final double C1 = ePrimePow2 * Math.pow(cosφ1, 2);
     final double D = (point.x - this.xo) / (ν1 * ko);
-    final double D2 = Math.pow(D, 2);
+    final double T1 = Math.pow(tanφ1, 2);
+
+    point.x = inverseλ(cosφ1, C1, D, T1);
+    point.y = inverseφ(φ1, tanφ1, ν1, ρ1, C1, D, T1);
+  }
+
+  /**
+   * Calculate λ from the D series of {@link #inverse(CoordinatesOperationPoint)}.
+   */
+  private double inverseλ(final double cosφ1, final double C1, final double D, final double T1) {
     final double D3 = Math.pow(D, 3);
-    final double D4 = Math.pow(D, 4);
     final double D5 = Math.pow(D, 5);
-    final double D6 = Math.pow(D, 6);
-    final double T1 = Math.pow(tanφ1, 2);
     final double T12 = Math.pow(T1, 2);
-
     final double C12 = Math.pow(C1, 2);
+    return this.λo + (D - (1 + 2 * T1 + C1) * D3 / 6
+      + (5 - 2 * C1 + 28 * T1 - 3 * C12 + 8 * this.ePrimePow2 + 24 * T12) * D5 / 120) / cosφ1;
+  }
 
-    point.x = this.λo + (D - (1 + 2 * T1 + C1) * D3 / 6
-      + (5 - 2 * C1 + 28 * T1 - 3 * C12 + 8 * ePrimePow2 + 24 * T12) * D5 / 120) / cosφ1;
-    point.y = φ1
+  /**
+   * Calculate φ from the D series of {@link #inverse(CoordinatesOperationPoint)}.
+   */
+  private double inverseφ(final double φ1, final double tanφ1, final double ν1, final double ρ1,
+    final double C1, final double D, final double T1) {
+    final double ePrimePow2 = this.ePrimePow2;
+    final double D2 = Math.pow(D, 2);
+    final double D4 = Math.pow(D, 4);
+    final double D6 = Math.pow(D, 6);
+    final double T12 = Math.pow(T1, 2);
+    final double C12 = Math.pow(C1, 2);
+    return φ1
       - ν1 * tanφ1 / ρ1 * (D2 / 2 - (5 + 3 * T1 + 10 * C1 - 4 * C12 - 9 * ePrimePow2) * D4 / 24
         + (61 + 90 * T1 + 298 * C1 + 45 * T12 - 252 * ePrimePow2 - 3 * C12) * D6 / 720);
   }
@@ -188,6 +236,36 @@ public class TransverseMercatorUsgs extends TransverseMercator {
       - 35 * this.ePow6 / 3072 * Math.sin(6 * φ));
   }
 
+  /**
+   * Project the lon/lat ordinates of the vertices in place using the same
+   * series as {@link #project(CoordinatesOperationPoint)}.
+   */
+  @Override
+  public void project(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double a = this.a;
+    final double ePow2 = this.ePow2;
+    final double ePrimePow2 = this.ePrimePow2;
+    final double λo = this.λo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double λ = coordinates[coordinateOffset];
+      final double φ = coordinates[coordinateOffset + 1];
+
+      final double cosφ = Math.cos(φ);
+      final double sinφ = Math.sin(φ);
+      final double tanφ = Math.tan(φ);
+
+      final double nu = a / Math.sqrt(1 - ePow2 * sinφ * sinφ);
+      final double tanφPow2 = tanφ * tanφ;
+      final double c = ePrimePow2 * cosφ * cosφ;
+      final double a1 = (λ - λo) * cosφ;
+
+      coordinates[coordinateOffset] = projectX(nu, tanφPow2, c, a1);
+      coordinates[coordinateOffset + 1] = projectY(φ, nu, tanφ, tanφPow2, c, a1);
+    }
+  }
+
   /**
    * Project the lon/lat ordinates in degrees to projected coordinates in
    * metres.
@@ -215,30 +293,56 @@ public class TransverseMercatorUsgs extends TransverseMercator {
     final double λ = point.x;
     final double φ = point.y;
 
-    final double ePrimePow2 = this.ePrimePow2;
-    final double ko = this.ko;
-
     final double cosφ = Math.cos(φ);
     final double sinφ = Math.sin(φ);
     final double tanφ = Math.tan(φ);
 
     final double nu = this.a / Math.sqrt(1 - this.ePow2 * sinφ * sinφ);
     final double tanφPow2 = tanφ * tanφ;
+    final double c = this.ePrimePow2 * cosφ * cosφ;
+    final double a1 = (λ - this.λo) * cosφ;
+
+    point.x = projectX(nu, tanφPow2, c, a1);
+    point.y = projectY(φ, nu, tanφ, tanφPow2, c, a1);
+  }
+
+  /**
+   * Calculate x from the A series of {@link #project(CoordinatesOperationPoint)}.
+   */
+  private double projectX(final double nu, final double tanφPow2, final double c,
+    final double a1) {
+    final double tanφPow4 = tanφPow2 * tanφPow2;
+    final double a1Pow3 = Math.pow(a1, 3);
+    final double a1Pow5 = Math.pow(a1, 5);
+    return this.xo + this.ko * nu * (a1 + (1 - tanφPow2 + c) * a1Pow3 / 6
+      + (5 - 18 * tanφPow2 + tanφPow4 + 72 * c - 58 * this.ePrimePow2) * a1Pow5 / 120);
+  }
+
+  /**
+   * Calculate y from the A series of {@link #project(CoordinatesOperationPoint)}.
+   */
+  private double projectY(final double φ, final double nu, final double tanφ,
+    final double tanφPow2, final double c, final double a1) {
     final double tanφPow4 = tanφPow2 * tanφPow2;
-    final double c = ePrimePow2 * cosφ * cosφ;
     final double cPow2 = c * c;
-    final double a1 = (λ - this.λo) * cosφ;
     final double a1Pow2 = Math.pow(a1, 2);
-    final double a1Pow3 = Math.pow(a1, 3);
     final double a1Pow4 = Math.pow(a1, 4);
-    final double a1Pow5 = Math.pow(a1, 5);
     final double a1Pow6 = Math.pow(a1, 6);
     final double m = m(φ);
-
-    point.x = this.xo + ko * nu * (a1 + (1 - tanφPow2 + c) * a1Pow3 / 6
-      + (5 - 18 * tanφPow2 + tanφPow4 + 72 * c - 58 * ePrimePow2) * a1Pow5 / 120);
-    point.y = this.yo + ko
+    return this.yo + this.ko
       * (m - this.mo + nu * tanφ * (a1Pow2 / 2 + (5 - tanφPow2 + 9 * c + 4 * cPow2) * a1Pow4 / 24
-        + (61 - 58 * tanφPow2 + tanφPow4 + 600 * c - 330 * ePrimePow2) * a1Pow6 / 720));
+        + (61 - 58 * tanφPow2 + tanφPow4 + 600 * c - 330 * this.ePrimePow2) * a1Pow6 / 720));
+  }
+
+  /**
+   * Calculate the footpoint latitude φ1 for the y coordinate as described in
+   * {@link #inverse(CoordinatesOperationPoint)}.
+   */
+  private double φ1(final double y) {
+    final double M1 = this.mo + (y - this.yo) / this.ko;
+    final double μ1 = M1 / this.aTimes1MinusEsqDiv4MinesEPow4Times3Div64MinusEPow6Times5Div256;
+    return μ1 + this.threeTimesE1Div2Minus27TimeE1Pow3Div32 * Math.sin(2 * μ1)
+      + this.e1Pow2Times21Div16MinusE1Pow4Times55Div32 * Math.sin(4 * μ1)
+      + this.e1Pow3Times151Div96 * Math.sin(6 * μ1) + this.e1Pow4Times1097Div512 * Math.sin(8 * μ1);
   }
 }
@@ -28,6 +28,22 @@ public class WebMercator extends AbstractCoordinatesProjection {
     this.a = ellipsoid.getSemiMajorAxis();
   }
 
+  @Override
+  public void inverse(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double a = this.a;
+    final double xo = this.xo;
+    final double yo = this.yo;
+    final double λo = this.λo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double x = coordinates[coordinateOffset];
+      final double y = coordinates[coordinateOffset + 1];
+      coordinates[coordinateOffset] = λo + (x - xo) / a;
+      coordinates[coordinateOffset + 1] = Angle.PI_OVER_2 - 2 * Math.atan(Math.exp((yo - y) / a));
+    }
+  }
+
   @Override
   public void inverse(final CoordinatesOperationPoint point) {
     final double x = point.x;
@@ -37,6 +53,22 @@ public class WebMercator extends AbstractCoordinatesProjection {
     point.y = Angle.PI_OVER_2 - 2 * Math.atan(Math.exp((this.yo - y) / a));
   }
 
+  @Override
+  public void project(final int axisCount, final double[] coordinates, final int offset,
+    final int vertexCount) {
+    final double a = this.a;
+    final double xo = this.xo;
+    final double yo = this.yo;
+    final double λo = this.λo;
+    final int endOffset = offset + vertexCount * axisCount;
+    for (int coordinateOffset = offset; coordinateOffset < endOffset; coordinateOffset += axisCount) {
+      final double λ = coordinates[coordinateOffset];
+      final double φ = coordinates[coordinateOffset + 1];
+      coordinates[coordinateOffset] = xo + a * (λ - λo);
+      coordinates[coordinateOffset + 1] = yo + a * Math.log(Math.tan(Angle.PI_OVER_4 + φ / 2));
+    }
+  }
+
   @Override
   public void project(final CoordinatesOperationPoint point) {
     final double λ = point.x;
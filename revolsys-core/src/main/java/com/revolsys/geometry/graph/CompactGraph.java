@@ -0,0 +1,301 @@
+package com.revolsys.geometry.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.GeometryFactoryProxy;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Lineal;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.record.Record;
+
+/**
+ * An immutable undirected network graph stored in primitive arrays. Nodes and
+ * edges are identified by their int index. The edges for each node are stored
+ * in compressed sparse row (CSR) form; the edges of node n are
+ * {@link #getNodeEdge(int)} for the indexes
+ * {@link #getNodeEdgeStart(int)} (inclusive) to {@link #getNodeEdgeEnd(int)}
+ * (exclusive).
+ *
+ * <p>
+ * Compared to {@link Graph} there are no {@link Node} or {@link Edge} objects
+ * and no maps keyed by point or edge, a graph with n nodes and e edges uses
+ * approximately 16n + 32e bytes plus the edge objects. Node lookup by
+ * coordinates uses an open addressing hash table of the exact x, y values.
+ * </p>
+ *
+ * <p>
+ * Use {@link CompactGraphBuilder} or one of the newGraph methods to construct
+ * a graph.
+ * </p>
+ *
+ * @param <T> The type of object stored for each edge.
+ */
+public class CompactGraph<T> implements GeometryFactoryProxy {
+
+  static int hash(final double x, final double y) {
+    long hash = Double.doubleToLongBits(x) * 31 + Double.doubleToLongBits(y);
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return (int)hash;
+  }
+
+  /**
+   * Construct a compact graph from the edges of the graph. The edge weights are
+   * the lengths of the edges.
+   *
+   * @param graph The graph.
+   * @return The compact graph.
+   */
+  public static <V> CompactGraph<V> newGraph(final Graph<V> graph) {
+    final CompactGraphBuilder<V> builder = new CompactGraphBuilder<V>(graph.getGeometryFactory())
+      .setExpectedEdgeCount(graph.getEdgeCount());
+    graph.forEachEdge(edge -> {
+      final Node<V> fromNode = edge.getFromNode();
+      final Node<V> toNode = edge.getToNode();
+      builder.addEdge(edge.getObject(), fromNode.getX(), fromNode.getY(), toNode.getX(),
+        toNode.getY(), edge.getLength());
+    });
+    return builder.newGraph();
+  }
+
+  /**
+   * Construct a compact graph with an edge for each line in the records. Records
+   * without a line geometry are ignored. The records are stored as the edge
+   * objects.
+   *
+   * @param records The records (e.g. a RecordReader).
+   * @return The compact graph.
+   */
+  public static CompactGraph<Record> newGraph(final Iterable<? extends Record> records) {
+    return newGraph(records, record -> record);
+  }
+
+  /**
+   * Construct a compact graph with an edge for each line in the records. Use
+   * objectFunction to store a small value (e.g. the record's identifier)
+   * instead of the record when reading from a large RecordReader.
+   *
+   * @param records The records (e.g. a RecordReader).
+   * @param objectFunction The function to get the edge object for a record.
+   * @return The compact graph.
+   */
+  public static <V> CompactGraph<V> newGraph(final Iterable<? extends Record> records,
+    final Function<? super Record, V> objectFunction) {
+    final CompactGraphBuilder<V> builder = new CompactGraphBuilder<>(null);
+    for (final Record record : records) {
+      final Geometry geometry = record.getGeometry();
+      if (geometry instanceof final Lineal lineal && !lineal.isEmpty()) {
+        final V object = objectFunction.apply(record);
+        for (final LineString line : lineal.lineStrings()) {
+          builder.addEdge(object, line);
+        }
+      }
+    }
+    return builder.newGraph();
+  }
+
+  private final int[] edgeFromNodes;
+
+  private final Object[] edgeObjects;
+
+  private final int[] edgeToNodes;
+
+  private final double[] edgeWeights;
+
+  private final GeometryFactory geometryFactory;
+
+  private final double[] nodeCoordinates;
+
+  private final int nodeCount;
+
+  private final int[] nodeEdgeOffsets;
+
+  private final int[] nodeEdges;
+
+  private final int[] nodeTable;
+
+  CompactGraph(final GeometryFactory geometryFactory, final int nodeCount,
+    final double[] nodeCoordinates, final int[] nodeTable, final int[] edgeFromNodes,
+    final int[] edgeToNodes, final double[] edgeWeights, final Object[] edgeObjects,
+    final int[] nodeEdgeOffsets, final int[] nodeEdges) {
+    this.geometryFactory = geometryFactory;
+    this.nodeCount = nodeCount;
+    this.nodeCoordinates = nodeCoordinates;
+    this.nodeTable = nodeTable;
+    this.edgeFromNodes = edgeFromNodes;
+    this.edgeToNodes = edgeToNodes;
+    this.edgeWeights = edgeWeights;
+    this.edgeObjects = edgeObjects;
+    this.nodeEdgeOffsets = nodeEdgeOffsets;
+    this.nodeEdges = nodeEdges;
+  }
+
+  public int getEdgeCount() {
+    return this.edgeWeights.length;
+  }
+
+  public int getEdgeFromNode(final int edgeIndex) {
+    return this.edgeFromNodes[edgeIndex];
+  }
+
+  @SuppressWarnings("unchecked")
+  public T getEdgeObject(final int edgeIndex) {
+    return (T)this.edgeObjects[edgeIndex];
+  }
+
+  /**
+   * Get the edge objects for the edges, consecutive duplicates (e.g. the parts
+   * of a multi-line record) are only included once.
+   */
+  public List<T> getEdgeObjects(final int... edgeIndexes) {
+    final List<T> objects = new ArrayList<>(edgeIndexes.length);
+    T previousObject = null;
+    for (final int edgeIndex : edgeIndexes) {
+      final T object = getEdgeObject(edgeIndex);
+      if (object != previousObject) {
+        objects.add(object);
+        previousObject = object;
+      }
+    }
+    return objects;
+  }
+
+  /**
+   * Get the node at the other end of the edge from the node.
+   */
+  public int getEdgeOppositeNode(final int edgeIndex, final int nodeIndex) {
+    final int fromNode = this.edgeFromNodes[edgeIndex];
+    if (fromNode == nodeIndex) {
+      return this.edgeToNodes[edgeIndex];
+    } else {
+      return fromNode;
+    }
+  }
+
+  public int getEdgeToNode(final int edgeIndex) {
+    return this.edgeToNodes[edgeIndex];
+  }
+
+  public double getEdgeWeight(final int edgeIndex) {
+    return this.edgeWeights[edgeIndex];
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    if (this.geometryFactory == null) {
+      return GeometryFactory.DEFAULT_2D;
+    } else {
+      return this.geometryFactory;
+    }
+  }
+
+  /**
+   * Get the node closest to the coordinates within the maximum distance. This
+   * does a linear scan of the nodes so use {@link #getNodeIndex(double, double)}
+   * if the exact coordinates are known.
+   *
+   * @return The node index or -1 if there were no nodes within maxDistance.
+   */
+  public int getNearestNode(final double x, final double y, final double maxDistance) {
+    final double[] nodeCoordinates = this.nodeCoordinates;
+    int closestNode = -1;
+    double closestDistanceSquared = maxDistance * maxDistance;
+    for (int nodeIndex = 0; nodeIndex < this.nodeCount; nodeIndex++) {
+      final double dx = nodeCoordinates[nodeIndex * 2] - x;
+      final double dy = nodeCoordinates[nodeIndex * 2 + 1] - y;
+      final double distanceSquared = dx * dx + dy * dy;
+      if (distanceSquared <= closestDistanceSquared) {
+        closestNode = nodeIndex;
+        closestDistanceSquared = distanceSquared;
+      }
+    }
+    return closestNode;
+  }
+
+  public int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  public int getNodeDegree(final int nodeIndex) {
+    return this.nodeEdgeOffsets[nodeIndex + 1] - this.nodeEdgeOffsets[nodeIndex];
+  }
+
+  /**
+   * Get the edge index at the index in the node edge array.
+   *
+   * @see #getNodeEdgeStart(int)
+   * @see #getNodeEdgeEnd(int)
+   */
+  public int getNodeEdge(final int index) {
+    return this.nodeEdges[index];
+  }
+
+  public int getNodeEdgeEnd(final int nodeIndex) {
+    return this.nodeEdgeOffsets[nodeIndex + 1];
+  }
+
+  public int getNodeEdgeStart(final int nodeIndex) {
+    return this.nodeEdgeOffsets[nodeIndex];
+  }
+
+  /**
+   * Get the node with the exact coordinates.
+   *
+   * @return The node index or -1 if there is no node at the coordinates.
+   */
+  public int getNodeIndex(double x, double y) {
+    // Normalize -0.0 to 0.0
+    x += 0.0;
+    y += 0.0;
+    final int[] nodeTable = this.nodeTable;
+    final int mask = nodeTable.length - 1;
+    final double[] nodeCoordinates = this.nodeCoordinates;
+    for (int slot = hash(x, y) & mask;; slot = slot + 1 & mask) {
+      final int nodeIndex = nodeTable[slot];
+      if (nodeIndex == -1) {
+        return -1;
+      } else if (nodeCoordinates[nodeIndex * 2] == x && nodeCoordinates[nodeIndex * 2 + 1] == y) {
+        return nodeIndex;
+      }
+    }
+  }
+
+  /**
+   * Get the node at the point, converting the point to the graph's coordinate
+   * system if required.
+   *
+   * @return The node index or -1 if there is no node at the point.
+   */
+  public int getNodeIndex(Point point) {
+    if (point == null || point.isEmpty()) {
+      return -1;
+    } else {
+      if (this.geometryFactory != null && !point.isSameCoordinateSystem(this.geometryFactory)) {
+        point = point.convertGeometry(this.geometryFactory);
+      }
+      return getNodeIndex(point.getX(), point.getY());
+    }
+  }
+
+  public Point getNodePoint(final int nodeIndex) {
+    return getGeometryFactory().point(getNodeX(nodeIndex), getNodeY(nodeIndex));
+  }
+
+  public double getNodeX(final int nodeIndex) {
+    return this.nodeCoordinates[nodeIndex * 2];
+  }
+
+  public double getNodeY(final int nodeIndex) {
+    return this.nodeCoordinates[nodeIndex * 2 + 1];
+  }
+
+  @Override
+  public String toString() {
+    return "CompactGraph(nodes=" + this.nodeCount + ", edges=" + getEdgeCount() + ")";
+  }
+}
@@ -0,0 +1,221 @@
+package com.revolsys.geometry.graph;
+
+import java.util.Arrays;
+
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+
+/**
+ * Build a {@link CompactGraph} by adding edges. Nodes are created for the from
+ * and to coordinates of each edge, edges with exactly the same coordinates
+ * share the node. The builder only keeps primitive arrays and the edge objects
+ * so large networks can be loaded directly from a record reader.
+ *
+ * @param <T> The type of object stored for each edge.
+ */
+public class CompactGraphBuilder<T> {
+  private int edgeCount;
+
+  private int[] edgeFromNodes;
+
+  private Object[] edgeObjects;
+
+  private int[] edgeToNodes;
+
+  private double[] edgeWeights;
+
+  private GeometryFactory geometryFactory;
+
+  private double[] nodeCoordinates;
+
+  private int nodeCount;
+
+  private int[] nodeTable;
+
+  public CompactGraphBuilder(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+    setExpectedEdgeCount(1024);
+  }
+
+  /**
+   * Add an edge between the coordinates.
+   *
+   * @return The edge index.
+   */
+  public int addEdge(final T object, final double fromX, final double fromY, final double toX,
+    final double toY, final double weight) {
+    if (!(weight >= 0)) {
+      throw new IllegalArgumentException("Edge weight must be >= 0 not " + weight);
+    }
+    final int fromNode = addNode(fromX, fromY);
+    final int toNode = addNode(toX, toY);
+    final int edgeIndex = this.edgeCount;
+    if (edgeIndex == this.edgeWeights.length) {
+      final int newLength = edgeIndex * 2;
+      this.edgeFromNodes = Arrays.copyOf(this.edgeFromNodes, newLength);
+      this.edgeToNodes = Arrays.copyOf(this.edgeToNodes, newLength);
+      this.edgeWeights = Arrays.copyOf(this.edgeWeights, newLength);
+      this.edgeObjects = Arrays.copyOf(this.edgeObjects, newLength);
+    }
+    this.edgeFromNodes[edgeIndex] = fromNode;
+    this.edgeToNodes[edgeIndex] = toNode;
+    this.edgeWeights[edgeIndex] = weight;
+    this.edgeObjects[edgeIndex] = object;
+    this.edgeCount++;
+    return edgeIndex;
+  }
+
+  /**
+   * Add an edge from the first to the last vertex of the line, with the length
+   * of the line as the weight.
+   *
+   * @return The edge index or -1 if the line was empty.
+   */
+  public int addEdge(final T object, final LineString line) {
+    return addEdge(object, line, line.getLength());
+  }
+
+  /**
+   * Add an edge from the first to the last vertex of the line.
+   *
+   * @return The edge index or -1 if the line was empty.
+   */
+  public int addEdge(final T object, LineString line, final double weight) {
+    if (line == null || line.isEmpty()) {
+      return -1;
+    } else {
+      if (this.geometryFactory == null) {
+        this.geometryFactory = line.getGeometryFactory()
+          .convertAxisCount(2);
+      } else if (!line.isSameCoordinateSystem(this.geometryFactory)) {
+        line = line.convertGeometry(this.geometryFactory);
+      }
+      final int lastVertexIndex = line.getVertexCount() - 1;
+      return addEdge(object, line.getX(0), line.getY(0), line.getX(lastVertexIndex),
+        line.getY(lastVertexIndex), weight);
+    }
+  }
+
+  /**
+   * Get the node with the coordinates, adding a new node if one doesn't exist.
+   *
+   * @return The node index.
+   */
+  public int addNode(double x, double y) {
+    // Normalize -0.0 to 0.0
+    x += 0.0;
+    y += 0.0;
+    if (this.nodeCount * 2 >= this.nodeTable.length) {
+      resizeNodeTable(this.nodeTable.length * 2);
+    }
+    final int[] nodeTable = this.nodeTable;
+    final int mask = nodeTable.length - 1;
+    double[] nodeCoordinates = this.nodeCoordinates;
+    int slot = CompactGraph.hash(x, y) & mask;
+    while (true) {
+      final int nodeIndex = nodeTable[slot];
+      if (nodeIndex == -1) {
+        final int newNodeIndex = this.nodeCount++;
+        if (newNodeIndex * 2 == nodeCoordinates.length) {
+          nodeCoordinates = Arrays.copyOf(nodeCoordinates, nodeCoordinates.length * 2);
+          this.nodeCoordinates = nodeCoordinates;
+        }
+        nodeCoordinates[newNodeIndex * 2] = x;
+        nodeCoordinates[newNodeIndex * 2 + 1] = y;
+        nodeTable[slot] = newNodeIndex;
+        return newNodeIndex;
+      } else if (nodeCoordinates[nodeIndex * 2] == x && nodeCoordinates[nodeIndex * 2 + 1] == y) {
+        return nodeIndex;
+      }
+      slot = slot + 1 & mask;
+    }
+  }
+
+  public int getEdgeCount() {
+    return this.edgeCount;
+  }
+
+  public int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  /**
+   * Construct the immutable graph. The builder can continue to be used after
+   * this method is called.
+   */
+  public CompactGraph<T> newGraph() {
+    final int edgeCount = this.edgeCount;
+    final int nodeCount = this.nodeCount;
+    final int[] edgeFromNodes = Arrays.copyOf(this.edgeFromNodes, edgeCount);
+    final int[] edgeToNodes = Arrays.copyOf(this.edgeToNodes, edgeCount);
+
+    // Count the degree of each node, self loops are only included once
+    final int[] nodeEdgeOffsets = new int[nodeCount + 1];
+    for (int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++) {
+      final int fromNode = edgeFromNodes[edgeIndex];
+      final int toNode = edgeToNodes[edgeIndex];
+      nodeEdgeOffsets[fromNode + 1]++;
+      if (fromNode != toNode) {
+        nodeEdgeOffsets[toNode + 1]++;
+      }
+    }
+    for (int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++) {
+      nodeEdgeOffsets[nodeIndex + 1] += nodeEdgeOffsets[nodeIndex];
+    }
+
+    final int[] nodeEdges = new int[nodeEdgeOffsets[nodeCount]];
+    final int[] nextOffsets = Arrays.copyOf(nodeEdgeOffsets, nodeCount);
+    for (int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++) {
+      final int fromNode = edgeFromNodes[edgeIndex];
+      final int toNode = edgeToNodes[edgeIndex];
+      nodeEdges[nextOffsets[fromNode]++] = edgeIndex;
+      if (fromNode != toNode) {
+        nodeEdges[nextOffsets[toNode]++] = edgeIndex;
+      }
+    }
+
+    return new CompactGraph<>(this.geometryFactory, nodeCount,
+      Arrays.copyOf(this.nodeCoordinates, nodeCount * 2), this.nodeTable.clone(), edgeFromNodes,
+      edgeToNodes, Arrays.copyOf(this.edgeWeights, edgeCount),
+      Arrays.copyOf(this.edgeObjects, edgeCount), nodeEdgeOffsets, nodeEdges);
+  }
+
+  private void resizeNodeTable(final int size) {
+    final int[] nodeTable = new int[size];
+    Arrays.fill(nodeTable, -1);
+    final int mask = size - 1;
+    final double[] nodeCoordinates = this.nodeCoordinates;
+    for (int nodeIndex = 0; nodeIndex < this.nodeCount; nodeIndex++) {
+      final double x = nodeCoordinates[nodeIndex * 2];
+      final double y = nodeCoordinates[nodeIndex * 2 + 1];
+      int slot = CompactGraph.hash(x, y) & mask;
+      while (nodeTable[slot] != -1) {
+        slot = slot + 1 & mask;
+      }
+      nodeTable[slot] = nodeIndex;
+    }
+    this.nodeTable = nodeTable;
+  }
+
+  /**
+   * Set the expected number of edges to avoid resizing the arrays. This must
+   * be called before any edges are added.
+   */
+  public CompactGraphBuilder<T> setExpectedEdgeCount(final int edgeCount) {
+    if (this.edgeCount > 0) {
+      throw new IllegalStateException("Edges have already been added");
+    }
+    final int capacity = Math.max(16, edgeCount);
+    this.edgeFromNodes = new int[capacity];
+    this.edgeToNodes = new int[capacity];
+    this.edgeWeights = new double[capacity];
+    this.edgeObjects = new Object[capacity];
+    this.nodeCoordinates = new double[capacity * 2];
+    this.nodeCount = 0;
+    final int tableSize = Integer.highestOneBit(Math.max(16, capacity * 2) - 1) << 1;
+    final int[] nodeTable = new int[tableSize];
+    Arrays.fill(nodeTable, -1);
+    this.nodeTable = nodeTable;
+    return this;
+  }
+}
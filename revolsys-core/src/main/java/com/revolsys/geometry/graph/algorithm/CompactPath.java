@@ -0,0 +1,100 @@
+package com.revolsys.geometry.graph.algorithm;
+
+import java.util.List;
+
+import com.revolsys.geometry.graph.CompactGraph;
+
+/**
+ * A path through a {@link CompactGraph} returned by {@link CompactShortestPath}.
+ *
+ * @param <T> The type of object stored for each edge.
+ */
+public class CompactPath<T> {
+  private static final int[] EMPTY = new int[0];
+
+  private final double distance;
+
+  private final int[] edges;
+
+  private final CompactGraph<T> graph;
+
+  private final int[] nodes;
+
+  CompactPath(final CompactGraph<T> graph) {
+    this(graph, Double.POSITIVE_INFINITY, EMPTY, EMPTY);
+  }
+
+  CompactPath(final CompactGraph<T> graph, final double distance, final int[] nodes,
+    final int[] edges) {
+    this.graph = graph;
+    this.distance = distance;
+    this.nodes = nodes;
+    this.edges = edges;
+  }
+
+  /**
+   * Get the total weight of the edges in the path, or
+   * {@link Double#POSITIVE_INFINITY} if no path was found.
+   */
+  public double getDistance() {
+    return this.distance;
+  }
+
+  public int getEdge(final int index) {
+    return this.edges[index];
+  }
+
+  public int getEdgeCount() {
+    return this.edges.length;
+  }
+
+  /**
+   * Get the edge objects along the path.
+   *
+   * @see CompactGraph#getEdgeObjects(int...)
+   */
+  public List<T> getEdgeObjects() {
+    return this.graph.getEdgeObjects(this.edges);
+  }
+
+  /**
+   * Get a copy of the edge indexes in order from the start to the end of the
+   * path.
+   */
+  public int[] getEdges() {
+    return this.edges.clone();
+  }
+
+  public CompactGraph<T> getGraph() {
+    return this.graph;
+  }
+
+  public int getNode(final int index) {
+    return this.nodes[index];
+  }
+
+  public int getNodeCount() {
+    return this.nodes.length;
+  }
+
+  /**
+   * Get a copy of the node indexes in order from the start to the end of the
+   * path.
+   */
+  public int[] getNodes() {
+    return this.nodes.clone();
+  }
+
+  public boolean isFound() {
+    return this.nodes.length > 0;
+  }
+
+  @Override
+  public String toString() {
+    if (isFound()) {
+      return "Path(distance=" + this.distance + ", edges=" + this.edges.length + ")";
+    } else {
+      return "Path(not found)";
+    }
+  }
+}
@@ -0,0 +1,368 @@
+package com.revolsys.geometry.graph.algorithm;
+
+import java.util.Arrays;
+
+import com.revolsys.geometry.graph.CompactGraph;
+
+/**
+ * Shortest path searches over a {@link CompactGraph} using primitive arrays
+ * and a binary heap of node indexes. The per node arrays are allocated once
+ * and re-used for each search (using a search generation number instead of
+ * clearing them) so repeated searches only touch the nodes they visit.
+ *
+ * <p>
+ * Instances are not thread safe, use one instance per thread.
+ * </p>
+ *
+ * @param <T> The type of object stored for each edge.
+ */
+public class CompactShortestPath<T> {
+  /**
+   * The state for a search from one end of the path.
+   */
+  private static final class Search {
+    private final double[] distances;
+
+    private final int[] generations;
+
+    private final int[] predecessorEdges;
+
+    private double[] queueKeys;
+
+    private int[] queueHeap;
+
+    private int queueSize;
+
+    private final int[] settled;
+
+    private Search(final int nodeCount) {
+      this.distances = new double[nodeCount];
+      this.generations = new int[nodeCount];
+      this.predecessorEdges = new int[nodeCount];
+      this.settled = new int[nodeCount];
+      this.queueHeap = new int[64];
+      this.queueKeys = new double[64];
+    }
+
+    private void add(final int nodeIndex, final double key) {
+      if (this.queueSize == this.queueHeap.length) {
+        this.queueHeap = Arrays.copyOf(this.queueHeap, this.queueSize * 2);
+        this.queueKeys = Arrays.copyOf(this.queueKeys, this.queueSize * 2);
+      }
+      final int[] heap = this.queueHeap;
+      final double[] keys = this.queueKeys;
+      int index = this.queueSize++;
+      while (index > 0) {
+        final int parent = index - 1 >>> 1;
+        if (keys[parent] <= key) {
+          break;
+        }
+        heap[index] = heap[parent];
+        keys[index] = keys[parent];
+        index = parent;
+      }
+      heap[index] = nodeIndex;
+      keys[index] = key;
+    }
+
+    private double getDistance(final int nodeIndex, final int generation) {
+      if (this.generations[nodeIndex] == generation) {
+        return this.distances[nodeIndex];
+      } else {
+        return Double.POSITIVE_INFINITY;
+      }
+    }
+
+    private boolean isEmpty() {
+      return this.queueSize == 0;
+    }
+
+    private double peekKey() {
+      return this.queueKeys[0];
+    }
+
+    private int poll() {
+      final int[] heap = this.queueHeap;
+      final double[] keys = this.queueKeys;
+      final int result = heap[0];
+      final int size = --this.queueSize;
+      if (size > 0) {
+        final int lastNode = heap[size];
+        final double lastKey = keys[size];
+        int index = 0;
+        while (true) {
+          int child = index * 2 + 1;
+          if (child >= size) {
+            break;
+          }
+          if (child + 1 < size && keys[child + 1] < keys[child]) {
+            child++;
+          }
+          if (lastKey <= keys[child]) {
+            break;
+          }
+          heap[index] = heap[child];
+          keys[index] = keys[child];
+          index = child;
+        }
+        heap[index] = lastNode;
+        keys[index] = lastKey;
+      }
+      return result;
+    }
+
+    private void start(final int nodeIndex, final int generation, final double key) {
+      this.queueSize = 0;
+      this.generations[nodeIndex] = generation;
+      this.distances[nodeIndex] = 0;
+      this.predecessorEdges[nodeIndex] = -1;
+      add(nodeIndex, key);
+    }
+
+    /**
+     * Update the distance to the node if it is shorter than the current
+     * distance.
+     *
+     * @return True if the distance was updated.
+     */
+    private boolean update(final int nodeIndex, final int generation, final double distance,
+      final int edgeIndex) {
+      if (this.generations[nodeIndex] != generation || distance < this.distances[nodeIndex]) {
+        this.generations[nodeIndex] = generation;
+        this.distances[nodeIndex] = distance;
+        this.predecessorEdges[nodeIndex] = edgeIndex;
+        return true;
+      } else {
+        return false;
+      }
+    }
+  }
+
+  private Search backward;
+
+  private final Search forward;
+
+  private int generation;
+
+  private final CompactGraph<T> graph;
+
+  public CompactShortestPath(final CompactGraph<T> graph) {
+    this.graph = graph;
+    this.forward = new Search(graph.getNodeCount());
+  }
+
+  /**
+   * Find the shortest path using A* with the straight line distance to the
+   * target as the heuristic. The edge weights must be at least the straight
+   * line distance between the edge's nodes (e.g. the length of the line, the
+   * default) otherwise the path may not be the shortest.
+   */
+  public CompactPath<T> aStar(final int fromNode, final int toNode) {
+    return search(fromNode, toNode, true);
+  }
+
+  /**
+   * Find the shortest path using a bidirectional Dijkstra search, expanding
+   * the search from both ends of the path until the searches meet.
+   */
+  public CompactPath<T> bidirectional(final int fromNode, final int toNode) {
+    final CompactGraph<T> graph = this.graph;
+    if (fromNode == toNode) {
+      return newPath(fromNode, toNode, -1);
+    }
+    if (this.backward == null) {
+      this.backward = new Search(graph.getNodeCount());
+    }
+    final int generation = nextGeneration();
+    final Search forward = this.forward;
+    final Search backward = this.backward;
+    forward.start(fromNode, generation, 0);
+    backward.start(toNode, generation, 0);
+    double bestDistance = Double.POSITIVE_INFINITY;
+    int meetingNode = -1;
+    while (!forward.isEmpty() && !backward.isEmpty()) {
+      if (forward.peekKey() + backward.peekKey() >= bestDistance) {
+        break;
+      }
+      final Search search;
+      final Search other;
+      if (forward.queueSize <= backward.queueSize) {
+        search = forward;
+        other = backward;
+      } else {
+        search = backward;
+        other = forward;
+      }
+      final int nodeIndex = search.poll();
+      if (search.settled[nodeIndex] != generation) {
+        search.settled[nodeIndex] = generation;
+        final double nodeDistance = search.distances[nodeIndex];
+        final int end = graph.getNodeEdgeEnd(nodeIndex);
+        for (int i = graph.getNodeEdgeStart(nodeIndex); i < end; i++) {
+          final int edgeIndex = graph.getNodeEdge(i);
+          final int oppositeNode = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+          if (search.settled[oppositeNode] != generation) {
+            final double distance = nodeDistance + graph.getEdgeWeight(edgeIndex);
+            if (search.update(oppositeNode, generation, distance, edgeIndex)) {
+              search.add(oppositeNode, distance);
+            }
+            final double pathDistance = search.distances[oppositeNode]
+              + other.getDistance(oppositeNode, generation);
+            if (pathDistance < bestDistance) {
+              bestDistance = pathDistance;
+              meetingNode = oppositeNode;
+            }
+          }
+        }
+      }
+    }
+    if (meetingNode == -1) {
+      return new CompactPath<>(graph);
+    } else {
+      return newPath(fromNode, toNode, meetingNode);
+    }
+  }
+
+  /**
+   * Find the shortest path using Dijkstra's algorithm, stopping once the
+   * target node is reached.
+   */
+  public CompactPath<T> dijkstra(final int fromNode, final int toNode) {
+    return search(fromNode, toNode, false);
+  }
+
+  /**
+   * Get the shortest distance from the node to every node in the graph.
+   * Unreachable nodes have a distance of {@link Double#POSITIVE_INFINITY}.
+   */
+  public double[] getDistances(final int fromNode) {
+    search(fromNode, -1, false);
+    final int generation = this.generation;
+    final Search forward = this.forward;
+    final double[] distances = new double[this.graph.getNodeCount()];
+    for (int nodeIndex = 0; nodeIndex < distances.length; nodeIndex++) {
+      distances[nodeIndex] = forward.getDistance(nodeIndex, generation);
+    }
+    return distances;
+  }
+
+  public CompactGraph<T> getGraph() {
+    return this.graph;
+  }
+
+  private double getHeuristic(final int nodeIndex, final double toX, final double toY) {
+    final double dx = this.graph.getNodeX(nodeIndex) - toX;
+    final double dy = this.graph.getNodeY(nodeIndex) - toY;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * Construct the path from the predecessor edges of the forward search from
+   * the start to the meeting node and the backward search from the meeting node
+   * to the end.
+   */
+  private CompactPath<T> newPath(final int fromNode, final int toNode, final int meetingNode) {
+    final CompactGraph<T> graph = this.graph;
+    if (meetingNode == -1) {
+      return new CompactPath<>(graph, 0, new int[] {
+        fromNode
+      }, new int[0]);
+    }
+    int forwardEdgeCount = 0;
+    for (int nodeIndex = meetingNode; nodeIndex != fromNode; forwardEdgeCount++) {
+      final int edgeIndex = this.forward.predecessorEdges[nodeIndex];
+      nodeIndex = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+    }
+    int backwardEdgeCount = 0;
+    if (meetingNode != toNode) {
+      for (int nodeIndex = meetingNode; nodeIndex != toNode; backwardEdgeCount++) {
+        final int edgeIndex = this.backward.predecessorEdges[nodeIndex];
+        nodeIndex = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+      }
+    }
+    final int edgeCount = forwardEdgeCount + backwardEdgeCount;
+    final int[] edges = new int[edgeCount];
+    final int[] nodes = new int[edgeCount + 1];
+    double distance = 0;
+
+    int nodeIndex = meetingNode;
+    nodes[forwardEdgeCount] = meetingNode;
+    for (int i = forwardEdgeCount - 1; i >= 0; i--) {
+      final int edgeIndex = this.forward.predecessorEdges[nodeIndex];
+      nodeIndex = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+      edges[i] = edgeIndex;
+      nodes[i] = nodeIndex;
+      distance += graph.getEdgeWeight(edgeIndex);
+    }
+    nodeIndex = meetingNode;
+    for (int i = forwardEdgeCount; i < edgeCount; i++) {
+      final int edgeIndex = this.backward.predecessorEdges[nodeIndex];
+      nodeIndex = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+      edges[i] = edgeIndex;
+      nodes[i + 1] = nodeIndex;
+      distance += graph.getEdgeWeight(edgeIndex);
+    }
+    return new CompactPath<>(graph, distance, nodes, edges);
+  }
+
+  private int nextGeneration() {
+    this.generation++;
+    if (this.generation == Integer.MAX_VALUE) {
+      this.generation = 1;
+      for (final Search search : new Search[] {
+        this.forward, this.backward
+      }) {
+        if (search != null) {
+          Arrays.fill(search.generations, 0);
+          Arrays.fill(search.settled, 0);
+        }
+      }
+    }
+    return this.generation;
+  }
+
+  private CompactPath<T> search(final int fromNode, final int toNode, final boolean aStar) {
+    final CompactGraph<T> graph = this.graph;
+    final int generation = nextGeneration();
+    final Search search = this.forward;
+    double toX = 0;
+    double toY = 0;
+    if (aStar) {
+      toX = graph.getNodeX(toNode);
+      toY = graph.getNodeY(toNode);
+      search.start(fromNode, generation, getHeuristic(fromNode, toX, toY));
+    } else {
+      search.start(fromNode, generation, 0);
+    }
+    while (!search.isEmpty()) {
+      final int nodeIndex = search.poll();
+      if (search.settled[nodeIndex] != generation) {
+        if (nodeIndex == toNode) {
+          return newPath(fromNode, toNode, toNode);
+        }
+        search.settled[nodeIndex] = generation;
+        final double nodeDistance = search.distances[nodeIndex];
+        final int end = graph.getNodeEdgeEnd(nodeIndex);
+        for (int i = graph.getNodeEdgeStart(nodeIndex); i < end; i++) {
+          final int edgeIndex = graph.getNodeEdge(i);
+          final int oppositeNode = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+          if (search.settled[oppositeNode] != generation) {
+            final double distance = nodeDistance + graph.getEdgeWeight(edgeIndex);
+            if (search.update(oppositeNode, generation, distance, edgeIndex)) {
+              if (aStar) {
+                search.add(oppositeNode, distance + getHeuristic(oppositeNode, toX, toY));
+              } else {
+                search.add(oppositeNode, distance);
+              }
+            }
+          }
+        }
+      }
+    }
+    if (toNode == -1) {
+      return null;
+    } else {
+      return new CompactPath<>(graph);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.revolsys.geometry.graph.algorithm;
+
+import java.util.Arrays;
+
+import com.revolsys.geometry.graph.CompactGraph;
+
+/**
+ * Label the connected components of a {@link CompactGraph}. Each node is
+ * assigned a component number from 0 to componentCount - 1 using a breadth
+ * first traversal of the CSR adjacency arrays.
+ */
+public class ConnectedComponents {
+  private final int componentCount;
+
+  private final int[] componentSizes;
+
+  private final int[] nodeComponents;
+
+  public ConnectedComponents(final CompactGraph<?> graph) {
+    final int nodeCount = graph.getNodeCount();
+    final int[] nodeComponents = new int[nodeCount];
+    Arrays.fill(nodeComponents, -1);
+    final int[] queue = new int[nodeCount];
+    int[] componentSizes = new int[16];
+    int componentCount = 0;
+    for (int startNode = 0; startNode < nodeCount; startNode++) {
+      if (nodeComponents[startNode] == -1) {
+        final int component = componentCount++;
+        nodeComponents[startNode] = component;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = startNode;
+        while (head < tail) {
+          final int nodeIndex = queue[head++];
+          final int end = graph.getNodeEdgeEnd(nodeIndex);
+          for (int i = graph.getNodeEdgeStart(nodeIndex); i < end; i++) {
+            final int edgeIndex = graph.getNodeEdge(i);
+            final int oppositeNode = graph.getEdgeOppositeNode(edgeIndex, nodeIndex);
+            if (nodeComponents[oppositeNode] == -1) {
+              nodeComponents[oppositeNode] = component;
+              queue[tail++] = oppositeNode;
+            }
+          }
+        }
+        if (component == componentSizes.length) {
+          componentSizes = Arrays.copyOf(componentSizes, component * 2);
+        }
+        componentSizes[component] = tail;
+      }
+    }
+    this.nodeComponents = nodeComponents;
+    this.componentCount = componentCount;
+    this.componentSizes = Arrays.copyOf(componentSizes, componentCount);
+  }
+
+  public int getComponentCount() {
+    return this.componentCount;
+  }
+
+  /**
+   * Get the number of nodes in the component.
+   */
+  public int getComponentSize(final int component) {
+    return this.componentSizes[component];
+  }
+
+  /**
+   * Get the component with the most nodes, or -1 if the graph has no nodes.
+   */
+  public int getLargestComponent() {
+    int largestComponent = -1;
+    int largestSize = 0;
+    for (int component = 0; component < this.componentCount; component++) {
+      final int size = this.componentSizes[component];
+      if (size > largestSize) {
+        largestComponent = component;
+        largestSize = size;
+      }
+    }
+    return largestComponent;
+  }
+
+  public int getNodeComponent(final int nodeIndex) {
+    return this.nodeComponents[nodeIndex];
+  }
+
+  /**
+   * Check if there is a path between the two nodes.
+   */
+  public boolean isConnected(final int nodeIndex1, final int nodeIndex2) {
+    return this.nodeComponents[nodeIndex1] == this.nodeComponents[nodeIndex2];
+  }
+}
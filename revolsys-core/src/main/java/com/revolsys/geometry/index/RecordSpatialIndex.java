@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.quadtree.ConcurrentQuadTree;
 import com.revolsys.geometry.index.quadtree.QuadTree;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
@@ -22,6 +23,16 @@ import com.revolsys.visitor.CreateListVisitor;
 
 public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
 
+  /**
+   * Construct an index that can be queried by many threads while other threads
+   * add and remove records.
+   */
+  public static <R2 extends Record> RecordSpatialIndex<R2> concurrentQuadTree(
+    final GeometryFactory geometryFactory) {
+    final ConcurrentQuadTree<R2> spatialIndex = new ConcurrentQuadTree<>(geometryFactory);
+    return new RecordSpatialIndex<>(spatialIndex);
+  }
+
   public static <R2 extends Record> RecordSpatialIndex<R2> quadTree(
     final GeometryFactory geometryFactory) {
     final QuadTree<R2> spatialIndex = new QuadTree<>(geometryFactory);
@@ -51,7 +62,10 @@ public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
   }
 
   public RecordSpatialIndex<R> addRecords(final Iterable<? extends R> records) {
-    if (records != null) {
+    if (records instanceof final Collection<? extends R> collection
+      && this.spatialIndex instanceof final ConcurrentQuadTree<R> concurrentQuadTree) {
+      concurrentQuadTree.insertItems(collection, Record::getGeometry);
+    } else if (records != null) {
       for (final R record : records) {
         addRecord(record);
       }
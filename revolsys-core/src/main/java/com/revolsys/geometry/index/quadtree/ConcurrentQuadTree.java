@@ -0,0 +1,260 @@
+package com.revolsys.geometry.index.quadtree;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.revolsys.geometry.index.SpatialIndex;
+import com.revolsys.geometry.index.quadtree.ConcurrentQuadTreeNode.Batch;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.BoundingBoxProxy;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.util.ExitLoopException;
+
+/**
+ * A quad tree that can be queried by many threads while other threads insert
+ * and remove items.
+ *
+ * <p>
+ * Queries never lock; each node's items and sub nodes are stored in an
+ * immutable snapshot that writers replace (copy on write) while holding a lock
+ * on just that node. Writers on different parts of the tree don't block each
+ * other. A query sees each node as it was at some point during the query, so
+ * an item inserted or removed while the query is running may or may not be
+ * returned but an item is never returned twice.
+ * </p>
+ *
+ * <p>
+ * Leaf nodes hold up to 32 items before they are split. Unlike {@link QuadTree}
+ * empty nodes are not pruned when items are removed, use {@link #clear()} to
+ * release all the nodes.
+ * </p>
+ */
+public class ConcurrentQuadTree<T> implements SpatialIndex<T> {
+
+  private volatile GeometryFactory geometryFactory = GeometryFactory.DEFAULT_2D;
+
+  private volatile double minNodeSize = 0.00000001;
+
+  private final ConcurrentQuadTreeNode<T> root = new ConcurrentQuadTreeNode<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Writers hold a read lock so they can run concurrently, {@link #clear()}
+   * holds the write lock so no writer is modifying a node that is being
+   * removed.
+   */
+  private final StampedLock structureLock = new StampedLock();
+
+  private boolean useEquals = false;
+
+  public ConcurrentQuadTree(final GeometryFactory geometryFactory) {
+    setGeometryFactory(geometryFactory);
+  }
+
+  @Override
+  public void clear() {
+    final long stamp = this.structureLock.writeLock();
+    try {
+      this.root.clear();
+      this.size.set(0);
+    } finally {
+      this.structureLock.unlockWrite(stamp);
+    }
+  }
+
+  public int depth() {
+    return this.root.depth();
+  }
+
+  protected boolean equalsItem(final T item1, final T item2) {
+    if (item1 == item2) {
+      return true;
+    } else if (this.useEquals) {
+      return item1.equals(item2);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean forEach(final Consumer<? super T> action) {
+    try {
+      this.root.forEach(action);
+      return true;
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean forEach(final double x, final double y, final Consumer<? super T> action) {
+    try {
+      this.root.forEach(x, y, action);
+      return true;
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean forEach(final double minX, final double minY, final double maxX, final double maxY,
+    final Consumer<? super T> action) {
+    try {
+      this.root.forEach(minX, minY, maxX, maxY, action);
+      return true;
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  double getMinNodeSize() {
+    return this.minNodeSize;
+  }
+
+  @Override
+  public int getSize() {
+    return this.size.get();
+  }
+
+  private void insert(final double[] bounds, final Object[] items) {
+    final Batch batch = new Batch(bounds, items);
+    final long stamp = this.structureLock.readLock();
+    try {
+      final int addCount = this.root.insert(this, batch, 0, items.length);
+      this.size.addAndGet(addCount);
+    } finally {
+      this.structureLock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void insertItem(final BoundingBox boundingBox, final T item) {
+    final BoundingBox convertedBoundingBox = convertBoundingBox(boundingBox);
+    if (convertedBoundingBox == null || convertedBoundingBox.isEmpty()) {
+      throw new IllegalArgumentException("Item bounding box " + boundingBox
+        + " must not be null or empty in coordinate system: " + getHorizontalCoordinateSystemId());
+    } else {
+      final double minX = convertedBoundingBox.getMinX();
+      final double minY = convertedBoundingBox.getMinY();
+      final double maxX = convertedBoundingBox.getMaxX();
+      final double maxY = convertedBoundingBox.getMaxY();
+
+      insertItem(minX, minY, maxX, maxY, item);
+    }
+  }
+
+  public void insertItem(final double minX, final double minY, final double maxX,
+    final double maxY, final T item) {
+    insert(new double[] {
+      minX, minY, maxX, maxY
+    }, new Object[] {
+      item
+    });
+  }
+
+  public void insertItem(final double x, final double y, final T item) {
+    insertItem(x, y, x, y, item);
+  }
+
+  /**
+   * Insert all the items in one operation. The items are partitioned down the
+   * tree so each node that receives items is only locked and copied once. This
+   * is much faster than inserting the items one at a time when loading a layer.
+   * Items with a null or empty bounding box are ignored.
+   *
+   * @param items The items to insert.
+   * @param boundingBoxFunction The function to get the bounding box of an item.
+   */
+  public <V extends T> void insertItems(final Collection<V> items,
+    final Function<? super V, ? extends BoundingBoxProxy> boundingBoxFunction) {
+    final double[] bounds = new double[items.size() * 4];
+    final Object[] insertItems = new Object[items.size()];
+    int count = 0;
+    for (final V item : items) {
+      final BoundingBoxProxy boundingBoxProxy = boundingBoxFunction.apply(item);
+      if (boundingBoxProxy != null) {
+        final BoundingBox boundingBox = convertBoundingBox(boundingBoxProxy);
+        if (boundingBox != null && !boundingBox.isEmpty()) {
+          final int offset = count * 4;
+          bounds[offset] = boundingBox.getMinX();
+          bounds[offset + 1] = boundingBox.getMinY();
+          bounds[offset + 2] = boundingBox.getMaxX();
+          bounds[offset + 3] = boundingBox.getMaxY();
+          insertItems[count++] = item;
+        }
+      }
+    }
+    if (count > 0) {
+      if (count < insertItems.length) {
+        insert(Arrays.copyOf(bounds, count * 4), Arrays.copyOf(insertItems, count));
+      } else {
+        insert(bounds, insertItems);
+      }
+    }
+  }
+
+  @Override
+  public boolean removeItem(BoundingBox boundingBox, final T item) {
+    boundingBox = convertBoundingBox(boundingBox);
+    if (boundingBox != null && !boundingBox.isEmpty()) {
+      final double minX = boundingBox.getMinX();
+      final double minY = boundingBox.getMinY();
+      final double maxX = boundingBox.getMaxX();
+      final double maxY = boundingBox.getMaxY();
+
+      return removeItem(minX, minY, maxX, maxY, item);
+    } else {
+      return false;
+    }
+  }
+
+  public boolean removeItem(final double minX, final double minY, final double maxX,
+    final double maxY, final T item) {
+    final long stamp = this.structureLock.readLock();
+    try {
+      final boolean removed = this.root.remove(this, minX, minY, maxX, maxY, item);
+      if (removed) {
+        this.size.decrementAndGet();
+      }
+      return removed;
+    } finally {
+      this.structureLock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    if (geometryFactory == null) {
+      this.geometryFactory = GeometryFactory.DEFAULT_2D;
+    } else {
+      this.geometryFactory = geometryFactory;
+    }
+    double minNodeSize = 0.00000001;
+    if (!this.geometryFactory.isFloating()) {
+      final double resolution = this.geometryFactory.getResolutionX();
+      if (resolution > 0) {
+        minNodeSize = resolution;
+      }
+    }
+    this.minNodeSize = minNodeSize;
+  }
+
+  public void setUseEquals(final boolean useEquals) {
+    this.useEquals = useEquals;
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrentQuadTree(size=" + getSize() + ")";
+  }
+}
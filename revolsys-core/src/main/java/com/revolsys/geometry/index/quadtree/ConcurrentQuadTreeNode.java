@@ -0,0 +1,575 @@
+package com.revolsys.geometry.index.quadtree;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.revolsys.geometry.index.DoubleBits;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.util.RectangleUtil;
+
+/**
+ * A node in a {@link ConcurrentQuadTree}. The items and child nodes are held
+ * in an immutable {@link State} that is replaced (copy on write) while holding
+ * the node's monitor. Readers only read the volatile state so they never block.
+ *
+ * <p>
+ * Nodes are never removed from the tree (except by clear) and items only move
+ * down the tree when a leaf is split, so a writer can find the node to modify
+ * without locking the nodes above it.
+ * </p>
+ */
+final class ConcurrentQuadTreeNode<T> {
+
+  /**
+   * The arrays of item indexes to insert. The bounds are stored as minX, minY,
+   * maxX, maxY for each item.
+   */
+  static final class Batch {
+    private final double[] bounds;
+
+    private final int[] indexes;
+
+    private final Object[] items;
+
+    private final int[] scratch;
+
+    Batch(final double[] bounds, final Object[] items) {
+      this.bounds = bounds;
+      this.items = items;
+      final int count = items.length;
+      this.indexes = new int[count];
+      for (int i = 0; i < count; i++) {
+        this.indexes[i] = i;
+      }
+      this.scratch = new int[count];
+    }
+  }
+
+  private static final class State<T> {
+    private final double[] bounds;
+
+    private final Object[] items;
+
+    private final ConcurrentQuadTreeNode<T>[] nodes;
+
+    private State(final double[] bounds, final Object[] items,
+      final ConcurrentQuadTreeNode<T>[] nodes) {
+      this.bounds = bounds;
+      this.items = items;
+      this.nodes = nodes;
+    }
+
+    private State<T> setNodes(final ConcurrentQuadTreeNode<T>[] nodes) {
+      return new State<>(this.bounds, this.items, nodes);
+    }
+  }
+
+  private static final double[] EMPTY_BOUNDS = new double[0];
+
+  private static final Object[] EMPTY_ITEMS = new Object[0];
+
+  static final int MAX_ITEMS = 32;
+
+  private static final int ROOT_LEVEL = Integer.MIN_VALUE;
+
+  @SuppressWarnings("unchecked")
+  private static <T> ConcurrentQuadTreeNode<T>[] newNodes() {
+    return new ConcurrentQuadTreeNode[4];
+  }
+
+  /**
+   * Construct the smallest aligned power of 2 sized node that covers the
+   * bounding box for the root's sub node. The sub nodes for the negative
+   * quadrants are aligned from their max so they never straddle an axis.
+   */
+  private static <T> ConcurrentQuadTreeNode<T> newNodeCovering(final ConcurrentQuadTree<T> tree,
+    final int subnodeIndex, final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final boolean negativeX = subnodeIndex == 0 || subnodeIndex == 2;
+    final boolean negativeY = subnodeIndex == 0 || subnodeIndex == 1;
+    final double dx = maxX - minX;
+    final double dy = maxY - minY;
+    final double dMax = Math.max(Math.max(dx, dy), tree.getMinNodeSize());
+    int level = DoubleBits.exponent(dMax) + 1;
+    while (true) {
+      final double quadSize = DoubleBits.powerOf2(level);
+      double newMinX;
+      if (negativeX) {
+        newMinX = Math.ceil(maxX / quadSize) * quadSize - quadSize;
+      } else {
+        newMinX = Math.floor(minX / quadSize) * quadSize;
+      }
+      double newMinY;
+      if (negativeY) {
+        newMinY = Math.ceil(maxY / quadSize) * quadSize - quadSize;
+      } else {
+        newMinY = Math.floor(minY / quadSize) * quadSize;
+      }
+      final double newMaxX = newMinX + quadSize;
+      final double newMaxY = newMinY + quadSize;
+      if (RectangleUtil.covers(newMinX, newMinY, newMaxX, newMaxY, minX, minY, maxX, maxY)) {
+        return new ConcurrentQuadTreeNode<>(level, newMinX, newMinY, newMaxX, newMaxY);
+      }
+      level++;
+    }
+  }
+
+  private final double centreX;
+
+  private final double centreY;
+
+  private final int level;
+
+  private final double maxX;
+
+  private final double maxY;
+
+  private final double minX;
+
+  private final double minY;
+
+  private volatile State<T> state;
+
+  ConcurrentQuadTreeNode() {
+    this(ROOT_LEVEL, 0, 0, 0, 0);
+    clear();
+  }
+
+  private ConcurrentQuadTreeNode(final int level, final double minX, final double minY,
+    final double maxX, final double maxY) {
+    this.level = level;
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+    this.centreX = (minX + maxX) / 2;
+    this.centreY = (minY + maxY) / 2;
+    this.state = new State<>(EMPTY_BOUNDS, EMPTY_ITEMS, null);
+  }
+
+  /**
+   * Add the batch items to the state's items, replacing any equal items.
+   */
+  private State<T> addItems(final ConcurrentQuadTree<T> tree, final State<T> state,
+    final Batch batch, final int start, final int end) {
+    if (start == end) {
+      return state;
+    }
+    int count = state.items.length;
+    final double[] bounds = Arrays.copyOf(state.bounds, (count + end - start) * 4);
+    final Object[] items = Arrays.copyOf(state.items, count + end - start);
+    for (int i = start; i < end; i++) {
+      final int index = batch.indexes[i];
+      @SuppressWarnings("unchecked")
+      final T item = (T)batch.items[index];
+      int itemIndex = indexOf(tree, items, count, item);
+      if (itemIndex == -1) {
+        itemIndex = count++;
+      }
+      items[itemIndex] = item;
+      System.arraycopy(batch.bounds, index * 4, bounds, itemIndex * 4, 4);
+    }
+    if (count == items.length) {
+      return new State<>(bounds, items, state.nodes);
+    } else {
+      return new State<>(Arrays.copyOf(bounds, count * 4), Arrays.copyOf(items, count),
+        state.nodes);
+    }
+  }
+
+  private boolean canSplit(final ConcurrentQuadTree<T> tree) {
+    return this.maxX - this.minX > tree.getMinNodeSize();
+  }
+
+  void clear() {
+    if (isRoot()) {
+      this.state = new State<>(EMPTY_BOUNDS, EMPTY_ITEMS, newNodes());
+    } else {
+      this.state = new State<>(EMPTY_BOUNDS, EMPTY_ITEMS, null);
+    }
+  }
+
+  private boolean covers(final double minX, final double minY, final double maxX,
+    final double maxY) {
+    return this.minX <= minX && maxX <= this.maxX && this.minY <= minY && maxY <= this.maxY;
+  }
+
+  int depth() {
+    int depth = 0;
+    final ConcurrentQuadTreeNode<T>[] nodes = this.state.nodes;
+    if (nodes != null) {
+      for (final ConcurrentQuadTreeNode<T> node : nodes) {
+        if (node != null) {
+          depth = Math.max(depth, node.depth());
+        }
+      }
+    }
+    return depth + 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(final Consumer<? super T> action) {
+    final State<T> state = this.state;
+    for (final Object item : state.items) {
+      action.accept((T)item);
+    }
+    final ConcurrentQuadTreeNode<T>[] nodes = state.nodes;
+    if (nodes != null) {
+      for (final ConcurrentQuadTreeNode<T> node : nodes) {
+        if (node != null) {
+          node.forEach(action);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(final double x, final double y, final Consumer<? super T> action) {
+    if (isRoot() || RectangleUtil.intersectsPointMinMax(this.minX, this.maxX, this.minY, this.maxY,
+      x, y)) {
+      final State<T> state = this.state;
+      final double[] bounds = state.bounds;
+      final Object[] items = state.items;
+      for (int i = 0; i < items.length; i++) {
+        final int offset = i * 4;
+        if (RectangleUtil.intersectsPointMinMax(bounds[offset], bounds[offset + 2],
+          bounds[offset + 1], bounds[offset + 3], x, y)) {
+          action.accept((T)items[i]);
+        }
+      }
+      final ConcurrentQuadTreeNode<T>[] nodes = state.nodes;
+      if (nodes != null) {
+        for (final ConcurrentQuadTreeNode<T> node : nodes) {
+          if (node != null) {
+            node.forEach(x, y, action);
+          }
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(final double minX, final double minY, final double maxX, final double maxY,
+    final Consumer<? super T> action) {
+    if (isSearchMatch(minX, minY, maxX, maxY)) {
+      final State<T> state = this.state;
+      final double[] bounds = state.bounds;
+      final Object[] items = state.items;
+      for (int i = 0; i < items.length; i++) {
+        final int offset = i * 4;
+        if (!(bounds[offset] > maxX || bounds[offset + 2] < minX || bounds[offset + 1] > maxY
+          || bounds[offset + 3] < minY)) {
+          action.accept((T)items[i]);
+        }
+      }
+      final ConcurrentQuadTreeNode<T>[] nodes = state.nodes;
+      if (nodes != null) {
+        for (final ConcurrentQuadTreeNode<T> node : nodes) {
+          if (node != null) {
+            node.forEach(minX, minY, maxX, maxY, action);
+          }
+        }
+      }
+    }
+  }
+
+  private int getSubnodeIndex(final double minX, final double minY, final double maxX,
+    final double maxY) {
+    int subnodeIndex = -1;
+    if (minX >= this.centreX) {
+      if (minY >= this.centreY) {
+        subnodeIndex = 3;
+      }
+      if (maxY <= this.centreY) {
+        subnodeIndex = 1;
+      }
+    }
+    if (maxX <= this.centreX) {
+      if (minY >= this.centreY) {
+        subnodeIndex = 2;
+      }
+      if (maxY <= this.centreY) {
+        subnodeIndex = 0;
+      }
+    }
+    return subnodeIndex;
+  }
+
+  private int getSubnodeIndex(final double[] bounds, final int index) {
+    final int offset = index * 4;
+    return getSubnodeIndex(bounds[offset], bounds[offset + 1], bounds[offset + 2],
+      bounds[offset + 3]);
+  }
+
+  private int indexOf(final ConcurrentQuadTree<T> tree, final Object[] items, final int count,
+    final T item) {
+    for (int i = 0; i < count; i++) {
+      @SuppressWarnings("unchecked")
+      final T oldItem = (T)items[i];
+      if (tree.equalsItem(item, oldItem)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Insert the batch items from start to end.
+   *
+   * @return The number of items added (not replaced).
+   */
+  int insert(final ConcurrentQuadTree<T> tree, final Batch batch, final int start,
+    final int end) {
+    final int[] bucketOffsets = new int[6];
+    final ConcurrentQuadTreeNode<T>[] nodes;
+    int addCount;
+    synchronized (this) {
+      State<T> state = this.state;
+      final int oldCount = state.items.length;
+      if (state.nodes == null) {
+        if (oldCount + end - start <= MAX_ITEMS || !canSplit(tree)) {
+          state = addItems(tree, state, batch, start, end);
+          this.state = state;
+          return state.items.length - oldCount;
+        } else {
+          state = split(state);
+        }
+      }
+
+      partition(batch, start, end, bucketOffsets);
+      nodes = state.nodes.clone();
+      for (int subnodeIndex = 0; subnodeIndex < 4; subnodeIndex++) {
+        final int bucketStart = bucketOffsets[subnodeIndex + 1];
+        final int bucketEnd = bucketOffsets[subnodeIndex + 2];
+        if (bucketStart < bucketEnd) {
+          nodes[subnodeIndex] = prepareSubnode(tree, nodes[subnodeIndex], subnodeIndex, batch,
+            bucketStart, bucketEnd);
+        }
+      }
+      final int stayCount = state.items.length;
+      state = addItems(tree, state.setNodes(nodes), batch, bucketOffsets[0], bucketOffsets[1]);
+      addCount = state.items.length - stayCount;
+      this.state = state;
+    }
+    for (int subnodeIndex = 0; subnodeIndex < 4; subnodeIndex++) {
+      final int bucketStart = bucketOffsets[subnodeIndex + 1];
+      final int bucketEnd = bucketOffsets[subnodeIndex + 2];
+      if (bucketStart < bucketEnd) {
+        addCount += nodes[subnodeIndex].insert(tree, batch, bucketStart, bucketEnd);
+      }
+    }
+    return addCount;
+  }
+
+  /**
+   * Insert the node into this new (not yet published) node, creating any
+   * intermediate nodes.
+   */
+  private void insertNode(final ConcurrentQuadTreeNode<T> node) {
+    final int index = getSubnodeIndex(node.minX, node.minY, node.maxX, node.maxY);
+    ConcurrentQuadTreeNode<T>[] nodes = this.state.nodes;
+    if (nodes == null) {
+      nodes = newNodes();
+      this.state = this.state.setNodes(nodes);
+    }
+    if (node.level == this.level - 1) {
+      nodes[index] = node;
+    } else {
+      final ConcurrentQuadTreeNode<T> childNode = newSubnode(index);
+      childNode.insertNode(node);
+      nodes[index] = childNode;
+    }
+  }
+
+  private boolean isRoot() {
+    return this.level == ROOT_LEVEL;
+  }
+
+  private boolean isSearchMatch(final double minX, final double minY, final double maxX,
+    final double maxY) {
+    if (isRoot()) {
+      return true;
+    } else {
+      return !(minX > this.maxX || maxX < this.minX || minY > this.maxY || maxY < this.minY);
+    }
+  }
+
+  private ConcurrentQuadTreeNode<T> newSubnode(final int index) {
+    final double centreX = this.centreX;
+    final double centreY = this.centreY;
+    switch (index) {
+      case 0:
+        return new ConcurrentQuadTreeNode<>(this.level - 1, this.minX, this.minY, centreX,
+          centreY);
+      case 1:
+        return new ConcurrentQuadTreeNode<>(this.level - 1, centreX, this.minY, this.maxX,
+          centreY);
+      case 2:
+        return new ConcurrentQuadTreeNode<>(this.level - 1, this.minX, centreY, centreX,
+          this.maxY);
+      default:
+        return new ConcurrentQuadTreeNode<>(this.level - 1, centreX, centreY, this.maxX,
+          this.maxY);
+    }
+  }
+
+  /**
+   * Partition the batch indexes from start to end into the items that stay in
+   * this node followed by the items for each of the 4 sub nodes. The
+   * bucketOffsets are set to start, then the end of each of the 5 buckets.
+   */
+  private void partition(final Batch batch, final int start, final int end,
+    final int[] bucketOffsets) {
+    final int[] indexes = batch.indexes;
+    final int[] scratch = batch.scratch;
+    final int[] counts = new int[5];
+    for (int i = start; i < end; i++) {
+      final int index = indexes[i];
+      final int subnodeIndex = getSubnodeIndex(batch.bounds, index);
+      scratch[i] = subnodeIndex;
+      counts[subnodeIndex + 1]++;
+    }
+    bucketOffsets[0] = start;
+    for (int bucket = 0; bucket < 5; bucket++) {
+      bucketOffsets[bucket + 1] = bucketOffsets[bucket] + counts[bucket];
+    }
+    final int[] positions = Arrays.copyOf(bucketOffsets, 5);
+    final int[] sorted = new int[end - start];
+    for (int i = start; i < end; i++) {
+      sorted[positions[scratch[i] + 1]++ - start] = indexes[i];
+    }
+    System.arraycopy(sorted, 0, indexes, start, sorted.length);
+  }
+
+  /**
+   * Get the sub node to insert the batch items into. Missing sub nodes are
+   * created. For the root the sub node for each quadrant is expanded to cover
+   * the items.
+   */
+  private ConcurrentQuadTreeNode<T> prepareSubnode(final ConcurrentQuadTree<T> tree,
+    final ConcurrentQuadTreeNode<T> node, final int subnodeIndex, final Batch batch,
+    final int start, final int end) {
+    if (isRoot()) {
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      final double[] bounds = batch.bounds;
+      for (int i = start; i < end; i++) {
+        final int offset = batch.indexes[i] * 4;
+        minX = Math.min(minX, bounds[offset]);
+        minY = Math.min(minY, bounds[offset + 1]);
+        maxX = Math.max(maxX, bounds[offset + 2]);
+        maxY = Math.max(maxY, bounds[offset + 3]);
+      }
+      if (node == null) {
+        return newNodeCovering(tree, subnodeIndex, minX, minY, maxX, maxY);
+      } else if (node.covers(minX, minY, maxX, maxY)) {
+        return node;
+      } else {
+        final ConcurrentQuadTreeNode<T> newNode = newNodeCovering(tree, subnodeIndex,
+          Math.min(minX, node.minX), Math.min(minY, node.minY), Math.max(maxX, node.maxX),
+          Math.max(maxY, node.maxY));
+        newNode.insertNode(node);
+        return newNode;
+      }
+    } else if (node == null) {
+      return newSubnode(subnodeIndex);
+    } else {
+      return node;
+    }
+  }
+
+  /**
+   * Remove the item from this node or the sub nodes that intersect the
+   * bounding box.
+   */
+  boolean remove(final ConcurrentQuadTree<T> tree, final double minX, final double minY,
+    final double maxX, final double maxY, final T item) {
+    if (isSearchMatch(minX, minY, maxX, maxY)) {
+      final ConcurrentQuadTreeNode<T>[] nodes;
+      synchronized (this) {
+        final State<T> state = this.state;
+        final Object[] items = state.items;
+        final int index = indexOf(tree, items, items.length, item);
+        if (index != -1) {
+          final int count = items.length - 1;
+          final double[] newBounds = new double[count * 4];
+          final Object[] newItems = new Object[count];
+          System.arraycopy(state.bounds, 0, newBounds, 0, index * 4);
+          System.arraycopy(state.bounds, (index + 1) * 4, newBounds, index * 4,
+            (count - index) * 4);
+          System.arraycopy(items, 0, newItems, 0, index);
+          System.arraycopy(items, index + 1, newItems, index, count - index);
+          this.state = new State<>(newBounds, newItems, state.nodes);
+          return true;
+        }
+        nodes = state.nodes;
+      }
+      if (nodes != null) {
+        for (final ConcurrentQuadTreeNode<T> node : nodes) {
+          if (node != null && node.remove(tree, minX, minY, maxX, maxY, item)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Split a leaf moving the items that are covered by a sub node to that sub
+   * node. The new sub nodes aren't visible to other threads until the returned
+   * state is published.
+   */
+  private State<T> split(final State<T> state) {
+    final double[] bounds = state.bounds;
+    final Object[] items = state.items;
+    final int count = items.length;
+    final int[] subnodeIndexes = new int[count];
+    int stayCount = 0;
+    for (int i = 0; i < count; i++) {
+      final int subnodeIndex = getSubnodeIndex(bounds, i);
+      subnodeIndexes[i] = subnodeIndex;
+      if (subnodeIndex == -1) {
+        stayCount++;
+      }
+    }
+    final ConcurrentQuadTreeNode<T>[] nodes = newNodes();
+    final double[] stayBounds = new double[stayCount * 4];
+    final Object[] stayItems = new Object[stayCount];
+    int stayIndex = 0;
+    for (int i = 0; i < count; i++) {
+      final int subnodeIndex = subnodeIndexes[i];
+      if (subnodeIndex == -1) {
+        System.arraycopy(bounds, i * 4, stayBounds, stayIndex * 4, 4);
+        stayItems[stayIndex++] = items[i];
+      } else {
+        ConcurrentQuadTreeNode<T> node = nodes[subnodeIndex];
+        if (node == null) {
+          node = newSubnode(subnodeIndex);
+          nodes[subnodeIndex] = node;
+        }
+        final State<T> nodeState = node.state;
+        final int nodeCount = nodeState.items.length;
+        final double[] nodeBounds = Arrays.copyOf(nodeState.bounds, nodeCount * 4 + 4);
+        final Object[] nodeItems = Arrays.copyOf(nodeState.items, nodeCount + 1);
+        System.arraycopy(bounds, i * 4, nodeBounds, nodeCount * 4, 4);
+        nodeItems[nodeCount] = items[i];
+        node.state = new State<>(nodeBounds, nodeItems, null);
+      }
+    }
+    return new State<>(stayBounds, stayItems, nodes);
+  }
+
+  @Override
+  public String toString() {
+    final State<T> state = this.state;
+    if (isRoot()) {
+      return "root " + state.items.length;
+    } else {
+      return this.level + " " + BoundingBox.bboxToWkt(this.minX, this.minY, this.maxX, this.maxY)
+        + " " + state.items.length;
+    }
+  }
+}
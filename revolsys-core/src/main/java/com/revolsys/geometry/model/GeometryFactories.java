@@ -1,7 +1,7 @@
 package com.revolsys.geometry.model;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.revolsys.geometry.coordinatesystem.model.CoordinateSystem;
 import com.revolsys.geometry.coordinatesystem.model.systems.EpsgCoordinateSystems;
@@ -13,10 +13,21 @@ public class GeometryFactories {
 
   private final int coordinateSystemId;
 
-  private final GeometryFactory[] floatingByAxisCount = new GeometryFactory[3];
-
-  @SuppressWarnings("unchecked")
-  private final List<GeometryFactory>[] fixedByAxisCount = new List[3];
+  /**
+   * The floating factories indexed by axisCount - 2. Set once using
+   * compare-and-set so lookups never lock.
+   */
+  private final AtomicReferenceArray<GeometryFactory> floatingByAxisCount = new AtomicReferenceArray<>(
+    3);
+
+  /**
+   * The fixed factories indexed by axisCount - 2. Copy-on-write arrays so
+   * lookups never lock, new factories are added holding the lock.
+   */
+  private final AtomicReferenceArray<GeometryFactory[]> fixedByAxisCount = new AtomicReferenceArray<>(
+    new GeometryFactory[][] {
+      new GeometryFactory[0], new GeometryFactory[0], new GeometryFactory[0]
+    });
 
   public GeometryFactories(final CoordinateSystem coordinateSystem) {
     this.coordinateSystem = coordinateSystem;
@@ -35,7 +46,7 @@ public class GeometryFactories {
     this.coordinateSystem = coordinateSystem;
   }
 
-  public synchronized GeometryFactory fixed(final int axisCount, final double... scales) {
+  public GeometryFactory fixed(final int axisCount, final double... scales) {
     if (axisCount < 2 || axisCount > 4) {
       throw new IllegalArgumentException("AxisCount must be in the range 2..4 not " + axisCount);
     } else {
@@ -53,27 +64,21 @@ public class GeometryFactories {
         }
       }
       final int index = axisCount - 2;
-      List<GeometryFactory> geometryFactories;
-      synchronized (this.fixedByAxisCount) {
-
-        geometryFactories = this.fixedByAxisCount[index];
-        if (geometryFactories == null) {
-          synchronized (this.fixedByAxisCount) {
-            if (geometryFactories == null) {
-              geometryFactories = new ArrayList<>();
-              this.fixedByAxisCount[index] = geometryFactories;
-            }
-          }
-        }
+      final GeometryFactory matchFactory = getFixed(this.fixedByAxisCount.get(index), scales);
+      if (matchFactory != null) {
+        return matchFactory;
       }
-      synchronized (geometryFactories) {
-        for (final GeometryFactory matchFactory : geometryFactories) {
-          if (matchFactory.equalsScales(scales)) {
-            return matchFactory;
-          }
+      synchronized (this.fixedByAxisCount) {
+        final GeometryFactory[] geometryFactories = this.fixedByAxisCount.get(index);
+        final GeometryFactory existingFactory = getFixed(geometryFactories, scales);
+        if (existingFactory != null) {
+          return existingFactory;
         }
         final GeometryFactory geometryFactory = new GeometryFactoryFixed(this, axisCount, scales);
-        geometryFactories.add(geometryFactory);
+        final GeometryFactory[] newGeometryFactories = Arrays.copyOf(geometryFactories,
+          geometryFactories.length + 1);
+        newGeometryFactories[geometryFactories.length] = geometryFactory;
+        this.fixedByAxisCount.set(index, newGeometryFactories);
         return geometryFactory;
       }
     }
@@ -90,17 +95,22 @@ public class GeometryFactories {
     }
   }
 
-  public synchronized GeometryFactory floating(final int axisCount) {
+  public GeometryFactory floating(final int axisCount) {
     if (axisCount < 2 || axisCount > 4) {
       throw new IllegalArgumentException("AxisCount must be in the range 2..4 not " + axisCount);
     } else {
       final int index = axisCount - 2;
-      synchronized (this.floatingByAxisCount) {
-        GeometryFactory geometryFactory = this.floatingByAxisCount[index];
-        if (geometryFactory == null) {
-          geometryFactory = new GeometryFactoryFloating(this, axisCount);
-          this.floatingByAxisCount[index] = geometryFactory;
+      final GeometryFactory geometryFactory = this.floatingByAxisCount.get(index);
+      if (geometryFactory == null) {
+        final GeometryFactory newGeometryFactory = new GeometryFactoryFloating(this, axisCount);
+        final GeometryFactory existingGeometryFactory = this.floatingByAxisCount
+          .compareAndExchange(index, null, newGeometryFactory);
+        if (existingGeometryFactory == null) {
+          return newGeometryFactory;
+        } else {
+          return existingGeometryFactory;
         }
+      } else {
         return geometryFactory;
       }
     }
@@ -114,6 +124,16 @@ public class GeometryFactories {
     return this.coordinateSystemId;
   }
 
+  private GeometryFactory getFixed(final GeometryFactory[] geometryFactories,
+    final double[] scales) {
+    for (final GeometryFactory matchFactory : geometryFactories) {
+      if (matchFactory.equalsScales(scales)) {
+        return matchFactory;
+      }
+    }
+    return null;
+  }
+
   @Override
   public String toString() {
     if (this.coordinateSystem == null) {
@@ -40,11 +40,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -55,7 +56,6 @@ import javax.measure.quantity.Length;
 import com.revolsys.collection.CollectionUtil;
 import com.revolsys.collection.json.JsonObject;
 import com.revolsys.collection.json.JsonObjectHash;
-import com.revolsys.collection.map.IntHashMap;
 import com.revolsys.collection.map.Maps;
 import com.revolsys.data.type.DataType;
 import com.revolsys.exception.WrappedRuntimeException;
@@ -456,9 +456,18 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
 
   public static final double[] SCALES_FLOATING_3 = new double[3];
 
-  private static final IntHashMap<GeometryFactories> INSTANCES_BY_COORDINATE_SYSTEM_ID = new IntHashMap<>();
+  /**
+   * Coordinate system ids below this use the lock-free array lookup, larger ids
+   * use {@link #INSTANCES_BY_COORDINATE_SYSTEM_ID}.
+   */
+  private static final int INSTANCES_ARRAY_SIZE = 32768;
+
+  private static final AtomicReferenceArray<GeometryFactories> INSTANCES_BY_COORDINATE_SYSTEM_ID_ARRAY = new AtomicReferenceArray<>(
+    INSTANCES_ARRAY_SIZE);
 
-  private static final Map<CoordinateSystem, GeometryFactories> INSTANCES_BY_COORDINATE_SYSTEM = new HashMap<>();
+  private static final Map<Integer, GeometryFactories> INSTANCES_BY_COORDINATE_SYSTEM_ID = new ConcurrentHashMap<>();
+
+  private static final Map<CoordinateSystem, GeometryFactories> INSTANCES_BY_COORDINATE_SYSTEM = new ConcurrentHashMap<>();
 
   public static final GeometryFactory DEFAULT_2D = floating(0, 2);
 
@@ -468,6 +477,9 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
   public static final GeometryFactory DEFAULT_3D = floating(0, 3);
 
   public static void clear() {
+    for (int i = 0; i < INSTANCES_ARRAY_SIZE; i++) {
+      INSTANCES_BY_COORDINATE_SYSTEM_ID_ARRAY.set(i, null);
+    }
     INSTANCES_BY_COORDINATE_SYSTEM_ID.clear();
   }
 
@@ -719,12 +731,17 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
           return instances(coordinateSystemId);
         }
       }
-      synchronized (INSTANCES_BY_COORDINATE_SYSTEM) {
-        GeometryFactories instances = INSTANCES_BY_COORDINATE_SYSTEM.get(coordinateSystem);
-        if (instances == null) {
-          instances = new GeometryFactories(coordinateSystem);
-          INSTANCES_BY_COORDINATE_SYSTEM.put(coordinateSystem, instances);
+      final GeometryFactories instances = INSTANCES_BY_COORDINATE_SYSTEM.get(coordinateSystem);
+      if (instances == null) {
+        final GeometryFactories newInstances = new GeometryFactories(coordinateSystem);
+        final GeometryFactories existingInstances = INSTANCES_BY_COORDINATE_SYSTEM
+          .putIfAbsent(coordinateSystem, newInstances);
+        if (existingInstances == null) {
+          return newInstances;
+        } else {
+          return existingInstances;
         }
+      } else {
         return instances;
       }
     }
@@ -734,13 +751,38 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
     if (coordinateSystemId < 0) {
       coordinateSystemId = 0;
     }
-    synchronized (INSTANCES_BY_COORDINATE_SYSTEM_ID) {
-      GeometryFactories instances = INSTANCES_BY_COORDINATE_SYSTEM_ID.get(coordinateSystemId);
+    if (coordinateSystemId < INSTANCES_ARRAY_SIZE) {
+      final GeometryFactories instances = INSTANCES_BY_COORDINATE_SYSTEM_ID_ARRAY
+        .getPlain(coordinateSystemId);
+      if (instances != null) {
+        return instances;
+      } else {
+        // The constructor may load the coordinate system so create it outside of
+        // any lock, the first instance set wins
+        final GeometryFactories newInstances = new GeometryFactories(coordinateSystemId);
+        final GeometryFactories existingInstances = INSTANCES_BY_COORDINATE_SYSTEM_ID_ARRAY
+          .compareAndExchange(coordinateSystemId, null, newInstances);
+        if (existingInstances == null) {
+          return newInstances;
+        } else {
+          return existingInstances;
+        }
+      }
+    } else {
+      final GeometryFactories instances = INSTANCES_BY_COORDINATE_SYSTEM_ID
+        .get(coordinateSystemId);
       if (instances == null) {
-        instances = new GeometryFactories(coordinateSystemId);
-        INSTANCES_BY_COORDINATE_SYSTEM_ID.put(coordinateSystemId, instances);
+        final GeometryFactories newInstances = new GeometryFactories(coordinateSystemId);
+        final GeometryFactories existingInstances = INSTANCES_BY_COORDINATE_SYSTEM_ID
+          .putIfAbsent(coordinateSystemId, newInstances);
+        if (existingInstances == null) {
+          return newInstances;
+        } else {
+          return existingInstances;
+        }
+      } else {
+        return instances;
       }
-      return instances;
     }
   }
 
@@ -291,14 +291,7 @@ public interface LineString extends Lineal {
       if (coordinatesOperation == null) {
         return targetCoordinates;
       } else {
-        final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
-        final int coordinateCount = getVertexCount() * axisCount;
-        for (int coordinateOffset = 0; coordinateOffset < coordinateCount; coordinateOffset += axisCount) {
-          point.setPoint(targetCoordinates, coordinateOffset, axisCount);
-          coordinatesOperation.perform(point);
-          point.copyCoordinatesTo(targetCoordinates, coordinateOffset, axisCount);
-        }
-
+        coordinatesOperation.performParallel(axisCount, targetCoordinates, 0, getVertexCount());
         return targetCoordinates;
       }
     }
@@ -143,17 +143,8 @@ public class LineStringDouble extends AbstractLineString {
           return getCoordinates(targetAxisCount);
         }
       } else {
-        final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
-        final double[] targetCoordinates = new double[targetAxisCount * vertexCount];
-        int targetOffset = 0;
-        int sourceOffset = 0;
-        for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
-          point.setPoint(this.coordinates, sourceOffset, sourceAxisCount);
-          coordinatesOperation.perform(point);
-          point.copyCoordinatesTo(targetCoordinates, targetOffset, targetAxisCount);
-          targetOffset += targetAxisCount;
-          sourceOffset += sourceAxisCount;
-        }
+        final double[] targetCoordinates = getCoordinates(targetAxisCount);
+        coordinatesOperation.performParallel(targetAxisCount, targetCoordinates, 0, vertexCount);
         return targetCoordinates;
       }
     }
@@ -5,19 +5,34 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import com.revolsys.collection.iterator.Reader;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.process.BaseInOutProcess;
 import com.revolsys.record.Record;
 import com.revolsys.record.comparator.RecordFieldComparator;
+import com.revolsys.record.io.ExternalRecordSort;
+import com.revolsys.record.io.ExternalRecordSorter;
 
+/**
+ * Sort the records from the input channel and write them to the output
+ * channel. By default all the records are sorted in memory. If the memory
+ * budget is set then runs of records are sorted in parallel, spilled to
+ * temporary files and merged using {@link ExternalRecordSorter}.
+ */
 public class Sort extends BaseInOutProcess<Record, Record> {
 
   private Comparator<Record> comparator;
 
+  private ExternalRecordSort externalSort;
+
   private String fieldName;
 
+  private long memoryBudget;
+
   private final List<Record> objects = new ArrayList<>();
 
+  private int threadCount;
+
   public Comparator<Record> getComparator() {
     return this.comparator;
   }
@@ -26,19 +41,51 @@ public class Sort extends BaseInOutProcess<Record, Record> {
     return this.fieldName;
   }
 
+  public long getMemoryBudget() {
+    return this.memoryBudget;
+  }
+
+  public int getThreadCount() {
+    return this.threadCount;
+  }
+
   @Override
   protected void postRun(final Channel<Record> in, final Channel<Record> out) {
-    if (this.comparator != null) {
-      Collections.sort(this.objects, this.comparator);
-    }
-    for (final Record object : this.objects) {
-      out.write(object);
+    if (this.externalSort != null) {
+      try (
+        Reader<Record> reader = this.externalSort.read()) {
+        for (final Record object : reader) {
+          out.write(object);
+        }
+      } finally {
+        this.externalSort.close();
+        this.externalSort = null;
+      }
+    } else {
+      if (this.comparator != null) {
+        Collections.sort(this.objects, this.comparator);
+      }
+      for (final Record object : this.objects) {
+        out.write(object);
+      }
     }
   }
 
   @Override
   protected void process(final Channel<Record> in, final Channel<Record> out, final Record object) {
-    this.objects.add(object);
+    if (this.memoryBudget > 0 && this.comparator != null) {
+      if (this.externalSort == null) {
+        final ExternalRecordSorter sorter = new ExternalRecordSorter(this.comparator,
+          this.memoryBudget);
+        if (this.threadCount > 0) {
+          sorter.setThreadCount(this.threadCount);
+        }
+        this.externalSort = sorter.newSort();
+      }
+      this.externalSort.add(object);
+    } else {
+      this.objects.add(object);
+    }
   }
 
   public void setComparator(final Comparator<Record> comparator) {
@@ -50,4 +97,24 @@ public class Sort extends BaseInOutProcess<Record, Record> {
     this.comparator = new RecordFieldComparator(fieldName);
   }
 
+  /**
+   * Set the approximate maximum number of bytes of records to hold in memory.
+   * If > 0 the records are sorted using an external merge sort.
+   *
+   * @param memoryBudget The memory budget in bytes.
+   */
+  public void setMemoryBudget(final long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Set the number of threads used to sort and write runs for an external
+   * sort.
+   *
+   * @param threadCount The number of threads.
+   */
+  public void setThreadCount(final int threadCount) {
+    this.threadCount = threadCount;
+  }
+
 }
@@ -0,0 +1,358 @@
+package com.revolsys.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache of grid tiles keyed by the tile's x and y index that can be used
+ * from multiple threads without a global lock. Each tile is loaded once even if
+ * multiple threads request it at the same time; other threads requesting the
+ * same tile wait for that load to finish. Tiles for which the loader returns
+ * null are not cached so they are loaded again on the next request.
+ *
+ * <p>
+ * The cache is limited to a maximum weight. By default each tile has a weight
+ * of 1 so the maximum weight is the maximum number of tiles. A weigher can be
+ * used to limit the cache by bytes or cells. When the maximum is exceeded the
+ * least recently used tiles are evicted. Evicted tiles can still be used by
+ * threads that hold a reference to them.
+ * </p>
+ *
+ * <p>
+ * The entries are in a hash table of copy-on-write buckets keyed by the int
+ * tile indexes so a hit doesn't box a key or take a lock. The access clock only
+ * advances when a tile is loaded; a hit records the current clock value in the
+ * entry, so the least recently used order is accurate to the last load.
+ * </p>
+ *
+ * @param <T> The type of tile.
+ */
+public class GridTileCache<T> {
+  private static class Entry<T2> {
+    private volatile long lastAccess;
+
+    private volatile boolean loaded;
+
+    private T2 tile;
+
+    private long weight;
+
+    private final int tileIndexX;
+
+    private final int tileIndexY;
+
+    private Entry(final int tileIndexX, final int tileIndexY) {
+      this.tileIndexX = tileIndexX;
+      this.tileIndexY = tileIndexY;
+    }
+  }
+
+  @FunctionalInterface
+  public interface TileLoader<T2> {
+    T2 loadTile(int tileIndexX, int tileIndexY);
+  }
+
+  private static final int MIN_TABLE_SIZE = 64;
+
+  private static int index(final int tileIndexX, final int tileIndexY, final int tableSize) {
+    final long key = (long)tileIndexX << 32 | tileIndexY & 0xFFFFFFFFL;
+    final long hash = key * 0x9E3779B97F4A7C15L;
+    return (int)(hash >>> 32) & tableSize - 1;
+  }
+
+  /**
+   * The value of the access clock is only changed when holding the lock on the
+   * cache.
+   */
+  private volatile long accessClock;
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final TileLoader<T> loader;
+
+  private volatile long maxWeight;
+
+  private final LongAdder missCount = new LongAdder();
+
+  private volatile int size;
+
+  /**
+   * The buckets are replaced, never modified, when holding the lock on the
+   * cache. The table is replaced when it is resized or cleared.
+   */
+  private volatile AtomicReferenceArray<Entry<T>[]> table = new AtomicReferenceArray<>(
+    MIN_TABLE_SIZE);
+
+  private final AtomicLong totalWeight = new AtomicLong();
+
+  private ToLongFunction<? super T> weigher = tile -> 1;
+
+  public GridTileCache(final long maxWeight, final TileLoader<T> loader) {
+    this.maxWeight = maxWeight;
+    this.loader = loader;
+  }
+
+  private synchronized Entry<T> addEntry(final int tileIndexX, final int tileIndexY) {
+    AtomicReferenceArray<Entry<T>[]> table = this.table;
+    final Entry<T> entry = getEntry(table, tileIndexX, tileIndexY);
+    if (entry == null) {
+      if (this.size >= table.length() * 2) {
+        table = resize(table);
+      }
+      final Entry<T> newEntry = new Entry<>(tileIndexX, tileIndexY);
+      newEntry.lastAccess = this.accessClock++;
+      addEntry(table, newEntry);
+      this.size++;
+      return newEntry;
+    } else {
+      return entry;
+    }
+  }
+
+  private void addEntry(final AtomicReferenceArray<Entry<T>[]> table, final Entry<T> entry) {
+    final int index = index(entry.tileIndexX, entry.tileIndexY, table.length());
+    final Entry<T>[] bucket = table.get(index);
+    final Entry<T>[] newBucket;
+    if (bucket == null) {
+      newBucket = newBucket(1);
+    } else {
+      newBucket = Arrays.copyOf(bucket, bucket.length + 1);
+    }
+    newBucket[newBucket.length - 1] = entry;
+    table.set(index, newBucket);
+  }
+
+  public synchronized void clear() {
+    final AtomicReferenceArray<Entry<T>[]> table = this.table;
+    for (int i = 0; i < table.length(); i++) {
+      final Entry<T>[] bucket = table.get(i);
+      if (bucket != null) {
+        for (final Entry<T> entry : bucket) {
+          if (entry.loaded) {
+            this.totalWeight.addAndGet(-entry.weight);
+          }
+        }
+      }
+    }
+    this.table = new AtomicReferenceArray<>(MIN_TABLE_SIZE);
+    this.size = 0;
+  }
+
+  private synchronized void evict() {
+    final long maxWeight = this.maxWeight;
+    if (this.totalWeight.get() > maxWeight) {
+      final List<Entry<T>> entries = new ArrayList<>();
+      final AtomicReferenceArray<Entry<T>[]> table = this.table;
+      for (int i = 0; i < table.length(); i++) {
+        final Entry<T>[] bucket = table.get(i);
+        if (bucket != null) {
+          for (final Entry<T> entry : bucket) {
+            if (entry.loaded) {
+              entries.add(entry);
+            }
+          }
+        }
+      }
+      entries.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+      // Evict to 90% of the maximum so the next few loads don't evict again
+      final long targetWeight = maxWeight - maxWeight / 10;
+      for (final Entry<T> entry : entries) {
+        if (this.totalWeight.get() <= targetWeight) {
+          break;
+        }
+        if (removeEntry(entry)) {
+          this.totalWeight.addAndGet(-entry.weight);
+          this.evictionCount.increment();
+        }
+      }
+    }
+  }
+
+  private Entry<T> getEntry(final AtomicReferenceArray<Entry<T>[]> table, final int tileIndexX,
+    final int tileIndexY) {
+    final Entry<T>[] bucket = table.get(index(tileIndexX, tileIndexY, table.length()));
+    if (bucket != null) {
+      for (final Entry<T> entry : bucket) {
+        if (entry.tileIndexX == tileIndexX && entry.tileIndexY == tileIndexY) {
+          return entry;
+        }
+      }
+    }
+    return null;
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.sum();
+  }
+
+  public long getHitCount() {
+    return this.hitCount.sum();
+  }
+
+  public long getMaxWeight() {
+    return this.maxWeight;
+  }
+
+  public long getMissCount() {
+    return this.missCount.sum();
+  }
+
+  private T getTile(final Entry<T> entry) {
+    if (!entry.loaded) {
+      synchronized (entry) {
+        if (!entry.loaded) {
+          this.missCount.increment();
+          final T tile = this.loader.loadTile(entry.tileIndexX, entry.tileIndexY);
+          entry.tile = tile;
+          if (tile != null) {
+            entry.weight = Math.max(1, this.weigher.applyAsLong(tile));
+          }
+          loaded(entry);
+          return tile;
+        }
+      }
+    }
+    this.hitCount.increment();
+    return entry.tile;
+  }
+
+  /**
+   * Get the tile, loading it if it isn't in the cache. The returned tile can be
+   * held by the caller and used for many cell lookups without accessing the
+   * cache again.
+   *
+   * @param tileIndexX The tile x index.
+   * @param tileIndexY The tile y index.
+   * @return The tile or null if the loader returned null.
+   */
+  public T getTile(final int tileIndexX, final int tileIndexY) {
+    final Entry<T> entry = getEntry(this.table, tileIndexX, tileIndexY);
+    if (entry != null && entry.loaded) {
+      // Only write the access time if it changed so runs of lookups don't write
+      // to a shared entry
+      final long accessClock = this.accessClock;
+      if (entry.lastAccess != accessClock) {
+        entry.lastAccess = accessClock;
+      }
+      return getTile(entry);
+    } else {
+      final T tile;
+      if (entry == null) {
+        tile = getTile(addEntry(tileIndexX, tileIndexY));
+      } else {
+        tile = getTile(entry);
+      }
+      if (this.totalWeight.get() > this.maxWeight) {
+        evict();
+      }
+      return tile;
+    }
+  }
+
+  public long getTotalWeight() {
+    return this.totalWeight.get();
+  }
+
+  /**
+   * Mark the entry as loaded and add its weight to the total. This is done
+   * under the same lock as {@link #clear()} and {@link #evict()} so an entry
+   * removed while it was loading is never counted. Entries without a tile are
+   * removed so the tile is loaded again on the next request.
+   *
+   * @param entry The entry.
+   */
+  private synchronized void loaded(final Entry<T> entry) {
+    entry.loaded = true;
+    if (entry.tile == null) {
+      removeEntry(entry);
+    } else if (getEntry(this.table, entry.tileIndexX, entry.tileIndexY) == entry) {
+      this.totalWeight.addAndGet(entry.weight);
+    }
+  }
+
+  @SuppressWarnings({
+    "rawtypes", "unchecked"
+  })
+  private Entry<T>[] newBucket(final int size) {
+    return new Entry[size];
+  }
+
+  /**
+   * Remove the entry from the current table. Must be called holding the lock
+   * on the cache.
+   *
+   * @param entry The entry.
+   * @return True if the entry was removed.
+   */
+  private boolean removeEntry(final Entry<T> entry) {
+    final AtomicReferenceArray<Entry<T>[]> table = this.table;
+    final int index = index(entry.tileIndexX, entry.tileIndexY, table.length());
+    final Entry<T>[] bucket = table.get(index);
+    if (bucket != null) {
+      for (int i = 0; i < bucket.length; i++) {
+        if (bucket[i] == entry) {
+          if (bucket.length == 1) {
+            table.set(index, null);
+          } else {
+            final Entry<T>[] newBucket = newBucket(bucket.length - 1);
+            System.arraycopy(bucket, 0, newBucket, 0, i);
+            System.arraycopy(bucket, i + 1, newBucket, i, bucket.length - i - 1);
+            table.set(index, newBucket);
+          }
+          this.size--;
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Copy the entries to a new table twice the size. Readers still using the old
+   * table either find the same entries or get the lock and look in the new
+   * table.
+   */
+  private AtomicReferenceArray<Entry<T>[]> resize(final AtomicReferenceArray<Entry<T>[]> table) {
+    final AtomicReferenceArray<Entry<T>[]> newTable = new AtomicReferenceArray<>(
+      table.length() * 2);
+    for (int i = 0; i < table.length(); i++) {
+      final Entry<T>[] bucket = table.get(i);
+      if (bucket != null) {
+        for (final Entry<T> entry : bucket) {
+          addEntry(newTable, entry);
+        }
+      }
+    }
+    this.table = newTable;
+    return newTable;
+  }
+
+  public GridTileCache<T> setMaxWeight(final long maxWeight) {
+    this.maxWeight = maxWeight;
+    evict();
+    return this;
+  }
+
+  public GridTileCache<T> setWeigher(final ToLongFunction<? super T> weigher) {
+    this.weigher = weigher;
+    return this;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public String toString() {
+    return "size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+      + ", evictions=" + getEvictionCount();
+  }
+}
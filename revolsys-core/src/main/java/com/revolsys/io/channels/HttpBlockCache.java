@@ -0,0 +1,100 @@
+package com.revolsys.io.channels;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded in memory cache of fixed size blocks of remote files shared by all
+ * the {@link HttpSeekableByteChannel}s, so reopening a file or seeking back to
+ * a block that was already read doesn't make another HTTP request. When the
+ * total size of the blocks goes over the maximum size the least recently used
+ * blocks are removed.
+ *
+ * <p>
+ * The blocks are keyed by the URL and the version of the file, the ETag or
+ * Last-Modified header returned by the server, so the blocks of a file that
+ * has changed are never returned. The blocks of old versions are removed when
+ * they are the least recently used.
+ * </p>
+ *
+ * <p>
+ * The cached blocks are shared and must not be modified.
+ * </p>
+ */
+public class HttpBlockCache {
+  private record BlockKey(String url, String version, int blockSize, long blockIndex) {
+  }
+
+  private static final long DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+
+  private static final HttpBlockCache defaultCache = new HttpBlockCache(DEFAULT_MAX_SIZE_BYTES);
+
+  public static HttpBlockCache getDefault() {
+    return defaultCache;
+  }
+
+  private final LinkedHashMap<BlockKey, byte[]> blocks = new LinkedHashMap<>(256, 0.75f, true);
+
+  private long maxSizeBytes;
+
+  private long sizeBytes;
+
+  public HttpBlockCache(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  public synchronized void clear() {
+    this.blocks.clear();
+    this.sizeBytes = 0;
+  }
+
+  /**
+   * Get the block from the cache.
+   *
+   * @param url The URL of the file.
+   * @param version The ETag or Last-Modified header of the file, null if the
+   *          server returned neither.
+   * @param blockSize The size of the blocks the file is split into.
+   * @param blockIndex The index of the block.
+   * @return The block or null if it isn't in the cache.
+   */
+  public synchronized byte[] getBlock(final String url, final String version,
+    final int blockSize, final long blockIndex) {
+    return this.blocks.get(new BlockKey(url, version, blockSize, blockIndex));
+  }
+
+  public synchronized long getMaxSizeBytes() {
+    return this.maxSizeBytes;
+  }
+
+  public synchronized long getSizeBytes() {
+    return this.sizeBytes;
+  }
+
+  public synchronized void putBlock(final String url, final String version, final int blockSize,
+    final long blockIndex, final byte[] block) {
+    if (block.length <= this.maxSizeBytes) {
+      final byte[] oldBlock = this.blocks.put(new BlockKey(url, version, blockSize, blockIndex),
+        block);
+      if (oldBlock != null) {
+        this.sizeBytes -= oldBlock.length;
+      }
+      this.sizeBytes += block.length;
+      removeEldest();
+    }
+  }
+
+  private void removeEldest() {
+    for (final Iterator<byte[]> iterator = this.blocks.values()
+      .iterator(); this.sizeBytes > this.maxSizeBytes && iterator.hasNext();) {
+      final byte[] block = iterator.next();
+      this.sizeBytes -= block.length;
+      iterator.remove();
+    }
+  }
+
+  public synchronized void setMaxSizeBytes(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    removeEldest();
+  }
+}
@@ -1,31 +1,38 @@
 package com.revolsys.io.channels;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.ByteBuffer;
 
 import com.revolsys.exception.Exceptions;
 
 public class HttpChannelReader extends ChannelReader {
 
-  private final URL url;
-
   public HttpChannelReader(final URL url) {
     super(new HttpSeekableByteChannel(url), ByteBuffer.allocateDirect(8192));
-    this.url = url;
   }
 
+  /**
+   * Read the bytes using the cached blocks without changing the position of
+   * the channel, so multiple parts of the file can be read concurrently.
+   */
   @Override
   public InputStream getInputStream(final long offset, final int size) {
+    final HttpSeekableByteChannel channel = (HttpSeekableByteChannel)getChannel();
+    final byte[] bytes = new byte[size];
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
     try {
-      final URLConnection connection = this.url.openConnection();
-      final String range = "bytes=" + offset + "-" + (offset + size);
-      connection.addRequestProperty("Range", range);
-      return connection.getInputStream();
+      while (buffer.hasRemaining()) {
+        final int count = channel.read(buffer, offset + buffer.position());
+        if (count == -1) {
+          break;
+        }
+      }
     } catch (final IOException e) {
       throw Exceptions.toRuntimeException(e);
     }
+    return new ByteArrayInputStream(bytes, 0, buffer.position());
   }
 }
@@ -1,88 +1,465 @@
 package com.revolsys.io.channels;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
+import com.revolsys.exception.Exceptions;
+import com.revolsys.util.concurrent.Concurrent;
+import com.revolsys.util.concurrent.ThreadFactoryEx;
+
+/**
+ * A read only channel for a file on a web server. The file is read in fixed
+ * size blocks using bounded <code>Range: bytes=a-b</code> requests, so seeking
+ * doesn't close and reopen the connection.
+ *
+ * <ul>
+ * <li>Blocks are stored in a {@link HttpBlockCache} shared by all the channels
+ * so a block is only requested once.</li>
+ * <li>Adjacent missing blocks are merged into a single request.</li>
+ * <li>When the file is read sequentially the following blocks are requested
+ * before they are needed.</li>
+ * <li>Requests are made concurrently using up to connectionCount connections,
+ * which are kept alive and reused by {@link HttpURLConnection}.</li>
+ * </ul>
+ *
+ * <p>
+ * Before any blocks are read the channel requests the first byte of the file to
+ * get the length and the version of the file, the ETag or Last-Modified header.
+ * The version is part of the cache key so a file that changed since it was
+ * cached is read again. Range requests send the version in an If-Range header,
+ * if the file changes while the channel is open the server returns the whole
+ * file, which replaces the blocks in the cache.
+ * </p>
+ *
+ * <p>
+ * If the server doesn't support range requests the whole file is read and all
+ * the blocks are added to the cache.
+ * </p>
+ */
 public class HttpSeekableByteChannel implements SeekableByteChannel {
 
-  private final URL url;
+  private static final byte[] EMPTY_BLOCK = new byte[0];
+
+  private static final ThreadFactoryEx EXECUTOR = Concurrent.virtual("HttpRange-");
+
+  /** Limit the size of a request so large reads are also made concurrently. */
+  private static final int MAX_REQUEST_BLOCK_COUNT = 16;
+
+  /**
+   * Get the version of the file from the strong ETag or the Last-Modified
+   * header, weak ETags can't be used in an If-Range header.
+   */
+  private static String getVersion(final URLConnection connection) {
+    final String eTag = connection.getHeaderField("ETag");
+    if (eTag != null && !eTag.startsWith("W/")) {
+      return eTag;
+    } else {
+      return connection.getHeaderField("Last-Modified");
+    }
+  }
+
+  private int blockSize = 64 * 1024;
+
+  private HttpBlockCache cache = HttpBlockCache.getDefault();
+
+  private boolean closed;
+
+  private int connectionCount = 4;
+
+  private Semaphore connections = new Semaphore(this.connectionCount);
 
-  private ReadableByteChannel channel;
+  private volatile long length = -1;
+
+  private final Map<Long, CompletableFuture<byte[]>> pendingBlocks = new HashMap<>();
 
   private long position;
 
-  private long length;
+  private int readAheadBlockCount = 2;
+
+  /** The position after the last read, used to detect sequential reads. */
+  private long readEndPosition;
+
+  private final URL url;
+
+  private final String urlString;
+
+  /** The ETag or Last-Modified header, set before the length. */
+  private volatile String version;
 
   public HttpSeekableByteChannel(final URL url) {
     this.url = url;
+    this.urlString = url.toString();
   }
 
   @Override
   public void close() throws IOException {
-    if (this.channel != null) {
-      this.channel.close();
-    }
-    this.channel = null;
+    this.closed = true;
   }
 
-  private ReadableByteChannel getChannel() throws IOException {
-    if (this.channel == null) {
-      final URLConnection connection = this.url.openConnection();
-      if (this.position > 0) {
-        final String range = "bytes=" + this.position + "-";
-        connection.addRequestProperty("Range", range);
+  public int getBlockSize() {
+    return this.blockSize;
+  }
+
+  /**
+   * Get the block from the cache, the pending requests or make a new request
+   * for the block and wait for it to be read.
+   */
+  private byte[] getBlock(final long blockIndex) throws IOException {
+    byte[] block = this.cache.getBlock(this.urlString, this.version, this.blockSize, blockIndex);
+    if (block == null) {
+      CompletableFuture<byte[]> future;
+      synchronized (this.pendingBlocks) {
+        future = this.pendingBlocks.get(blockIndex);
+        if (future == null) {
+          // Check again in case the request finished before the lock
+          block = this.cache.getBlock(this.urlString, this.version, this.blockSize, blockIndex);
+          if (block == null) {
+            future = requestRange(blockIndex, blockIndex).get(0);
+          }
+        }
       }
-      this.channel = Channels.newChannel(connection.getInputStream());
-      final String contentRange = connection.getHeaderField("Content-Range");
-      if (contentRange == null) {
-        final String contentLength = connection.getHeaderField("Content-Length");
-        this.length = Long.parseLong(contentLength);
-      } else {
-        this.length = Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1));
+      if (future != null) {
+        try {
+          block = future.get();
+        } catch (final ExecutionException e) {
+          final Throwable cause = e.getCause();
+          if (cause instanceof final IOException ioException) {
+            throw ioException;
+          } else {
+            throw Exceptions.toRuntimeException(cause);
+          }
+        } catch (final InterruptedException e) {
+          throw Exceptions.toRuntimeException(e);
+        }
       }
     }
-    return this.channel;
+    return block;
+  }
+
+  public int getConnectionCount() {
+    return this.connectionCount;
+  }
+
+  public int getReadAheadBlockCount() {
+    return this.readAheadBlockCount;
+  }
+
+  /**
+   * Check if the block is in the cache or has a pending request. Must be called
+   * while synchronized on pendingBlocks.
+   */
+  private boolean isBlockRequested(final long blockIndex) {
+    return this.pendingBlocks.containsKey(blockIndex)
+      || this.cache.getBlock(this.urlString, this.version, this.blockSize, blockIndex) != null;
   }
 
   @Override
   public boolean isOpen() {
-    return this.channel != null && this.channel.isOpen();
+    return !this.closed;
   }
 
   @Override
-  public long position() throws IOException {
+  public synchronized long position() throws IOException {
     return this.position;
   }
 
   @Override
-  public SeekableByteChannel position(final long position) throws IOException {
-    if (position != this.position) {
-      if (this.channel != null) {
-        this.channel.close();
-        this.channel = null;
-      }
+  public synchronized SeekableByteChannel position(final long position) throws IOException {
+    if (position < 0) {
+      throw new IllegalArgumentException("position=" + position + " must be >= 0");
     }
     this.position = position;
     return this;
   }
 
   @Override
-  public int read(final ByteBuffer buffer) throws IOException {
-    final ReadableByteChannel channel = getChannel();
-    final int value = channel.read(buffer);
-    if (value != -1) {
-      this.position += value;
+  public synchronized int read(final ByteBuffer buffer) throws IOException {
+    final long position = this.position;
+    int readAheadBlockCount = 0;
+    if (position == this.readEndPosition) {
+      readAheadBlockCount = this.readAheadBlockCount;
+    }
+    final int count = read(buffer, position, readAheadBlockCount);
+    if (count > 0) {
+      this.position += count;
+    }
+    this.readEndPosition = this.position;
+    return count;
+  }
+
+  /**
+   * Read bytes into the buffer starting at the position in the file, without
+   * changing the channel's position. This can be called concurrently by
+   * multiple threads.
+   *
+   * @param buffer The buffer to read into.
+   * @param position The position in the file.
+   * @return The number of bytes read, or -1 if the position is at or after the
+   *         end of the file.
+   * @throws IOException If the blocks couldn't be read.
+   */
+  public int read(final ByteBuffer buffer, final long position) throws IOException {
+    return read(buffer, position, 0);
+  }
+
+  private int read(final ByteBuffer buffer, final long position, final int readAheadBlockCount)
+    throws IOException {
+    if (this.closed) {
+      throw new ClosedChannelException();
+    }
+    final long size = size();
+    if (position >= size) {
+      return -1;
+    }
+    final int count = (int)Math.min(buffer.remaining(), size - position);
+    if (count == 0) {
+      return 0;
+    }
+    final int blockSize = this.blockSize;
+    final long firstBlockIndex = position / blockSize;
+    final long lastBlockIndex = (position + count - 1) / blockSize;
+    final long lastFileBlockIndex = (size - 1) / blockSize;
+    synchronized (this.pendingBlocks) {
+      long requestLastBlockIndex = lastBlockIndex;
+      // Read ahead when the next block hasn't been requested, so the following
+      // blocks are requested together
+      final long nextBlockIndex = lastBlockIndex + 1;
+      if (readAheadBlockCount > 0 && nextBlockIndex <= lastFileBlockIndex
+        && !isBlockRequested(nextBlockIndex)) {
+        requestLastBlockIndex = Math.min(lastBlockIndex + readAheadBlockCount, lastFileBlockIndex);
+      }
+      requestBlocks(firstBlockIndex, requestLastBlockIndex);
+    }
+    long blockPosition = position;
+    for (long blockIndex = firstBlockIndex; blockIndex <= lastBlockIndex; blockIndex++) {
+      final byte[] block = getBlock(blockIndex);
+      final int blockOffset = (int)(blockPosition - blockIndex * blockSize);
+      final int length = Math.min(block.length - blockOffset, buffer.remaining());
+      if (length <= 0) {
+        break;
+      }
+      buffer.put(block, blockOffset, length);
+      blockPosition += length;
+    }
+    final int readCount = (int)(blockPosition - position);
+    if (readCount == 0) {
+      return -1;
+    } else {
+      return readCount;
     }
-    return value;
+  }
+
+  /**
+   * Read the blocks returned by a request, add them to the cache and complete
+   * the futures for the requested blocks.
+   */
+  private void readRange(final long firstBlockIndex, final List<CompletableFuture<byte[]>> futures)
+    throws IOException {
+    final int blockSize = this.blockSize;
+    final long length = this.length;
+    final long start = firstBlockIndex * blockSize;
+    long end = start + (long)futures.size() * blockSize - 1;
+    if (length >= 0) {
+      end = Math.min(end, length - 1);
+    }
+    if (start <= end) {
+      final String version = this.version;
+      final URLConnection connection = this.url.openConnection();
+      connection.addRequestProperty("Range", "bytes=" + start + "-" + end);
+      if (version != null) {
+        connection.addRequestProperty("If-Range", version);
+      }
+      if (connection instanceof final HttpURLConnection httpConnection
+        && httpConnection.getResponseCode() == 416) {
+        // Range Not Satisfiable, the start is after the end of the file
+        setLength(connection.getHeaderField("Content-Range"));
+      } else {
+        try (
+          InputStream in = connection.getInputStream()) {
+          final String contentRange = connection.getHeaderField("Content-Range");
+          if (contentRange == null) {
+            // The server ignored the range or the file changed so the response
+            // is the whole file
+            this.version = getVersion(connection);
+            readWholeFile(in, firstBlockIndex, futures);
+          } else if (!Objects.equals(version, getVersion(connection))) {
+            throw new IOException("File changed while reading, the server ignored If-Range: "
+              + this.url);
+          } else {
+            setLength(contentRange);
+            long blockIndex = firstBlockIndex;
+            for (final CompletableFuture<byte[]> future : futures) {
+              final byte[] block = in.readNBytes(blockSize);
+              if (block.length == 0) {
+                break;
+              }
+              this.cache.putBlock(this.urlString, version, blockSize, blockIndex, block);
+              future.complete(block);
+              blockIndex++;
+            }
+          }
+        }
+      }
+    }
+    // Blocks after the end of the file
+    for (final CompletableFuture<byte[]> future : futures) {
+      future.complete(EMPTY_BLOCK);
+    }
+  }
+
+  /**
+   * Read all the blocks of the file, the requested blocks are completed once
+   * the length of the file is known.
+   */
+  private void readWholeFile(final InputStream in, final long firstBlockIndex,
+    final List<CompletableFuture<byte[]>> futures) throws IOException {
+    final int blockSize = this.blockSize;
+    final String version = this.version;
+    final byte[][] blocks = new byte[futures.size()][];
+    long blockIndex = 0;
+    long length = 0;
+    while (true) {
+      final byte[] block = in.readNBytes(blockSize);
+      if (block.length > 0) {
+        this.cache.putBlock(this.urlString, version, blockSize, blockIndex, block);
+        final long futureIndex = blockIndex - firstBlockIndex;
+        if (futureIndex >= 0 && futureIndex < blocks.length) {
+          blocks[(int)futureIndex] = block;
+        }
+        length += block.length;
+      }
+      if (block.length < blockSize) {
+        break;
+      }
+      blockIndex++;
+    }
+    setLength(length);
+    for (int i = 0; i < blocks.length; i++) {
+      if (blocks[i] != null) {
+        futures.get(i)
+          .complete(blocks[i]);
+      }
+    }
+  }
+
+  /**
+   * Request the blocks that aren't in the cache or already requested, merging
+   * adjacent blocks into a single request. Must be called while synchronized on
+   * pendingBlocks.
+   */
+  private void requestBlocks(final long firstBlockIndex, final long lastBlockIndex) {
+    long startIndex = -1;
+    for (long blockIndex = firstBlockIndex; blockIndex <= lastBlockIndex; blockIndex++) {
+      if (isBlockRequested(blockIndex)) {
+        if (startIndex != -1) {
+          requestRange(startIndex, blockIndex - 1);
+          startIndex = -1;
+        }
+      } else if (startIndex == -1) {
+        startIndex = blockIndex;
+      } else if (blockIndex - startIndex == MAX_REQUEST_BLOCK_COUNT) {
+        requestRange(startIndex, blockIndex - 1);
+        startIndex = blockIndex;
+      }
+    }
+    if (startIndex != -1) {
+      requestRange(startIndex, lastBlockIndex);
+    }
+  }
+
+  /**
+   * Start a request for the blocks. Must be called while synchronized on
+   * pendingBlocks.
+   */
+  private List<CompletableFuture<byte[]>> requestRange(final long firstBlockIndex,
+    final long lastBlockIndex) {
+    final List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+    for (long blockIndex = firstBlockIndex; blockIndex <= lastBlockIndex; blockIndex++) {
+      final CompletableFuture<byte[]> future = new CompletableFuture<>();
+      futures.add(future);
+      this.pendingBlocks.put(blockIndex, future);
+    }
+    final Semaphore connections = this.connections;
+    EXECUTOR.execute(() -> {
+      connections.acquireUninterruptibly();
+      try {
+        readRange(firstBlockIndex, futures);
+      } catch (final Throwable e) {
+        for (final CompletableFuture<byte[]> future : futures) {
+          future.completeExceptionally(e);
+        }
+      } finally {
+        connections.release();
+        synchronized (this.pendingBlocks) {
+          for (int i = 0; i < futures.size(); i++) {
+            this.pendingBlocks.remove(firstBlockIndex + i, futures.get(i));
+          }
+        }
+      }
+    });
+    return futures;
+  }
+
+  public HttpSeekableByteChannel setBlockSize(final int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("blockSize=" + blockSize + " must be > 0");
+    }
+    this.blockSize = blockSize;
+    return this;
+  }
+
+  public HttpSeekableByteChannel setCache(final HttpBlockCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  public HttpSeekableByteChannel setConnectionCount(final int connectionCount) {
+    this.connectionCount = Math.max(1, connectionCount);
+    this.connections = new Semaphore(this.connectionCount);
+    return this;
+  }
+
+  private void setLength(final String contentRange) {
+    if (contentRange != null) {
+      final String totalLength = contentRange.substring(contentRange.indexOf('/') + 1)
+        .trim();
+      if (!"*".equals(totalLength)) {
+        setLength(Long.parseLong(totalLength));
+      }
+    }
+  }
+
+  private void setLength(final long length) {
+    this.length = length;
+  }
+
+  public HttpSeekableByteChannel setReadAheadBlockCount(final int readAheadBlockCount) {
+    this.readAheadBlockCount = Math.max(0, readAheadBlockCount);
+    return this;
   }
 
   @Override
   public long size() throws IOException {
+    if (this.length < 0) {
+      validate();
+      if (this.length < 0) {
+        throw new IOException("Unable to get the length of " + this.url);
+      }
+    }
     return this.length;
   }
 
@@ -91,6 +468,37 @@ public class HttpSeekableByteChannel implements SeekableByteChannel {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Request the first byte of the file to get the version of the file from the
+   * ETag or Last-Modified header and the length from the Content-Range header.
+   * This is done once by each channel before any blocks are read from the
+   * cache.
+   */
+  private synchronized void validate() throws IOException {
+    if (this.length < 0) {
+      final URLConnection connection = this.url.openConnection();
+      connection.addRequestProperty("Range", "bytes=0-0");
+      if (connection instanceof final HttpURLConnection httpConnection
+        && httpConnection.getResponseCode() == 416) {
+        // Range Not Satisfiable, the file is empty
+        this.version = getVersion(connection);
+        setLength(connection.getHeaderField("Content-Range"));
+      } else {
+        try (
+          InputStream in = connection.getInputStream()) {
+          this.version = getVersion(connection);
+          final String contentRange = connection.getHeaderField("Content-Range");
+          if (contentRange == null) {
+            // The server ignored the range so the response is the whole file
+            readWholeFile(in, 0, List.of());
+          } else {
+            setLength(contentRange);
+          }
+        }
+      }
+    }
+  }
+
   @Override
   public int write(final ByteBuffer buffer) throws IOException {
     throw new UnsupportedOperationException();
@@ -30,6 +30,9 @@ public class Doubles {
     'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'
   };
 
+  /** The largest power of ten that is exactly representable as a double. */
+  private static final int MAX_EXACT_POWER_OF_TEN = 22;
+
   private static final double MIN_VALUE = 4.999999999999999 / 1e20;
 
   private static final double[] POWERS_OF_TEN_DOUBLE = new double[30];
@@ -414,6 +417,97 @@ public class Doubles {
     }
   }
 
+  /**
+   * Get the value of mantissa * 10<sup>exponent</sup> if it can be calculated
+   * exactly using a single multiply or divide. This requires a mantissa of at
+   * most 53 bits and a power of ten that is exactly representable as a double.
+   *
+   * @param mantissa The digits of the number without the sign.
+   * @param exponent The power of ten to scale the mantissa by.
+   * @return The value or {@link Double#NaN} if the number must be parsed using
+   *         {@link Double#parseDouble(String)}.
+   */
+  public static double toDoubleExact(final long mantissa, final int exponent) {
+    if (mantissa < 0 || mantissa > 1L << 53 || exponent < -MAX_EXACT_POWER_OF_TEN
+      || exponent > MAX_EXACT_POWER_OF_TEN) {
+      return Double.NaN;
+    } else if (exponent < 0) {
+      return mantissa / POWERS_OF_TEN_DOUBLE[-exponent];
+    } else {
+      return mantissa * POWERS_OF_TEN_DOUBLE[exponent];
+    }
+  }
+
+  /**
+   * Parse the ASCII decimal number in the bytes if it can be calculated exactly
+   * using {@link #toDoubleExact(long, int)}.
+   *
+   * @param bytes The bytes containing the number.
+   * @param offset The index of the first byte of the number.
+   * @param length The number of bytes in the number.
+   * @return The value or {@link Double#NaN} if the number must be parsed using
+   *         {@link Double#parseDouble(String)}.
+   */
+  public static double toDoubleExact(final byte[] bytes, final int offset, final int length) {
+    final int end = offset + length;
+    int i = offset;
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digitCount = 0;
+    int exponent = 0;
+    for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+      mantissa = mantissa * 10 + bytes[i] - '0';
+      digitCount++;
+    }
+    if (i < end && bytes[i] == '.') {
+      i++;
+      for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+        mantissa = mantissa * 10 + bytes[i] - '0';
+        digitCount++;
+        exponent--;
+      }
+    }
+    if (digitCount == 0 || digitCount > 18) {
+      return Double.NaN;
+    }
+    if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        negativeExponent = bytes[i] == '-';
+        i++;
+      }
+      if (i == end) {
+        return Double.NaN;
+      }
+      int explicitExponent = 0;
+      for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+        explicitExponent = explicitExponent * 10 + bytes[i] - '0';
+        if (explicitExponent > 1000) {
+          return Double.NaN;
+        }
+      }
+      if (negativeExponent) {
+        exponent -= explicitExponent;
+      } else {
+        exponent += explicitExponent;
+      }
+    }
+    if (i != end) {
+      return Double.NaN;
+    }
+    final double value = toDoubleExact(mantissa, exponent);
+    if (negative) {
+      return -value;
+    } else {
+      return value;
+    }
+  }
+
   public static double[] toDoubleArray(final List<? extends Number> numbers) {
     final double[] doubles = new double[numbers.size()];
     for (int i = 0; i < doubles.length; i++) {
@@ -1,6 +1,8 @@
 package com.revolsys.parallel.channel;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
@@ -205,6 +207,35 @@ public class Channel<T> implements SelectableChannelInput<T>, ChannelOutput<T>,
     }
   }
 
+  /**
+   * Read at least one value, waiting if required, and up to maxCount values
+   * that are in the ChannelValueStore. The values after the first are read
+   * while holding the lock once.
+   *
+   * @param maxCount The maximum number of values to read.
+   * @return The values.
+   */
+  @Override
+  public List<T> readBatch(final int maxCount) {
+    final List<T> values = new ArrayList<>();
+    values.add(read());
+    try (
+      var rl = this.readLock.lockX()) {
+      try (
+        var l = this.lock.lockX()) {
+        boolean read = false;
+        while (values.size() < maxCount && this.data.getState() != ChannelValueStore.EMPTY) {
+          values.add(this.data.get());
+          read = true;
+        }
+        if (read) {
+          this.lockCondition.signalAll();
+        }
+      }
+    }
+    return values;
+  }
+
   @Override
   public BaseCloseable readConnect() {
     try (
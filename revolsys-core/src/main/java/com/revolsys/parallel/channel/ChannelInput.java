@@ -1,5 +1,8 @@
 package com.revolsys.parallel.channel;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.revolsys.util.BaseCloseable;
 
 public interface ChannelInput<T> extends Iterable<T> {
@@ -29,6 +32,19 @@ public interface ChannelInput<T> extends Iterable<T> {
    */
   T read(long timeout);
 
+  /**
+   * Read at least one value, waiting if required, and up to maxCount values
+   * that are available without waiting.
+   *
+   * @param maxCount The maximum number of values to read.
+   * @return The values.
+   */
+  default List<T> readBatch(final int maxCount) {
+    final List<T> values = new ArrayList<>();
+    values.add(read());
+    return values;
+  }
+
   BaseCloseable readConnect();
 
   void readDisconnect();
@@ -1,5 +1,7 @@
 package com.revolsys.parallel.channel;
 
+import java.util.Collection;
+
 import com.revolsys.util.BaseCloseable;
 
 public interface ChannelOutput<T> {
@@ -14,6 +16,17 @@ public interface ChannelOutput<T> {
    */
   void write(final T value);
 
+  /**
+   * Write all the values to the Channel, waiting for space as required.
+   *
+   * @param values The values to write.
+   */
+  default void writeBatch(final Collection<? extends T> values) {
+    for (final T value : values) {
+      write(value);
+    }
+  }
+
   BaseCloseable writeConnect();
 
   void writeDisconnect();
@@ -0,0 +1,461 @@
+package com.revolsys.parallel.channel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+
+import com.revolsys.exception.Exceptions;
+import com.revolsys.parallel.ReentrantLockEx;
+import com.revolsys.util.BaseCloseable;
+
+/**
+ * <p>
+ * A bounded {@link Channel} backed by an array ring buffer for high throughput
+ * hand-off between processes. Reads and writes use a lock-free multi-producer
+ * multi-consumer queue; each slot has a sequence number that tells readers and
+ * writers if the slot is ready for them, so there is no shared lock and no
+ * allocation per value. A single reader and single writer never contend on the
+ * same position counter.
+ * </p>
+ * <p>
+ * A lock is only used when a reader finds the channel empty or a writer finds
+ * it full. They spin briefly and then wait; the other side only signals if
+ * there are waiting threads. Use {@link #readBatch(int)} and
+ * {@link #writeBatch(Collection)} to move many values with a single signal.
+ * </p>
+ * <p>
+ * The connect, disconnect and close behaviour is the same as {@link Channel} so
+ * it can be used anywhere a {@link Channel} is used, including with a
+ * {@link MultiInputSelector}.
+ * </p>
+ *
+ * @param <T> The type of value.
+ */
+public class RingBufferChannel<T> extends Channel<T> {
+
+  /** Used to store null values as the ring uses null for an empty slot. */
+  private static final Object NULL = new Object();
+
+  private static final int SPIN_COUNT = 100;
+
+  private static int toCapacity(final int capacity) {
+    if (capacity < 2) {
+      return 2;
+    } else if (capacity > 1 << 30) {
+      return 1 << 30;
+    } else {
+      return Integer.highestOneBit(capacity - 1) << 1;
+    }
+  }
+
+  private final int capacity;
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private final int mask;
+
+  private final Condition notEmpty;
+
+  private final Condition notFull;
+
+  private int readerCount = 0;
+
+  private final AtomicLong readPosition = new AtomicLong();
+
+  private final AtomicInteger readWaiterCount = new AtomicInteger();
+
+  private volatile MultiInputSelector selector;
+
+  private final AtomicLongArray sequences;
+
+  private final Object[] values;
+
+  private final ReentrantLockEx waitLock = new ReentrantLockEx();
+
+  private volatile boolean writeClosed;
+
+  private int writerCount = 0;
+
+  private final AtomicLong writePosition = new AtomicLong();
+
+  private final AtomicInteger writeWaiterCount = new AtomicInteger();
+
+  /**
+   * Construct a new channel.
+   *
+   * @param capacity The maximum number of values in the channel, rounded up to
+   *          a power of 2.
+   */
+  public RingBufferChannel(final int capacity) {
+    this(null, capacity);
+  }
+
+  public RingBufferChannel(final String name, final int capacity) {
+    super(name);
+    this.capacity = toCapacity(capacity);
+    this.mask = this.capacity - 1;
+    this.values = new Object[this.capacity];
+    this.sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      this.sequences.set(i, i);
+    }
+    this.notEmpty = this.waitLock.newCondition();
+    this.notFull = this.waitLock.newCondition();
+  }
+
+  public int capacity() {
+    return this.capacity;
+  }
+
+  @Override
+  public void close() {
+    if (this.closed.compareAndSet(false, true)) {
+      try (
+        var l = this.waitLock.lockX()) {
+        this.notEmpty.signalAll();
+        this.notFull.signalAll();
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T decode(final Object value) {
+    if (value == NULL) {
+      return null;
+    } else {
+      return (T)value;
+    }
+  }
+
+  @Override
+  public boolean disable() {
+    this.selector = null;
+    return !isEmpty();
+  }
+
+  @Override
+  public boolean enable(final MultiInputSelector alt) {
+    this.selector = alt;
+    if (isEmpty()) {
+      return false;
+    } else {
+      this.selector = null;
+      return true;
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    if (!this.closed.get() && this.writeClosed && isEmpty()) {
+      close();
+    }
+    return this.closed.get();
+  }
+
+  private boolean isEmpty() {
+    final long position = this.readPosition.get();
+    final int index = (int)position & this.mask;
+    return this.sequences.get(index) != position + 1;
+  }
+
+  private boolean offer(final Object value) {
+    long position = this.writePosition.get();
+    while (true) {
+      final int index = (int)position & this.mask;
+      final long difference = this.sequences.get(index) - position;
+      if (difference == 0) {
+        if (this.writePosition.compareAndSet(position, position + 1)) {
+          this.values[index] = value;
+          this.sequences.set(index, position + 1);
+          return true;
+        }
+        position = this.writePosition.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = this.writePosition.get();
+      }
+    }
+  }
+
+  private Object poll() {
+    long position = this.readPosition.get();
+    while (true) {
+      final int index = (int)position & this.mask;
+      final long difference = this.sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (this.readPosition.compareAndSet(position, position + 1)) {
+          final Object value = this.values[index];
+          this.values[index] = null;
+          this.sequences.set(index, position + this.capacity);
+          return value;
+        }
+        position = this.readPosition.get();
+      } else if (difference < 0) {
+        return null;
+      } else {
+        position = this.readPosition.get();
+      }
+    }
+  }
+
+  @Override
+  public T read() {
+    return read(0);
+  }
+
+  @Override
+  public T read(final long timeout) {
+    if (this.closed.get()) {
+      throw new ClosedException();
+    }
+    Object value = poll();
+    if (value == null) {
+      value = readWait(timeout);
+      if (value == null) {
+        return null;
+      }
+    }
+    signalWriters(false);
+    return decode(value);
+  }
+
+  /**
+   * Read at least one value and up to maxCount values that are available
+   * without waiting.
+   *
+   * @param maxCount The maximum number of values to read.
+   * @return The values.
+   */
+  @Override
+  public List<T> readBatch(final int maxCount) {
+    final List<T> values = new ArrayList<>(Math.min(maxCount, this.capacity));
+    values.add(read());
+    while (values.size() < maxCount) {
+      final Object value = poll();
+      if (value == null) {
+        break;
+      } else {
+        values.add(decode(value));
+      }
+    }
+    signalWriters(true);
+    return values;
+  }
+
+  @Override
+  public BaseCloseable readConnect() {
+    try (
+      var l = this.waitLock.lockX()) {
+      if (isClosed()) {
+        throw new IllegalStateException("Cannot connect to a closed channel");
+      } else {
+        this.readerCount++;
+      }
+    }
+    return this::readDisconnect;
+  }
+
+  @Override
+  public void readDisconnect() {
+    try (
+      var l = this.waitLock.lockX()) {
+      if (!this.closed.get()) {
+        this.readerCount--;
+        if (this.readerCount <= 0) {
+          close();
+        }
+      }
+    }
+  }
+
+  private Object readWait(final long timeout) {
+    for (int i = 0; i < SPIN_COUNT; i++) {
+      Thread.onSpinWait();
+      final Object value = poll();
+      if (value != null) {
+        return value;
+      } else if (isClosed()) {
+        throw new ClosedException();
+      }
+    }
+    long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+    try (
+      var l = this.waitLock.lockX()) {
+      this.readWaiterCount.incrementAndGet();
+      try {
+        while (true) {
+          // Check after incrementing the waiter count so a write can't be missed
+          final Object value = poll();
+          if (value != null) {
+            return value;
+          } else if (isClosed()) {
+            throw new ClosedException();
+          } else if (timeout == 0) {
+            this.notEmpty.await();
+          } else if (nanos <= 0) {
+            return null;
+          } else {
+            nanos = this.notEmpty.awaitNanos(nanos);
+          }
+        }
+      } catch (final InterruptedException e) {
+        throw Exceptions.toRuntimeException(e);
+      } finally {
+        this.readWaiterCount.decrementAndGet();
+      }
+    }
+  }
+
+  private void signalReaders(final boolean all) {
+    if (this.readWaiterCount.get() > 0) {
+      try (
+        var l = this.waitLock.lockX()) {
+        if (all) {
+          this.notEmpty.signalAll();
+        } else {
+          this.notEmpty.signal();
+        }
+      }
+    }
+    final MultiInputSelector selector = this.selector;
+    if (selector != null) {
+      selector.schedule();
+    }
+  }
+
+  private void signalWriters(final boolean all) {
+    if (this.writeWaiterCount.get() > 0) {
+      try (
+        var l = this.waitLock.lockX()) {
+        if (all) {
+          this.notFull.signalAll();
+        } else {
+          this.notFull.signal();
+        }
+      }
+    }
+  }
+
+  /**
+   * The number of values in the channel. The value is only an estimate while
+   * other threads are reading or writing.
+   *
+   * @return The number of values.
+   */
+  public int size() {
+    final long size = this.writePosition.get() - this.readPosition.get();
+    return (int)Math.max(0, Math.min(size, this.capacity));
+  }
+
+  @Override
+  public String toString() {
+    final String name = getName();
+    if (name == null) {
+      return "RingBufferChannel(" + size() + "/" + this.capacity + ")";
+    } else {
+      return name;
+    }
+  }
+
+  @Override
+  public void write(final T value) {
+    if (this.closed.get()) {
+      throw new ClosedException();
+    }
+    final Object encoded = value == null ? NULL : value;
+    if (!offer(encoded)) {
+      writeWait(encoded);
+    }
+    signalReaders(false);
+  }
+
+  /**
+   * Write all the values, waiting for space as required. Waiting readers are
+   * signalled once for the batch instead of once per value.
+   *
+   * @param values The values to write.
+   */
+  @Override
+  public void writeBatch(final Collection<? extends T> values) {
+    if (this.closed.get()) {
+      throw new ClosedException();
+    }
+    for (final T value : values) {
+      final Object encoded = value == null ? NULL : value;
+      if (!offer(encoded)) {
+        signalReaders(true);
+        writeWait(encoded);
+      }
+    }
+    signalReaders(true);
+  }
+
+  @Override
+  public BaseCloseable writeConnect() {
+    try (
+      var l = this.waitLock.lockX()) {
+      if (this.writeClosed) {
+        throw new IllegalStateException("Cannot connect to a closed channel");
+      } else {
+        this.writerCount++;
+      }
+    }
+    return this::writeDisconnect;
+  }
+
+  @Override
+  public void writeDisconnect() {
+    try (
+      var l = this.waitLock.lockX()) {
+      if (!this.writeClosed) {
+        this.writerCount--;
+        if (this.writerCount <= 0) {
+          this.writeClosed = true;
+          final MultiInputSelector selector = this.selector;
+          if (selector != null) {
+            selector.closeChannel();
+          }
+          this.notEmpty.signalAll();
+        }
+      }
+    }
+  }
+
+  private void writeWait(final Object value) {
+    for (int i = 0; i < SPIN_COUNT; i++) {
+      Thread.onSpinWait();
+      if (this.closed.get()) {
+        throw new ClosedException();
+      } else if (offer(value)) {
+        return;
+      }
+    }
+    try (
+      var l = this.waitLock.lockX()) {
+      this.writeWaiterCount.incrementAndGet();
+      try {
+        while (true) {
+          // Check after incrementing the waiter count so a read can't be missed
+          if (this.closed.get()) {
+            throw new ClosedException();
+          } else if (offer(value)) {
+            return;
+          } else {
+            this.notFull.await();
+          }
+        }
+      } catch (final InterruptedException e) {
+        throw Exceptions.toRuntimeException(e);
+      } finally {
+        this.writeWaiterCount.decrementAndGet();
+      }
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.revolsys.logging.Logs;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ChannelValueStore;
 import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.RingBufferChannel;
 import com.revolsys.parallel.channel.store.Buffer;
 import com.revolsys.parallel.channel.store.ZeroBuffer;
 
@@ -36,8 +37,7 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
   public Channel<I> getIn() {
     if (this.in == null) {
       final String channelName = getBeanName() + ".in";
-      final ChannelValueStore<I> buffer = newInValueStore();
-      final Channel<I> channel = new Channel<>(channelName, buffer);
+      final Channel<I> channel = newInChannel(channelName);
       setIn(channel);
     }
     return this.in;
@@ -54,8 +54,7 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
   public Channel<O> getOut() {
     if (this.out == null) {
       final String channelName = getBeanName() + ".out";
-      final ChannelValueStore<O> buffer = newOutValueStore();
-      final Channel<O> channel = new Channel<>(channelName, buffer);
+      final Channel<O> channel = newOutChannel(channelName);
       setOut(channel);
     }
     return this.out;
@@ -68,23 +67,65 @@ public abstract class AbstractInOutProcess<I, O> extends AbstractProcess
   protected void initializeDo() {
   }
 
+  /**
+   * Create the in channel if one wasn't set. A positive inBufferSize uses a
+   * {@link RingBufferChannel} of that size, otherwise a channel using the
+   * {@link #newInValueStore()}.
+   *
+   * @param channelName The name of the channel.
+   * @return The channel.
+   */
+  protected Channel<I> newInChannel(final String channelName) {
+    if (this.inBufferSize > 0) {
+      return new RingBufferChannel<>(channelName, this.inBufferSize);
+    } else {
+      final ChannelValueStore<I> buffer = newInValueStore();
+      return new Channel<>(channelName, buffer);
+    }
+  }
+
+  /**
+   * Create the value store for an in channel that isn't a ring buffer. An
+   * inBufferSize of 0 doesn't buffer values and a negative size is unbounded.
+   *
+   * @return The value store.
+   */
   protected ChannelValueStore<I> newInValueStore() {
     if (this.inBufferSize == 0) {
       return new ZeroBuffer<>();
-    } else if (this.inBufferSize < 0) {
+    } else {
       return new Buffer<>();
+    }
+  }
+
+  /**
+   * Create the out channel if one wasn't set. A positive outBufferSize uses a
+   * {@link RingBufferChannel} of that size, otherwise a channel using the
+   * {@link #newOutValueStore()}.
+   *
+   * @param channelName The name of the channel.
+   * @return The channel.
+   */
+  protected Channel<O> newOutChannel(final String channelName) {
+    if (this.outBufferSize > 0) {
+      return new RingBufferChannel<>(channelName, this.outBufferSize);
     } else {
-      return new Buffer<>(this.inBufferSize);
+      final ChannelValueStore<O> buffer = newOutValueStore();
+      return new Channel<>(channelName, buffer);
     }
   }
 
+  /**
+   * Create the value store for an out channel that isn't a ring buffer. An
+   * outBufferSize of 0 doesn't buffer values and a negative size is unbounded.
+   *
+   * @return The value store.
+   */
   protected ChannelValueStore<O> newOutValueStore() {
     if (this.outBufferSize == 0) {
       return new ZeroBuffer<>();
-    } else if (this.outBufferSize < 0) {
-      return new Buffer<>();
     } else {
-      return new Buffer<>(this.outBufferSize);
+      return new Buffer<>();
     }
   }
 
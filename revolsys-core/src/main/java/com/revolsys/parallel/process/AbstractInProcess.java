@@ -3,6 +3,7 @@ package com.revolsys.parallel.process;
 import com.revolsys.logging.Logs;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.RingBufferChannel;
 import com.revolsys.parallel.channel.store.Buffer;
 
 public abstract class AbstractInProcess<T> extends AbstractProcess implements InProcess<T> {
@@ -38,8 +39,10 @@ public abstract class AbstractInProcess<T> extends AbstractProcess implements In
       final String channelName = getBeanName() + ".in";
       if (this.inBufferSize == 0) {
         setIn(new Channel<>(channelName));
+      } else if (this.inBufferSize > 0) {
+        setIn(new RingBufferChannel<>(channelName, this.inBufferSize));
       } else {
-        setIn(new Channel<>(channelName, new Buffer<>(this.inBufferSize)));
+        setIn(new Channel<>(channelName, new Buffer<>()));
       }
     }
     return this.in;
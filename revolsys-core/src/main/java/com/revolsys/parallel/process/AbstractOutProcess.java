@@ -3,6 +3,7 @@ package com.revolsys.parallel.process;
 import com.revolsys.logging.Logs;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.RingBufferChannel;
 import com.revolsys.parallel.channel.store.Buffer;
 
 public abstract class AbstractOutProcess<T> extends AbstractProcess implements OutProcess<T> {
@@ -35,9 +36,11 @@ public abstract class AbstractOutProcess<T> extends AbstractProcess implements O
       if (this.outBufferSize == 0) {
         final Channel<T> channel = new Channel<>(channelName);
         setOut(channel);
+      } else if (this.outBufferSize > 0) {
+        final Channel<T> channel = new RingBufferChannel<>(channelName, this.outBufferSize);
+        setOut(channel);
       } else {
-        final Buffer<T> buffer = new Buffer<>(this.outBufferSize);
-        final Channel<T> channel = new Channel<>(channelName, buffer);
+        final Channel<T> channel = new Channel<>(channelName, new Buffer<>());
         setOut(channel);
       }
     }
@@ -1,8 +1,10 @@
 package com.revolsys.parallel.process;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -105,6 +107,31 @@ var counts = // Counts of source, target, delete, insert, update records
   })
   .run(); // Process all the source and return the counts
 </pre>
+
+<h2>Skipping unchanged records</h2>
+<p>If a digest function is set for both the source and target records then matched records
+with the same digest are counted as unchanged and are not sent to the update handler.
+{@link RecordDigester} calculates a digest over selected fields of a record.</p>
+
+<pre>
+  .sourceRecordDigest(RecordDigester.md5("name", "geometry"))
+  .targetRecordDigest(RecordDigester.md5("name", "geometry"))
+</pre>
+
+<h2>Digest snapshots</h2>
+<p>If a {@link DigestSnapshot} is set then the id and digest of each source record is saved to
+the snapshot when the merge completes. The next merge can use {@link #builder(DigestSnapshot)} to
+use the snapshot as the target records, detecting the changes without reading the target data
+set. The delete and update handlers get a {@link DigestSnapshot.Entry} with the id of the record
+as the target.</p>
+
+<h2>Parallel merge</h2>
+<p>The {@link Builder#partitionCount(int)} option reads the source and target records on separate
+threads, matches them by id on another thread and spreads the matched records over the partitions.
+Each partition compares the digests, writes its part of the digest snapshot and sends the records
+to the handlers on a separate thread. The records must be sorted as for a sequential merge. The
+handlers are called from multiple threads and the
+order records are sent to the handlers is not defined.</p>
  * @param <SR>
  * @param <K>
  */
@@ -138,6 +165,11 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
       return deleteHandler(channel -> channel.forEach(deleteRecordHandler));
     }
 
+    public Builder<SR2, TR2, K2> digestSnapshot(final DigestSnapshot<K2> digestSnapshot) {
+      this.merger.digestSnapshot = digestSnapshot;
+      return this;
+    }
+
     public Builder<SR2, TR2, K2> insertHandler(final Consumer<Channel<SR2>> insertHandler) {
       this.merger.insertHandler = Objects.requireNonNull(insertHandler, "insertHandler");
       return this;
@@ -148,8 +180,22 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
       return insertHandler(channel -> channel.forEach(insertRecordHandler));
     }
 
+    /**
+     * Set the number of partitions to merge in parallel.
+     *
+     * @param partitionCount The number of partitions.
+     * @return this
+     */
+    public Builder<SR2, TR2, K2> partitionCount(final int partitionCount) {
+      this.merger.partitionCount = Math.max(1, partitionCount);
+      return this;
+    }
+
     public CountTree run() {
       Objects.requireNonNull(this.merger.comparator, "comparator");
+      if (this.merger.digestSnapshot != null) {
+        Objects.requireNonNull(this.merger.sourceRecordDigest, "sourceRecordDigest");
+      }
       Objects.requireNonNull(this.merger.deleteHandler, "deleteHandler");
       Objects.requireNonNull(this.merger.insertHandler, "insertHandler");
       Objects.requireNonNull(this.merger.updateHandler, "updateHandler");
@@ -160,6 +206,12 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
       return this.merger.clone().run();
     }
 
+    public Builder<SR2, TR2, K2> sourceRecordDigest(
+      final Function<SR2, byte[]> sourceRecordDigest) {
+      this.merger.sourceRecordDigest = sourceRecordDigest;
+      return this;
+    }
+
     public Builder<SR2, TR2, K2> sourceRecords(final Iterable<? extends SR2> sourceRecords) {
       this.merger.sourceRecords = Objects.requireNonNull(sourceRecords, "sourceRecords");
       return this;
@@ -170,6 +222,12 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
       return this;
     }
 
+    public Builder<SR2, TR2, K2> targetRecordDigest(
+      final Function<TR2, byte[]> targetRecordDigest) {
+      this.merger.targetRecordDigest = targetRecordDigest;
+      return this;
+    }
+
     public Builder<SR2, TR2, K2> targetRecords(final Iterable<? extends TR2> targetRecords) {
       this.merger.targetRecords = Objects.requireNonNull(targetRecords, "targetRecords");
       return this;
@@ -203,10 +261,38 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
     }
   }
 
+  /**
+   * The source and target record with the same id, with a null target for an
+   * insert and a null source for a delete.
+   */
+  private record Match<SR2, TR2, K2>(RecordWithId<SR2, K2> source, RecordWithId<TR2, K2> target) {
+  }
+
   public static <SR2, TR2, K2> Builder<SR2, TR2, K2> builder() {
     return new Builder<>();
   }
 
+  /**
+   * Create a builder that uses the digest snapshot from the previous merge as
+   * the target records and saves a new snapshot when the merge completes. The
+   * source record digest must be set.
+   *
+   * @param snapshot The snapshot.
+   * @return The builder.
+   */
+  public static <SR2, K2> Builder<SR2, DigestSnapshot.Entry<K2>, K2> builder(
+    final DigestSnapshot<K2> snapshot) {
+    return DatasetMerge.<SR2, DigestSnapshot.Entry<K2>, K2> builder()
+      .comparator(snapshot.getComparator())
+      .targetRecords(snapshot.entries())
+      .targetRecordToId(DigestSnapshot.Entry::id)
+      .targetRecordDigest(DigestSnapshot.Entry::digest)
+      .digestSnapshot(snapshot);
+  }
+
+  /** The maximum number of records waiting in each channel of a partitioned merge. */
+  private static final int CHANNEL_SIZE = 1000;
+
   private final boolean debug = false;
 
   private Comparator<K> comparator;
@@ -219,6 +305,14 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
 
   private Iterable<? extends TR> targetRecords;
 
+  private Function<SR, byte[]> sourceRecordDigest;
+
+  private Function<TR, byte[]> targetRecordDigest;
+
+  private DigestSnapshot<K> digestSnapshot;
+
+  private int partitionCount = 1;
+
   private final CountTree counts = new CountTree();
 
   private Consumer<Channel<SR>> insertHandler;
@@ -261,36 +355,138 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
     return null;
   }
 
-  private Void processRecords() {
+  private <R> Iterator<RecordWithId<R, K>> idIterator(final Iterable<? extends R> records,
+    final Function<R, K> recordToId, final String countLabel) {
+    final Iterator<? extends R> iterator = records.iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public RecordWithId<R, K> next() {
+        final R record = iterator.next();
+        final K id = recordToId.apply(record);
+        DatasetMerge.this.counts.addCount(countLabel);
+        return new RecordWithId<>(record, id);
+      }
+    };
+  }
+
+  private void mergePartition(final int partition,
+    final Channel<Match<SR, TR, K>> channel) {
+    try (
+      var snapshotWriter = newSnapshotWriter(partition)) {
+      channel.forEach(match -> processMatch(match.source(), match.target(), snapshotWriter));
+    } finally {
+      channel.readDisconnect();
+      this.insertChannel.writeDisconnect();
+      this.updateChannel.writeDisconnect();
+      this.deleteChannel.writeDisconnect();
+    }
+  }
+
+  /**
+   * Match the sorted source and target records by id. The action is called with
+   * the source and target record for matched ids, with a null target for
+   * inserts and a null source for deletes.
+   */
+  private void mergeRecords(final Iterator<RecordWithId<SR, K>> sourceIterator,
+    final Iterator<RecordWithId<TR, K>> targetIterator,
+    final BiConsumer<RecordWithId<SR, K>, RecordWithId<TR, K>> action) {
+    var sourceRef = recordNext(sourceIterator);
+    var targetRef = recordNext(targetIterator);
+    while (sourceRef.hasRecord() || targetRef.hasRecord()) {
+      if (this.debug) {
+        Debug.println(sourceRef.id(), targetRef.id());
+      }
+      final int idCompare = targetRef.compareTo(this.comparator, sourceRef);
+      if (idCompare > 0) {
+        action.accept(sourceRef, null);
+        sourceRef = recordNext(sourceIterator);
+      } else if (idCompare < 0) {
+        action.accept(null, targetRef);
+        targetRef = recordNext(targetIterator);
+      } else {
+        action.accept(sourceRef, targetRef);
+        sourceRef = recordNext(sourceIterator);
+        targetRef = recordNext(targetIterator);
+      }
+    }
+  }
+
+  private <V> Channel<V> newChannel() {
+    final Channel<V> channel = new Channel<>(new Buffer<>(CHANNEL_SIZE));
+    channel.writeConnect();
+    channel.readConnect();
+    return channel;
+  }
+
+  private DigestSnapshot<K>.Writer newSnapshotWriter(final int partition) {
+    if (this.digestSnapshot == null) {
+      return null;
+    } else {
+      return this.digestSnapshot.newWriter(partition);
+    }
+  }
+
+  private void partitionMatches(final Channel<RecordWithId<SR, K>> sourceChannel,
+    final Channel<RecordWithId<TR, K>> targetChannel,
+    final List<Channel<Match<SR, TR, K>>> channels) {
     try {
-      final var sourceIterator = this.sourceRecords.iterator();
-      final var targetIterator = this.targetRecords.iterator();
-      var sourceRef = recordNext(sourceIterator, this.sourceRecordToId, "source");
-      var targetRef = recordNext(targetIterator, this.targetRecordToId, "target");
-      while (sourceRef.hasRecord() || targetRef.hasRecord()) {
-        if (this.debug) {
-          Debug.println(sourceRef.id(), targetRef.id());
-        }
-        final int idCompare = targetRef.compareTo(this.comparator, sourceRef);
-        if (idCompare > 0) {
-          this.counts.addCount("insert");
-          final var sourceRecord = sourceRef.record();
-          this.insertChannel.write(sourceRecord);
-          sourceRef = recordNext(sourceIterator, this.sourceRecordToId, "source");
-        } else if (idCompare < 0) {
-          this.counts.addCount("delete");
-          final var targetRecord = targetRef.record();
-          this.deleteChannel.write(targetRecord);
-          targetRef = recordNext(targetIterator, this.targetRecordToId, "target");
-        } else {
-          this.counts.addCount("update");
-          final var sourceRecord = sourceRef.record();
-          final var targetRecord = targetRef.record();
-          this.updateChannel.write(new SourceTargetRecord<SR, TR>(sourceRecord, targetRecord));
-          sourceRef = recordNext(sourceIterator, this.sourceRecordToId, "source");
-          targetRef = recordNext(targetIterator, this.targetRecordToId, "target");
-        }
+      final int[] partition = new int[1];
+      mergeRecords(sourceChannel.iterator(), targetChannel.iterator(), (sourceRef, targetRef) -> {
+        // Each partition gets the matches in id order, so the snapshot files are sorted
+        channels.get(partition[0])
+          .write(new Match<>(sourceRef, targetRef));
+        partition[0] = (partition[0] + 1) % channels.size();
+      });
+    } finally {
+      sourceChannel.readDisconnect();
+      targetChannel.readDisconnect();
+      for (final var channel : channels) {
+        channel.writeDisconnect();
       }
+    }
+  }
+
+  private void processMatch(final RecordWithId<SR, K> sourceRef,
+    final RecordWithId<TR, K> targetRef, final DigestSnapshot<K>.Writer snapshotWriter) {
+    if (targetRef == null) {
+      this.counts.addCount("insert");
+      final var sourceRecord = sourceRef.record();
+      this.insertChannel.write(sourceRecord);
+      writeSnapshot(snapshotWriter, sourceRef, null);
+    } else if (sourceRef == null) {
+      this.counts.addCount("delete");
+      final var targetRecord = targetRef.record();
+      this.deleteChannel.write(targetRecord);
+    } else {
+      final var sourceRecord = sourceRef.record();
+      final var targetRecord = targetRef.record();
+      byte[] sourceDigest = null;
+      if (this.sourceRecordDigest != null && this.targetRecordDigest != null) {
+        sourceDigest = this.sourceRecordDigest.apply(sourceRecord);
+      }
+      if (sourceDigest != null
+        && Arrays.equals(sourceDigest, this.targetRecordDigest.apply(targetRecord))) {
+        this.counts.addCount("unchanged");
+      } else {
+        this.counts.addCount("update");
+        this.updateChannel.write(new SourceTargetRecord<SR, TR>(sourceRecord, targetRecord));
+      }
+      writeSnapshot(snapshotWriter, sourceRef, sourceDigest);
+    }
+  }
+
+  private Void processRecords() {
+    try (
+      var snapshotWriter = newSnapshotWriter(0)) {
+      final var sourceIterator = idIterator(this.sourceRecords, this.sourceRecordToId, "source");
+      final var targetIterator = idIterator(this.targetRecords, this.targetRecordToId, "target");
+      mergeRecords(sourceIterator, targetIterator,
+        (sourceRef, targetRef) -> processMatch(sourceRef, targetRef, snapshotWriter));
     } finally {
       this.insertChannel.writeDisconnect();
       this.updateChannel.writeDisconnect();
@@ -308,33 +504,98 @@ public final class DatasetMerge<SR, TR, K> implements Cloneable {
     return null;
   }
 
-  private <R3> RecordWithId<R3, K> recordNext(final Iterator<? extends R3> iterator,
-    final Function<R3, K> recordToId, final String countLabel) {
+  private <R> void readRecords(final Iterable<? extends R> records,
+    final Function<R, K> recordToId, final String countLabel,
+    final Channel<RecordWithId<R, K>> channel) {
+    try {
+      final var iterator = idIterator(records, recordToId, countLabel);
+      while (iterator.hasNext()) {
+        channel.write(iterator.next());
+      }
+    } finally {
+      channel.writeDisconnect();
+    }
+  }
+
+  private <R3> RecordWithId<R3, K> recordNext(final Iterator<RecordWithId<R3, K>> iterator) {
     if (iterator.hasNext()) {
-      final var record = iterator.next();
-      final var id = recordToId.apply(record);
-      this.counts.addCount(countLabel);
-      return new RecordWithId<>(record, id);
+      return iterator.next();
     } else {
       return RecordWithId.empty();
     }
   }
 
   public CountTree run() {
+    if (this.digestSnapshot != null) {
+      this.digestSnapshot.clearTemp();
+    }
+    if (this.partitionCount > 1) {
+      runPartitioned();
+    } else {
+      for (final var channel : Arrays.asList(this.insertChannel, this.updateChannel,
+        this.deleteChannel)) {
+        channel.writeConnect();
+        channel.readConnect();
+      }
+
+      Concurrent.virtual()
+        .parallel(//
+          this::processRecords, //
+          this::processDelete, //
+          this::processInsert, //
+          this::processUpdate//
+        );
+    }
+    if (this.digestSnapshot != null) {
+      this.digestSnapshot.commit();
+    }
+    return this.counts;
+  }
+
+  private void runPartitioned() {
+    final int partitionCount = this.partitionCount;
     for (final var channel : Arrays.asList(this.insertChannel, this.updateChannel,
       this.deleteChannel)) {
-      channel.writeConnect();
+      for (int i = 0; i < partitionCount; i++) {
+        channel.writeConnect();
+      }
       channel.readConnect();
     }
+    // The source and target are read on their own threads and matched on a
+    // single thread, so a full channel only waits for the thread reading it
+    final Channel<RecordWithId<SR, K>> sourceChannel = newChannel();
+    final Channel<RecordWithId<TR, K>> targetChannel = newChannel();
+    final List<Channel<Match<SR, TR, K>>> partitionChannels = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      partitionChannels.add(newChannel());
+    }
 
     Concurrent.virtual()
-      .parallel(//
-        this::processRecords, //
-        this::processDelete, //
-        this::processInsert, //
-        this::processUpdate//
-      );
+      .parallel(parallel -> {
+        parallel.run(//
+          () -> readRecords(this.sourceRecords, this.sourceRecordToId, "source", sourceChannel), //
+          () -> readRecords(this.targetRecords, this.targetRecordToId, "target", targetChannel), //
+          () -> partitionMatches(sourceChannel, targetChannel, partitionChannels), //
+          this::processDelete, //
+          this::processInsert, //
+          this::processUpdate//
+        );
+        for (int i = 0; i < partitionCount; i++) {
+          final int partition = i;
+          parallel.run(() -> mergePartition(partition, partitionChannels.get(partition)));
+        }
+      });
+  }
 
-    return this.counts;
+  private void writeSnapshot(final DigestSnapshot<K>.Writer snapshotWriter,
+    final RecordWithId<SR, K> sourceRef, final byte[] sourceDigest) {
+    if (snapshotWriter != null) {
+      if (sourceDigest == null) {
+        final byte[] digest = this.sourceRecordDigest.apply(sourceRef.record());
+        snapshotWriter.write(sourceRef.id(), digest);
+      } else {
+        snapshotWriter.write(sourceRef.id(), sourceDigest);
+      }
+    }
   }
 }
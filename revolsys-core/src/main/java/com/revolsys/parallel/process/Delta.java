@@ -1,19 +1,63 @@
 package com.revolsys.parallel.process;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.revolsys.exception.Exceptions;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ChannelOutput;
 import com.revolsys.parallel.channel.ClosedException;
-
+import com.revolsys.record.CopyOnWriteRecord;
+import com.revolsys.record.FixedValueRecord;
+import com.revolsys.record.Record;
+
+/**
+ * <p>
+ * Write each value read from the input channel to all the output channels.
+ * </p>
+ * <p>
+ * If clone is true (the default) each output gets its own copy of the value.
+ * Values that are {@link Cloneable} are copied using their public clone method.
+ * If copyOnWrite is true then each output instead gets a
+ * {@link CopyOnWriteRecord} view of a {@link Record} so the values are only
+ * copied if a consumer changes the record. {@link FixedValueRecord}s can't be
+ * changed so they are always shared.
+ * </p>
+ * <p>
+ * Up to batchSize values that are available are read at a time and written to
+ * each output in a single channel operation. With the default batchSize of 1
+ * each value is read and written on its own without creating a list.
+ * </p>
+ */
 public final class Delta<T> extends AbstractInProcess<T> {
 
+  private static final MethodType CLONE_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<MethodHandle> CLONE_METHODS = new ClassValue<>() {
+    @Override
+    protected MethodHandle computeValue(final Class<?> valueClass) {
+      try {
+        final Method method = valueClass.getMethod("clone");
+        return MethodHandles.publicLookup()
+          .unreflect(method)
+          .asType(CLONE_TYPE);
+      } catch (final Exception e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+  };
+
+  private int batchSize = 1;
+
   private boolean clone = true;
 
+  private boolean copyOnWrite = false;
+
   private List<ChannelOutput<T>> out = new ArrayList<>();
 
   private boolean running;
@@ -39,37 +83,35 @@ public final class Delta<T> extends AbstractInProcess<T> {
 
   @SuppressWarnings("unchecked")
   private T clone(final T value) {
-    if (this.clone && value instanceof Cloneable) {
-      try {
-        final Class<? extends Object> valueClass = value.getClass();
-        final Method method = valueClass.getMethod("clone", new Class[0]);
-        if (method != null) {
-          return (T)method.invoke(value, new Object[0]);
+    if (this.clone) {
+      if (value instanceof FixedValueRecord) {
+        return value;
+      } else if (this.copyOnWrite && value instanceof final Record record) {
+        return (T)new CopyOnWriteRecord(record);
+      } else if (value instanceof Cloneable) {
+        final MethodHandle cloneMethod = CLONE_METHODS.get(value.getClass());
+        try {
+          return (T)cloneMethod.invokeExact((Object)value);
+        } catch (final RuntimeException | Error e) {
+          throw e;
+        } catch (final Throwable e) {
+          throw new RuntimeException(e.getMessage(), e);
         }
-      } catch (final IllegalArgumentException e) {
-        throw e;
-      } catch (final InvocationTargetException e) {
-
-        final Throwable cause = e.getCause();
-        if (cause instanceof RuntimeException) {
-          final RuntimeException re = (RuntimeException)cause;
-          throw re;
-        } else if (cause instanceof Error) {
-          final Error ee = (Error)cause;
-          throw ee;
-        } else {
-          throw new RuntimeException(cause.getMessage(), cause);
-        }
-      } catch (final RuntimeException e) {
-        throw e;
-      } catch (final Exception e) {
-        throw new RuntimeException(e.getMessage(), e);
       }
-
     }
     return value;
   }
 
+  private List<T> clone(final List<T> values) {
+    final List<T> clonedValues = new ArrayList<>(values.size());
+    for (final T value : values) {
+      if (value != null) {
+        clonedValues.add(clone(value));
+      }
+    }
+    return clonedValues;
+  }
+
   @Override
   protected void destroy() {
     super.destroy();
@@ -84,6 +126,10 @@ public final class Delta<T> extends AbstractInProcess<T> {
     }
   }
 
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
   public List<ChannelOutput<T>> getOut() {
     return this.out;
   }
@@ -92,25 +138,30 @@ public final class Delta<T> extends AbstractInProcess<T> {
     return this.clone;
   }
 
+  public boolean isCopyOnWrite() {
+    return this.copyOnWrite;
+  }
+
+  private void removeOut(final Iterator<ChannelOutput<T>> iterator) {
+    iterator.remove();
+    if (this.out.isEmpty()) {
+      this.running = false;
+    }
+  }
+
   @Override
   protected void run(final Channel<T> in) {
     this.running = true;
     try {
       while (this.running) {
-        final T record = in.read();
-        if (record != null) {
-          for (final Iterator<ChannelOutput<T>> iterator = this.out.iterator(); iterator
-            .hasNext();) {
-            final ChannelOutput<T> out = iterator.next();
-            final T clonedObject = clone(record);
-            try {
-              out.write(clonedObject);
-            } catch (final ClosedException e) {
-              iterator.remove();
-              if (this.out.isEmpty()) {
-                this.running = false;
-              }
-            }
+        if (this.batchSize <= 1) {
+          writeOut(in.read());
+        } else {
+          final List<T> values = in.readBatch(this.batchSize);
+          if (values.size() == 1) {
+            writeOut(values.get(0));
+          } else {
+            writeOutBatch(values);
           }
         }
       }
@@ -120,10 +171,30 @@ public final class Delta<T> extends AbstractInProcess<T> {
 
   }
 
+  /**
+   * Set the maximum number of values to read from the input and write to each
+   * output in a single channel operation.
+   *
+   * @param batchSize The batch size.
+   */
+  public void setBatchSize(final int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
   public void setClone(final boolean clone) {
     this.clone = clone;
   }
 
+  /**
+   * Set if records are sent to each output as a {@link CopyOnWriteRecord} view
+   * of the record instead of a clone. Only used if clone is true.
+   *
+   * @param copyOnWrite True if copy on write views are used.
+   */
+  public void setCopyOnWrite(final boolean copyOnWrite) {
+    this.copyOnWrite = copyOnWrite;
+  }
+
   public void setOut(final List<ChannelOutput<T>> out) {
     disconnectOut();
     this.out = new ArrayList<>();
@@ -132,4 +203,30 @@ public final class Delta<T> extends AbstractInProcess<T> {
     }
   }
 
+  private void writeOut(final T value) {
+    if (value != null) {
+      for (final Iterator<ChannelOutput<T>> iterator = this.out.iterator(); iterator.hasNext();) {
+        final ChannelOutput<T> out = iterator.next();
+        try {
+          final T clonedObject = clone(value);
+          out.write(clonedObject);
+        } catch (final ClosedException e) {
+          removeOut(iterator);
+        }
+      }
+    }
+  }
+
+  private void writeOutBatch(final List<T> values) {
+    for (final Iterator<ChannelOutput<T>> iterator = this.out.iterator(); iterator.hasNext();) {
+      final ChannelOutput<T> out = iterator.next();
+      try {
+        final List<T> clonedValues = clone(values);
+        out.writeBatch(clonedValues);
+      } catch (final ClosedException e) {
+        removeOut(iterator);
+      }
+    }
+  }
+
 }
@@ -0,0 +1,296 @@
+package com.revolsys.parallel.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.revolsys.collection.iterator.AbstractIterator;
+import com.revolsys.collection.iterator.Reader;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.util.BaseCloseable;
+
+/**
+ * <p>
+ * A snapshot of the id and digest of each source record from a
+ * {@link DatasetMerge}. The next merge can use the snapshot as the target
+ * records (see {@link DatasetMerge#builder(DigestSnapshot)}) to detect inserts,
+ * updates and deletes without reading the target data set.
+ * </p>
+ * <p>
+ * The snapshot is stored in a directory with one file for each partition of
+ * the merge that wrote it. Each file is sorted by id and the files are merged
+ * when read. A new snapshot is written to temporary files and only replaces
+ * the existing snapshot when {@link #commit()} is called after the merge
+ * completes, so the old snapshot can be read while the new one is written.
+ * </p>
+ *
+ * @param <K> The type of record id.
+ */
+public class DigestSnapshot<K> {
+
+  /**
+   * The id and digest of a record in the snapshot.
+   */
+  public record Entry<K2>(K2 id, byte[] digest) {
+  }
+
+  class Writer implements BaseCloseable {
+
+    private final DataOutputStream out;
+
+    private Writer(final Path file) throws IOException {
+      this.out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.out.close();
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+
+    void write(final K id, final byte[] digest) {
+      try {
+        this.out.writeUTF(DigestSnapshot.this.idToString.apply(id));
+        this.out.writeByte(digest.length);
+        this.out.write(digest);
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+  }
+
+  private class EntryCursor implements Comparable<EntryCursor>, BaseCloseable {
+
+    private Entry<K> entry;
+
+    private final DataInputStream in;
+
+    private EntryCursor(final Path file) throws IOException {
+      this.in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.in.close();
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+
+    @Override
+    public int compareTo(final EntryCursor other) {
+      return DigestSnapshot.this.comparator.compare(this.entry.id, other.entry.id);
+    }
+
+    private boolean next() {
+      try {
+        final String idString;
+        try {
+          idString = this.in.readUTF();
+        } catch (final EOFException e) {
+          close();
+          return false;
+        }
+        final K id = DigestSnapshot.this.stringToId.apply(idString);
+        final byte[] digest = new byte[this.in.readUnsignedByte()];
+        this.in.readFully(digest);
+        this.entry = new Entry<>(id, digest);
+        return true;
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final String PREFIX = "digests-";
+
+  private static final String SUFFIX = ".bin";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Comparator<K> comparator;
+
+  private final Path directory;
+
+  private final Function<K, String> idToString;
+
+  private final Function<String, K> stringToId;
+
+  /**
+   * Construct a new snapshot.
+   *
+   * @param directory The directory containing the snapshot files.
+   * @param comparator The comparator used to sort the ids by the merge.
+   * @param idToString The function to convert an id to a string.
+   * @param stringToId The function to convert a string to an id.
+   */
+  public DigestSnapshot(final Path directory, final Comparator<K> comparator,
+    final Function<K, String> idToString, final Function<String, K> stringToId) {
+    this.directory = Objects.requireNonNull(directory, "directory");
+    this.comparator = Objects.requireNonNull(comparator, "comparator");
+    this.idToString = Objects.requireNonNull(idToString, "idToString");
+    this.stringToId = Objects.requireNonNull(stringToId, "stringToId");
+  }
+
+  /**
+   * Delete any temporary files left by a merge that didn't complete.
+   */
+  void clearTemp() {
+    try {
+      for (final Path file : listFiles(TEMP_SUFFIX)) {
+        Files.delete(file);
+      }
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  /**
+   * Replace the snapshot files with the temporary files written by the last
+   * merge. Each file is replaced by an atomic move where supported, then the
+   * files for partitions the last merge didn't write are deleted.
+   */
+  public void commit() {
+    try {
+      final Set<Path> newFiles = new HashSet<>();
+      for (final Path file : listFiles(TEMP_SUFFIX)) {
+        final String fileName = file.getFileName()
+          .toString();
+        final String newFileName = fileName.substring(0, fileName.length() - TEMP_SUFFIX.length())
+          + SUFFIX;
+        final Path newFile = file.resolveSibling(newFileName);
+        try {
+          Files.move(file, newFile, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+          Files.move(file, newFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        newFiles.add(newFile);
+      }
+      for (final Path file : listFiles(SUFFIX)) {
+        if (!newFiles.contains(file)) {
+          Files.delete(file);
+        }
+      }
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  /**
+   * Get the entries in the snapshot sorted by id. If the snapshot doesn't exist
+   * there will be no entries.
+   *
+   * @return The entries.
+   */
+  public Reader<Entry<K>> entries() {
+    return new AbstractIterator<>() {
+      private final List<EntryCursor> cursors = new ArrayList<>();
+
+      private final PriorityQueue<EntryCursor> queue = new PriorityQueue<>();
+
+      @Override
+      protected void closeDo() {
+        for (final EntryCursor cursor : this.cursors) {
+          cursor.close();
+        }
+      }
+
+      @Override
+      protected Entry<K> getNext() throws NoSuchElementException {
+        final EntryCursor cursor = this.queue.poll();
+        if (cursor == null) {
+          throw new NoSuchElementException();
+        } else {
+          final Entry<K> entry = cursor.entry;
+          if (cursor.next()) {
+            this.queue.add(cursor);
+          }
+          return entry;
+        }
+      }
+
+      @Override
+      protected void initDo() {
+        try {
+          for (final Path file : listFiles(SUFFIX)) {
+            final EntryCursor cursor = new EntryCursor(file);
+            this.cursors.add(cursor);
+            if (cursor.next()) {
+              this.queue.add(cursor);
+            }
+          }
+        } catch (final IOException e) {
+          throw Exceptions.toRuntimeException(e);
+        }
+      }
+    };
+  }
+
+  public Comparator<K> getComparator() {
+    return this.comparator;
+  }
+
+  public Path getDirectory() {
+    return this.directory;
+  }
+
+  private List<Path> listFiles(final String suffix) throws IOException {
+    final List<Path> files = new ArrayList<>();
+    if (Files.isDirectory(this.directory)) {
+      try (
+        DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+          PREFIX + "*" + suffix)) {
+        for (final Path file : stream) {
+          files.add(file);
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Create a writer for the temporary file for a partition.
+   *
+   * @param partition The partition index.
+   * @return The writer.
+   */
+  Writer newWriter(final int partition) {
+    try {
+      Files.createDirectories(this.directory);
+      return new Writer(this.directory.resolve(PREFIX + partition + TEMP_SUFFIX));
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.directory.toString();
+  }
+}
@@ -0,0 +1,103 @@
+package com.revolsys.parallel.process;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import com.revolsys.collection.map.MapEx;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.exception.Exceptions;
+
+/**
+ * Calculate a digest of the values of selected fields of a record. Each value
+ * is converted to a string and streamed into the digest with its length so
+ * different values can't produce the same sequence of bytes. Null values have
+ * a separate marker so they are different from an empty string.
+ *
+ * <pre>
+ * DatasetMerge.&lt;Record, Record, Integer&gt; builder()
+ *   .sourceRecordDigest(RecordDigester.md5("NAME", "GEOMETRY"))
+ *   .targetRecordDigest(RecordDigester.md5("NAME", "GEOMETRY"))
+ * </pre>
+ *
+ * The digester can be used from multiple threads.
+ *
+ * @param <R> The type of record.
+ */
+public class RecordDigester<R extends MapEx> implements Function<R, byte[]> {
+
+  public static <R2 extends MapEx> RecordDigester<R2> md5(final String... fieldNames) {
+    return new RecordDigester<>("MD5", Arrays.asList(fieldNames));
+  }
+
+  public static <R2 extends MapEx> RecordDigester<R2> sha256(final String... fieldNames) {
+    return new RecordDigester<>("SHA-256", Arrays.asList(fieldNames));
+  }
+
+  private final String algorithm;
+
+  private final List<String> fieldNames;
+
+  private final ThreadLocal<MessageDigest> digests;
+
+  public RecordDigester(final String algorithm, final List<String> fieldNames) {
+    this.algorithm = algorithm;
+    this.fieldNames = List.copyOf(fieldNames);
+    // Fail early on an invalid algorithm
+    newMessageDigest();
+    this.digests = ThreadLocal.withInitial(this::newMessageDigest);
+  }
+
+  @Override
+  public byte[] apply(final R record) {
+    final MessageDigest digest = this.digests.get();
+    for (final String fieldName : this.fieldNames) {
+      final Object value = record.getValue(fieldName);
+      if (value == null) {
+        updateInt(digest, -1);
+      } else {
+        final String string;
+        if (value instanceof final String s) {
+          string = s;
+        } else {
+          string = DataTypes.toString(value);
+        }
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+      }
+    }
+    return digest.digest();
+  }
+
+  public String getAlgorithm() {
+    return this.algorithm;
+  }
+
+  public List<String> getFieldNames() {
+    return this.fieldNames;
+  }
+
+  private MessageDigest newMessageDigest() {
+    try {
+      return MessageDigest.getInstance(this.algorithm);
+    } catch (final NoSuchAlgorithmException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  private void updateInt(final MessageDigest digest, final int value) {
+    digest.update((byte)(value >>> 24));
+    digest.update((byte)(value >>> 16));
+    digest.update((byte)(value >>> 8));
+    digest.update((byte)value);
+  }
+
+  @Override
+  public String toString() {
+    return this.algorithm + this.fieldNames;
+  }
+}
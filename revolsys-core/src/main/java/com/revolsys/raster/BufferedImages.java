@@ -1,6 +1,8 @@
 package com.revolsys.raster;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -32,6 +34,31 @@ public class BufferedImages {
     return readBufferedImage(resource);
   }
 
+  /**
+   * Read the encoded image (e.g. a PNG or JPEG file) from the resource without
+   * decoding it.
+   *
+   * @param resource The resource.
+   * @return The bytes.
+   */
+  public static byte[] readImageBytes(final Resource resource) {
+    try (
+      InputStream in = resource.getInputStream()) {
+      return in.readAllBytes();
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to open: " + resource, e);
+    }
+  }
+
+  public static byte[] readImageBytes(final String url) {
+    final Resource resource = Resource.getResource(url);
+    return readImageBytes(resource);
+  }
+
+  public static BufferedImage readImageIo(final byte[] bytes) {
+    return readImageIo(new ByteArrayInputStream(bytes));
+  }
+
   public static BufferedImage readImageIo(final InputStream in) {
     try {
       return ImageIO.read(in);
@@ -70,4 +97,24 @@ public class BufferedImages {
     }
   }
 
+  /**
+   * Encode the image using ImageIO.
+   *
+   * @param image The image.
+   * @param formatName The ImageIO format name (e.g. png).
+   * @return The encoded image or null if there is no writer for the format.
+   */
+  public static byte[] writeImageIo(final BufferedImage image, final String formatName) {
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      if (ImageIO.write(image, formatName, out)) {
+        return out.toByteArray();
+      } else {
+        return null;
+      }
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to write image", e);
+    }
+  }
+
 }
@@ -20,11 +20,57 @@ public abstract class GeoreferencedImageMapTile extends AbstractMapTile<Georefer
     return false;
   }
 
+  /**
+   * Get the path of the tile in the {@link TileDiskCache}, for example
+   * {@link TileDiskCache#path(Object...)} with the layer URL, level, x and y.
+   *
+   * @return The path or null if the tile shouldn't be cached on disk.
+   */
+  protected String getDiskCachePath() {
+    return null;
+  }
+
   protected abstract BufferedImage loadBuffferedImage();
 
+  /**
+   * Load the encoded image (e.g. the PNG or JPEG response from the server) for
+   * tiles that are cached in the {@link TileDiskCache}, so the original bytes
+   * are cached instead of re-encoding the image. Defaults to encoding
+   * {@link #loadBuffferedImage()} as a PNG.
+   *
+   * @return The bytes or null if the tile doesn't have an image.
+   */
+  protected byte[] loadImageBytes() {
+    final BufferedImage image = loadBuffferedImage();
+    if (image == null) {
+      return null;
+    } else {
+      return BufferedImages.writeImageIo(image, "png");
+    }
+  }
+
   @Override
   protected GeoreferencedImage loadDataDo() {
-    final BufferedImage bufferedImage = loadBuffferedImage();
+    final TileDiskCache diskCache = TileDiskCache.getDefault();
+    String diskCachePath = null;
+    if (diskCache != null) {
+      diskCachePath = getDiskCachePath();
+    }
+    BufferedImage bufferedImage = null;
+    if (diskCachePath == null) {
+      bufferedImage = loadBuffferedImage();
+    } else {
+      bufferedImage = diskCache.readImage(diskCachePath);
+      if (bufferedImage == null) {
+        final byte[] imageBytes = loadImageBytes();
+        if (imageBytes != null) {
+          bufferedImage = BufferedImages.readImageIo(imageBytes);
+          if (bufferedImage != null) {
+            diskCache.writeBytes(diskCachePath, imageBytes);
+          }
+        }
+      }
+    }
     if (bufferedImage == null) {
       return null;
     } else {
@@ -0,0 +1,407 @@
+package com.revolsys.raster;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import com.revolsys.logging.Logs;
+import com.revolsys.util.OS;
+
+/**
+ * A directory of map tile images, stored at <code>layer/level/x/y.tile</code> so
+ * tiles downloaded or decoded in one session don't have to be loaded again.
+ * Downloaded tiles are stored as the original response bytes in whatever format
+ * the server returned, so they are not re-encoded. Reading a tile updates its
+ * last modified time; when the total size of the files goes over the maximum
+ * size the least recently used tiles are deleted until the cache is at 3/4 of
+ * the maximum.
+ *
+ * <p>
+ * The sizes and last access times of the files are kept in memory. The
+ * directory is scanned once by the first write to find the files from previous
+ * sessions; other writers aren't blocked by the scan, and nothing is evicted
+ * until it has finished. Files written by other processes after the scan aren't
+ * counted.
+ * </p>
+ *
+ * <p>
+ * There is no default cache; applications enable one with
+ * {@link #setDefault(TileDiskCache)}, for example using
+ * {@link #newUserCache(String, long)}. The directory must not be a symbolic
+ * link.
+ * </p>
+ *
+ * <p>
+ * Errors reading or writing the cache are logged at debug level and treated as
+ * a cache miss so the tile is loaded from the source.
+ * </p>
+ */
+public class TileDiskCache {
+  public static final long DEFAULT_MAX_SIZE_BYTES = 512L * 1024 * 1024;
+
+  private static TileDiskCache defaultCache;
+
+  private static final String SUFFIX = ".tile";
+
+  /**
+   * Get the default cache.
+   *
+   * @return The cache or null if disk caching is disabled (the default).
+   */
+  public static TileDiskCache getDefault() {
+    return defaultCache;
+  }
+
+  /**
+   * Construct a new cache in the current user's application data directory
+   * (e.g. <code>~/.config/applicationName/TileCache</code>).
+   *
+   * @param applicationName The name of the application.
+   * @param maxSizeBytes The maximum size of the files.
+   * @return The cache.
+   */
+  public static TileDiskCache newUserCache(final String applicationName,
+    final long maxSizeBytes) {
+    final Path directory = OS.getApplicationDataDirectory(applicationName)
+      .toPath()
+      .resolve("TileCache");
+    return new TileDiskCache(directory, maxSizeBytes);
+  }
+
+  /**
+   * Construct the cache path for a tile from its parts (e.g. layer URL, level,
+   * x, y). Characters that aren't safe in a file name are replaced with an
+   * underscore.
+   *
+   * @param parts The parts of the path.
+   * @return The path.
+   */
+  public static String path(final Object... parts) {
+    final StringBuilder path = new StringBuilder();
+    for (final Object part : parts) {
+      if (path.length() > 0) {
+        path.append('/');
+      }
+      final String string = String.valueOf(part);
+      for (int i = 0; i < string.length(); i++) {
+        final char c = string.charAt(i);
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-'
+          || c == '.' && i > 0) {
+          path.append(c);
+        } else {
+          path.append('_');
+        }
+      }
+    }
+    return path.toString();
+  }
+
+  /**
+   * Set the default cache.
+   *
+   * @param cache The cache or null to disable disk caching.
+   */
+  public static void setDefault(final TileDiskCache cache) {
+    defaultCache = cache;
+  }
+
+  private final Path directory;
+
+  /** True if the directory exists and isn't a symbolic link, null until checked. */
+  private volatile Boolean directoryValid;
+
+  /** The size and last access time of the files. */
+  private final Map<Path, CacheFile> files = new HashMap<>();
+
+  /** The last access time, increased for each access so the order is unique. */
+  private long lastAccessTime;
+
+  private final long maxSizeBytes;
+
+  private final AtomicBoolean scanStarted = new AtomicBoolean();
+
+  private boolean scanned;
+
+  private long sizeBytes;
+
+  public TileDiskCache(final Path directory, final long maxSizeBytes) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  private void deleteFiles(final List<Path> files) {
+    for (final Path file : files) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (final IOException e) {
+        Logs.debug(this, "Unable to delete: " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Remove the least recently used files from the index until the cache is at
+   * 3/4 of the maximum size.
+   *
+   * @return The files to delete.
+   */
+  private List<Path> evict() {
+    final List<Path> evictedFiles = new ArrayList<>();
+    if (this.scanned && this.sizeBytes > this.maxSizeBytes) {
+      final List<CacheFile> files = new ArrayList<>(this.files.values());
+      files.sort(Comparator.comparingLong(CacheFile::lastAccessTime));
+      final long targetSizeBytes = this.maxSizeBytes / 4 * 3;
+      for (final CacheFile file : files) {
+        if (this.sizeBytes <= targetSizeBytes) {
+          break;
+        }
+        final Path path = file.path();
+        this.files.remove(path);
+        this.sizeBytes -= file.size();
+        evictedFiles.add(path);
+      }
+    }
+    return evictedFiles;
+  }
+
+  public Path getDirectory() {
+    return this.directory;
+  }
+
+  public long getMaxSizeBytes() {
+    return this.maxSizeBytes;
+  }
+
+  private Path getPath(final String path) {
+    return this.directory.resolve(path + SUFFIX);
+  }
+
+  /**
+   * Get the total size of the files.
+   *
+   * @return The size or -1 if the directory hasn't been scanned yet.
+   */
+  public synchronized long getSizeBytes() {
+    if (this.scanned) {
+      return this.sizeBytes;
+    } else {
+      return -1;
+    }
+  }
+
+  private boolean isDirectoryValid() {
+    Boolean directoryValid = this.directoryValid;
+    if (directoryValid == null) {
+      directoryValid = validateDirectory();
+    }
+    return directoryValid;
+  }
+
+  private long nextAccessTime() {
+    this.lastAccessTime = Math.max(this.lastAccessTime + 1, System.currentTimeMillis());
+    return this.lastAccessTime;
+  }
+
+  /**
+   * Read the image for the tile.
+   *
+   * @param path The path returned from {@link #path(Object...)}.
+   * @return The image or null if the tile isn't in the cache.
+   */
+  public BufferedImage readImage(final String path) {
+    final Path file = getPath(path);
+    if (isDirectoryValid() && Files.exists(file)) {
+      try {
+        final BufferedImage image = ImageIO.read(file.toFile());
+        if (image != null) {
+          final long accessTime = touch(file);
+          Files.setLastModifiedTime(file, FileTime.fromMillis(accessTime));
+        }
+        return image;
+      } catch (final IOException e) {
+        Logs.debug(this, "Unable to read: " + file, e);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Scan the directory for the files from previous sessions once. Other threads
+   * continue without waiting for the scan, the files they write are added to
+   * the index and aren't replaced by the scanned files.
+   */
+  private void scan() {
+    if (this.scanStarted.compareAndSet(false, true)) {
+      final List<CacheFile> scannedFiles = new ArrayList<>();
+      try (
+        Stream<Path> paths = Files.walk(this.directory)) {
+        paths.forEach(path -> {
+          if (path.getFileName()
+            .toString()
+            .endsWith(SUFFIX)) {
+            try {
+              final BasicFileAttributes attributes = Files.readAttributes(path,
+                BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+              if (attributes.isRegularFile()) {
+                final long lastModified = attributes.lastModifiedTime()
+                  .toMillis();
+                scannedFiles.add(new CacheFile(path, lastModified, attributes.size()));
+              }
+            } catch (final IOException e) {
+              // Deleted by another process
+            }
+          }
+        });
+      } catch (final IOException | RuntimeException e) {
+        Logs.debug(this, "Unable to scan: " + this.directory, e);
+      }
+      final List<Path> evictedFiles;
+      synchronized (this) {
+        for (final CacheFile file : scannedFiles) {
+          if (this.files.putIfAbsent(file.path(), file) == null) {
+            this.sizeBytes += file.size();
+          }
+        }
+        this.scanned = true;
+        evictedFiles = evict();
+      }
+      deleteFiles(evictedFiles);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.directory.toString();
+  }
+
+  /**
+   * Mark the file as the most recently used.
+   *
+   * @return The access time.
+   */
+  private synchronized long touch(final Path file) {
+    final long accessTime = nextAccessTime();
+    final CacheFile cacheFile = this.files.get(file);
+    if (cacheFile != null) {
+      this.files.put(file, new CacheFile(file, accessTime, cacheFile.size()));
+    }
+    return accessTime;
+  }
+
+  /**
+   * Create the directory if it doesn't exist, only readable by the current
+   * user if the file system supports POSIX permissions. The cache is disabled
+   * if the directory is a symbolic link so tiles are never read from or
+   * written to a location chosen by another user.
+   */
+  private synchronized boolean validateDirectory() {
+    if (this.directoryValid == null) {
+      boolean valid = false;
+      try {
+        if (!Files.exists(this.directory, LinkOption.NOFOLLOW_LINKS)) {
+          final Path parent = this.directory.getParent();
+          if (parent != null) {
+            Files.createDirectories(parent);
+          }
+          if (FileSystems.getDefault()
+            .supportedFileAttributeViews()
+            .contains("posix")) {
+            Files.createDirectory(this.directory, PosixFilePermissions
+              .asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+          } else {
+            Files.createDirectory(this.directory);
+          }
+        }
+        if (Files.isSymbolicLink(this.directory)) {
+          Logs.error(this, "Tile cache disabled, directory is a symbolic link: " + this.directory);
+        } else if (Files.isDirectory(this.directory, LinkOption.NOFOLLOW_LINKS)) {
+          valid = true;
+        } else {
+          Logs.error(this, "Tile cache disabled, not a directory: " + this.directory);
+        }
+      } catch (final IOException | RuntimeException e) {
+        Logs.error(this, "Tile cache disabled, unable to create: " + this.directory, e);
+      }
+      this.directoryValid = valid;
+    }
+    return this.directoryValid;
+  }
+
+  /**
+   * Write the encoded image (e.g. the bytes of a PNG or JPEG response) for the
+   * tile. The bytes are written to a temporary file and then moved so other
+   * threads or processes never read a partial file.
+   *
+   * @param path The path returned from {@link #path(Object...)}.
+   * @param bytes The encoded image.
+   */
+  public void writeBytes(final String path, final byte[] bytes) {
+    final Path file = getPath(path);
+    if (isDirectoryValid()) {
+      try {
+        scan();
+        final Path parent = file.getParent();
+        Files.createDirectories(parent);
+        final Path tempFile = Files.createTempFile(parent, "tile", ".tmp");
+        try {
+          Files.write(tempFile, bytes);
+          Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+          Files.deleteIfExists(tempFile);
+        }
+        final List<Path> evictedFiles;
+        synchronized (this) {
+          final CacheFile cacheFile = new CacheFile(file, nextAccessTime(), bytes.length);
+          final CacheFile oldFile = this.files.put(file, cacheFile);
+          if (oldFile != null) {
+            // Only the new file is counted when a tile is replaced
+            this.sizeBytes -= oldFile.size();
+          }
+          this.sizeBytes += bytes.length;
+          evictedFiles = evict();
+        }
+        deleteFiles(evictedFiles);
+      } catch (final IOException | RuntimeException e) {
+        Logs.debug(this, "Unable to write: " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Write the image for the tile encoded as a PNG. Use
+   * {@link #writeBytes(String, byte[])} if the encoded image is available.
+   *
+   * @param path The path returned from {@link #path(Object...)}.
+   * @param image The image.
+   */
+  public void writeImage(final String path, final BufferedImage image) {
+    try {
+      final byte[] bytes = BufferedImages.writeImageIo(image, "png");
+      if (bytes != null) {
+        writeBytes(path, bytes);
+      }
+    } catch (final RuntimeException e) {
+      Logs.debug(this, "Unable to write: " + getPath(path), e);
+    }
+  }
+
+  private record CacheFile(Path path, long lastAccessTime, long size) {
+  }
+}
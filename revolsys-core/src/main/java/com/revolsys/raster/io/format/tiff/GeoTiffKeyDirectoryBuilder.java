@@ -0,0 +1,199 @@
+package com.revolsys.raster.io.format.tiff;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.revolsys.geometry.coordinatesystem.model.Authority;
+import com.revolsys.geometry.coordinatesystem.model.Ellipsoid;
+import com.revolsys.geometry.coordinatesystem.model.GeographicCoordinateSystem;
+import com.revolsys.geometry.coordinatesystem.model.ParameterName;
+import com.revolsys.geometry.coordinatesystem.model.ParameterValue;
+import com.revolsys.geometry.coordinatesystem.model.PrimeMeridian;
+import com.revolsys.geometry.coordinatesystem.model.ProjectedCoordinateSystem;
+import com.revolsys.geometry.coordinatesystem.model.datum.GeodeticDatum;
+import com.revolsys.geometry.coordinatesystem.model.unit.AngularUnit;
+import com.revolsys.geometry.coordinatesystem.model.unit.LinearUnit;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.raster.io.format.tiff.code.GeoTiffConstants;
+import com.revolsys.raster.io.format.tiff.code.GeoTiffCoordinateTransformationCode;
+import com.revolsys.raster.io.format.tiff.code.GeoTiffKey;
+import com.revolsys.raster.io.format.tiff.code.GeoTiffKeyProjectionParameterName;
+import com.revolsys.raster.io.format.tiff.code.GeoTiffKeys;
+
+/**
+ * Build the values of the GeoKeyDirectoryTag, GeoDoubleParamsTag and
+ * GeoAsciiParamsTag for a coordinate system.
+ */
+class GeoTiffKeyDirectoryBuilder implements GeoTiffConstants {
+
+  private static final int CUSTOM = 32767;
+
+  private final List<int[]> geoKeys = new ArrayList<>();
+
+  private final List<Double> geoDoubleParams = new ArrayList<>();
+
+  private final StringBuilder geoAsciiParams = new StringBuilder();
+
+  public GeoTiffKeyDirectoryBuilder(final GeometryFactory geometryFactory) {
+    if (geometryFactory.isProjected()) {
+      addProjectedCoordinateSystem(geometryFactory);
+    } else if (geometryFactory.isGeographic()) {
+      addGeographicCoordinateSystem(geometryFactory);
+    }
+    addGeoKeyShort(GeoTiffKeys.GTRasterTypeGeoKey, RasterPixelIsArea);
+  }
+
+  private void addGeographicCoordinateSystem(final GeographicCoordinateSystem coordinateSystem) {
+    if (!addGeoKeyAuthority(GeoTiffKeys.GeographicTypeGeoKey, coordinateSystem.getAuthority())) {
+      final AngularUnit angularUnit = coordinateSystem.getAngularUnit();
+      final AngularUnit unit = angularUnit;
+      final Authority authority = unit.getAuthority();
+      if (!addGeoKeyAuthority(GeoTiffKeys.GeogAngularUnitsGeoKey, authority)) {
+        addGeoKeyDouble(GeoTiffKeys.GeogAngularUnitSizeGeoKey, unit.toDegrees(1));
+      }
+      final GeodeticDatum datum = coordinateSystem.getGeodeticDatum();
+      if (!addGeoKeyAuthority(GeoTiffKeys.GeogGeodeticDatumGeoKey, datum.getAuthority())) {
+        final Ellipsoid ellipsoid = datum.getEllipsoid();
+        if (!addGeoKeyAuthority(GeoTiffKeys.GeogEllipsoidGeoKey, ellipsoid.getAuthority())) {
+          addGeoKeyDouble(GeoTiffKeys.GeogSemiMajorAxisGeoKey, ellipsoid.getSemiMajorAxis());
+          addGeoKeyDouble(GeoTiffKeys.GeogSemiMinorAxisGeoKey, ellipsoid.getSemiMinorAxis());
+        }
+      }
+      final PrimeMeridian primeMeridian = coordinateSystem.getPrimeMeridian();
+      if (!addGeoKeyAuthority(GeoTiffKeys.GeogPrimeMeridianGeoKey, primeMeridian.getAuthority())) {
+        addGeoKeyShort(GeoTiffKeys.GeogPrimeMeridianGeoKey, 32767);
+        addGeoKeyDouble(GeoTiffKeys.GeogPrimeMeridianLongGeoKey, primeMeridian.getLongitude());
+      }
+    }
+  }
+
+  private void addGeographicCoordinateSystem(final GeometryFactory geometryFactory) {
+    addGeoKeyShort(GeoTiffKeys.GTModelTypeGeoKey, ModelTypeGeographic);
+
+    final GeographicCoordinateSystem coordinateSystem = geometryFactory
+      .getHorizontalCoordinateSystem();
+    final String coordinateSystemName = coordinateSystem.getCoordinateSystemName();
+    addGeoKeyString(GeoTiffKeys.GTCitationGeoKey, coordinateSystemName);
+    addGeoKeyString(GeoTiffKeys.GeogCitationGeoKey, coordinateSystemName);
+
+    addGeographicCoordinateSystem(coordinateSystem);
+  }
+
+  private void addGeoKey(final GeoTiffKey keyId, final int tiffTag, final int valueCount,
+    final int valueOrOffset) {
+    this.geoKeys.add(new int[] {
+      keyId.getId(), tiffTag, valueCount, valueOrOffset
+    });
+  }
+
+  private boolean addGeoKeyAuthority(final GeoTiffKeys keyId, final Authority authority) {
+    final int id = authority.getId();
+    if (id > 0 && id <= 65535 && id != CUSTOM) {
+      addGeoKeyShort(keyId, id);
+      return true;
+    } else {
+      addGeoKeyShort(keyId, CUSTOM);
+      return false;
+    }
+  }
+
+  private void addGeoKeyDouble(final GeoTiffKey keyId, final double value) {
+    addGeoKey(keyId, 34736, 1, this.geoDoubleParams.size());
+    this.geoDoubleParams.add(value);
+  }
+
+  private void addGeoKeyShort(final GeoTiffKey keyId, final int value) {
+    addGeoKey(keyId, 0, 1, value);
+  }
+
+  private void addGeoKeyString(final GeoTiffKey keyId, final String value) {
+    if (value != null && value.length() > 0) {
+      final int offset = this.geoAsciiParams.length();
+      final int stringLength = value.length() + 1;
+      addGeoKey(keyId, 34737, stringLength, offset);
+      this.geoAsciiParams.append(value);
+      this.geoAsciiParams.append('|');
+    }
+  }
+
+  private void addProjectedCoordinateSystem(final GeometryFactory geometryFactory) {
+    final ProjectedCoordinateSystem projectedCoordinateSystem = geometryFactory
+      .getCoordinateSystem();
+    final GeographicCoordinateSystem geographicCoordinateSystem = projectedCoordinateSystem
+      .getGeographicCoordinateSystem();
+    final int coordinateSystemId = geometryFactory.getHorizontalCoordinateSystemId();
+    final String coordinateSystemName = geometryFactory.getCoordinateSystemName();
+
+    final String geographicCSName = geographicCoordinateSystem.getCoordinateSystemName();
+
+    final LinearUnit linearUnit = projectedCoordinateSystem.getLinearUnit();
+
+    addGeoKeyShort(GeoTiffKeys.GTModelTypeGeoKey, ModelTypeProjected);
+    addGeoKeyString(GeoTiffKeys.GTCitationGeoKey, coordinateSystemName);
+    addGeoKeyString(GeoTiffKeys.PCSCitationGeoKey, coordinateSystemName);
+    addGeoKeyString(GeoTiffKeys.GeogCitationGeoKey, geographicCSName);
+
+    if (!addGeoKeyAuthority(GeoTiffKeys.ProjectedCSTypeGeoKey,
+      projectedCoordinateSystem.getAuthority())) {
+      addGeographicCoordinateSystem(geographicCoordinateSystem);
+
+      addGeoKeyShort(GeoTiffKeys.ProjectedCSTypeGeoKey, coordinateSystemId);
+
+      final int projectionCode = GeoTiffCoordinateTransformationCode
+        .getCode(projectedCoordinateSystem);
+      addGeoKeyShort(GeoTiffKeys.ProjCoordTransGeoKey, projectionCode);
+
+      final Authority authority = linearUnit.getAuthority();
+      if (!addGeoKeyAuthority(GeoTiffKeys.ProjLinearUnitsGeoKey, authority)) {
+        addGeoKeyDouble(GeoTiffKeys.ProjLinearUnitSizeGeoKey, linearUnit.toMetres(1));
+      }
+      for (final Entry<ParameterName, ParameterValue> entry : projectedCoordinateSystem
+        .getParameterValues()
+        .entrySet()) {
+        final ParameterName parameterName = entry.getKey();
+        final ParameterValue value = entry.getValue();
+
+        final GeoTiffKey key = GeoTiffKeyProjectionParameterName.getById(parameterName);
+        final double valueDouble = ((Number)value.getValue()).doubleValue();
+        addGeoKeyDouble(key, valueDouble);
+      }
+    }
+  }
+
+  public String getAsciiParams() {
+    return this.geoAsciiParams.toString();
+  }
+
+  public double[] getDoubleParams() {
+    final double[] doubleParams = new double[this.geoDoubleParams.size()];
+    for (int i = 0; i < doubleParams.length; i++) {
+      doubleParams[i] = this.geoDoubleParams.get(i);
+    }
+    return doubleParams;
+  }
+
+  /**
+   * Get the GeoKeyDirectoryTag value, the header followed by the keys sorted by
+   * key id.
+   *
+   * @return The key directory.
+   */
+  public int[] getKeyDirectory() {
+    final List<int[]> geoKeys = new ArrayList<>(this.geoKeys);
+    geoKeys.sort(Comparator.comparingInt(key -> key[0]));
+    final int[] keyDirectory = new int[geoKeys.size() * 4 + 4];
+    keyDirectory[0] = 1;
+    keyDirectory[1] = 1;
+    keyDirectory[2] = 1;
+    keyDirectory[3] = geoKeys.size();
+    int i = 4;
+    for (final int[] key : geoKeys) {
+      for (final int value : key) {
+        keyDirectory[i++] = value;
+      }
+    }
+    return keyDirectory;
+  }
+}
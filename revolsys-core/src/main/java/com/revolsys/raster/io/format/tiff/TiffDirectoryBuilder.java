@@ -9,6 +9,8 @@ import com.revolsys.raster.io.format.tiff.code.TiffExtensionTag;
 import com.revolsys.raster.io.format.tiff.code.TiffPhotogrametricInterpretation;
 import com.revolsys.raster.io.format.tiff.code.TiffTag;
 import com.revolsys.raster.io.format.tiff.directory.entry.AbstractTiffDirectoryEntry;
+import com.revolsys.raster.io.format.tiff.directory.entry.TiffDirectoryEntryAscii;
+import com.revolsys.raster.io.format.tiff.directory.entry.TiffDirectoryEntryDoubleArray;
 import com.revolsys.raster.io.format.tiff.directory.entry.TiffDirectoryEntryUnsignedIntArray;
 import com.revolsys.raster.io.format.tiff.directory.entry.TiffDirectoryEntryUnsignedLongArray;
 import com.revolsys.raster.io.format.tiff.directory.entry.TiffDirectoryEntryUnsignedShortArray;
@@ -27,6 +29,12 @@ public class TiffDirectoryBuilder extends TiffDirectory {
 
   private int tileHeight;
 
+  private int samplesPerPixel = 1;
+
+  private int planarConfiguration = 1;
+
+  private long offset = -1;
+
   public TiffDirectoryBuilder(final TiffFileBuilder fileBuilder,
     final TiffPhotogrametricInterpretation photogrametricInterpretation) {
     super(fileBuilder.getResource(), fileBuilder.getDirectoryCount(), fileBuilder.getByteOrder(),
@@ -45,6 +53,11 @@ public class TiffDirectoryBuilder extends TiffDirectory {
     return this.fileBuilder;
   }
 
+  @Override
+  public long getOffset() {
+    return this.offset;
+  }
+
   public int getSize() {
     final int recordCount = getEntryCount();
     if (isBigTiff()) {
@@ -54,6 +67,17 @@ public class TiffDirectoryBuilder extends TiffDirectory {
     }
   }
 
+  public int getTileCount() {
+    final int tileCountX = (this.imageWidth + this.tileWidth - 1) / this.tileWidth;
+    final int tileCountY = (this.imageHeight + this.tileHeight - 1) / this.tileHeight;
+    final int tileCount = tileCountX * tileCountY;
+    if (this.planarConfiguration == 2) {
+      return tileCount * this.samplesPerPixel;
+    } else {
+      return tileCount;
+    }
+  }
+
   boolean isSizeIncreased() {
     return this.writtenSize != getSize();
   }
@@ -73,9 +97,40 @@ public class TiffDirectoryBuilder extends TiffDirectory {
     return entry;
   }
 
+  /**
+   * Reserve the space in the file for the directory and the entry values that
+   * aren't inline. The entries must have been set before this is called.
+   */
+  void reserveSpace() {
+    this.writtenSize = getSize();
+    this.offset = this.fileBuilder.reserveSpace(this.writtenSize);
+    reserveSpaceEntries();
+  }
+
+  private void reserveSpaceEntries() {
+    for (final TiffDirectoryEntry entry : getEntries()) {
+      if (!entry.isInline()) {
+        if (entry.getOffset() == -1) {
+          final int entrySize = entry.getSizeBytes();
+          final long offset = this.fileBuilder.reserveSpace(entrySize);
+          ((AbstractTiffDirectoryEntry<?>)entry).setOffset(offset);
+        }
+      }
+    }
+  }
+
+  public TiffDirectoryBuilder setAscii(final TiffTag tag, final String value) {
+    newEntryValue(tag, TiffDirectoryEntryAscii::new, value);
+    return this;
+  }
+
   public TiffDirectoryBuilder setBitsPerSample(final int... value) {
+    this.samplesPerPixel = value.length;
     setUnsignedShort(TiffBaselineTag.SamplesPerPixel, value.length);
     setUnsignedShort(TiffBaselineTag.BitsPerSample, value);
+    if (this.planarConfiguration == 2) {
+      updateTileArrays();
+    }
     return this;
   }
 
@@ -84,6 +139,11 @@ public class TiffDirectoryBuilder extends TiffDirectory {
     return this;
   }
 
+  public TiffDirectoryBuilder setDouble(final TiffTag tag, final double... value) {
+    newEntryValue(tag, TiffDirectoryEntryDoubleArray::new, value);
+    return this;
+  }
+
   public TiffDirectoryBuilder setImageHeight(final int height) {
     this.imageHeight = height;
     if (height < 1 << 16) {
@@ -111,6 +171,37 @@ public class TiffDirectoryBuilder extends TiffDirectory {
       photogrametricInterpretation.getId());
   }
 
+  /**
+   * Set the planar configuration, 1 for the samples of each pixel stored
+   * together or 2 for each sample (band) stored in separate tiles.
+   *
+   * @param planarConfiguration The planar configuration.
+   * @return This builder.
+   */
+  public TiffDirectoryBuilder setPlanarConfiguration(final int planarConfiguration) {
+    this.planarConfiguration = planarConfiguration;
+    setUnsignedShort(TiffBaselineTag.PlanarConfiguration, planarConfiguration);
+    updateTileArrays();
+    return this;
+  }
+
+  /**
+   * Set the offset and size of a tile written using
+   * {@link TiffFileBuilder#writeData(byte[], int, int)}. For planar
+   * configuration 2 the tiles for each sample follow the tiles for the previous
+   * sample.
+   *
+   * @param tileIndex The index of the tile.
+   * @param offset The offset of the tile in the file.
+   * @param byteCount The size of the tile in bytes.
+   */
+  public void setTile(final int tileIndex, final long offset, final long byteCount) {
+    final long[] offsets = getEntryRequired(TiffExtensionTag.TileOffsets).getLongArray();
+    final long[] byteCounts = getEntryRequired(TiffExtensionTag.TileByteCounts).getLongArray();
+    offsets[tileIndex] = offset;
+    byteCounts[tileIndex] = byteCount;
+  }
+
   public TiffDirectoryBuilder setTileHeight(final int tileHeight) {
     this.tileHeight = tileHeight;
     setUnsignedShort(TiffExtensionTag.TileLength, tileHeight);
@@ -150,9 +241,7 @@ public class TiffDirectoryBuilder extends TiffDirectory {
     if (this.imageWidth == 0 || this.imageHeight == 0) {
       throw new IllegalStateException("Image width and height not set");
     } else if (this.tileWidth > 0 && this.tileHeight > 0) {
-      final int tileCountX = (this.imageWidth + this.tileWidth - 1) / this.tileWidth;
-      final int tileCountY = (this.imageHeight + this.tileHeight - 1) / this.tileHeight;
-      final int tileCount = tileCountX * tileCountY;
+      final int tileCount = getTileCount();
       if (isBigTiff()) {
         newEntryArray(TiffExtensionTag.TileOffsets, TiffDirectoryEntryUnsignedLongArray::new,
           tileCount);
@@ -166,7 +255,7 @@ public class TiffDirectoryBuilder extends TiffDirectory {
   }
 
   void writeDirectory(final ChannelWriter out) {
-    this.writtenSize = getSize();
+    reserveSpaceEntries();
     final int recordCount = getEntryCount();
     if (isBigTiff()) {
       out.putLong(recordCount);
@@ -174,13 +263,6 @@ public class TiffDirectoryBuilder extends TiffDirectory {
       out.putUnsignedShort(recordCount);
     }
     for (final TiffDirectoryEntry entry : getEntries()) {
-      if (!entry.isInline()) {
-        if (entry.getOffset() == -1) {
-          final int entrySize = entry.getSizeBytes();
-          final long offset = this.fileBuilder.reserveSpace(entrySize);
-          ((AbstractTiffDirectoryEntry<?>)entry).setOffset(offset);
-        }
-      }
       entry.writeEntry(this, out);
     }
   }
@@ -102,9 +102,37 @@ public class TiffFileBuilder implements BaseCloseable {
     return directories;
   }
 
-  long reserveSpace(final int size) {
+  /**
+   * Reserve the space for the directories and their entry values at the start
+   * of the file. Call this after all the entries have been set and before any
+   * image data is written so readers (e.g. for Cloud Optimized GeoTIFF) can get
+   * all the directories by reading the start of the file.
+   */
+  public void reserveDirectories() {
+    for (final TiffDirectoryBuilder directory : this.directories) {
+      if (directory.getOffset() == -1) {
+        directory.reserveSpace();
+      }
+    }
+  }
+
+  /**
+   * Reserve space at the end of the file. Offsets are aligned to a word (2
+   * byte) boundary as required by the TIFF specification.
+   *
+   * @param size The number of bytes.
+   * @return The offset of the space.
+   */
+  long reserveSpace(final long size) {
+    if (this.size == 0) {
+      if (isBigTiff()) {
+        this.size = 16;
+      } else {
+        this.size = 8;
+      }
+    }
     final long offset = this.size;
-    this.size += size;
+    this.size += size + (size & 1);
     return offset;
   }
 
@@ -114,17 +142,15 @@ public class TiffFileBuilder implements BaseCloseable {
 
   public void setByteOrder(final ByteOrder byteOrder) {
     this.byteOrder = byteOrder;
+    this.out.setByteOrder(byteOrder);
   }
 
   private void writeDirectories(final ChannelWriter out) {
     for (final TiffDirectoryBuilder directory : this.directories) {
-      long offset = directory.getOffset();
-      if (offset == -1 && directory.getIndex() == 0) {
-        reserveSpace(4);
-      }
-      if (offset == -1 || directory.isSizeIncreased()) {
-        offset = reserveSpace(directory.getSize());
+      if (directory.getOffset() == -1 || directory.isSizeIncreased()) {
+        directory.reserveSpace();
       }
+      final long offset = directory.getOffset();
       writeOffsetOrCount(out, offset);
       out.seek(offset);
       directory.writeDirectory(out);
@@ -154,14 +180,25 @@ public class TiffFileBuilder implements BaseCloseable {
     } else {
       out.putShort((short)42); // magic
     }
-    if (this.size == 0) {
-      this.size = out.position();
-    }
-
     writeDirectories(out);
     writeDirectoryEntries(out);
   }
 
+  /**
+   * Write the data (e.g. a compressed tile) at the end of the file.
+   *
+   * @param data The data.
+   * @param offset The offset in data to start from.
+   * @param length The number of bytes to write.
+   * @return The offset in the file the data was written to.
+   */
+  public long writeData(final byte[] data, final int offset, final int length) {
+    final long position = reserveSpace(length);
+    this.out.seek(position);
+    this.out.putBytes(data, offset, length);
+    return position;
+  }
+
   public void writeOffsetOrCount(final ChannelWriter out, final long value) {
     if (isBigTiff()) {
       out.putUnsignedLong(value);
@@ -109,7 +109,11 @@ public class TiffImageFactory extends AbstractIoFactory
 
   @Override
   public GeoreferencedImageWriter newGeoreferencedImageWriter(final Resource resource) {
-    return new TiffGeoreferencedImageWriter(resource);
+    if (resource.getPath() == null) {
+      return new TiffGeoreferencedImageWriter(resource);
+    } else {
+      return new TiffTiledImageWriter(resource);
+    }
   }
 
   @Override
@@ -0,0 +1,757 @@
+package com.revolsys.raster.io.format.tiff;
+
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.revolsys.exception.Exceptions;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.io.AbstractWriter;
+import com.revolsys.logging.Logs;
+import com.revolsys.raster.GeoreferencedImage;
+import com.revolsys.raster.GeoreferencedImageWriter;
+import com.revolsys.raster.io.format.tiff.code.TiffBaselineTag;
+import com.revolsys.raster.io.format.tiff.code.TiffCompression;
+import com.revolsys.raster.io.format.tiff.code.TiffExtensionTag;
+import com.revolsys.raster.io.format.tiff.code.TiffPhotogrametricInterpretation;
+import com.revolsys.raster.io.format.tiff.code.TiffPrivateTag;
+import com.revolsys.raster.io.format.tiff.compression.TiffLzwOutputStream;
+import com.revolsys.raster.io.format.tiff.compression.TiffPackbitsOutputStream;
+import com.revolsys.spring.resource.Resource;
+import com.revolsys.util.concurrent.Concurrent;
+import com.revolsys.util.concurrent.ThreadFactoryEx;
+
+/**
+ * Write a {@link GeoreferencedImage} as a tiled GeoTIFF with internal overviews
+ * in the Cloud Optimized GeoTIFF (COG) layout.
+ *
+ * <p>
+ * The image is read one tile at a time using
+ * {@link RenderedImage#getData(Rectangle)} so images larger than the heap can
+ * be written if the source image loads its data on demand. Each overview tile
+ * is the average of the 4 tiles below it and is created as soon as those tiles
+ * have been read, so only one tile per level is held in memory. The tiles are
+ * compressed in parallel and written to a temporary file. When all the tiles
+ * have been written the directories are written at the start of the file
+ * followed by the tiles from the smallest overview to the full resolution
+ * image.
+ * </p>
+ *
+ * <p>
+ * The horizontal differencing predictor is only used for integer samples
+ * compressed with LZW or Deflate, readers ignore it for the other compression
+ * types. Images with an
+ * {@link IndexColorModel} are written as RGBA.
+ * </p>
+ */
+public class TiffTiledImageWriter extends AbstractWriter<GeoreferencedImage>
+  implements GeoreferencedImageWriter {
+
+  private class TileLevel {
+    private final int width;
+
+    private final int height;
+
+    private final int tileCountX;
+
+    private final int tileCountY;
+
+    private final long[] tileOffsets;
+
+    private final int[] tileByteCounts;
+
+    private TileLevel(final int width, final int height) {
+      this.width = width;
+      this.height = height;
+      final int tileSize = TiffTiledImageWriter.this.tileSize;
+      this.tileCountX = (width + tileSize - 1) / tileSize;
+      this.tileCountY = (height + tileSize - 1) / tileSize;
+      int tileCount = this.tileCountX * this.tileCountY;
+      if (TiffTiledImageWriter.this.planarSeparate) {
+        tileCount *= TiffTiledImageWriter.this.samplesPerPixel;
+      }
+      this.tileOffsets = new long[tileCount];
+      this.tileByteCounts = new int[tileCount];
+    }
+  }
+
+  private static final long MAX_TIFF_SIZE = 0xFFFFFFFFL;
+
+  private Boolean bigTiff;
+
+  private int bitsPerSample;
+
+  private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+
+  private TiffCompression compression = TiffCompression.ADOBE_DEFLATE;
+
+  private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+  private volatile Throwable error;
+
+  private ThreadFactoryEx executor;
+
+  private int[] extraSamples;
+
+  private List<TileLevel> levels;
+
+  private boolean overviews = true;
+
+  private Semaphore permits;
+
+  private TiffPhotogrametricInterpretation photogrametricInterpretation;
+
+  private boolean planarSeparate = false;
+
+  private boolean predictor = false;
+
+  private final Resource resource;
+
+  private int sampleFormat;
+
+  private int samplesPerPixel;
+
+  private FileChannel tempChannel;
+
+  private long tempSize;
+
+  private int threadCount = Runtime.getRuntime()
+    .availableProcessors();
+
+  private SampleModel tileSampleModel;
+
+  private int tileSize = 512;
+
+  public TiffTiledImageWriter(final Resource resource) {
+    this.resource = resource;
+  }
+
+  private void addGeoTiffTags(final TiffDirectoryBuilder directory,
+    final GeoreferencedImage image) {
+    final BoundingBox boundingBox = image.getBoundingBox();
+    directory.setDouble(TiffPrivateTag.ModelPixelScaleTag, image.getResolutionX(),
+      image.getResolutionY(), 0);
+    directory.setDouble(TiffPrivateTag.ModelTiepointTag, 0, 0, 0, boundingBox.getMinX(),
+      boundingBox.getMaxY(), 0);
+
+    final GeoTiffKeyDirectoryBuilder geoKeys = new GeoTiffKeyDirectoryBuilder(
+      image.getGeometryFactory());
+    directory.setUnsignedShort(TiffPrivateTag.GeoKeyDirectoryTag, geoKeys.getKeyDirectory());
+    final double[] doubleParams = geoKeys.getDoubleParams();
+    if (doubleParams.length > 0) {
+      directory.setDouble(TiffPrivateTag.GeoDoubleParamsTag, doubleParams);
+    }
+    final String asciiParams = geoKeys.getAsciiParams();
+    if (asciiParams.length() > 0) {
+      directory.setAscii(TiffPrivateTag.GeoAsciiParamsTag, asciiParams);
+    }
+  }
+
+  private byte[] compress(final byte[] bytes, final int rowByteCount) throws IOException {
+    if (this.compression == TiffCompression.NONE) {
+      return bytes;
+    } else {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 64);
+      Deflater deflater = null;
+      try {
+        OutputStream compressOut;
+        switch (this.compression) {
+          case LZW:
+            compressOut = new TiffLzwOutputStream(out);
+          break;
+          case PACKBITS:
+            compressOut = new TiffPackbitsOutputStream(out, rowByteCount);
+          break;
+          default:
+            deflater = new Deflater(this.compressionLevel);
+            compressOut = new DeflaterOutputStream(out, deflater);
+          break;
+        }
+        try (
+          OutputStream compressedOut = compressOut) {
+          compressedOut.write(bytes);
+        }
+      } finally {
+        if (deflater != null) {
+          deflater.end();
+        }
+      }
+      return out.toByteArray();
+    }
+  }
+
+  /**
+   * Average each 2x2 block of pixels in the child tile into one quarter of the
+   * parent tile. Pixels outside the child level's image are ignored.
+   */
+  private void downsample(final TileLevel childLevel, final int childTileX, final int childTileY,
+    final Raster child, final WritableRaster parent) {
+    final int tileSize = this.tileSize;
+    final int width = Math.min(tileSize, childLevel.width - childTileX * tileSize);
+    final int height = Math.min(tileSize, childLevel.height - childTileY * tileSize);
+    final int parentX = (childTileX & 1) * tileSize / 2;
+    final int parentY = (childTileY & 1) * tileSize / 2;
+    final int bandCount = this.samplesPerPixel;
+    final boolean round = this.sampleFormat != 3;
+    final double[] row1 = new double[width * bandCount];
+    final double[] row2 = new double[width * bandCount];
+    final int parentWidth = (width + 1) / 2;
+    final double[] parentRow = new double[parentWidth * bandCount];
+    for (int y = 0; y < height; y += 2) {
+      child.getPixels(0, y, width, 1, row1);
+      final boolean hasRow2 = y + 1 < height;
+      if (hasRow2) {
+        child.getPixels(0, y + 1, width, 1, row2);
+      }
+      for (int x = 0; x < parentWidth; x++) {
+        final int index1 = x * 2 * bandCount;
+        final boolean hasColumn2 = x * 2 + 1 < width;
+        for (int band = 0; band < bandCount; band++) {
+          final int index = index1 + band;
+          double sum = row1[index];
+          int count = 1;
+          if (hasColumn2) {
+            sum += row1[index + bandCount];
+            count++;
+          }
+          if (hasRow2) {
+            sum += row2[index];
+            count++;
+            if (hasColumn2) {
+              sum += row2[index + bandCount];
+              count++;
+            }
+          }
+          double value = sum / count;
+          if (round) {
+            value = Math.rint(value);
+          }
+          parentRow[x * bandCount + band] = value;
+        }
+      }
+      parent.setPixels(parentX, parentY + y / 2, parentWidth, 1, parentRow);
+    }
+  }
+
+  /**
+   * Convert the tile's samples to bytes in the file's byte order, applying the
+   * predictor if enabled.
+   *
+   * @param tile The tile.
+   * @param band The band to convert, or -1 for all the bands.
+   * @return The bytes.
+   */
+  private byte[] encodeTile(final Raster tile, final int band) {
+    final int tileSize = this.tileSize;
+    final int stride;
+    if (band == -1) {
+      stride = this.samplesPerPixel;
+    } else {
+      stride = 1;
+    }
+    final int rowSampleCount = tileSize * stride;
+    final byte[] bytes = new byte[rowSampleCount * tileSize * this.bitsPerSample / 8];
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes)
+      .order(this.byteOrder);
+    if (this.sampleFormat == 3) {
+      if (this.bitsPerSample == 32) {
+        final float[] row = new float[rowSampleCount];
+        for (int y = 0; y < tileSize; y++) {
+          if (band == -1) {
+            tile.getPixels(0, y, tileSize, 1, row);
+          } else {
+            tile.getSamples(0, y, tileSize, 1, band, row);
+          }
+          for (final float value : row) {
+            buffer.putFloat(value);
+          }
+        }
+      } else {
+        final double[] row = new double[rowSampleCount];
+        for (int y = 0; y < tileSize; y++) {
+          if (band == -1) {
+            tile.getPixels(0, y, tileSize, 1, row);
+          } else {
+            tile.getSamples(0, y, tileSize, 1, band, row);
+          }
+          for (final double value : row) {
+            buffer.putDouble(value);
+          }
+        }
+      }
+    } else {
+      final int[] row = new int[rowSampleCount];
+      for (int y = 0; y < tileSize; y++) {
+        if (band == -1) {
+          tile.getPixels(0, y, tileSize, 1, row);
+        } else {
+          tile.getSamples(0, y, tileSize, 1, band, row);
+        }
+        if (isPredictorUsed()) {
+          // Overflow wraps as required by the horizontal differencing predictor
+          for (int i = rowSampleCount - 1; i >= stride; i--) {
+            row[i] -= row[i - stride];
+          }
+        }
+        switch (this.bitsPerSample) {
+          case 8:
+            for (final int value : row) {
+              buffer.put((byte)value);
+            }
+          break;
+          case 16:
+            for (final int value : row) {
+              buffer.putShort((short)value);
+            }
+          break;
+          default:
+            for (final int value : row) {
+              buffer.putInt(value);
+            }
+          break;
+        }
+      }
+    }
+    return bytes;
+  }
+
+  public ByteOrder getByteOrder() {
+    return this.byteOrder;
+  }
+
+  public TiffCompression getCompression() {
+    return this.compression;
+  }
+
+  public int getCompressionLevel() {
+    return this.compressionLevel;
+  }
+
+  public int getThreadCount() {
+    return this.threadCount;
+  }
+
+  public int getTileSize() {
+    return this.tileSize;
+  }
+
+  private void initSampleModel(final RenderedImage image) {
+    final ColorModel colorModel;
+    if (image.getColorModel() instanceof IndexColorModel) {
+      colorModel = ColorModel.getRGBdefault();
+      this.tileSampleModel = colorModel.createCompatibleSampleModel(this.tileSize, this.tileSize);
+    } else {
+      colorModel = image.getColorModel();
+      this.tileSampleModel = image.getSampleModel()
+        .createCompatibleSampleModel(this.tileSize, this.tileSize);
+    }
+    final SampleModel sampleModel = this.tileSampleModel;
+    final int dataType = sampleModel.getDataType();
+    this.samplesPerPixel = sampleModel.getNumBands();
+    if (dataType == DataBuffer.TYPE_FLOAT) {
+      this.bitsPerSample = 32;
+      this.sampleFormat = 3;
+    } else if (dataType == DataBuffer.TYPE_DOUBLE) {
+      this.bitsPerSample = 64;
+      this.sampleFormat = 3;
+    } else {
+      int maxSampleSize = 0;
+      for (final int sampleSize : sampleModel.getSampleSize()) {
+        maxSampleSize = Math.max(maxSampleSize, sampleSize);
+      }
+      if (maxSampleSize <= 8) {
+        this.bitsPerSample = 8;
+      } else if (maxSampleSize <= 16) {
+        this.bitsPerSample = 16;
+      } else {
+        this.bitsPerSample = 32;
+      }
+      if (dataType == DataBuffer.TYPE_SHORT || dataType == DataBuffer.TYPE_INT
+        && this.bitsPerSample == 32) {
+        this.sampleFormat = 2;
+      } else {
+        this.sampleFormat = 1;
+      }
+    }
+
+    int colorSampleCount = 1;
+    this.photogrametricInterpretation = TiffPhotogrametricInterpretation.MIN_IS_BLACK;
+    if (colorModel != null && colorModel.getColorSpace()
+      .getType() == ColorSpace.TYPE_RGB && colorModel.getNumColorComponents() == 3
+      && this.samplesPerPixel >= 3) {
+      colorSampleCount = 3;
+      this.photogrametricInterpretation = TiffPhotogrametricInterpretation.RGB;
+    }
+    this.extraSamples = new int[this.samplesPerPixel - colorSampleCount];
+    if (colorModel != null && colorModel.hasAlpha() && this.extraSamples.length > 0) {
+      // Java colour models always have the alpha after the colour samples
+      if (colorModel.isAlphaPremultiplied()) {
+        this.extraSamples[0] = 1;
+      } else {
+        this.extraSamples[0] = 2;
+      }
+    }
+  }
+
+  public boolean isOverviews() {
+    return this.overviews;
+  }
+
+  public boolean isPlanarSeparate() {
+    return this.planarSeparate;
+  }
+
+  public boolean isPredictor() {
+    return this.predictor;
+  }
+
+  private boolean isPredictorUsed() {
+    if (this.predictor && this.sampleFormat != 3) {
+      switch (this.compression) {
+        case LZW:
+        case ADOBE_DEFLATE:
+        case DEFLATE:
+          return true;
+        default:
+          return false;
+      }
+    } else {
+      return false;
+    }
+  }
+
+  private TiffDirectoryBuilder newDirectory(final TiffFileBuilder fileBuilder,
+    final TileLevel level, final boolean overview) {
+    final TiffDirectoryBuilder directory = new TiffDirectoryBuilder(fileBuilder,
+      this.photogrametricInterpretation);
+    if (overview) {
+      directory.setUnsignedInt(TiffBaselineTag.NewSubfileType, 1);
+    }
+    final int[] bitsPerSample = new int[this.samplesPerPixel];
+    final int[] sampleFormat = new int[this.samplesPerPixel];
+    for (int i = 0; i < this.samplesPerPixel; i++) {
+      bitsPerSample[i] = this.bitsPerSample;
+      sampleFormat[i] = this.sampleFormat;
+    }
+    final int planarConfiguration;
+    if (this.planarSeparate) {
+      planarConfiguration = 2;
+    } else {
+      planarConfiguration = 1;
+    }
+    directory //
+      .setImageWidth(level.width) //
+      .setImageHeight(level.height) //
+      .setBitsPerSample(bitsPerSample) //
+      .setCompression(this.compression) //
+      .setPlanarConfiguration(planarConfiguration) //
+      .setTileSize(this.tileSize) //
+      .setUnsignedShort(TiffExtensionTag.SampleFormat, sampleFormat) //
+    ;
+    if (isPredictorUsed()) {
+      directory.setUnsignedShort(TiffExtensionTag.Predictor, 2);
+    }
+    if (this.extraSamples.length > 0) {
+      directory.setUnsignedShort(TiffBaselineTag.ExtraSamples, this.extraSamples);
+    }
+    return directory;
+  }
+
+  private WritableRaster readTile(final RenderedImage image, final int tileX, final int tileY) {
+    final WritableRaster tile = Raster.createWritableRaster(this.tileSampleModel, null);
+    final TileLevel level = this.levels.get(0);
+    final int x = tileX * this.tileSize;
+    final int y = tileY * this.tileSize;
+    final int width = Math.min(this.tileSize, level.width - x);
+    final int height = Math.min(this.tileSize, level.height - y);
+    Raster data = image
+      .getData(new Rectangle(image.getMinX() + x, image.getMinY() + y, width, height))
+      .createTranslatedChild(0, 0);
+    final ColorModel colorModel = image.getColorModel();
+    if (colorModel instanceof IndexColorModel) {
+      data = ((IndexColorModel)colorModel).convertToIntDiscrete(data, true)
+        .getRaster();
+    }
+    tile.setRect(data);
+    return tile;
+  }
+
+  public void setBigTiff(final Boolean bigTiff) {
+    this.bigTiff = bigTiff;
+  }
+
+  public void setByteOrder(final ByteOrder byteOrder) {
+    this.byteOrder = byteOrder;
+  }
+
+  public void setCompression(final TiffCompression compression) {
+    switch (compression) {
+      case NONE:
+      case LZW:
+      case ADOBE_DEFLATE:
+      case DEFLATE:
+      case PACKBITS:
+        this.compression = compression;
+      break;
+
+      default:
+        throw new IllegalArgumentException("Compression not supported: " + compression);
+    }
+  }
+
+  /**
+   * Set the Deflate compression level.
+   *
+   * @param compressionLevel The compression level (0-9) or -1 for the default.
+   */
+  public void setCompressionLevel(final int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+  }
+
+  public void setOverviews(final boolean overviews) {
+    this.overviews = overviews;
+  }
+
+  /**
+   * Set if each band (sample) should be written to separate tiles (planar
+   * configuration 2) instead of the samples for each pixel stored together.
+   *
+   * @param planarSeparate True if the bands are stored separately.
+   */
+  public void setPlanarSeparate(final boolean planarSeparate) {
+    this.planarSeparate = planarSeparate;
+  }
+
+  public void setPredictor(final boolean predictor) {
+    this.predictor = predictor;
+  }
+
+  public void setThreadCount(final int threadCount) {
+    this.threadCount = Math.max(1, threadCount);
+  }
+
+  public void setTileSize(final int tileSize) {
+    if (tileSize < 16 || tileSize % 16 != 0) {
+      throw new IllegalArgumentException("Tile size must be a multiple of 16: " + tileSize);
+    }
+    this.tileSize = tileSize;
+  }
+
+  private void throwError() {
+    final Throwable error = this.error;
+    if (error != null) {
+      throw Exceptions.toRuntimeException(error);
+    }
+  }
+
+  @Override
+  public void write(final GeoreferencedImage image) {
+    final RenderedImage renderedImage = image.getRenderedImage();
+    if (renderedImage != null) {
+      final Path path = this.resource.getPath();
+      if (path == null) {
+        throw new IllegalArgumentException("Only files are supported: " + this.resource);
+      }
+      initSampleModel(renderedImage);
+      int width = renderedImage.getWidth();
+      int height = renderedImage.getHeight();
+      this.levels = new ArrayList<>();
+      this.levels.add(new TileLevel(width, height));
+      if (this.overviews) {
+        while (width > this.tileSize || height > this.tileSize) {
+          width = (width + 1) / 2;
+          height = (height + 1) / 2;
+          this.levels.add(new TileLevel(width, height));
+        }
+      }
+
+      Path tempFile = null;
+      this.executor = Concurrent.virtual("TiffWriter-");
+      try {
+        tempFile = Files.createTempFile("tiles", ".tif");
+        this.tempChannel = FileChannel.open(tempFile, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+        this.tempSize = 0;
+        this.error = null;
+        final int permitCount = this.threadCount * 2;
+        this.permits = new Semaphore(permitCount);
+        final int topLevelIndex = this.levels.size() - 1;
+        final TileLevel topLevel = this.levels.get(topLevelIndex);
+        for (int tileY = 0; tileY < topLevel.tileCountY; tileY++) {
+          for (int tileX = 0; tileX < topLevel.tileCountX; tileX++) {
+            writeTile(renderedImage, topLevelIndex, tileX, tileY);
+          }
+        }
+        this.permits.acquireUninterruptibly(permitCount);
+        throwError();
+        writeFile(path, image);
+      } catch (final IOException e) {
+        throw Exceptions.wrap("Unable to write: " + this.resource, e);
+      } finally {
+        this.executor.shutdown();
+        this.levels = null;
+        if (this.tempChannel != null) {
+          try {
+            this.tempChannel.close();
+          } catch (final IOException e) {
+            Logs.error(this, "Unable to close: " + tempFile, e);
+          }
+          this.tempChannel = null;
+        }
+        if (tempFile != null) {
+          try {
+            Files.deleteIfExists(tempFile);
+          } catch (final IOException e) {
+            Logs.error(this, "Unable to delete: " + tempFile, e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the directories followed by the tiles from the temporary file in COG
+   * order.
+   */
+  private void writeFile(final Path path, final GeoreferencedImage image) throws IOException {
+    boolean bigTiff;
+    if (this.bigTiff == null) {
+      long tileCount = 0;
+      for (final TileLevel level : this.levels) {
+        tileCount += level.tileOffsets.length;
+      }
+      // Tile arrays, word alignment padding and 1MB for the other entries
+      final long estimatedSize = this.tempSize + tileCount * 9 + 1024 * 1024;
+      bigTiff = estimatedSize > MAX_TIFF_SIZE;
+    } else {
+      bigTiff = this.bigTiff;
+    }
+    try (
+      TiffFileBuilder fileBuilder = new TiffFileBuilder(path)) {
+      fileBuilder.setBigTiff(bigTiff);
+      fileBuilder.setByteOrder(this.byteOrder);
+      final List<TiffDirectoryBuilder> directories = new ArrayList<>();
+      for (int i = 0; i < this.levels.size(); i++) {
+        final TileLevel level = this.levels.get(i);
+        final TiffDirectoryBuilder directory = newDirectory(fileBuilder, level, i > 0);
+        if (i == 0) {
+          addGeoTiffTags(directory, image);
+        }
+        directories.add(directory);
+      }
+      fileBuilder.reserveDirectories();
+
+      byte[] bytes = new byte[0];
+      for (int i = this.levels.size() - 1; i >= 0; i--) {
+        final TileLevel level = this.levels.get(i);
+        final TiffDirectoryBuilder directory = directories.get(i);
+        for (int tileIndex = 0; tileIndex < level.tileOffsets.length; tileIndex++) {
+          final int byteCount = level.tileByteCounts[tileIndex];
+          if (bytes.length < byteCount) {
+            bytes = new byte[byteCount];
+          }
+          final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, byteCount);
+          long position = level.tileOffsets[tileIndex];
+          while (buffer.hasRemaining()) {
+            final int readCount = this.tempChannel.read(buffer, position);
+            if (readCount == -1) {
+              throw new IOException("Unexpected end of file");
+            }
+            position += readCount;
+          }
+          final long offset = fileBuilder.writeData(bytes, 0, byteCount);
+          directory.setTile(tileIndex, offset, byteCount);
+        }
+      }
+    }
+  }
+
+  private synchronized long writeTemp(final byte[] bytes) throws IOException {
+    final long offset = this.tempSize;
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      this.tempChannel.write(buffer, this.tempSize);
+      this.tempSize = offset + buffer.position();
+    }
+    return offset;
+  }
+
+  /**
+   * Read or create the tile and all the tiles below it, and compress the tiles.
+   * Overview tiles are created from the 4 tiles at the level below.
+   *
+   * @return The tile.
+   */
+  private Raster writeTile(final RenderedImage image, final int levelIndex, final int tileX,
+    final int tileY) {
+    throwError();
+    final TileLevel level = this.levels.get(levelIndex);
+    final WritableRaster tile;
+    if (levelIndex == 0) {
+      tile = readTile(image, tileX, tileY);
+    } else {
+      tile = Raster.createWritableRaster(this.tileSampleModel, null);
+      final TileLevel childLevel = this.levels.get(levelIndex - 1);
+      for (int childTileY = tileY * 2; childTileY < Math.min(tileY * 2 + 2,
+        childLevel.tileCountY); childTileY++) {
+        for (int childTileX = tileX * 2; childTileX < Math.min(tileX * 2 + 2,
+          childLevel.tileCountX); childTileX++) {
+          final Raster child = writeTile(image, levelIndex - 1, childTileX, childTileY);
+          downsample(childLevel, childTileX, childTileY, child, tile);
+        }
+      }
+    }
+    this.permits.acquireUninterruptibly();
+    this.executor.execute(() -> {
+      try {
+        final int tileIndex = tileY * level.tileCountX + tileX;
+        if (this.planarSeparate) {
+          final int tileCount = level.tileCountX * level.tileCountY;
+          final int rowByteCount = this.tileSize * this.bitsPerSample / 8;
+          for (int band = 0; band < this.samplesPerPixel; band++) {
+            final byte[] bytes = compress(encodeTile(tile, band), rowByteCount);
+            writeTile(level, band * tileCount + tileIndex, bytes);
+          }
+        } else {
+          final int rowByteCount = this.tileSize * this.samplesPerPixel * this.bitsPerSample / 8;
+          final byte[] bytes = compress(encodeTile(tile, -1), rowByteCount);
+          writeTile(level, tileIndex, bytes);
+        }
+      } catch (final Throwable e) {
+        if (this.error == null) {
+          this.error = e;
+        }
+      } finally {
+        this.permits.release();
+      }
+    });
+    return tile;
+  }
+
+  private void writeTile(final TileLevel level, final int tileIndex, final byte[] bytes)
+    throws IOException {
+    final long offset = writeTemp(bytes);
+    level.tileOffsets[tileIndex] = offset;
+    level.tileByteCounts[tileIndex] = bytes.length;
+  }
+}
@@ -0,0 +1,139 @@
+package com.revolsys.raster.io.format.tiff.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Write LZW compressed data that can be read by {@link TiffLzwInputStream}.
+ * Codes are written most significant bit first and the code size is increased
+ * one code early as required by the TIFF specification. The string table is
+ * cleared when it is full.
+ */
+public class TiffLzwOutputStream extends OutputStream {
+
+  private static final int CODE_CLEAR = 256;
+
+  private static final int CODE_EOI = 257;
+
+  private static final int CODE_FIRST = 258;
+
+  private static final int CODE_MAX = 4094;
+
+  private static final int HASH_SIZE = 8192;
+
+  private static final int HASH_MASK = HASH_SIZE - 1;
+
+  private int bitsToWrite = 9;
+
+  private int bitCount = 0;
+
+  private int bits = 0;
+
+  private boolean closed;
+
+  /** The code for each hash slot, only valid if the key matches. */
+  private final short[] hashCodes = new short[HASH_SIZE];
+
+  /** The prefix code << 8 | byte for each hash slot, -1 if the slot is empty. */
+  private final int[] hashKeys = new int[HASH_SIZE];
+
+  private int nextCode = CODE_FIRST;
+
+  private final OutputStream out;
+
+  /** The code of the current string, -1 if no bytes have been written. */
+  private int prefixCode = -1;
+
+  public TiffLzwOutputStream(final OutputStream out) {
+    this.out = out;
+    Arrays.fill(this.hashKeys, -1);
+  }
+
+  private void addCode(final int key, final int slot) throws IOException {
+    this.hashKeys[slot] = key;
+    this.hashCodes[slot] = (short)this.nextCode;
+    incrementNextCode();
+    if (this.nextCode == CODE_MAX) {
+      writeCode(CODE_CLEAR);
+      Arrays.fill(this.hashKeys, -1);
+      this.nextCode = CODE_FIRST;
+      this.bitsToWrite = 9;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!this.closed) {
+      this.closed = true;
+      if (this.prefixCode == -1) {
+        writeCode(CODE_CLEAR);
+      } else {
+        writeCode(this.prefixCode);
+        // The reader adds a string for the last code before reading the EOI
+        incrementNextCode();
+      }
+      writeCode(CODE_EOI);
+      if (this.bitCount > 0) {
+        this.out.write(this.bits << 8 - this.bitCount);
+      }
+      this.out.close();
+    }
+  }
+
+  private void incrementNextCode() {
+    this.nextCode++;
+    if (this.nextCode == 512) {
+      this.bitsToWrite = 10;
+    } else if (this.nextCode == 1024) {
+      this.bitsToWrite = 11;
+    } else if (this.nextCode == 2048) {
+      this.bitsToWrite = 12;
+    }
+  }
+
+  @Override
+  public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      write(bytes[i]);
+    }
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    final int value = b & 0xff;
+    final int prefixCode = this.prefixCode;
+    if (prefixCode == -1) {
+      writeCode(CODE_CLEAR);
+      this.prefixCode = value;
+    } else {
+      final int key = prefixCode << 8 | value;
+      int slot = (key ^ key >>> 12) * 0x9E3779B1 >>> 19 & HASH_MASK;
+      while (true) {
+        final int slotKey = this.hashKeys[slot];
+        if (slotKey == key) {
+          this.prefixCode = this.hashCodes[slot];
+          return;
+        } else if (slotKey == -1) {
+          writeCode(prefixCode);
+          addCode(key, slot);
+          this.prefixCode = value;
+          return;
+        } else {
+          slot = slot + 1 & HASH_MASK;
+        }
+      }
+    }
+  }
+
+  private void writeCode(final int code) throws IOException {
+    this.bits = this.bits << this.bitsToWrite | code;
+    this.bitCount += this.bitsToWrite;
+    while (this.bitCount >= 8) {
+      this.bitCount -= 8;
+      this.out.write(this.bits >>> this.bitCount);
+    }
+    this.bits &= (1 << this.bitCount) - 1;
+  }
+}
@@ -0,0 +1,91 @@
+package com.revolsys.raster.io.format.tiff.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Write PackBits compressed data that can be read by
+ * {@link TiffPackbitsInputStream}. The TIFF specification requires each row to
+ * be packed separately so the bytes are buffered until a full row has been
+ * written.
+ */
+public class TiffPackbitsOutputStream extends OutputStream {
+
+  private final OutputStream out;
+
+  private final byte[] row;
+
+  private int rowLength = 0;
+
+  private boolean closed;
+
+  public TiffPackbitsOutputStream(final OutputStream out, final int rowByteCount) {
+    this.out = out;
+    this.row = new byte[rowByteCount];
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!this.closed) {
+      this.closed = true;
+      writeRow();
+      this.out.close();
+    }
+  }
+
+  @Override
+  public void write(final byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      final int count = Math.min(length, this.row.length - this.rowLength);
+      System.arraycopy(bytes, offset, this.row, this.rowLength, count);
+      this.rowLength += count;
+      offset += count;
+      length -= count;
+      if (this.rowLength == this.row.length) {
+        writeRow();
+      }
+    }
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    this.row[this.rowLength++] = (byte)b;
+    if (this.rowLength == this.row.length) {
+      writeRow();
+    }
+  }
+
+  private void writeRow() throws IOException {
+    final byte[] row = this.row;
+    final int length = this.rowLength;
+    final OutputStream out = this.out;
+    int i = 0;
+    while (i < length) {
+      final byte value = row[i];
+      int runEnd = i + 1;
+      while (runEnd < length && runEnd - i < 128 && row[runEnd] == value) {
+        runEnd++;
+      }
+      final int runLength = runEnd - i;
+      if (runLength > 1) {
+        out.write(1 - runLength);
+        out.write(value);
+        i = runEnd;
+      } else {
+        // Copy bytes until there is a run of 3 or more bytes
+        int literalEnd = i + 1;
+        while (literalEnd < length && literalEnd - i < 128) {
+          if (literalEnd + 2 < length && row[literalEnd] == row[literalEnd + 1]
+            && row[literalEnd] == row[literalEnd + 2]) {
+            break;
+          }
+          literalEnd++;
+        }
+        out.write(literalEnd - i - 1);
+        out.write(row, i, literalEnd - i);
+        i = literalEnd;
+      }
+    }
+    this.rowLength = 0;
+  }
+}
@@ -1,9 +1,13 @@
 package com.revolsys.raster.io.format.tiff.image;
 
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
@@ -14,6 +18,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.zip.InflaterInputStream;
 
 import com.revolsys.exception.Exceptions;
@@ -42,6 +47,7 @@ import com.revolsys.raster.io.format.tiff.compression.TiffDecompressorInputStrea
 import com.revolsys.raster.io.format.tiff.compression.TiffLzwInputStream;
 import com.revolsys.raster.io.format.tiff.compression.TiffPackbitsInputStream;
 import com.revolsys.raster.io.format.tiff.compression.TiffThunderscanInputStream;
+import com.revolsys.util.concurrent.Concurrent;
 
 public abstract class AbstractTiffImage extends AbstractGeoreferencedImage implements TiffImage {
 
@@ -86,19 +92,7 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
 
     @Override
     protected BufferedImage loadBuffferedImage() {
-      try (
-        DataReader in = AbstractTiffImage.this.directory.newChannelReader()) {
-        final int tileIndex = this.tileY * AbstractTiffImage.this.tileCountX + this.tileX;
-        final int actualTileWidth = getWidthPixels();
-        final int actualTileHeight = getHeightPixels();
-        final BufferedImage bufferedImage = newBufferedImage(actualTileWidth, actualTileHeight);
-
-        readImagePart(in, bufferedImage, AbstractTiffImage.this.tileOffsets,
-          AbstractTiffImage.this.tileByteCounts, tileIndex, 0, 0,
-          AbstractTiffImage.this.tileWidthPixels, actualTileHeight, actualTileWidth);
-
-        return bufferedImage;
-      }
+      return getTileImage(this.tileX, this.tileY);
     }
 
   }
@@ -261,7 +255,7 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     this.tileCountY = (imageHeight + this.tileHeightPixels - 1) / this.tileHeightPixels;
     this.stripCount = (imageHeight + this.rowsPerStrip - 1) / this.rowsPerStrip;
     if (isTiled()) {
-      this.stripOrTileCount = this.tileCountX + this.tileCountY;
+      this.stripOrTileCount = this.tileCountX * this.tileCountY;
     } else {
       this.stripOrTileCount = this.stripCount;
     }
@@ -281,8 +275,6 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     if (bboxIntersects(imageBoundingBox)) {
       final List<GeoreferencedImageMapTile> tiles = new ArrayList<>();
       if (isTiled()) {
-        final int lastTileWidthPixels = getImageWidth() % this.tileWidthPixels;
-        final int lastTileHeightPixels = getImageHeight() % this.tileHeightPixels;
         final double tileWidth = getResolutionX() * this.tileWidthPixels;
         final double tileHeight = getResolutionY() * this.tileHeightPixels;
         final double imageMinX = imageBoundingBox.getMinX();
@@ -311,16 +303,12 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
           maxTileY = this.tileCountY - 1;
         }
 
-        int tileHeightPixels = this.tileHeightPixels;
         for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
-          if (tileY == this.tileCountY - 1) {
-            tileHeightPixels = lastTileHeightPixels;
-          }
-          int tileWidthPixels = this.tileWidthPixels;
+          final int tileHeightPixels = Math.min(this.tileHeightPixels,
+            getImageHeight() - tileY * this.tileHeightPixels);
           for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
-            if (tileX == this.tileCountX - 1) {
-              tileWidthPixels = lastTileWidthPixels;
-            }
+            final int tileWidthPixels = Math.min(this.tileWidthPixels,
+              getImageWidth() - tileX * this.tileWidthPixels);
             final GeoreferencedImageMapTile tile = new TiffImageTiledMapTile(tileX, tileY,
               tileWidthPixels, tileHeightPixels);
             tiles.add(tile);
@@ -333,6 +321,30 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     }
   }
 
+  private int getPartCountX() {
+    if (isTiled()) {
+      return this.tileCountX;
+    } else {
+      return 1;
+    }
+  }
+
+  private int getPartHeight() {
+    if (isTiled()) {
+      return this.tileHeightPixels;
+    } else {
+      return this.rowsPerStrip;
+    }
+  }
+
+  private int getPartWidth() {
+    if (isTiled()) {
+      return this.tileWidthPixels;
+    } else {
+      return getImageWidth();
+    }
+  }
+
   public TiffPhotogrametricInterpretation getPhotometricInterpretation() {
     return this.photometricInterpretation;
   }
@@ -341,18 +353,11 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
   public synchronized RenderedImage getRenderedImage() {
     RenderedImage image = super.getRenderedImage();
     if (image == null) {
-      BufferedImage bufferedImage;
-      try (
-        DataReader in = this.directory.newChannelReader()) {
-        if (isTiled()) {
-          bufferedImage = newBufferedImageTiles(in);
-        } else if (this.stripOffsets.length > 0) {
-          bufferedImage = newBufferedImageStrips(in);
-        } else {
-          throw new IllegalArgumentException("Data must be in strips or tiles: " + this.directory);
-        }
+      if (this.tileOffsets.length == 0) {
+        throw new IllegalArgumentException("Data must be in strips or tiles: " + this.directory);
       }
-      image = bufferedImage;
+      // The whole image is kept so the tiles aren't added to the tile cache
+      image = readBufferedImage(0, 0, getImageWidth(), getImageHeight(), false);
       setRenderedImage(image);
     }
     return image;
@@ -375,6 +380,22 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     return this.tileHeightPixels;
   }
 
+  /**
+   * Get the decoded image for the tile, using the {@link TiffTileCache} so the
+   * tile is only decoded once. For images stored in strips the tileX is 0 and
+   * the tileY is the strip index. The returned image is shared and must not be
+   * modified.
+   *
+   * @param tileX The tile column.
+   * @param tileY The tile row.
+   * @return The tile image.
+   */
+  public BufferedImage getTileImage(final int tileX, final int tileY) {
+    final int tileIndex = tileY * getPartCountX() + tileX;
+    return TiffTileCache.getDefault()
+      .getTile(this.directory, tileIndex, () -> readTileImage(tileX, tileY, tileIndex));
+  }
+
   public int getTileWidth() {
     return this.tileWidthPixels;
   }
@@ -383,67 +404,8 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     return this.tileWidthPixels > 0 && this.tileHeightPixels > 0;
   }
 
-  private BufferedImage newBufferedImage() {
-    final int imageWidth = getImageWidth();
-    final int imageHeight = getImageHeight();
-    return newBufferedImage(imageWidth, imageHeight);
-  }
-
   protected abstract BufferedImage newBufferedImage(int imageWidth, int imageHeight);
 
-  private BufferedImage newBufferedImageStrips(final DataReader in) {
-    final BufferedImage bufferedImage = newBufferedImage();
-    final int imageWidth = getImageWidth();
-    final int imageHeight = getImageHeight();
-    for (int stripIndex = 0; stripIndex < this.stripCount; stripIndex++) {
-      final int imageY = stripIndex * this.rowsPerStrip;
-      final int index = stripIndex;
-      int stripHeight = this.rowsPerStrip;
-      if (stripIndex == this.stripCount - 1) {
-        stripHeight = imageHeight - imageY;
-      }
-      readImagePart(in, bufferedImage, this.stripOffsets, this.stripByteCounts, index, 0, imageY,
-        imageWidth, stripHeight, imageWidth);
-    }
-    return bufferedImage;
-  }
-
-  private BufferedImage newBufferedImageTiles(final DataReader in) {
-    final BufferedImage bufferedImage = newBufferedImage();
-    final int imageWidth = getImageWidth();
-    final int imageHeight = getImageHeight();
-
-    int lastTileWidth = imageWidth % this.tileWidthPixels;
-    if (lastTileWidth == 0) {
-      lastTileWidth = this.tileWidthPixels;
-    }
-    int lastTileHeight = imageHeight % this.tileHeightPixels;
-    if (lastTileHeight == 0) {
-      lastTileHeight = this.tileHeightPixels;
-    }
-    int tileIndex = 0;
-    for (int tileY = 0; tileY < this.tileCountY; tileY++) {
-      final int imageY = tileY * this.tileHeightPixels;
-      int actualTileHeight = this.tileHeightPixels;
-      if (tileY == this.tileCountY - 1) {
-        actualTileHeight = lastTileHeight;
-      }
-      for (int tileX = 0; tileX < this.tileCountX; tileX++) {
-        final int imageX = tileX * this.tileWidthPixels;
-        int actualTileWidth = this.tileWidthPixels;
-        if (tileX == this.tileCountX - 1) {
-          actualTileWidth = lastTileWidth;
-        }
-
-        readImagePart(in, bufferedImage, this.tileOffsets, this.tileByteCounts, tileIndex, imageX,
-          imageY, this.tileWidthPixels, actualTileHeight, actualTileWidth);
-
-        tileIndex++;
-      }
-    }
-    return bufferedImage;
-  }
-
   protected TiffDecompressor newPlanarDecompressor(final DataReader in, final long[] offsets,
     final long[] counts, final int partIndex, final int sampleIndex) {
     if (sampleIndex < 0) {
@@ -557,6 +519,47 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     return geometryFactory.newBoundingBox(minX, maxY, maxX, minY);
   }
 
+  @Override
+  public BufferedImage readBufferedImage(final int x, final int y, final int width,
+    final int height) {
+    return readBufferedImage(x, y, width, height, true);
+  }
+
+  private BufferedImage readBufferedImage(final int x, final int y, final int width,
+    final int height, final boolean cache) {
+    final BufferedImage image = newBufferedImage(width, height);
+    final int minX = Math.max(x, 0);
+    final int minY = Math.max(y, 0);
+    final int maxX = Math.min(x + width, getImageWidth());
+    final int maxY = Math.min(y + height, getImageHeight());
+    if (minX < maxX && minY < maxY) {
+      final int partWidth = getPartWidth();
+      final int partHeight = getPartHeight();
+      final int minTileX = minX / partWidth;
+      final int minTileY = minY / partHeight;
+      final int maxTileX = (maxX - 1) / partWidth;
+      final int maxTileY = (maxY - 1) / partHeight;
+      final WritableRaster raster = image.getRaster();
+      final Rectangle bounds = new Rectangle(minX, minY, maxX - minX, maxY - minY);
+      if (minTileX == maxTileX && minTileY == maxTileY) {
+        readTile(raster, x, y, bounds, minTileX, minTileY, cache);
+      } else {
+        final List<Point> tiles = new ArrayList<>();
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+          for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+            tiles.add(new Point(tileX, tileY));
+          }
+        }
+        final Semaphore semaphore = new Semaphore(Runtime.getRuntime()
+          .availableProcessors());
+        Concurrent.virtual("TiffTile-")
+          .parallel(parallel -> parallel.forkIterable(semaphore, tiles,
+            tile -> readTile(raster, x, y, bounds, tile.x, tile.y, cache)));
+      }
+    }
+    return image;
+  }
+
   protected void readImagePart(final DataReader in, final BufferedImage bufferedImage,
     final long[] offsets, final long[] counts, final int partIndex, final int imageX,
     final int imageY, final int dataWidth, final int dataHeight, final int cropWidth) {
@@ -627,6 +630,52 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     }
   }
 
+  /**
+   * Read the tile and copy the part of it within the bounds to the raster.
+   */
+  private void readTile(final WritableRaster raster, final int x, final int y,
+    final Rectangle bounds, final int tileX, final int tileY, final boolean cache) {
+    final BufferedImage tileImage;
+    if (cache) {
+      tileImage = getTileImage(tileX, tileY);
+    } else {
+      final int tileIndex = tileY * getPartCountX() + tileX;
+      tileImage = readTileImage(tileX, tileY, tileIndex);
+    }
+    final int tileMinX = tileX * getPartWidth();
+    final int tileMinY = tileY * getPartHeight();
+    final Rectangle copyBounds = bounds.intersection(new Rectangle(tileMinX, tileMinY,
+      tileImage.getWidth(), tileImage.getHeight()));
+    final Raster tileRaster = tileImage.getRaster()
+      .createChild(copyBounds.x - tileMinX, copyBounds.y - tileMinY, copyBounds.width,
+        copyBounds.height, 0, 0, null);
+    final int rasterX = copyBounds.x - x;
+    final int rasterY = copyBounds.y - y;
+    if (raster.getSampleModel() instanceof MultiPixelPackedSampleModel) {
+      // Sub-byte pixels from adjacent tiles can be in the same byte
+      synchronized (raster) {
+        raster.setDataElements(rasterX, rasterY, tileRaster);
+      }
+    } else {
+      raster.setDataElements(rasterX, rasterY, tileRaster);
+    }
+  }
+
+  private BufferedImage readTileImage(final int tileX, final int tileY, final int tileIndex) {
+    final int partWidth = getPartWidth();
+    final int partHeight = getPartHeight();
+    final int actualWidth = Math.min(partWidth, getImageWidth() - tileX * partWidth);
+    final int actualHeight = Math.min(partHeight, getImageHeight() - tileY * partHeight);
+    final BufferedImage bufferedImage = newBufferedImage(actualWidth, actualHeight);
+    // Each tile has its own reader so tiles can be read concurrently
+    try (
+      DataReader in = this.directory.newChannelReader()) {
+      readImagePart(in, bufferedImage, this.tileOffsets, this.tileByteCounts, tileIndex, 0, 0,
+        partWidth, actualHeight, actualWidth);
+    }
+    return bufferedImage;
+  }
+
   @Override
   public void setBoundingBox(final BoundingBox boundingBox) {
     super.setBoundingBox(boundingBox);
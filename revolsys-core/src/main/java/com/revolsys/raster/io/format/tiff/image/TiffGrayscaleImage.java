@@ -59,9 +59,10 @@ public class TiffGrayscaleImage extends AbstractTiffImage {
   }
 
   private int getColor(final int index) {
-    Integer color = this.colorMap.get(index);
-    if (color == null) {
-      synchronized (this.colorMap) {
+    // Tiles can be decoded concurrently so all access to the map is synchronized
+    synchronized (this.colorMap) {
+      Integer color = this.colorMap.get(index);
+      if (color == null) {
         final float percent = (float)((double)Integer.toUnsignedLong(index) / this.max);
         this.percents[0] = percent;
         this.percents[1] = percent;
@@ -76,8 +77,8 @@ public class TiffGrayscaleImage extends AbstractTiffImage {
         }
         this.colorMap.put(index, color);
       }
+      return color;
     }
-    return color;
   }
 
   @Override
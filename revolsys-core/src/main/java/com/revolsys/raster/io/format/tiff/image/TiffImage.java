@@ -1,5 +1,7 @@
 package com.revolsys.raster.io.format.tiff.image;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.util.List;
 
 import com.revolsys.geometry.model.BoundingBox;
@@ -11,4 +13,21 @@ public interface TiffImage extends GeoreferencedImage {
   List<GeoreferencedImageMapTile> getOverlappingMapTiles(BoundingBox boundingBox);
 
   TiffDirectory getTiffDirectory();
+
+  /**
+   * Read the pixels in the rectangle, only decoding the tiles (or strips) that
+   * intersect the rectangle. Pixels outside the image are left as 0.
+   *
+   * @param x The x pixel of the top left corner.
+   * @param y The y pixel of the top left corner.
+   * @param width The width in pixels.
+   * @param height The height in pixels.
+   * @return The image.
+   */
+  BufferedImage readBufferedImage(int x, int y, int width, int height);
+
+  default WritableRaster readRaster(final int x, final int y, final int width,
+    final int height) {
+    return readBufferedImage(x, y, width, height).getRaster();
+  }
 }
@@ -4,8 +4,6 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
 import java.util.Iterator;
 
 import javax.imageio.ImageIO;
@@ -28,23 +26,10 @@ public class TiffJpegImage extends AbstractTiffImage {
 
   private final byte[] jpegTables;
 
-  private ImageReader JPEGReader;
-
-  private ImageReadParam JPEGParam;
-
-  private Reference<BufferedImage> partImageReference = new WeakReference<>(null);
-
   private int jpegTablesLength;
 
   public TiffJpegImage(final TiffDirectory directory) {
     super(directory);
-    final Iterator<ImageReader> iter = ImageIO.getImageReadersByFormatName("jpeg");
-    if (iter.hasNext()) {
-      this.JPEGReader = iter.next();
-      this.JPEGParam = this.JPEGReader.getDefaultReadParam();
-    } else {
-      throw new IllegalStateException("Cannot find a jpeg reader");
-    }
     this.jpegTables = directory.getByteArray(TiffExtensionTag.JPEGTables, null);
     if (this.jpegTables != null) {
       int dataOffset = this.jpegTables.length;
@@ -58,21 +43,28 @@ public class TiffJpegImage extends AbstractTiffImage {
     }
   }
 
-  private synchronized BufferedImage getPartImage() {
-    BufferedImage partImage = this.partImageReference.get();
-    if (partImage == null) {
-      final int tileWidth = getTileWidth();
-      if (tileWidth > 0) {
-        final int tileHeight = getTileHeight();
-        partImage = newBufferedImage(tileWidth, tileHeight);
-      } else {
-        final int imageWidth = getImageWidth();
-        final int rowsPerStrip = getRowsPerStrip();
-        partImage = newBufferedImage(imageWidth, rowsPerStrip);
-      }
-      this.partImageReference = new WeakReference<>(partImage);
+  /**
+   * Tiles can be decoded concurrently so each part has its own reader.
+   */
+  private ImageReader newJpegReader() {
+    final Iterator<ImageReader> iter = ImageIO.getImageReadersByFormatName("jpeg");
+    if (iter.hasNext()) {
+      return iter.next();
+    } else {
+      throw new IllegalStateException("Cannot find a jpeg reader");
+    }
+  }
+
+  private BufferedImage newPartImage() {
+    final int tileWidth = getTileWidth();
+    if (tileWidth > 0) {
+      final int tileHeight = getTileHeight();
+      return newBufferedImage(tileWidth, tileHeight);
+    } else {
+      final int imageWidth = getImageWidth();
+      final int rowsPerStrip = getRowsPerStrip();
+      return newBufferedImage(imageWidth, rowsPerStrip);
     }
-    return partImage;
   }
 
   @Override
@@ -101,11 +93,16 @@ public class TiffJpegImage extends AbstractTiffImage {
         is = new MemoryCacheImageInputStream(mergedIn);
       }
 
-      this.JPEGReader.setInput(is, false, true);
-      final BufferedImage partImage = getPartImage();
-      this.JPEGParam.setDestination(partImage);
-
-      this.JPEGReader.read(0, this.JPEGParam);
+      final BufferedImage partImage = newPartImage();
+      final ImageReader jpegReader = newJpegReader();
+      try {
+        jpegReader.setInput(is, false, true);
+        final ImageReadParam jpegParam = jpegReader.getDefaultReadParam();
+        jpegParam.setDestination(partImage);
+        jpegReader.read(0, jpegParam);
+      } finally {
+        jpegReader.dispose();
+      }
       int y = imageY;
       for (int yIndex = 0; yIndex < dataHeight; yIndex++) {
         int x = imageX;
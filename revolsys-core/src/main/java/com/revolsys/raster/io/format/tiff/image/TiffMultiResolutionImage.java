@@ -2,6 +2,7 @@ package com.revolsys.raster.io.format.tiff.image;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -60,6 +61,26 @@ public class TiffMultiResolutionImage extends AbstractGeoreferencedImage
     return previousImage;
   }
 
+  /**
+   * Get the image for the overview level, 0 is the full resolution image and
+   * each higher level is a lower resolution overview.
+   *
+   * @param overviewLevel The overview level.
+   * @return The image.
+   */
+  public TiffImage getOverview(final int overviewLevel) {
+    final int index = this.images.size() - 1 - overviewLevel;
+    if (overviewLevel < 0 || index < 0) {
+      throw new IllegalArgumentException(
+        "overviewLevel=" + overviewLevel + " must be >=0 and < " + this.images.size());
+    }
+    return this.images.get(index);
+  }
+
+  public int getOverviewCount() {
+    return this.images.size();
+  }
+
   @Override
   public List<GeoreferencedImageMapTile> getOverlappingMapTiles(final BoundingBox boundingBox,
     final double resolution) {
@@ -77,4 +98,26 @@ public class TiffMultiResolutionImage extends AbstractGeoreferencedImage
     final TiffImage image = getImage(boundingBox, resolution);
     return image.getResolutionX();
   }
+
+  /**
+   * Read the pixels in the rectangle from the overview level, only decoding
+   * the tiles that intersect the rectangle.
+   *
+   * @param overviewLevel The overview level, 0 for the full resolution image.
+   * @param x The x pixel of the top left corner in the overview.
+   * @param y The y pixel of the top left corner in the overview.
+   * @param width The width in pixels.
+   * @param height The height in pixels.
+   * @return The image.
+   * @see TiffImage#readBufferedImage(int, int, int, int)
+   */
+  public BufferedImage readBufferedImage(final int overviewLevel, final int x, final int y,
+    final int width, final int height) {
+    return getOverview(overviewLevel).readBufferedImage(x, y, width, height);
+  }
+
+  public WritableRaster readRaster(final int overviewLevel, final int x, final int y,
+    final int width, final int height) {
+    return getOverview(overviewLevel).readRaster(x, y, width, height);
+  }
 }
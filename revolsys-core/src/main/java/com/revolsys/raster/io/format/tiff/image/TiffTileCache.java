@@ -0,0 +1,114 @@
+package com.revolsys.raster.io.format.tiff.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+import com.revolsys.raster.io.format.tiff.TiffDirectory;
+
+/**
+ * A bounded in memory cache of decoded TIFF tiles (or strips) shared by all the
+ * open TIFF images, so panning back over an area doesn't decode the tiles
+ * again. When the total size of the tiles goes over the maximum size the least
+ * recently used tiles are removed.
+ *
+ * <p>
+ * The cached images are shared and must not be modified.
+ * </p>
+ */
+public class TiffTileCache {
+  private record TileKey(TiffDirectory directory, int tileIndex) {
+  }
+
+  private static final long DEFAULT_MAX_SIZE_BYTES = 256L * 1024 * 1024;
+
+  private static final TiffTileCache defaultCache = new TiffTileCache(DEFAULT_MAX_SIZE_BYTES);
+
+  public static TiffTileCache getDefault() {
+    return defaultCache;
+  }
+
+  private static long getSizeBytes(final BufferedImage image) {
+    final DataBuffer dataBuffer = image.getRaster()
+      .getDataBuffer();
+    final int dataType = dataBuffer.getDataType();
+    return (long)dataBuffer.getSize() * dataBuffer.getNumBanks()
+      * DataBuffer.getDataTypeSize(dataType) / 8;
+  }
+
+  private long maxSizeBytes;
+
+  private long sizeBytes;
+
+  private final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(256, 0.75f,
+    true);
+
+  public TiffTileCache(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  public synchronized void clear() {
+    this.tiles.clear();
+    this.sizeBytes = 0;
+  }
+
+  public synchronized long getMaxSizeBytes() {
+    return this.maxSizeBytes;
+  }
+
+  public synchronized long getSizeBytes() {
+    return this.sizeBytes;
+  }
+
+  /**
+   * Get the tile from the cache, loading it if it's not in the cache. The
+   * loader is called without holding the lock so other tiles can be loaded at
+   * the same time.
+   *
+   * @param directory The directory the tile is from.
+   * @param tileIndex The index of the tile (or strip) in the directory.
+   * @param loader The loader to decode the tile.
+   * @return The tile image.
+   */
+  public BufferedImage getTile(final TiffDirectory directory, final int tileIndex,
+    final Supplier<BufferedImage> loader) {
+    final TileKey key = new TileKey(directory, tileIndex);
+    synchronized (this) {
+      final BufferedImage image = this.tiles.get(key);
+      if (image != null) {
+        return image;
+      }
+    }
+    final BufferedImage image = loader.get();
+    if (image != null) {
+      final long imageSizeBytes = getSizeBytes(image);
+      synchronized (this) {
+        if (imageSizeBytes <= this.maxSizeBytes) {
+          final BufferedImage oldImage = this.tiles.put(key, image);
+          if (oldImage != null) {
+            this.sizeBytes -= getSizeBytes(oldImage);
+          }
+          this.sizeBytes += imageSizeBytes;
+          removeEldest();
+        }
+      }
+    }
+    return image;
+  }
+
+  private void removeEldest() {
+    for (final Iterator<BufferedImage> iterator = this.tiles.values()
+      .iterator(); this.sizeBytes > this.maxSizeBytes && iterator.hasNext();) {
+      final BufferedImage image = iterator.next();
+      this.sizeBytes -= getSizeBytes(image);
+      iterator.remove();
+    }
+  }
+
+  public synchronized void setMaxSizeBytes(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    removeEldest();
+  }
+}
@@ -0,0 +1,126 @@
+package com.revolsys.record;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.revolsys.data.identifier.SingleIdentifier;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.util.Property;
+
+/**
+ * A view of a shared {@link Record} that reads the values from the shared
+ * record until the first value is changed. The values are then copied to an
+ * array owned by this record, so changes never affect the shared record or
+ * other views of it.
+ *
+ * Creating a view doesn't copy any values so it can be used to send the same
+ * record to many consumers. The shared record must not be modified after the
+ * views are created. Values are not deep copied, so mutable values (e.g.
+ * {@link java.util.Date}) are shared.
+ */
+public class CopyOnWriteRecord extends BaseRecord {
+
+  private final Record source;
+
+  /** The copied values, null until a value is changed. */
+  private Object[] values;
+
+  public CopyOnWriteRecord(final Record record) {
+    super(record.getRecordDefinition());
+    if (record instanceof final CopyOnWriteRecord view && view.values == null) {
+      this.source = view.source;
+    } else {
+      this.source = record;
+    }
+    setState(record.getState());
+  }
+
+  @Override
+  public CopyOnWriteRecord clone() {
+    final CopyOnWriteRecord clone = (CopyOnWriteRecord)super.clone();
+    if (this.values != null) {
+      clone.values = this.values.clone();
+    }
+    return clone;
+  }
+
+  private Object[] copyValues() {
+    if (this.values == null) {
+      final int fieldCount = getFieldCount();
+      final Object[] values = new Object[fieldCount];
+      for (int i = 0; i < fieldCount; i++) {
+        values[i] = this.source.getValue(i);
+      }
+      this.values = values;
+    }
+    return this.values;
+  }
+
+  /**
+   * Get the shared record this is a view of.
+   *
+   * @return The shared record.
+   */
+  public Record getSource() {
+    return this.source;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends Object> T getValue(final int index) {
+    if (index < 0) {
+      return null;
+    } else if (this.values == null) {
+      return this.source.getValue(index);
+    } else if (index < this.values.length) {
+      return (T)this.values[index];
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public List<Object> getValues() {
+    if (this.values == null) {
+      return Collections.unmodifiableList(this.source.getValues());
+    } else {
+      return Arrays.asList(this.values);
+    }
+  }
+
+  /**
+   * Check if the values have been copied from the shared record.
+   *
+   * @return True if the values have been copied.
+   */
+  public boolean isCopied() {
+    return this.values != null;
+  }
+
+  @Override
+  protected boolean setValue(final FieldDefinition fieldDefinition, Object value) {
+    boolean updated = false;
+    if (value instanceof String) {
+      final String string = (String)value;
+      if (!Property.hasValue(string)) {
+        value = null;
+      }
+    }
+    if (value instanceof SingleIdentifier) {
+      final SingleIdentifier identifier = (SingleIdentifier)value;
+      value = identifier.getValue(0);
+    }
+    final Object newValue = fieldDefinition.toFieldValue(getState(), value);
+    final int index = fieldDefinition.getIndex();
+    final Object oldValue = getValue(index);
+    if (!fieldDefinition.equals(oldValue, newValue)) {
+      if (!isInitializing() && !fieldDefinition.isGenerated()) {
+        updated = true;
+        updateState();
+      }
+      copyValues()[index] = newValue;
+    }
+    return updated;
+  }
+}
@@ -0,0 +1,288 @@
+package com.revolsys.record.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.revolsys.collection.iterator.AbstractIterator;
+import com.revolsys.collection.iterator.Reader;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.logging.Logs;
+import com.revolsys.record.Record;
+import com.revolsys.util.BaseCloseable;
+import com.revolsys.util.concurrent.Concurrent;
+import com.revolsys.util.concurrent.ThreadFactoryEx;
+
+/**
+ * <p>
+ * A single external sort created using {@link ExternalRecordSorter#newSort()}.
+ * Records are added using {@link #add(Record)} and the sorted records are read
+ * using {@link #read()}.
+ * </p>
+ * <p>
+ * Records are buffered in memory until the run size is reached. The run is
+ * then sorted and written to a temporary file on a background thread while the
+ * next run is buffered. When read the runs are merged using a k-way merge. The
+ * sort is stable, records that compare equal are returned in the order they
+ * were added.
+ * </p>
+ * <p>
+ * The {@link #add(Record)} method must only be called from one thread. Closing
+ * the sort deletes the temporary files.
+ * </p>
+ * <p>
+ * Records from runs that were written to disk are decoded by
+ * {@link RecordSpillCodec}, so they are new records created using
+ * {@link com.revolsys.record.schema.RecordDefinition#newRecord()}, not the
+ * records that were added, and values of types without a specific encoding
+ * round trip through their data type's string form.
+ * </p>
+ */
+public class ExternalRecordSort implements BaseCloseable {
+
+  private class MergeIterator extends AbstractIterator<Record> {
+
+    private final PriorityQueue<RunCursor> queue = new PriorityQueue<>();
+
+    private final List<RunCursor> cursors = new ArrayList<>();
+
+    @Override
+    protected void closeDo() {
+      for (final RunCursor cursor : this.cursors) {
+        cursor.close();
+      }
+      ExternalRecordSort.this.close();
+    }
+
+    @Override
+    protected Record getNext() throws NoSuchElementException {
+      final RunCursor cursor = this.queue.poll();
+      if (cursor == null) {
+        throw new NoSuchElementException();
+      } else {
+        final Record record = cursor.record;
+        if (cursor.next()) {
+          this.queue.add(cursor);
+        }
+        return record;
+      }
+    }
+
+    @Override
+    protected void initDo() {
+      final List<Path> files = ExternalRecordSort.this.runFiles;
+      for (int i = 0; i < files.size(); i++) {
+        try {
+          final RecordSpillCodec.Decoder decoder = ExternalRecordSort.this.codec
+            .newDecoder(Files.newInputStream(files.get(i)));
+          this.cursors.add(new RunCursor(i, decoder::read, decoder));
+        } catch (final IOException e) {
+          throw Exceptions.toRuntimeException(e);
+        }
+      }
+      final Iterator<Record> iterator = ExternalRecordSort.this.records.iterator();
+      this.cursors.add(new RunCursor(files.size(), () -> {
+        if (iterator.hasNext()) {
+          return iterator.next();
+        } else {
+          return null;
+        }
+      }, null));
+      for (final RunCursor cursor : this.cursors) {
+        if (cursor.next()) {
+          this.queue.add(cursor);
+        }
+      }
+    }
+  }
+
+  private interface RunSource {
+    Record read();
+  }
+
+  private class RunCursor implements Comparable<RunCursor>, BaseCloseable {
+
+    private final BaseCloseable closeable;
+
+    private final int index;
+
+    private Record record;
+
+    private final RunSource source;
+
+    private RunCursor(final int index, final RunSource source, final BaseCloseable closeable) {
+      this.index = index;
+      this.source = source;
+      this.closeable = closeable;
+    }
+
+    @Override
+    public void close() {
+      if (this.closeable != null) {
+        this.closeable.close();
+      }
+    }
+
+    @Override
+    public int compareTo(final RunCursor other) {
+      final int compare = ExternalRecordSort.this.comparator.compare(this.record, other.record);
+      if (compare == 0) {
+        return Integer.compare(this.index, other.index);
+      } else {
+        return compare;
+      }
+    }
+
+    private boolean next() {
+      this.record = this.source.read();
+      if (this.record == null) {
+        close();
+        return false;
+      } else {
+        return true;
+      }
+    }
+  }
+
+  private final RecordSpillCodec codec = new RecordSpillCodec();
+
+  private final Comparator<Record> comparator;
+
+  private final ThreadFactoryEx executor = Concurrent.virtual("ExternalRecordSort");
+
+  private boolean closed;
+
+  private final List<Future<?>> runFutures = new ArrayList<>();
+
+  private final List<Path> runFiles = new ArrayList<>();
+
+  private List<Record> records = new ArrayList<>();
+
+  private long recordsSize;
+
+  private final long runSize;
+
+  private final Semaphore runPermits;
+
+  private final Path tempDirectory;
+
+  ExternalRecordSort(final Comparator<Record> comparator, final long runSize,
+    final int threadCount, final Path tempDirectory) {
+    this.comparator = comparator;
+    this.runSize = runSize;
+    this.runPermits = new Semaphore(threadCount);
+    this.tempDirectory = tempDirectory;
+  }
+
+  /**
+   * Add a record to the sort. If the current run is full it will be sorted and
+   * written to disk in the background. This will wait if the maximum number of
+   * runs are already being written.
+   *
+   * @param record The record.
+   */
+  public void add(final Record record) {
+    if (this.closed) {
+      throw new IllegalStateException("Sort is closed");
+    }
+    this.records.add(record);
+    this.recordsSize += RecordSpillCodec.estimateSize(record);
+    if (this.recordsSize >= this.runSize) {
+      spillRun();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!this.closed) {
+      this.closed = true;
+      this.records = new ArrayList<>();
+      for (final Future<?> future : this.runFutures) {
+        future.cancel(true);
+      }
+      for (final Path file : this.runFiles) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (final IOException e) {
+          Logs.error(this, "Unable to delete sort run file: " + file, e);
+        }
+      }
+      this.runFiles.clear();
+      this.executor.shutdown();
+    }
+  }
+
+  /**
+   * Get the number of runs that were written to disk.
+   *
+   * @return The number of runs.
+   */
+  public int getRunCount() {
+    return this.runFiles.size();
+  }
+
+  /**
+   * Read the sorted records. The last run is sorted in memory and merged with
+   * the runs on disk. Closing the returned reader closes this sort.
+   *
+   * @return The reader over the sorted records.
+   */
+  public Reader<Record> read() {
+    if (this.closed) {
+      throw new IllegalStateException("Sort is closed");
+    }
+    this.records.sort(this.comparator);
+    for (final Future<?> future : this.runFutures) {
+      try {
+        future.get();
+      } catch (final Exception e) {
+        close();
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+    this.runFutures.clear();
+    return new MergeIterator();
+  }
+
+  private void spillRun() {
+    final List<Record> run = this.records;
+    this.records = new ArrayList<>();
+    this.recordsSize = 0;
+    final Path file;
+    try {
+      if (this.tempDirectory == null) {
+        file = Files.createTempFile("sort", ".run");
+      } else {
+        file = Files.createTempFile(this.tempDirectory, "sort", ".run");
+      }
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+    this.runFiles.add(file);
+    this.runPermits.acquireUninterruptibly();
+    final Future<?> future = this.executor.submit(() -> {
+      try {
+        run.sort(this.comparator);
+        try (
+          var encoder = this.codec.newEncoder(Files.newOutputStream(file))) {
+          for (final Record record : run) {
+            encoder.write(record);
+          }
+        }
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      } finally {
+        this.runPermits.release();
+      }
+    });
+    this.runFutures.add(future);
+  }
+}
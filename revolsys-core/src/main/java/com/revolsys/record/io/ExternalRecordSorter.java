@@ -0,0 +1,159 @@
+package com.revolsys.record.io;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import com.revolsys.collection.iterator.AbstractIterator;
+import com.revolsys.collection.iterator.Reader;
+import com.revolsys.record.Record;
+
+/**
+ * <p>
+ * Sort records that don't fit in memory. Records are collected into runs
+ * limited by the memory budget, each run is sorted in parallel and written to a
+ * temporary file using {@link RecordSpillCodec}, and the runs are then merged.
+ * If all the records fit in one run no files are written.
+ * </p>
+ * <p>
+ * Records read back from disk keep their definition, state and values but are
+ * created using
+ * {@link com.revolsys.record.schema.RecordDefinition#newRecord()}, so the
+ * caller's record class is not kept. See {@link RecordSpillCodec} for how
+ * values are encoded.
+ * </p>
+ *
+ * <pre>
+ * var sorter = new ExternalRecordSorter(new RecordFieldComparator("ID"), 512 * 1024 * 1024);
+ * try (
+ *   var sourceRecords = sorter.sort(sourceReader)) {
+ *   DatasetMerge.&lt;Record, Record, Integer&gt; builder()
+ *     .sourceRecords(sourceRecords)
+ *     ...
+ * }
+ * </pre>
+ */
+public class ExternalRecordSorter {
+
+  public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+  private final Comparator<Record> comparator;
+
+  private final long memoryBudget;
+
+  private Path tempDirectory;
+
+  private int threadCount = Math.max(1, Runtime.getRuntime()
+    .availableProcessors() / 2);
+
+  public ExternalRecordSorter(final Comparator<Record> comparator) {
+    this(comparator, DEFAULT_MEMORY_BUDGET);
+  }
+
+  /**
+   * Construct a new sorter.
+   *
+   * @param comparator The comparator to sort the records.
+   * @param memoryBudget The approximate maximum number of bytes of records to
+   *          hold in memory. This is shared between the run being collected and
+   *          the runs being sorted and written.
+   */
+  public ExternalRecordSorter(final Comparator<Record> comparator, final long memoryBudget) {
+    this.comparator = Objects.requireNonNull(comparator, "comparator");
+    if (memoryBudget <= 0) {
+      throw new IllegalArgumentException("memoryBudget must be > 0 not " + memoryBudget);
+    }
+    this.memoryBudget = memoryBudget;
+  }
+
+  public Comparator<Record> getComparator() {
+    return this.comparator;
+  }
+
+  public long getMemoryBudget() {
+    return this.memoryBudget;
+  }
+
+  public Path getTempDirectory() {
+    return this.tempDirectory;
+  }
+
+  public int getThreadCount() {
+    return this.threadCount;
+  }
+
+  /**
+   * Create a new sort that records can be added to.
+   *
+   * @return The sort.
+   */
+  public ExternalRecordSort newSort() {
+    final long runSize = Math.max(1, this.memoryBudget / (this.threadCount + 1));
+    return new ExternalRecordSort(this.comparator, runSize, this.threadCount, this.tempDirectory);
+  }
+
+  public ExternalRecordSorter setTempDirectory(final Path tempDirectory) {
+    this.tempDirectory = tempDirectory;
+    return this;
+  }
+
+  /**
+   * Set the maximum number of runs that are sorted and written at the same
+   * time.
+   *
+   * @param threadCount The number of threads.
+   * @return this
+   */
+  public ExternalRecordSorter setThreadCount(final int threadCount) {
+    this.threadCount = Math.max(1, threadCount);
+    return this;
+  }
+
+  /**
+   * Sort the records. The records are read when the returned reader is first
+   * iterated. Closing the reader deletes the temporary files.
+   *
+   * @param records The records to sort.
+   * @return The reader over the sorted records.
+   */
+  public Reader<Record> sort(final Iterable<? extends Record> records) {
+    return new AbstractIterator<>() {
+      private Reader<Record> reader;
+
+      private ExternalRecordSort sort;
+
+      private Iterator<Record> iterator;
+
+      @Override
+      protected void closeDo() {
+        if (this.reader != null) {
+          this.reader.close();
+        }
+        if (this.sort != null) {
+          this.sort.close();
+        }
+      }
+
+      @Override
+      protected Record getNext() throws NoSuchElementException {
+        if (this.iterator.hasNext()) {
+          return this.iterator.next();
+        } else {
+          throw new NoSuchElementException();
+        }
+      }
+
+      @Override
+      protected void initDo() {
+        this.sort = newSort();
+        for (final Record record : records) {
+          this.sort.add(record);
+        }
+        this.reader = this.sort.read();
+        this.iterator = this.reader.iterator();
+      }
+    };
+  }
+}
@@ -0,0 +1,484 @@
+package com.revolsys.record.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.revolsys.data.type.DataType;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.wkb.ByteOrderValues;
+import com.revolsys.geometry.wkb.WKBReader;
+import com.revolsys.geometry.wkb.WKBWriter;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordState;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.util.BaseCloseable;
+
+/**
+ * <p>
+ * A compact binary encoding of records used to spill records to temporary
+ * files. The field order and types come from the {@link RecordDefinition}, so
+ * only the values are written. Each value has a one byte tag followed by the
+ * value; integers use variable length encoding and geometries use WKB.
+ * </p>
+ * <p>
+ * The record definitions and geometry factories are kept in memory by the
+ * codec and referenced by index from the encoded records. The encoded data can
+ * only be read using the same codec instance that wrote it.
+ * </p>
+ * <p>
+ * Only the record's definition, state and values are written, not its class.
+ * Decoded records are created using {@link RecordDefinition#newRecord()}, so a
+ * record of another class (e.g. a layer record) is decoded as the definition's
+ * record class (by default an {@link com.revolsys.record.ArrayRecord}).
+ * </p>
+ * <p>
+ * Values of types without a specific encoding are written using the field's
+ * {@link DataType#toString(Object)} and decoded using
+ * {@link DataType#toObject(Object)}. They are only returned unchanged if the
+ * data type can parse the string it writes; otherwise the value is returned as
+ * whatever the data type converts the string to.
+ * </p>
+ */
+public class RecordSpillCodec {
+
+  public class Decoder implements BaseCloseable {
+
+    private final DataInputStream in;
+
+    private final List<WKBReader> wkbReaders = new ArrayList<>();
+
+    private Decoder(final InputStream in) {
+      this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.in.close();
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+
+    private byte[] readBytes() throws IOException {
+      final int length = (int)readVarLong(this.in);
+      final byte[] bytes = new byte[length];
+      this.in.readFully(bytes);
+      return bytes;
+    }
+
+    private Geometry readGeometry(final byte tag) throws IOException {
+      final int factoryIndex = (int)readVarLong(this.in);
+      final GeometryFactory geometryFactory = getGeometryFactory(factoryIndex);
+      if (tag == GEOMETRY_WKB) {
+        while (this.wkbReaders.size() <= factoryIndex) {
+          this.wkbReaders.add(null);
+        }
+        WKBReader reader = this.wkbReaders.get(factoryIndex);
+        if (reader == null) {
+          reader = new WKBReader(geometryFactory);
+          this.wkbReaders.set(factoryIndex, reader);
+        }
+        try {
+          return reader.read(readBytes());
+        } catch (final Exception e) {
+          throw Exceptions.toRuntimeException(e);
+        }
+      } else {
+        return geometryFactory.geometry(readString());
+      }
+    }
+
+    /**
+     * Read the next record. The record is created using
+     * {@link RecordDefinition#newRecord()}.
+     *
+     * @return The record or null if there are no more records.
+     */
+    public Record read() {
+      try {
+        final int stateIndex = this.in.read();
+        if (stateIndex == -1) {
+          return null;
+        }
+        final RecordDefinition recordDefinition = getRecordDefinition(
+          (int)readVarLong(this.in));
+        final Record record = recordDefinition.newRecord();
+        record.setState(RecordState.INITIALIZING);
+        final List<FieldDefinition> fields = recordDefinition.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+          final Object value = readValue(fields.get(i));
+          record.setValue(i, value);
+        }
+        record.setState(STATES[stateIndex]);
+        return record;
+      } catch (final EOFException e) {
+        throw new IllegalStateException("Unexpected end of record spill file", e);
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private Object readValue(final FieldDefinition field) throws IOException {
+      final byte tag = this.in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case FALSE:
+          return Boolean.FALSE;
+        case TRUE:
+          return Boolean.TRUE;
+        case BYTE:
+          return this.in.readByte();
+        case SHORT:
+          return (short)readVarLong(this.in);
+        case INT:
+          return (int)readVarLong(this.in);
+        case LONG:
+          return readVarLong(this.in);
+        case FLOAT:
+          return this.in.readFloat();
+        case DOUBLE:
+          return this.in.readDouble();
+        case STRING:
+          return readString();
+        case BIG_DECIMAL:
+          return new BigDecimal(readString());
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case GEOMETRY_WKB:
+        case GEOMETRY_WKT:
+          return readGeometry(tag);
+        case SQL_DATE:
+          return new java.sql.Date(readVarLong(this.in));
+        case TIMESTAMP: {
+          final Timestamp timestamp = new Timestamp(readVarLong(this.in));
+          timestamp.setNanos((int)readVarLong(this.in));
+          return timestamp;
+        }
+        case DATE:
+          return new Date(readVarLong(this.in));
+        case INSTANT: {
+          final long seconds = readVarLong(this.in);
+          return Instant.ofEpochSecond(seconds, readVarLong(this.in));
+        }
+        case LOCAL_DATE:
+          return LocalDate.ofEpochDay(readVarLong(this.in));
+        case UUID_VALUE:
+          return new UUID(this.in.readLong(), this.in.readLong());
+        case BYTES:
+          return readBytes();
+        case OTHER:
+          return field.getDataType()
+            .toObject(readString());
+        default:
+          throw new IllegalStateException("Unknown value type " + tag + " for " + field);
+      }
+    }
+  }
+
+  public class Encoder implements BaseCloseable {
+
+    private final DataOutputStream out;
+
+    private final WKBWriter wkbWriter2d = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN);
+
+    private final WKBWriter wkbWriter3d = new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN);
+
+    private Encoder(final OutputStream out) {
+      this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.out.close();
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+
+    /**
+     * Write the record.
+     *
+     * @param record The record.
+     */
+    public void write(final Record record) {
+      try {
+        final RecordDefinition recordDefinition = record.getRecordDefinition();
+        this.out.writeByte(record.getState()
+          .ordinal());
+        writeVarLong(this.out, getRecordDefinitionIndex(recordDefinition));
+        final List<FieldDefinition> fields = recordDefinition.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+          final Object value = record.getValue(i);
+          writeValue(fields.get(i), value);
+        }
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+
+    private void writeBytes(final byte[] bytes) throws IOException {
+      writeVarLong(this.out, bytes.length);
+      this.out.write(bytes);
+    }
+
+    private void writeGeometry(final Geometry geometry) throws IOException {
+      final int factoryIndex = getGeometryFactoryIndex(geometry.getGeometryFactory());
+      final int axisCount = geometry.getAxisCount();
+      if (geometry.isEmpty() || axisCount > 3) {
+        this.out.writeByte(GEOMETRY_WKT);
+        writeVarLong(this.out, factoryIndex);
+        writeString(geometry.toEwkt());
+      } else {
+        this.out.writeByte(GEOMETRY_WKB);
+        writeVarLong(this.out, factoryIndex);
+        if (axisCount == 3) {
+          writeBytes(this.wkbWriter3d.write(geometry));
+        } else {
+          writeBytes(this.wkbWriter2d.write(geometry));
+        }
+      }
+    }
+
+    private void writeString(final String string) throws IOException {
+      writeBytes(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeTag(final byte tag) throws IOException {
+      this.out.writeByte(tag);
+    }
+
+    private void writeValue(final FieldDefinition field, final Object value) throws IOException {
+      if (value == null) {
+        writeTag(NULL);
+      } else if (value instanceof final String string) {
+        writeTag(STRING);
+        writeString(string);
+      } else if (value instanceof final Integer number) {
+        writeTag(INT);
+        writeVarLong(this.out, number);
+      } else if (value instanceof final Long number) {
+        writeTag(LONG);
+        writeVarLong(this.out, number);
+      } else if (value instanceof final Double number) {
+        writeTag(DOUBLE);
+        this.out.writeDouble(number);
+      } else if (value instanceof final Geometry geometry) {
+        writeGeometry(geometry);
+      } else if (value instanceof final Boolean bool) {
+        writeTag(bool ? TRUE : FALSE);
+      } else if (value instanceof final Short number) {
+        writeTag(SHORT);
+        writeVarLong(this.out, number);
+      } else if (value instanceof final Byte number) {
+        writeTag(BYTE);
+        this.out.writeByte(number);
+      } else if (value instanceof final Float number) {
+        writeTag(FLOAT);
+        this.out.writeFloat(number);
+      } else if (value instanceof final BigDecimal number) {
+        writeTag(BIG_DECIMAL);
+        writeString(number.toString());
+      } else if (value instanceof final BigInteger number) {
+        writeTag(BIG_INTEGER);
+        writeBytes(number.toByteArray());
+      } else if (value instanceof final Timestamp timestamp) {
+        writeTag(TIMESTAMP);
+        writeVarLong(this.out, timestamp.getTime());
+        writeVarLong(this.out, timestamp.getNanos());
+      } else if (value instanceof final java.sql.Date date) {
+        writeTag(SQL_DATE);
+        writeVarLong(this.out, date.getTime());
+      } else if (value.getClass() == Date.class) {
+        writeTag(DATE);
+        writeVarLong(this.out, ((Date)value).getTime());
+      } else if (value instanceof final Instant instant) {
+        writeTag(INSTANT);
+        writeVarLong(this.out, instant.getEpochSecond());
+        writeVarLong(this.out, instant.getNano());
+      } else if (value instanceof final LocalDate date) {
+        writeTag(LOCAL_DATE);
+        writeVarLong(this.out, date.toEpochDay());
+      } else if (value instanceof final UUID uuid) {
+        writeTag(UUID_VALUE);
+        this.out.writeLong(uuid.getMostSignificantBits());
+        this.out.writeLong(uuid.getLeastSignificantBits());
+      } else if (value instanceof final byte[] bytes) {
+        writeTag(BYTES);
+        writeBytes(bytes);
+      } else {
+        final DataType dataType = field.getDataType();
+        writeTag(OTHER);
+        writeString(dataType.toString(value));
+      }
+    }
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final byte NULL = 0;
+
+  private static final byte FALSE = 1;
+
+  private static final byte TRUE = 2;
+
+  private static final byte BYTE = 3;
+
+  private static final byte SHORT = 4;
+
+  private static final byte INT = 5;
+
+  private static final byte LONG = 6;
+
+  private static final byte FLOAT = 7;
+
+  private static final byte DOUBLE = 8;
+
+  private static final byte STRING = 9;
+
+  private static final byte BIG_DECIMAL = 10;
+
+  private static final byte BIG_INTEGER = 11;
+
+  private static final byte GEOMETRY_WKB = 12;
+
+  private static final byte GEOMETRY_WKT = 13;
+
+  private static final byte SQL_DATE = 14;
+
+  private static final byte TIMESTAMP = 15;
+
+  private static final byte DATE = 16;
+
+  private static final byte INSTANT = 17;
+
+  private static final byte LOCAL_DATE = 18;
+
+  private static final byte UUID_VALUE = 19;
+
+  private static final byte BYTES = 20;
+
+  private static final byte OTHER = 21;
+
+  private static final RecordState[] STATES = RecordState.values();
+
+  /**
+   * Estimate the number of bytes of heap used by a record. The estimate is used
+   * to decide when to spill records to disk so only needs to be approximate.
+   *
+   * @param record The record.
+   * @return The estimated size in bytes.
+   */
+  public static long estimateSize(final Record record) {
+    final int fieldCount = record.getFieldCount();
+    long size = 32 + 8L * fieldCount;
+    for (int i = 0; i < fieldCount; i++) {
+      final Object value = record.getValue(i);
+      if (value == null) {
+      } else if (value instanceof final String string) {
+        size += 48 + string.length();
+      } else if (value instanceof final Geometry geometry) {
+        size += 64 + 8L * geometry.getVertexCount() * geometry.getAxisCount();
+      } else if (value instanceof final byte[] bytes) {
+        size += 16 + bytes.length;
+      } else {
+        size += 24;
+      }
+    }
+    return size;
+  }
+
+  private static long readVarLong(final DataInputStream in) throws IOException {
+    long value = 0;
+    int shift = 0;
+    while (true) {
+      final int b = in.readUnsignedByte();
+      value |= (long)(b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value >>> 1 ^ -(value & 1);
+      }
+      shift += 7;
+    }
+  }
+
+  private static void writeVarLong(final DataOutputStream out, final long value)
+    throws IOException {
+    long zigZag = value << 1 ^ value >> 63;
+    while ((zigZag & ~0x7FL) != 0) {
+      out.writeByte((int)(zigZag & 0x7F | 0x80));
+      zigZag >>>= 7;
+    }
+    out.writeByte((int)zigZag);
+  }
+
+  private final List<GeometryFactory> geometryFactories = new ArrayList<>();
+
+  private final Map<GeometryFactory, Integer> geometryFactoryIndexes = new IdentityHashMap<>();
+
+  private final List<RecordDefinition> recordDefinitions = new ArrayList<>();
+
+  private final Map<RecordDefinition, Integer> recordDefinitionIndexes = new IdentityHashMap<>();
+
+  private synchronized GeometryFactory getGeometryFactory(final int index) {
+    return this.geometryFactories.get(index);
+  }
+
+  private synchronized int getGeometryFactoryIndex(final GeometryFactory geometryFactory) {
+    Integer index = this.geometryFactoryIndexes.get(geometryFactory);
+    if (index == null) {
+      index = this.geometryFactories.size();
+      this.geometryFactories.add(geometryFactory);
+      this.geometryFactoryIndexes.put(geometryFactory, index);
+    }
+    return index;
+  }
+
+  private synchronized RecordDefinition getRecordDefinition(final int index) {
+    return this.recordDefinitions.get(index);
+  }
+
+  private synchronized int getRecordDefinitionIndex(final RecordDefinition recordDefinition) {
+    Integer index = this.recordDefinitionIndexes.get(recordDefinition);
+    if (index == null) {
+      index = this.recordDefinitions.size();
+      this.recordDefinitions.add(recordDefinition);
+      this.recordDefinitionIndexes.put(recordDefinition, index);
+    }
+    return index;
+  }
+
+  public Decoder newDecoder(final InputStream in) {
+    return new Decoder(in);
+  }
+
+  public Encoder newEncoder(final OutputStream out) {
+    return new Encoder(out);
+  }
+}
@@ -106,9 +106,18 @@ public class Csv extends AbstractRecordIoFactory implements RecordWriterFactory,
   @Override
   public RecordReader newRecordReader(final Resource resource,
     final RecordFactory<? extends Record> recordFactory, final MapEx properties) {
-    final CsvRecordReader reader = new CsvRecordReader(resource, recordFactory);
-    reader.setProperties(properties);
-    return reader;
+    final int threadCount = properties == null ? 1 : properties.getInteger("threadCount", 1);
+    if (threadCount > 1 && resource.isFile()) {
+      final ParallelCsvRecordReader reader = new ParallelCsvRecordReader(resource, recordFactory,
+        FIELD_SEPARATOR).setThreadCount(threadCount)
+          .setOrdered(properties.getBoolean("ordered", true));
+      reader.setProperties(properties);
+      return reader;
+    } else {
+      final CsvRecordReader reader = new CsvRecordReader(resource, recordFactory);
+      reader.setProperties(properties);
+      return reader;
+    }
   }
 
   @Override
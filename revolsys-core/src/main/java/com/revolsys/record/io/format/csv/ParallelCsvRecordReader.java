@@ -0,0 +1,755 @@
+package com.revolsys.record.io.format.csv;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.revolsys.data.type.DataType;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.number.Doubles;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
+import com.revolsys.record.RecordState;
+import com.revolsys.record.io.AbstractRecordReader;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.spring.resource.Resource;
+import com.revolsys.util.concurrent.Concurrent;
+
+/**
+ * <p>
+ * Read a CSV or TSV file using multiple threads. The file is memory mapped and
+ * split into chunks that are parsed in parallel directly from the mapped bytes.
+ * Integer and floating point columns are parsed from the bytes without creating
+ * a String for the value, as are the x and y columns used to create point
+ * geometries (see {@link #getPointXFieldName()}). Other columns, including WKT
+ * geometry columns, are converted from a String as in {@link CsvRecordReader}.
+ * </p>
+ * <p>
+ * The chunk boundaries are moved to the start of the next row. To find the rows
+ * inside quoted values the quotes in each chunk are counted in parallel first,
+ * so any field that contains a quote must be quoted (RFC 4180).
+ * </p>
+ * <p>
+ * The records are returned in the file order unless {@link #setOrdered(boolean)}
+ * is false, in which case each block of records is returned as soon as it has
+ * been parsed.
+ * </p>
+ */
+public class ParallelCsvRecordReader extends AbstractRecordReader {
+  private static class Chunk {
+    private final boolean inQuotes;
+
+    private final BlockingQueue<List<Record>> queue;
+
+    private final long start;
+
+    private Chunk(final long start, final boolean inQuotes,
+      final BlockingQueue<List<Record>> queue) {
+      this.start = start;
+      this.inQuotes = inQuotes;
+      this.queue = queue;
+    }
+  }
+
+  private class ChunkParser {
+    private byte[] bytes = new byte[256];
+
+    private int length;
+
+    private long position;
+
+    private boolean quoted;
+
+    private void append(final byte b) {
+      if (this.length == this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, this.length * 2);
+      }
+      this.bytes[this.length++] = b;
+    }
+
+    private void append(final long start, final long end) {
+      final int count = (int)(end - start);
+      final int newLength = this.length + count;
+      if (newLength > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, Math.max(newLength, this.length * 2));
+      }
+      MemorySegment.copy(ParallelCsvRecordReader.this.segment, ValueLayout.JAVA_BYTE, start,
+        this.bytes, this.length, count);
+      this.length = newLength;
+    }
+
+    private boolean isNull() {
+      return this.length == 0 && !this.quoted;
+    }
+
+    private void parse(final long start, final long end, final BlockingQueue<List<Record>> queue)
+      throws InterruptedException {
+      List<Record> block = new ArrayList<>(BLOCK_SIZE);
+      this.position = start;
+      while (this.position < end && !ParallelCsvRecordReader.this.closed) {
+        boolean rowEnd = readField();
+        if (rowEnd && isNull()) {
+          // skip empty lines
+        } else {
+          final Record record = newRecord();
+          record.setState(RecordState.INITIALIZING);
+          double x = Double.NaN;
+          double y = Double.NaN;
+          int column = 0;
+          while (true) {
+            final Object value = toValue(column);
+            if (value != null) {
+              final FieldDefinition field = ParallelCsvRecordReader.this.columnFields[column];
+              record.setValue(field.getIndex(), value);
+            }
+            if (column == ParallelCsvRecordReader.this.pointXColumn) {
+              x = toDouble(value);
+            } else if (column == ParallelCsvRecordReader.this.pointYColumn) {
+              y = toDouble(value);
+            }
+            if (rowEnd) {
+              break;
+            } else {
+              column++;
+              rowEnd = readField();
+            }
+          }
+          if (!Double.isNaN(x) && !Double.isNaN(y)) {
+            final GeometryFactory geometryFactory = getGeometryFactory();
+            record.setGeometryValue(geometryFactory.point(x, y));
+          }
+          record.setState(RecordState.PERSISTED);
+          block.add(record);
+          if (block.size() == BLOCK_SIZE) {
+            queue.put(block);
+            block = new ArrayList<>(BLOCK_SIZE);
+          }
+        }
+      }
+      if (!block.isEmpty()) {
+        queue.put(block);
+      }
+    }
+
+    private Double parseDouble() {
+      final double value = Doubles.toDoubleExact(this.bytes, 0, this.length);
+      if (Double.isNaN(value)) {
+        return Double.valueOf(toStringValue());
+      } else {
+        return value;
+      }
+    }
+
+    private Long parseLong() {
+      final byte[] bytes = this.bytes;
+      final int length = this.length;
+      int i = 0;
+      boolean negative = false;
+      if (length > 0 && (bytes[0] == '-' || bytes[0] == '+')) {
+        negative = bytes[0] == '-';
+        i++;
+      }
+      if (i == length || length - i > 18) {
+        return Long.valueOf(toStringValue());
+      }
+      long value = 0;
+      for (; i < length; i++) {
+        final int digit = bytes[i] - '0';
+        if (digit < 0 || digit > 9) {
+          return Long.valueOf(toStringValue());
+        }
+        value = value * 10 + digit;
+      }
+      if (negative) {
+        return -value;
+      } else {
+        return value;
+      }
+    }
+
+    /**
+     * Read the next field into {@link #bytes}.
+     *
+     * @return True if the field was the last field in the row.
+     */
+    private boolean readField() {
+      final MemorySegment segment = ParallelCsvRecordReader.this.segment;
+      final long size = ParallelCsvRecordReader.this.size;
+      final byte fieldSeparator = ParallelCsvRecordReader.this.fieldSeparator;
+      long position = this.position;
+      this.length = 0;
+      this.quoted = false;
+      if (position < size && segment.get(ValueLayout.JAVA_BYTE, position) == '"') {
+        this.quoted = true;
+        position++;
+        while (position < size) {
+          final byte b = segment.get(ValueLayout.JAVA_BYTE, position++);
+          if (b == '"') {
+            if (position < size && segment.get(ValueLayout.JAVA_BYTE, position) == '"') {
+              append(b);
+              position++;
+            } else {
+              break;
+            }
+          } else {
+            append(b);
+          }
+        }
+      }
+      final long start = position;
+      byte b = 0;
+      while (position < size) {
+        b = segment.get(ValueLayout.JAVA_BYTE, position);
+        if (b == fieldSeparator || b == '\n' || b == '\r') {
+          break;
+        } else {
+          position++;
+        }
+      }
+      if (position > start) {
+        append(start, position);
+      }
+      if (position >= size) {
+        this.position = size;
+        return true;
+      } else {
+        position++;
+        if (b == fieldSeparator) {
+          this.position = position;
+          return false;
+        } else {
+          if (b == '\r' && position < size && segment.get(ValueLayout.JAVA_BYTE, position) == '\n') {
+            position++;
+          }
+          this.position = position;
+          return true;
+        }
+      }
+    }
+
+    private List<String> readRow() {
+      while (this.position < ParallelCsvRecordReader.this.size) {
+        final List<String> values = new ArrayList<>();
+        boolean rowEnd = readField();
+        if (!(rowEnd && isNull())) {
+          while (true) {
+            if (isNull()) {
+              values.add(null);
+            } else {
+              values.add(toStringValue());
+            }
+            if (rowEnd) {
+              return values;
+            } else {
+              rowEnd = readField();
+            }
+          }
+        }
+      }
+      return null;
+    }
+
+    private double toDouble(final Object value) {
+      if (value instanceof final Number number) {
+        return number.doubleValue();
+      } else if (isNull()) {
+        return Double.NaN;
+      } else {
+        try {
+          return parseDouble();
+        } catch (final NumberFormatException e) {
+          return Double.NaN;
+        }
+      }
+    }
+
+    private Integer toInteger(final int minValue, final int maxValue) {
+      final long value = parseLong();
+      if (value < minValue || value > maxValue) {
+        throw new NumberFormatException("Value out of range: " + value);
+      } else {
+        return (int)value;
+      }
+    }
+
+    private String toStringValue() {
+      return new String(this.bytes, 0, this.length, StandardCharsets.UTF_8);
+    }
+
+    private Object toValue(final int column) {
+      if (column >= ParallelCsvRecordReader.this.columnFields.length
+        || ParallelCsvRecordReader.this.columnFields[column] == null || isNull()) {
+        return null;
+      } else {
+        try {
+          switch (ParallelCsvRecordReader.this.columnTypes[column]) {
+            case TYPE_BYTE:
+              return toInteger(Byte.MIN_VALUE, Byte.MAX_VALUE).byteValue();
+            case TYPE_DOUBLE:
+              return parseDouble();
+            case TYPE_INT:
+              return toInteger(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case TYPE_LONG:
+              return parseLong();
+            case TYPE_SHORT:
+              return toInteger(Short.MIN_VALUE, Short.MAX_VALUE).shortValue();
+            default:
+              return toStringValue();
+          }
+        } catch (final NumberFormatException e) {
+          // Let the field convert the value as for CsvRecordReader
+          return toStringValue();
+        }
+      }
+    }
+  }
+
+  private static final int BLOCK_SIZE = 1024;
+
+  private static final long CHUNK_SIZE = 8 * 1024 * 1024;
+
+  private static final List<Record> END = new ArrayList<>(0);
+
+  private static final long MIN_CHUNK_SIZE = 64 * 1024;
+
+  private static final int TYPE_BYTE = 1;
+
+  private static final int TYPE_DOUBLE = 2;
+
+  private static final int TYPE_INT = 3;
+
+  private static final int TYPE_LONG = 4;
+
+  private static final int TYPE_SHORT = 5;
+
+  private static final int TYPE_STRING = 0;
+
+  private static long countQuotes(final MemorySegment segment, final long start, final long end) {
+    long count = 0;
+    long position = start;
+    final long wordEnd = end - 7;
+    while (position < wordEnd) {
+      final long word = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, position)
+        ^ 0x2222222222222222L;
+      // Set the high bit of each byte that was a quote
+      final long low = (word & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+      count += Long.bitCount(~(low | word | 0x7F7F7F7F7F7F7F7FL));
+      position += 8;
+    }
+    while (position < end) {
+      if (segment.get(ValueLayout.JAVA_BYTE, position++) == '"') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private Arena arena;
+
+  private Semaphore chunkPermits;
+
+  private Chunk[] chunks;
+
+  private volatile boolean closed;
+
+  private FieldDefinition[] columnFields;
+
+  private int[] columnTypes;
+
+  private int currentChunkIndex;
+
+  private long dataStart;
+
+  private int endCount;
+
+  private volatile Throwable error;
+
+  private final byte fieldSeparator;
+
+  private List<Record> block = END;
+
+  private int blockIndex;
+
+  private final AtomicInteger nextChunkIndex = new AtomicInteger();
+
+  private boolean ordered = true;
+
+  private int pointXColumn = -1;
+
+  private int pointYColumn = -1;
+
+  private BlockingQueue<List<Record>> queue;
+
+  private Resource resource;
+
+  private MemorySegment segment;
+
+  private long size;
+
+  private int threadCount = Runtime.getRuntime()
+    .availableProcessors();
+
+  private Thread[] threads = new Thread[0];
+
+  public ParallelCsvRecordReader(final Resource resource) {
+    this(resource, ArrayRecord.FACTORY, Csv.FIELD_SEPARATOR);
+  }
+
+  public ParallelCsvRecordReader(final Resource resource, final char fieldSeparator) {
+    this(resource, ArrayRecord.FACTORY, fieldSeparator);
+  }
+
+  public ParallelCsvRecordReader(final Resource resource,
+    final RecordFactory<? extends Record> recordFactory, final char fieldSeparator) {
+    super(recordFactory);
+    this.resource = resource;
+    this.fieldSeparator = (byte)fieldSeparator;
+  }
+
+  @Override
+  protected void closeDo() {
+    this.closed = true;
+    for (final Thread thread : this.threads) {
+      thread.interrupt();
+    }
+    for (final Thread thread : this.threads) {
+      try {
+        thread.join();
+      } catch (final InterruptedException e) {
+        Thread.currentThread()
+          .interrupt();
+      }
+    }
+    this.threads = new Thread[0];
+    if (this.arena != null) {
+      this.arena.close();
+      this.arena = null;
+      this.segment = null;
+    }
+    this.chunks = null;
+    this.queue = null;
+    this.block = END;
+    super.closeDo();
+    this.resource = null;
+  }
+
+  private long findRowStart(final long offset, final boolean inQuotes) {
+    final MemorySegment segment = this.segment;
+    boolean quoted = inQuotes;
+    for (long position = offset; position < this.size; position++) {
+      final byte b = segment.get(ValueLayout.JAVA_BYTE, position);
+      if (b == '"') {
+        quoted = !quoted;
+      } else if (b == '\n' && !quoted) {
+        return position + 1;
+      }
+    }
+    return this.size;
+  }
+
+  private long getChunkStart(final int chunkIndex) {
+    if (chunkIndex == 0) {
+      return this.dataStart;
+    } else if (chunkIndex == this.chunks.length) {
+      return this.size;
+    } else {
+      final Chunk chunk = this.chunks[chunkIndex];
+      return findRowStart(chunk.start, chunk.inQuotes);
+    }
+  }
+
+  @Override
+  protected Record getNext() throws NoSuchElementException {
+    while (this.blockIndex >= this.block.size()) {
+      final List<Record> block = takeBlock();
+      if (block == END) {
+        final Throwable error = this.error;
+        if (error != null) {
+          throw Exceptions.toRuntimeException(error);
+        } else if (this.ordered) {
+          this.chunkPermits.release();
+          this.currentChunkIndex++;
+          if (this.currentChunkIndex >= this.chunks.length) {
+            throw new NoSuchElementException();
+          }
+        } else {
+          this.endCount++;
+          if (this.endCount >= this.threads.length) {
+            throw new NoSuchElementException();
+          }
+        }
+      } else {
+        this.block = block;
+        this.blockIndex = 0;
+      }
+    }
+    return this.block.get(this.blockIndex++);
+  }
+
+  public int getThreadCount() {
+    return this.threadCount;
+  }
+
+  @Override
+  protected void initDo() {
+    super.initDo();
+    try {
+      final Path path = this.resource.getOrDownloadPath();
+      try (
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        this.size = channel.size();
+        this.arena = Arena.ofShared();
+        this.segment = channel.map(MapMode.READ_ONLY, 0, this.size, this.arena);
+      }
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to open " + this.resource, e);
+    }
+    final ChunkParser headerParser = new ChunkParser();
+    if (this.size >= 3 && this.segment.get(ValueLayout.JAVA_BYTE, 0) == (byte)0xEF
+      && this.segment.get(ValueLayout.JAVA_BYTE, 1) == (byte)0xBB
+      && this.segment.get(ValueLayout.JAVA_BYTE, 2) == (byte)0xBF) {
+      // Byte Order Mark
+      headerParser.position = 3;
+    }
+    final List<String> fieldNames = headerParser.readRow();
+    if (fieldNames == null) {
+      this.chunks = new Chunk[0];
+      this.chunkPermits = new Semaphore(0);
+      this.queue = new ArrayBlockingQueue<>(1);
+      this.queue.add(END);
+      return;
+    }
+    this.dataStart = headerParser.position;
+    RecordDefinition recordDefinition = getRecordDefinition();
+    if (recordDefinition == null) {
+      try {
+        recordDefinition = newRecordDefinition(this.resource.getBaseName(), fieldNames);
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+    initColumns(recordDefinition, fieldNames);
+    initChunks();
+    startWorkers();
+  }
+
+  private void initChunks() {
+    final long dataSize = this.size - this.dataStart;
+    final int threadCount = this.threadCount;
+    long chunkCount = (dataSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    chunkCount = Math.max(chunkCount, Math.min(threadCount, dataSize / MIN_CHUNK_SIZE));
+    chunkCount = Math.max(1, chunkCount);
+    initChunks((int)chunkCount);
+  }
+
+  private void initChunks(final int chunkCount) {
+    final long dataSize = this.size - this.dataStart;
+    final int threadCount = this.threadCount;
+    final long[] starts = new long[chunkCount + 1];
+    for (int i = 0; i < chunkCount; i++) {
+      starts[i] = this.dataStart + dataSize * i / chunkCount;
+    }
+    starts[chunkCount] = this.size;
+
+    // Count the quotes in each chunk to find out if it starts inside a quoted value
+    final long[] quoteCounts = new long[chunkCount];
+    final AtomicInteger nextIndex = new AtomicInteger();
+    final Runnable countQuotes = () -> {
+      for (int i = nextIndex.getAndIncrement(); i < chunkCount; i = nextIndex.getAndIncrement()) {
+        quoteCounts[i] = countQuotes(this.segment, starts[i], starts[i + 1]);
+      }
+    };
+    final Runnable[] tasks = new Runnable[Math.min(threadCount, chunkCount)];
+    Arrays.fill(tasks, countQuotes);
+    Concurrent.virtual("CsvQuotes-")
+      .parallel(tasks);
+
+    this.chunks = new Chunk[chunkCount];
+    if (this.ordered) {
+      this.chunkPermits = new Semaphore(threadCount * 2);
+    } else {
+      this.queue = new ArrayBlockingQueue<>(threadCount * 4);
+    }
+    long quoteCount = 0;
+    for (int i = 0; i < chunkCount; i++) {
+      final boolean inQuotes = (quoteCount & 1) == 1;
+      BlockingQueue<List<Record>> queue = this.queue;
+      if (this.ordered) {
+        // Unbounded as the number of chunks being read is limited by the permits
+        queue = new LinkedBlockingQueue<>();
+      }
+      this.chunks[i] = new Chunk(starts[i], inQuotes, queue);
+      quoteCount += quoteCounts[i];
+    }
+  }
+
+  private void initColumns(final RecordDefinition recordDefinition,
+    final List<String> fieldNames) {
+    final int columnCount = fieldNames.size();
+    this.columnFields = new FieldDefinition[columnCount];
+    this.columnTypes = new int[columnCount];
+    final boolean hasPointFields = isHasPointFields();
+    for (int i = 0; i < columnCount; i++) {
+      final String fieldName = fieldNames.get(i);
+      if (fieldName != null) {
+        final FieldDefinition field = recordDefinition.getField(fieldName);
+        if (field != null) {
+          this.columnFields[i] = field;
+          final DataType dataType = field.getDataType();
+          if (dataType == DataTypes.DOUBLE) {
+            this.columnTypes[i] = TYPE_DOUBLE;
+          } else if (dataType == DataTypes.INT) {
+            this.columnTypes[i] = TYPE_INT;
+          } else if (dataType == DataTypes.LONG) {
+            this.columnTypes[i] = TYPE_LONG;
+          } else if (dataType == DataTypes.SHORT) {
+            this.columnTypes[i] = TYPE_SHORT;
+          } else if (dataType == DataTypes.BYTE) {
+            this.columnTypes[i] = TYPE_BYTE;
+          } else {
+            this.columnTypes[i] = TYPE_STRING;
+          }
+        }
+        if (hasPointFields) {
+          if (fieldName.equals(getPointXFieldName())) {
+            this.pointXColumn = i;
+          } else if (fieldName.equals(getPointYFieldName())) {
+            this.pointYColumn = i;
+          }
+        }
+      }
+    }
+  }
+
+  public boolean isOrdered() {
+    return this.ordered;
+  }
+
+  @Override
+  protected GeometryFactory loadGeometryFactory() {
+    return GeometryFactory.floating2d(this.resource);
+  }
+
+  private void parseChunks() {
+    final ChunkParser parser = new ChunkParser();
+    Chunk chunk = null;
+    try {
+      while (!this.closed) {
+        if (this.ordered) {
+          this.chunkPermits.acquire();
+        }
+        final int chunkIndex = this.nextChunkIndex.getAndIncrement();
+        if (chunkIndex >= this.chunks.length) {
+          break;
+        }
+        chunk = this.chunks[chunkIndex];
+        final long start = getChunkStart(chunkIndex);
+        final long end = Math.max(start, getChunkStart(chunkIndex + 1));
+        parser.parse(start, end, chunk.queue);
+        if (this.ordered) {
+          chunk.queue.put(END);
+        }
+        chunk = null;
+      }
+      if (!this.ordered) {
+        this.queue.put(END);
+      }
+    } catch (final InterruptedException e) {
+      // Reader was closed
+    } catch (final Throwable e) {
+      this.error = e;
+      try {
+        if (this.ordered) {
+          if (chunk != null) {
+            chunk.queue.put(END);
+          }
+        } else {
+          this.queue.put(END);
+        }
+      } catch (final InterruptedException e1) {
+        // Reader was closed
+      }
+    }
+  }
+
+  /**
+   * Set if the records are returned in the order they are in the file.
+   *
+   * @param ordered True if the file order is to be kept.
+   * @return This reader.
+   */
+  public ParallelCsvRecordReader setOrdered(final boolean ordered) {
+    this.ordered = ordered;
+    return this;
+  }
+
+  /**
+   * Set the number of threads used to parse the file. Defaults to the number
+   * of available processors.
+   *
+   * @param threadCount The number of threads.
+   * @return This reader.
+   */
+  public ParallelCsvRecordReader setThreadCount(final int threadCount) {
+    this.threadCount = Math.max(1, threadCount);
+    return this;
+  }
+
+  private void startWorkers() {
+    final int threadCount = Math.min(this.threadCount, this.chunks.length);
+    final Thread[] threads = new Thread[threadCount];
+    final var threadFactory = Concurrent.platform("CsvReader-");
+    for (int i = 0; i < threadCount; i++) {
+      threads[i] = threadFactory.newThread(this::parseChunks);
+      threads[i].setDaemon(true);
+    }
+    this.threads = threads;
+    for (final Thread thread : threads) {
+      thread.start();
+    }
+  }
+
+  private List<Record> takeBlock() {
+    try {
+      if (this.ordered) {
+        if (this.currentChunkIndex >= this.chunks.length) {
+          return END;
+        } else {
+          return this.chunks[this.currentChunkIndex].queue.take();
+        }
+      } else {
+        return this.queue.take();
+      }
+    } catch (final InterruptedException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (this.resource == null) {
+      return super.toString();
+    } else {
+      return this.resource.toString();
+    }
+  }
+}
@@ -153,11 +153,28 @@ public class MapService extends ArcGisRestAbstractLayerService {
   }
 
   public BufferedImage getTileImage(final int zoomLevel, final int tileX, final int tileY) {
+    final byte[] bytes = getTileImageBytes(zoomLevel, tileX, tileY);
+    if (bytes == null) {
+      return null;
+    } else {
+      return BufferedImages.readImageIo(bytes);
+    }
+  }
+
+  /**
+   * Get the encoded tile image as returned by the server.
+   *
+   * @param zoomLevel The zoom level.
+   * @param tileX The tile x index.
+   * @param tileY The tile y index.
+   * @return The bytes or null if the tile doesn't exist.
+   */
+  public byte[] getTileImageBytes(final int zoomLevel, final int tileX, final int tileY) {
     final String url = getTileUrl(zoomLevel, tileX, tileY);
     boolean retry = true;
     while (true) {
       try {
-        return BufferedImages.readImageIo(url);
+        return BufferedImages.readImageBytes(url);
       } catch (final WrappedRuntimeException e) {
         if (Exceptions.isException(e, FileNotFoundException.class)) {
           return null;
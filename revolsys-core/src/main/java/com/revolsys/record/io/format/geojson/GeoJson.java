@@ -12,8 +12,11 @@ import com.revolsys.geometry.coordinatesystem.model.CoordinateSystem;
 import com.revolsys.geometry.coordinatesystem.model.systems.EpsgCoordinateSystems;
 import com.revolsys.geometry.io.GeometryReader;
 import com.revolsys.io.FileUtil;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
 import com.revolsys.record.io.BufferedWriterEx;
 import com.revolsys.record.io.GeometryRecordReaderFactory;
+import com.revolsys.record.io.RecordReader;
 import com.revolsys.record.io.RecordWriter;
 import com.revolsys.record.io.RecordWriterFactory;
 import com.revolsys.record.schema.RecordDefinitionProxy;
@@ -89,6 +92,14 @@ public class GeoJson extends GeometryRecordReaderFactory implements RecordWriter
     return new GeoJsonGeometryReader(resource, properties);
   }
 
+  @Override
+  public RecordReader newRecordReader(final Resource resource,
+    final RecordFactory<? extends Record> recordFactory, final MapEx properties) {
+    final GeoJsonRecordReader reader = new GeoJsonRecordReader(resource, recordFactory);
+    reader.setProperties(properties);
+    return reader;
+  }
+
   @Override
   public RecordWriter newRecordWriter(final String baseName,
     final RecordDefinitionProxy recordDefinition, final OutputStream outputStream,
@@ -0,0 +1,627 @@
+package com.revolsys.record.io.format.geojson;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import com.revolsys.collection.json.Json;
+import com.revolsys.collection.json.JsonList;
+import com.revolsys.collection.json.JsonObject;
+import com.revolsys.collection.json.JsonObjectHash;
+import com.revolsys.collection.json.JsonParser.EventType;
+import com.revolsys.data.type.DataType;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.model.ClockDirection;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
+import com.revolsys.record.RecordState;
+import com.revolsys.record.io.AbstractRecordReader;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+import com.revolsys.spring.resource.Resource;
+import com.revolsys.util.BaseCloseable;
+
+/**
+ * Read the features from a GeoJSON document as records without loading the
+ * document into memory. The record definition is inferred from the properties
+ * of the first sampleSize features; those features are buffered and the
+ * remaining features are read directly into the records. Properties that don't
+ * appear in the sample are ignored. A field's type is widened (e.g. from LONG to
+ * DOUBLE or STRING) if the sampled values have different types. The record
+ * definition isn't changed once it has been created, values after the sample
+ * are converted to the field type as for any other record, or kept as read if
+ * they can't be converted. Increase the sampleSize if the later values may have
+ * a wider type.
+ *
+ * <p>
+ * Coordinates are parsed directly into a re-used coordinates array that is
+ * copied into each {@link LineString} or {@link Polygon} ring so the memory
+ * used is bounded by the largest geometry and not the size of the document.
+ * </p>
+ *
+ * <p>
+ * FeatureCollection documents, a single Feature, an array of features and
+ * sequences of features (e.g. newline delimited GeoJSON) are supported.
+ * </p>
+ */
+public class GeoJsonRecordReader extends AbstractRecordReader {
+  private static class Feature {
+    private Geometry geometry;
+
+    private boolean hasValue;
+
+    private JsonObject properties;
+
+    private Record record;
+  }
+
+  private static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+  private static DataType getDataType(final Object value) {
+    if (value instanceof Boolean) {
+      return DataTypes.BOOLEAN;
+    } else if (value instanceof Long) {
+      return DataTypes.LONG;
+    } else if (value instanceof Double) {
+      return DataTypes.DOUBLE;
+    } else if (value instanceof JsonObject) {
+      return Json.JSON_OBJECT;
+    } else if (value instanceof JsonList) {
+      return Json.JSON_LIST;
+    } else {
+      return DataTypes.STRING;
+    }
+  }
+
+  private static DataType mergeDataType(final DataType dataType, final Object value) {
+    if (value == null) {
+      return dataType;
+    } else {
+      final DataType valueType = getDataType(value);
+      if (dataType == null || dataType == valueType) {
+        return valueType;
+      } else if ((dataType == DataTypes.LONG || dataType == DataTypes.DOUBLE)
+        && (valueType == DataTypes.LONG || valueType == DataTypes.DOUBLE)) {
+        return DataTypes.DOUBLE;
+      } else if (dataType == DataTypes.STRING || valueType == DataTypes.STRING) {
+        return DataTypes.STRING;
+      } else {
+        return Json.JSON_TYPE;
+      }
+    }
+  }
+
+  private final String baseName;
+
+  private double[] coordinates = new double[1024];
+
+  private final Feature feature = new Feature();
+
+  private GeoJsonTokenizer in;
+
+  private boolean inFeatures;
+
+  private boolean inRoot;
+
+  private final Resource resource;
+
+  private final Deque<Feature> sample = new ArrayDeque<>();
+
+  private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+  public GeoJsonRecordReader(final Resource resource) {
+    this(resource, ArrayRecord.FACTORY);
+  }
+
+  public GeoJsonRecordReader(final Resource resource,
+    final RecordFactory<? extends Record> recordFactory) {
+    super(recordFactory);
+    this.resource = resource;
+    this.baseName = resource.getBaseName();
+  }
+
+  @Override
+  protected void closeDo() {
+    BaseCloseable.closeSilent(this.in);
+    this.in = null;
+    this.sample.clear();
+    super.closeDo();
+  }
+
+  @Override
+  protected Record getNext() throws NoSuchElementException {
+    final Feature sampleFeature = this.sample.pollFirst();
+    if (sampleFeature != null) {
+      return newRecord(sampleFeature);
+    } else {
+      final Record record = newRecord();
+      record.setState(RecordState.INITIALIZING);
+      final Feature feature = this.feature;
+      feature.geometry = null;
+      feature.hasValue = false;
+      feature.record = record;
+      if (readFeature(feature)) {
+        if (feature.geometry != null) {
+          record.setGeometryValue(feature.geometry);
+        }
+        record.setState(RecordState.PERSISTED);
+        return record;
+      } else {
+        throw new NoSuchElementException();
+      }
+    }
+  }
+
+  private GeometryFactory getPartGeometryFactory(final GeometryFactory geometryFactory,
+    final Object part) {
+    if (part instanceof final Geometry geometry) {
+      return geometry.getGeometryFactory();
+    } else {
+      return geometryFactory;
+    }
+  }
+
+  @Override
+  public ClockDirection getPolygonRingDirection() {
+    return ClockDirection.COUNTER_CLOCKWISE;
+  }
+
+  public int getSampleSize() {
+    return this.sampleSize;
+  }
+
+  @Override
+  protected void initDo() {
+    super.initDo();
+    this.sampleSize = getProperties().getInteger("sampleSize", this.sampleSize);
+    this.in = new GeoJsonTokenizer(this.resource.newReader());
+
+    final Map<String, DataType> fieldTypes = new LinkedHashMap<>();
+    DataType geometryType = null;
+    boolean allRead = false;
+    for (int i = 0; i < this.sampleSize && !allRead; i++) {
+      final Feature feature = new Feature();
+      feature.properties = new JsonObjectHash();
+      if (readFeature(feature)) {
+        for (final Entry<String, Object> entry : feature.properties.entrySet()) {
+          final String name = entry.getKey();
+          final Object value = entry.getValue();
+          fieldTypes.put(name, mergeDataType(fieldTypes.get(name), value));
+        }
+        final Geometry geometry = feature.geometry;
+        if (geometry != null) {
+          final DataType type = geometry.getDataType();
+          if (geometryType == null) {
+            geometryType = type;
+          } else if (geometryType != type) {
+            geometryType = GeometryDataTypes.GEOMETRY;
+          }
+        }
+        this.sample.add(feature);
+      } else {
+        allRead = true;
+      }
+    }
+
+    final RecordDefinitionBuilder builder = new RecordDefinitionBuilder(this.baseName);
+    for (final Entry<String, DataType> entry : fieldTypes.entrySet()) {
+      final String name = entry.getKey();
+      DataType type = entry.getValue();
+      if (type == null) {
+        type = DataTypes.STRING;
+      }
+      builder.addField(name, type);
+    }
+    if (geometryType == null || !allRead) {
+      // Later features may have a different geometry type
+      geometryType = GeometryDataTypes.GEOMETRY;
+    }
+    final RecordDefinition recordDefinition = builder.addField("GEOMETRY", geometryType)
+      .setGeometryFactory(getGeometryFactory())
+      .getRecordDefinition();
+    setRecordDefinition(recordDefinition);
+  }
+
+  private boolean isPosition(final EventType event) {
+    return event == EventType.number || event == EventType.nullValue;
+  }
+
+  @Override
+  protected GeometryFactory loadGeometryFactory() {
+    return GeometryFactory.floating3d(EpsgId.WGS84);
+  }
+
+  private Geometry newGeometry(final GeometryFactory geometryFactory, final String type,
+    final Object coordinates, final List<Geometry> geometries) {
+    if (GeoJson.POINT.equals(type)) {
+      if (coordinates instanceof final Point point) {
+        return point;
+      } else {
+        return geometryFactory.point();
+      }
+    } else if (GeoJson.LINE_STRING.equals(type)) {
+      if (coordinates instanceof final LineString line) {
+        return line;
+      } else {
+        return geometryFactory.lineString();
+      }
+    } else if (GeoJson.POLYGON.equals(type)) {
+      if (coordinates instanceof final List<?> rings) {
+        return newPolygon(geometryFactory, rings);
+      } else {
+        return geometryFactory.polygon();
+      }
+    } else if (GeoJson.MULTI_POINT.equals(type)) {
+      if (coordinates instanceof final LineString points) {
+        return points.getGeometryFactory()
+          .punctual(points);
+      } else if (coordinates instanceof final Point point) {
+        return point;
+      } else {
+        return geometryFactory.punctual();
+      }
+    } else if (GeoJson.MULTI_LINE_STRING.equals(type)) {
+      if (coordinates instanceof final List<?> lines && !lines.isEmpty()) {
+        return getPartGeometryFactory(geometryFactory, lines.get(0)).lineal(lines);
+      } else if (coordinates instanceof final LineString line) {
+        return line;
+      } else {
+        return geometryFactory.lineal();
+      }
+    } else if (GeoJson.MULTI_POLYGON.equals(type)) {
+      if (coordinates instanceof final List<?> polygonsRings && !polygonsRings.isEmpty()) {
+        final List<Polygon> polygons = new ArrayList<>(polygonsRings.size());
+        for (final Object rings : polygonsRings) {
+          if (rings instanceof final List<?> ringList) {
+            polygons.add(newPolygon(geometryFactory, ringList));
+          }
+        }
+        if (polygons.isEmpty()) {
+          return geometryFactory.polygonal();
+        } else {
+          return polygons.get(0)
+            .getGeometryFactory()
+            .polygonal(polygons);
+        }
+      } else {
+        return geometryFactory.polygonal();
+      }
+    } else if (GeoJson.GEOMETRY_COLLECTION.equals(type)) {
+      if (geometries == null) {
+        return geometryFactory.geometryCollection();
+      } else {
+        return geometryFactory.geometry(geometries);
+      }
+    } else {
+      return null;
+    }
+  }
+
+  private Polygon newPolygon(final GeometryFactory geometryFactory, final List<?> rings) {
+    if (rings.isEmpty()) {
+      return geometryFactory.polygon();
+    } else {
+      return getPartGeometryFactory(geometryFactory, rings.get(0)).polygon(rings);
+    }
+  }
+
+  private Record newRecord(final Feature feature) {
+    final Record record = newRecord();
+    record.setState(RecordState.INITIALIZING);
+    for (final Entry<String, Object> entry : feature.properties.entrySet()) {
+      record.setValue(entry.getKey(), entry.getValue());
+    }
+    if (feature.geometry != null) {
+      record.setGeometryValue(feature.geometry);
+    }
+    record.setState(RecordState.PERSISTED);
+    return record;
+  }
+
+  /**
+   * Read the contents of a coordinates array. The current event must be the
+   * first event after the start of the array.
+   *
+   * @return A {@link Point} for a position, a {@link LineString} for an array
+   *         of positions or a list of the nested arrays.
+   */
+  private Object readCoordinates(final GeometryFactory geometryFactory, final boolean ring) {
+    final GeoJsonTokenizer in = this.in;
+    final EventType event = in.getEvent();
+    if (event == EventType.endArray) {
+      return Collections.emptyList();
+    } else if (event == EventType.number || event == EventType.nullValue) {
+      final int axisCount = readPosition(0, 4);
+      final double[] coordinates = Arrays.copyOf(this.coordinates, axisCount);
+      return geometryFactory.convertAxisCount(axisCount)
+        .point(coordinates);
+    } else if (event == EventType.startArray) {
+      if (isPosition(in.next())) {
+        return readLine(geometryFactory, ring);
+      } else {
+        final List<Object> parts = new ArrayList<>();
+        parts.add(readCoordinates(geometryFactory, ring));
+        for (EventType partEvent = in.next(); partEvent != EventType.endArray; partEvent = in
+          .next()) {
+          if (partEvent == EventType.startArray) {
+            in.next();
+            parts.add(readCoordinates(geometryFactory, ring));
+          } else {
+            throw new IllegalStateException("Expecting start array, not: " + in);
+          }
+        }
+        return parts;
+      }
+    } else {
+      throw new IllegalStateException("Expecting coordinates, not: " + in);
+    }
+  }
+
+  private GeometryFactory readCoordinateSystem() {
+    final Object crs = this.in.readValue();
+    if (crs instanceof final JsonObject crsObject) {
+      final JsonObject properties = crsObject.getJsonObject(GeoJson.PROPERTIES);
+      if (properties != null) {
+        final String name = properties.getString(GeoJson.NAME);
+        if (name != null) {
+          if (name.startsWith(GeoJson.URN_OGC_DEF_CRS_EPSG)) {
+            final int srid = Integer
+              .parseInt(name.substring(GeoJson.URN_OGC_DEF_CRS_EPSG.length()));
+            return GeometryFactory.floating3d(srid);
+          } else if (name.startsWith(GeoJson.EPSG)) {
+            final int srid = Integer.parseInt(name.substring(GeoJson.EPSG.length()));
+            return GeometryFactory.floating3d(srid);
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Read the next feature from the document, navigating through the
+   * FeatureCollection if required.
+   *
+   * @return True if a feature was read, false at the end of the document.
+   */
+  private boolean readFeature(final Feature feature) {
+    final GeoJsonTokenizer in = this.in;
+    while (true) {
+      final EventType event = in.next();
+      if (this.inFeatures) {
+        if (event == EventType.startObject) {
+          readFeatureMembers(feature);
+          return true;
+        } else if (event == EventType.endArray) {
+          this.inFeatures = false;
+        } else {
+          throw new IllegalStateException("Expecting a feature, not: " + in);
+        }
+      } else if (this.inRoot) {
+        if (event == EventType.label) {
+          if (in.isString(GeoJson.FEATURES)) {
+            if (in.next() == EventType.startArray) {
+              this.inFeatures = true;
+            } else {
+              in.skipValue();
+            }
+          } else {
+            readFeatureMember(feature);
+          }
+        } else if (event == EventType.endObject) {
+          this.inRoot = false;
+          if (feature.hasValue) {
+            return true;
+          }
+        } else {
+          throw new IllegalStateException("Expecting a label, not: " + in);
+        }
+      } else if (event == EventType.startObject) {
+        this.inRoot = true;
+      } else if (event == EventType.startArray) {
+        this.inFeatures = true;
+      } else if (event == EventType.endDocument) {
+        return false;
+      } else {
+        throw new IllegalStateException("Expecting an object or array, not: " + in);
+      }
+    }
+  }
+
+  /**
+   * Read the value of a feature member. The current event must be the label.
+   */
+  private void readFeatureMember(final Feature feature) {
+    final GeoJsonTokenizer in = this.in;
+    if (in.isString(GeoJson.PROPERTIES)) {
+      feature.hasValue = true;
+      if (in.next() == EventType.startObject) {
+        readProperties(feature);
+      } else {
+        in.skipValue();
+      }
+    } else if (in.isString(GeoJson.GEOMETRY)) {
+      feature.hasValue = true;
+      in.next();
+      feature.geometry = readGeometry(getGeometryFactory());
+    } else if (in.isString(GeoJson.CRS)) {
+      in.next();
+      final GeometryFactory geometryFactory = readCoordinateSystem();
+      if (geometryFactory != null) {
+        setGeometryFactory(geometryFactory);
+      }
+    } else {
+      in.next();
+      in.skipValue();
+    }
+  }
+
+  private void readFeatureMembers(final Feature feature) {
+    final GeoJsonTokenizer in = this.in;
+    for (EventType event = in.next(); event != EventType.endObject; event = in.next()) {
+      if (event == EventType.label) {
+        readFeatureMember(feature);
+      } else {
+        throw new IllegalStateException("Expecting a label, not: " + in);
+      }
+    }
+  }
+
+  /**
+   * Read a geometry object. The current event must be the start of the object
+   * or a null value.
+   */
+  private Geometry readGeometry(final GeometryFactory defaultGeometryFactory) {
+    final GeoJsonTokenizer in = this.in;
+    EventType event = in.getEvent();
+    if (event == EventType.nullValue) {
+      return null;
+    } else if (event != EventType.startObject) {
+      throw new IllegalStateException("Expecting a geometry, not: " + in);
+    }
+    GeometryFactory geometryFactory = defaultGeometryFactory;
+    String type = null;
+    Object coordinates = null;
+    List<Geometry> geometries = null;
+    for (event = in.next(); event != EventType.endObject; event = in.next()) {
+      if (event != EventType.label) {
+        throw new IllegalStateException("Expecting a label, not: " + in);
+      } else if (in.isString(GeoJson.TYPE)) {
+        in.next();
+        type = in.getString();
+      } else if (in.isString(GeoJson.COORDINATES)) {
+        if (in.next() == EventType.startArray) {
+          in.next();
+          final boolean ring = GeoJson.POLYGON.equals(type) || GeoJson.MULTI_POLYGON.equals(type);
+          coordinates = readCoordinates(geometryFactory, ring);
+        } else {
+          in.skipValue();
+        }
+      } else if (in.isString(GeoJson.GEOMETRIES)) {
+        if (in.next() == EventType.startArray) {
+          geometries = new ArrayList<>();
+          for (EventType geometryEvent = in.next(); geometryEvent != EventType.endArray; geometryEvent = in
+            .next()) {
+            final Geometry geometry = readGeometry(geometryFactory);
+            if (geometry != null) {
+              geometries.add(geometry);
+            }
+          }
+        } else {
+          in.skipValue();
+        }
+      } else if (in.isString(GeoJson.CRS)) {
+        in.next();
+        final GeometryFactory crsGeometryFactory = readCoordinateSystem();
+        if (crsGeometryFactory != null) {
+          geometryFactory = crsGeometryFactory;
+        }
+      } else {
+        in.next();
+        in.skipValue();
+      }
+    }
+    return newGeometry(geometryFactory, type, coordinates, geometries);
+  }
+
+  /**
+   * Read an array of positions into the coordinates buffer and copy them to a
+   * new line. The current event must be the first value of the first position.
+   * The axis count is taken from the first position, missing values in later
+   * positions are set to NaN and extra values are ignored.
+   */
+  private LineString readLine(final GeometryFactory geometryFactory, final boolean ring) {
+    final GeoJsonTokenizer in = this.in;
+    final int axisCount = readPosition(0, 4);
+    int vertexCount = 1;
+    for (EventType event = in.next(); event != EventType.endArray; event = in.next()) {
+      if (event != EventType.startArray) {
+        throw new IllegalStateException("Expecting a position, not: " + in);
+      }
+      final int offset = vertexCount * axisCount;
+      if (offset + axisCount > this.coordinates.length) {
+        this.coordinates = Arrays.copyOf(this.coordinates, this.coordinates.length * 2);
+      }
+      in.next();
+      readPosition(offset, axisCount);
+      vertexCount++;
+    }
+    final GeometryFactory lineGeometryFactory = geometryFactory.convertAxisCount(axisCount);
+    if (ring) {
+      return lineGeometryFactory.linearRing(axisCount, vertexCount, this.coordinates);
+    } else {
+      return lineGeometryFactory.lineString(axisCount, vertexCount, this.coordinates);
+    }
+  }
+
+  /**
+   * Read the position into the coordinates buffer at the offset. The current
+   * event must be the first value in the position.
+   *
+   * @return The axis count of the position, a minimum of 2 and maximum of
+   *         maxAxisCount.
+   */
+  private int readPosition(final int offset, final int maxAxisCount) {
+    final double[] coordinates = this.coordinates;
+    final int valueCount = this.in.readNumbers(coordinates, offset, maxAxisCount);
+    if (valueCount < 2) {
+      throw new IllegalStateException("A position must have at least 2 values: " + this.in);
+    }
+    final int axisCount = Math.min(valueCount, maxAxisCount);
+    for (int axisIndex = axisCount; axisIndex < maxAxisCount; axisIndex++) {
+      coordinates[offset + axisIndex] = Double.NaN;
+    }
+    return axisCount;
+  }
+
+  /**
+   * Read the properties object into the record or the sample properties. The
+   * current event must be the start of the object.
+   */
+  private void readProperties(final Feature feature) {
+    final GeoJsonTokenizer in = this.in;
+    final Record record = feature.record;
+    final RecordDefinition recordDefinition = record == null ? null : record.getRecordDefinition();
+    for (EventType event = in.next(); event != EventType.endObject; event = in.next()) {
+      if (event != EventType.label) {
+        throw new IllegalStateException("Expecting a label, not: " + in);
+      }
+      final String name = in.getString();
+      in.next();
+      if (record == null) {
+        feature.properties.addValue(name, in.readValue());
+      } else {
+        final FieldDefinition field = recordDefinition.getField(name);
+        if (field == null) {
+          in.skipValue();
+        } else {
+          record.setValue(field.getIndex(), in.readValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Set the number of features used to infer the record definition.
+   */
+  public GeoJsonRecordReader setSampleSize(final int sampleSize) {
+    this.sampleSize = Math.max(1, sampleSize);
+    return this;
+  }
+}
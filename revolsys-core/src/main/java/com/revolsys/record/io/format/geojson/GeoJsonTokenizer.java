@@ -0,0 +1,460 @@
+package com.revolsys.record.io.format.geojson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.revolsys.collection.json.JsonList;
+import com.revolsys.collection.json.JsonObject;
+import com.revolsys.collection.json.JsonObjectHash;
+import com.revolsys.collection.json.JsonParser.EventType;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.number.Doubles;
+import com.revolsys.util.BaseCloseable;
+
+/**
+ * A pull tokenizer for GeoJSON documents that reads from a fixed size character
+ * buffer. Numbers are parsed directly to a double (or long) without creating
+ * intermediate {@link java.math.BigDecimal} or {@link String} objects so
+ * coordinates can be copied straight into coordinate arrays. Commas and colons
+ * are consumed by the tokenizer; a string followed by a colon is returned as a
+ * {@link EventType#label}.
+ */
+final class GeoJsonTokenizer implements BaseCloseable {
+  private boolean booleanValue;
+
+  private final char[] buffer = new char[65536];
+
+  private int bufferLimit;
+
+  private int bufferPosition;
+
+  private int currentCharacter;
+
+  private double doubleValue;
+
+  private EventType event = EventType.startDocument;
+
+  private boolean integral;
+
+  private long longValue;
+
+  private char[] number = new char[32];
+
+  private int numberLength;
+
+  private Reader reader;
+
+  private final StringBuilder text = new StringBuilder();
+
+  GeoJsonTokenizer(final Reader reader) {
+    this.reader = reader;
+    this.currentCharacter = read();
+  }
+
+  private void appendNumber(final int c) {
+    if (this.numberLength == this.number.length) {
+      this.number = Arrays.copyOf(this.number, this.numberLength * 2);
+    }
+    this.number[this.numberLength++] = (char)c;
+  }
+
+  @Override
+  public void close() {
+    BaseCloseable.closeSilent(this.reader);
+    this.reader = null;
+  }
+
+  private void expect(final String constant) {
+    for (int i = 0; i < constant.length(); i++) {
+      if (this.currentCharacter != constant.charAt(i)) {
+        throw new IllegalStateException("Expecting " + constant + " not: " + this);
+      }
+      this.currentCharacter = read();
+    }
+  }
+
+  /**
+   * Get the value of the current boolean event.
+   */
+  boolean getBoolean() {
+    return this.booleanValue;
+  }
+
+  /**
+   * Get the current number as a double.
+   */
+  double getDouble() {
+    return this.doubleValue;
+  }
+
+  EventType getEvent() {
+    return this.event;
+  }
+
+  /**
+   * Get the current number as a {@link Long} if it was an integer that fits in
+   * a long or a {@link Double} otherwise.
+   */
+  Number getNumber() {
+    if (this.integral) {
+      return this.longValue;
+    } else {
+      return this.doubleValue;
+    }
+  }
+
+  /**
+   * Get the text of the current label or string.
+   */
+  String getString() {
+    return this.text.toString();
+  }
+
+  boolean isString(final String value) {
+    final StringBuilder text = this.text;
+    final int length = value.length();
+    if (text.length() == length) {
+      for (int i = 0; i < length; i++) {
+        if (text.charAt(i) != value.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Read the next event skipping any commas or colons.
+   */
+  EventType next() {
+    skipSeparators();
+    final int c = this.currentCharacter;
+    final EventType event;
+    switch (c) {
+      case '{':
+        event = EventType.startObject;
+        this.currentCharacter = read();
+      break;
+      case '}':
+        event = EventType.endObject;
+        this.currentCharacter = read();
+      break;
+      case '[':
+        event = EventType.startArray;
+        this.currentCharacter = read();
+      break;
+      case ']':
+        event = EventType.endArray;
+        this.currentCharacter = read();
+      break;
+      case '"':
+        readString();
+        skipWhitespace();
+        if (this.currentCharacter == ':') {
+          this.currentCharacter = read();
+          event = EventType.label;
+        } else {
+          event = EventType.string;
+        }
+      break;
+      case 't':
+        expect("true");
+        this.booleanValue = true;
+        event = EventType.booleanValue;
+      break;
+      case 'f':
+        expect("false");
+        this.booleanValue = false;
+        event = EventType.booleanValue;
+      break;
+      case 'n':
+        expect("null");
+        event = EventType.nullValue;
+      break;
+      case -1:
+        event = EventType.endDocument;
+      break;
+      default:
+        if (c == '-' || c >= '0' && c <= '9') {
+          readNumber();
+          event = EventType.number;
+        } else {
+          throw new IllegalStateException("Unexpected character: " + this);
+        }
+      break;
+    }
+    this.event = event;
+    return event;
+  }
+
+  private int read() {
+    if (this.bufferPosition == this.bufferLimit) {
+      try {
+        int count;
+        do {
+          count = this.reader.read(this.buffer);
+        } while (count == 0);
+        if (count < 0) {
+          return -1;
+        }
+        this.bufferPosition = 0;
+        this.bufferLimit = count;
+      } catch (final IOException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+    }
+    return this.buffer[this.bufferPosition++];
+  }
+
+  private void readNumber() {
+    this.numberLength = 0;
+    boolean negative = false;
+    if (this.currentCharacter == '-') {
+      negative = true;
+      appendNumber(this.currentCharacter);
+      this.currentCharacter = read();
+    }
+    long mantissa = 0;
+    int digitCount = 0;
+    int exponent = 0;
+    boolean integral = true;
+    for (int c = this.currentCharacter; c >= '0' && c <= '9'; c = this.currentCharacter) {
+      mantissa = mantissa * 10 + c - '0';
+      digitCount++;
+      appendNumber(c);
+      this.currentCharacter = read();
+    }
+    if (this.currentCharacter == '.') {
+      integral = false;
+      appendNumber(this.currentCharacter);
+      this.currentCharacter = read();
+      for (int c = this.currentCharacter; c >= '0' && c <= '9'; c = this.currentCharacter) {
+        mantissa = mantissa * 10 + c - '0';
+        digitCount++;
+        exponent--;
+        appendNumber(c);
+        this.currentCharacter = read();
+      }
+    }
+    boolean exponentOverflow = false;
+    if (this.currentCharacter == 'e' || this.currentCharacter == 'E') {
+      integral = false;
+      appendNumber(this.currentCharacter);
+      this.currentCharacter = read();
+      boolean negativeExponent = false;
+      if (this.currentCharacter == '-' || this.currentCharacter == '+') {
+        negativeExponent = this.currentCharacter == '-';
+        appendNumber(this.currentCharacter);
+        this.currentCharacter = read();
+      }
+      int explicitExponent = 0;
+      for (int c = this.currentCharacter; c >= '0' && c <= '9'; c = this.currentCharacter) {
+        if (explicitExponent < 10000) {
+          explicitExponent = explicitExponent * 10 + c - '0';
+        } else {
+          exponentOverflow = true;
+        }
+        appendNumber(c);
+        this.currentCharacter = read();
+      }
+      if (negativeExponent) {
+        exponent -= explicitExponent;
+      } else {
+        exponent += explicitExponent;
+      }
+    }
+    if (digitCount == 0) {
+      throw new IllegalStateException("Invalid number: " + this);
+    }
+    if (digitCount <= 18 && !exponentOverflow) {
+      if (integral) {
+        this.integral = true;
+        this.longValue = negative ? -mantissa : mantissa;
+        this.doubleValue = this.longValue;
+        return;
+      } else {
+        final double value = Doubles.toDoubleExact(mantissa, exponent);
+        if (!Double.isNaN(value)) {
+          this.integral = false;
+          this.doubleValue = negative ? -value : value;
+          return;
+        }
+      }
+    }
+    this.integral = false;
+    this.doubleValue = Double.parseDouble(new String(this.number, 0, this.numberLength));
+  }
+
+  /**
+   * Read the numbers in the array into the coordinates starting at offset. The
+   * current event must be the first value in the array (or the
+   * {@link EventType#endArray} for an empty array). A null value is read as
+   * {@link Double#NaN}.
+   *
+   * @return The number of values in the array, values past maxCount are
+   *         skipped.
+   */
+  int readNumbers(final double[] coordinates, final int offset, final int maxCount) {
+    int count = 0;
+    for (EventType event = this.event; event != EventType.endArray; event = next()) {
+      if (event == EventType.number) {
+        if (count < maxCount) {
+          coordinates[offset + count] = this.doubleValue;
+        }
+        count++;
+      } else if (event == EventType.nullValue) {
+        if (count < maxCount) {
+          coordinates[offset + count] = Double.NaN;
+        }
+        count++;
+      } else {
+        throw new IllegalStateException("Expecting a number not: " + this);
+      }
+    }
+    return count;
+  }
+
+  private void readString() {
+    final StringBuilder text = this.text;
+    text.setLength(0);
+    int c = read();
+    while (c != '"') {
+      if (c == -1) {
+        throw new IllegalStateException("Unterminated string: " + text);
+      } else if (c == '\\') {
+        c = read();
+        switch (c) {
+          case 'b':
+            text.append('\b');
+          break;
+          case 'f':
+            text.append('\f');
+          break;
+          case 'n':
+            text.append('\n');
+          break;
+          case 'r':
+            text.append('\r');
+          break;
+          case 't':
+            text.append('\t');
+          break;
+          case 'u':
+            int unicode = 0;
+            for (int i = 0; i < 4; i++) {
+              final int digit = Character.digit(read(), 16);
+              if (digit < 0) {
+                throw new IllegalStateException("Invalid unicode escape: " + text);
+              }
+              unicode = unicode * 16 + digit;
+            }
+            text.append((char)unicode);
+          break;
+          case '"':
+          case '\\':
+          case '/':
+            text.append((char)c);
+          break;
+          default:
+            throw new IllegalStateException("Invalid escape character: \\" + (char)c);
+        }
+      } else {
+        text.append((char)c);
+      }
+      c = read();
+    }
+    this.currentCharacter = read();
+  }
+
+  /**
+   * Read the current value into a Java object. Objects and arrays are read
+   * into a {@link JsonObject} or {@link JsonList}.
+   */
+  Object readValue() {
+    switch (this.event) {
+      case booleanValue:
+        return this.booleanValue;
+      case nullValue:
+        return null;
+      case number:
+        return getNumber();
+      case string:
+        return getString();
+      case startArray: {
+        final JsonList list = JsonList.array();
+        for (EventType event = next(); event != EventType.endArray; event = next()) {
+          list.add(readValue());
+        }
+        return list;
+      }
+      case startObject: {
+        final JsonObject object = new JsonObjectHash();
+        for (EventType event = next(); event != EventType.endObject; event = next()) {
+          if (event == EventType.label) {
+            final String label = getString();
+            next();
+            object.addValue(label, readValue());
+          } else {
+            throw new IllegalStateException("Expecting a label not: " + this);
+          }
+        }
+        return object;
+      }
+      default:
+        throw new IllegalStateException("Expecting a value not: " + this);
+    }
+  }
+
+  private void skipSeparators() {
+    int c = this.currentCharacter;
+    while (c == ',' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t'
+      || c == '\uFEFF') {
+      c = read();
+    }
+    this.currentCharacter = c;
+  }
+
+  /**
+   * Skip the current value, including any nested objects or arrays.
+   */
+  void skipValue() {
+    final EventType event = this.event;
+    if (event == EventType.startArray || event == EventType.startObject) {
+      int depth = 1;
+      do {
+        final EventType nextEvent = next();
+        if (nextEvent == EventType.startArray || nextEvent == EventType.startObject) {
+          depth++;
+        } else if (nextEvent == EventType.endArray || nextEvent == EventType.endObject) {
+          depth--;
+        } else if (nextEvent == EventType.endDocument) {
+          throw new IllegalStateException("Unexpected end of document");
+        }
+      } while (depth > 0);
+    }
+  }
+
+  private void skipWhitespace() {
+    int c = this.currentCharacter;
+    while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+      c = read();
+    }
+    this.currentCharacter = c;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder string = new StringBuilder();
+    string.append(this.event);
+    if (this.currentCharacter >= 0) {
+      string.append(' ');
+      string.append((char)this.currentCharacter);
+      final int count = Math.min(80, this.bufferLimit - this.bufferPosition);
+      string.append(this.buffer, this.bufferPosition, count);
+    }
+    return string.toString();
+  }
+}
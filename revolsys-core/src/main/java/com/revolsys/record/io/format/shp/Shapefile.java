@@ -34,6 +34,14 @@ public class Shapefile extends AbstractRecordIoFactory implements RecordWriterFa
   @Override
   public RecordReader newRecordReader(final Resource resource,
     final RecordFactory<? extends Record> recordFactory, final MapEx properties) {
+    final int workerCount = properties == null ? 0
+      : properties.getInteger(ShapefileConstants.WORKER_COUNT, 0);
+    if (workerCount > 1 && resource.isFile()) {
+      final ShapefileParallelRecordReader reader = new ShapefileParallelRecordReader(resource,
+        recordFactory);
+      reader.setWorkerCount(workerCount);
+      return reader;
+    }
     try {
       return new ShapefileRecordReader(resource, recordFactory);
     } catch (final IOException e) {
@@ -78,10 +78,21 @@ public class ShapefileConstants {
 
   public static final int POLYLINE_ZM_SHAPE = 13;
 
+  public static final String SPATIAL_INDEX_FILE_EXTENSION = "qix";
+
   public static final int UNKNOWN_SHAPE = -1;
 
   public static final int VERSION = 1000;
 
+  /**
+   * Reader property for the number of threads used to decode records (see
+   * {@link ShapefileParallelRecordReader}).
+   */
+  public static final String WORKER_COUNT = "workerCount";
+
+  /** Writer property to also write the .qix spatial index. */
+  public static final String WRITE_SPATIAL_INDEX = "writeSpatialIndex";
+
   static {
     DATA_TYPE_MAP.put(POINT_M_SHAPE, GeometryDataTypes.POINT);
     DATA_TYPE_MAP.put(POINT_Z_SHAPE, GeometryDataTypes.POINT);
@@ -251,6 +251,87 @@ public final class ShapefileGeometryHandler {
     }
   }
 
+  /**
+   * Read the shape content of a .shp record. The buffer must be positioned
+   * after the shape type in little endian byte order.
+   *
+   * @param geometryFactory The geometry factory.
+   * @param buffer The buffer to read from.
+   * @param fileShapeType The shape type from the file header, used for null shapes.
+   * @param shapeType The shape type from the record.
+   * @param recordLength The record content length in 16-bit words.
+   * @return The geometry.
+   */
+  public Geometry readGeometry(final GeometryFactory geometryFactory, final ByteBuffer buffer,
+    final int fileShapeType, final int shapeType, final int recordLength) {
+    switch (shapeType) {
+      case ShapefileConstants.NULL_SHAPE:
+        switch (fileShapeType) {
+          case ShapefileConstants.POINT_SHAPE:
+          case ShapefileConstants.POINT_M_SHAPE:
+          case ShapefileConstants.POINT_Z_SHAPE:
+          case ShapefileConstants.POINT_ZM_SHAPE:
+          case ShapefileConstants.MULTI_POINT_SHAPE:
+          case ShapefileConstants.MULTI_POINT_M_SHAPE:
+          case ShapefileConstants.MULTI_POINT_Z_SHAPE:
+          case ShapefileConstants.MULTI_POINT_ZM_SHAPE:
+            return geometryFactory.point();
+
+          case ShapefileConstants.POLYLINE_SHAPE:
+          case ShapefileConstants.POLYLINE_M_SHAPE:
+          case ShapefileConstants.POLYLINE_Z_SHAPE:
+          case ShapefileConstants.POLYLINE_ZM_SHAPE:
+            return geometryFactory.lineString();
+
+          case ShapefileConstants.POLYGON_SHAPE:
+          case ShapefileConstants.POLYGON_M_SHAPE:
+          case ShapefileConstants.POLYGON_Z_SHAPE:
+          case ShapefileConstants.POLYGON_ZM_SHAPE:
+            return geometryFactory.polygon();
+          default:
+            throw new IllegalArgumentException(
+              "Shapefile shape type not supported: " + fileShapeType);
+        }
+      case ShapefileConstants.POINT_SHAPE:
+        return readPoint(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POINT_M_SHAPE:
+        return readPointM(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POINT_Z_SHAPE:
+        return readPointZ(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POINT_ZM_SHAPE:
+        return readPointZM(geometryFactory, buffer, recordLength);
+
+      case ShapefileConstants.MULTI_POINT_SHAPE:
+        return readMultipoint(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.MULTI_POINT_M_SHAPE:
+        return readMultipointM(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.MULTI_POINT_Z_SHAPE:
+        return readMultipointZ(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.MULTI_POINT_ZM_SHAPE:
+        return readMultipointZM(geometryFactory, buffer, recordLength);
+
+      case ShapefileConstants.POLYLINE_SHAPE:
+        return readPolyline(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POLYLINE_M_SHAPE:
+        return readPolylineM(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POLYLINE_Z_SHAPE:
+        return readPolylineZ(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POLYLINE_ZM_SHAPE:
+        return readPolylineZM(geometryFactory, buffer, recordLength);
+
+      case ShapefileConstants.POLYGON_SHAPE:
+        return readPolygon(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POLYGON_M_SHAPE:
+        return readPolygonM(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POLYGON_Z_SHAPE:
+        return readPolygonZ(geometryFactory, buffer, recordLength);
+      case ShapefileConstants.POLYGON_ZM_SHAPE:
+        return readPolygonZM(geometryFactory, buffer, recordLength);
+      default:
+        throw new IllegalArgumentException("Shapefile shape type not supported: " + shapeType);
+    }
+  }
+
   public int[] readIntArray(final ByteBuffer buffer, final int count) {
     final int[] values = new int[count];
     for (int i = 0; i < count; i++) {
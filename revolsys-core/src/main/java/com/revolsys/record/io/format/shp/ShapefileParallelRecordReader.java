@@ -0,0 +1,322 @@
+package com.revolsys.record.io.format.shp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.revolsys.collection.iterator.AbstractIterator;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.geometry.model.ClockDirection;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.Buffers;
+import com.revolsys.io.IoConstants;
+import com.revolsys.logging.Logs;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordFactory;
+import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.io.format.xbase.XbaseRecordReader;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+import com.revolsys.spring.resource.Resource;
+import com.revolsys.util.BaseCloseable;
+import com.revolsys.util.concurrent.Concurrent;
+
+/**
+ * Read a shapefile by splitting it into ranges of records using the .shx
+ * offsets and the fixed width .dbf rows. Each worker thread decodes every
+ * workerCount'th range with its own file handles. The ranges are returned in
+ * file order so the reader can be used anywhere a {@link ShapefileRecordReader}
+ * is used.
+ */
+public class ShapefileParallelRecordReader extends AbstractIterator<Record>
+  implements RecordReader {
+
+  private record Chunk(List<Record> records, Throwable exception) {
+  }
+
+  private class Worker implements Runnable, BaseCloseable {
+    private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(2);
+
+    private FileChannel indexIn;
+
+    private FileChannel in;
+
+    private XbaseRecordReader xbaseRecordReader;
+
+    private final int workerIndex;
+
+    private Worker(final int workerIndex) {
+      this.workerIndex = workerIndex;
+    }
+
+    @Override
+    public void close() {
+      BaseCloseable.closeSilent(this.in, this.indexIn);
+      if (this.xbaseRecordReader != null) {
+        this.xbaseRecordReader.forceClose();
+      }
+    }
+
+    private List<Record> readChunk(final int chunkIndex) throws IOException {
+      final int startIndex = chunkIndex * ShapefileParallelRecordReader.this.chunkSize;
+      final int count = Math.min(ShapefileParallelRecordReader.this.chunkSize,
+        ShapefileParallelRecordReader.this.recordCount - startIndex);
+
+      final ByteBuffer indexBuffer = ByteBuffer.allocate(count * 8);
+      this.indexIn.position(100 + startIndex * 8L);
+      Buffers.readAll(this.indexIn, indexBuffer);
+      final long startOffset = indexBuffer.getInt(0) * 2L;
+      final long endOffset = indexBuffer.getInt((count - 1) * 8) * 2L
+        + indexBuffer.getInt((count - 1) * 8 + 4) * 2L + 8;
+
+      final ByteBuffer buffer = ByteBuffer.allocate((int)(endOffset - startOffset));
+      this.in.position(startOffset);
+      Buffers.readAll(this.in, buffer);
+
+      final List<Record> records = new ArrayList<>(count);
+      if (this.xbaseRecordReader == null) {
+        for (int i = 0; i < count; i++) {
+          records.add(newRecord(ShapefileParallelRecordReader.this.recordDefinition));
+        }
+      } else {
+        this.xbaseRecordReader.readRecords(startIndex, count, records::add);
+      }
+      for (int i = 0; i < records.size(); i++) {
+        final Record record = records.get(i);
+        if (record != null) {
+          final int recordOffset = (int)(indexBuffer.getInt(i * 8) * 2L - startOffset);
+          buffer.order(ByteOrder.BIG_ENDIAN);
+          buffer.position(recordOffset + 4);
+          final int recordLength = buffer.getInt();
+          buffer.order(ByteOrder.LITTLE_ENDIAN);
+          final int shapeType = buffer.getInt();
+          try {
+            final Geometry geometry = HANDLER.readGeometry(
+              ShapefileParallelRecordReader.this.geometryFactory, buffer,
+              ShapefileParallelRecordReader.this.shapeType, shapeType, recordLength);
+            record.setGeometryValue(geometry);
+          } catch (final IllegalArgumentException e) {
+            Logs.error(this, "Error reading geometry from:"
+              + ShapefileParallelRecordReader.this.resource + "\n" + record, e);
+          }
+        }
+      }
+      records.removeIf(record -> record == null);
+      return records;
+    }
+
+    @Override
+    public void run() {
+      final ShapefileParallelRecordReader reader = ShapefileParallelRecordReader.this;
+      try {
+        final var path = reader.resource.getPath();
+        this.in = FileChannel.open(path, StandardOpenOption.READ);
+        final Resource indexResource = reader.resource.newResourceChangeExtension("shx");
+        this.indexIn = FileChannel.open(indexResource.getPath(), StandardOpenOption.READ);
+        final Resource xbaseResource = reader.resource.newResourceChangeExtension("dbf");
+        if (xbaseResource != null && xbaseResource.exists()) {
+          this.xbaseRecordReader = new XbaseRecordReader(xbaseResource, reader.recordFactory);
+          this.xbaseRecordReader
+            .setRecordDefinition((RecordDefinitionImpl)reader.recordDefinition);
+        }
+        for (int chunkIndex = this.workerIndex; chunkIndex < reader.chunkCount
+          && !reader.isClosed(); chunkIndex += reader.workerCount) {
+          List<Record> records;
+          try {
+            records = readChunk(chunkIndex);
+          } catch (final Throwable e) {
+            this.chunks.put(new Chunk(null, e));
+            return;
+          }
+          this.chunks.put(new Chunk(records, null));
+        }
+      } catch (final InterruptedException e) {
+        return;
+      } catch (final Throwable e) {
+        try {
+          this.chunks.put(new Chunk(null, e));
+        } catch (final InterruptedException e1) {
+        }
+      } finally {
+        close();
+      }
+    }
+  }
+
+  private static final ShapefileGeometryHandler HANDLER = ShapefileGeometryHandler.SHP_INSTANCE;
+
+  private int chunkCount;
+
+  private int chunkIndex = 0;
+
+  private int chunkSize = 10000;
+
+  private volatile boolean closed = false;
+
+  private GeometryFactory geometryFactory;
+
+  private int recordCount;
+
+  private RecordDefinition recordDefinition;
+
+  private RecordFactory recordFactory;
+
+  private List<Record> records = List.of();
+
+  private int recordIndex = 0;
+
+  private Resource resource;
+
+  private int shapeType;
+
+  private int workerCount = Runtime.getRuntime()
+    .availableProcessors();
+
+  private final List<Worker> workers = new ArrayList<>();
+
+  private final List<Thread> threads = new ArrayList<>();
+
+  public ShapefileParallelRecordReader(final Resource resource, final RecordFactory factory) {
+    this.resource = resource;
+    this.recordFactory = factory;
+  }
+
+  @Override
+  protected void closeDo() {
+    this.closed = true;
+    for (final Thread thread : this.threads) {
+      thread.interrupt();
+    }
+    this.threads.clear();
+    this.workers.clear();
+    this.records = List.of();
+  }
+
+  public int getChunkSize() {
+    return this.chunkSize;
+  }
+
+  @Override
+  protected Record getNext() {
+    while (this.recordIndex >= this.records.size()) {
+      if (this.chunkIndex >= this.chunkCount) {
+        throw new NoSuchElementException();
+      }
+      final Worker worker = this.workers.get(this.chunkIndex % this.workerCount);
+      this.chunkIndex++;
+      final Chunk chunk;
+      try {
+        chunk = worker.chunks.take();
+      } catch (final InterruptedException e) {
+        throw Exceptions.toRuntimeException(e);
+      }
+      if (chunk.exception() != null) {
+        throw Exceptions.toRuntimeException(chunk.exception());
+      }
+      this.records = chunk.records();
+      this.recordIndex = 0;
+    }
+    return this.records.get(this.recordIndex++);
+  }
+
+  @Override
+  public ClockDirection getPolygonRingDirection() {
+    return ClockDirection.CLOCKWISE;
+  }
+
+  public int getRecordCount() {
+    open();
+    return this.recordCount;
+  }
+
+  @Override
+  public RecordDefinition getRecordDefinition() {
+    open();
+    return this.recordDefinition;
+  }
+
+  @Override
+  public RecordFactory getRecordFactory() {
+    return this.recordFactory;
+  }
+
+  public int getWorkerCount() {
+    return this.workerCount;
+  }
+
+  @Override
+  protected void initDo() {
+    try (
+      ShapefileRecordReader reader = new ShapefileRecordReader(this.resource,
+        this.recordFactory)) {
+      final GeometryFactory geometryFactory = getProperty(IoConstants.GEOMETRY_FACTORY);
+      if (geometryFactory != null) {
+        reader.setProperty(IoConstants.GEOMETRY_FACTORY, geometryFactory);
+      }
+      this.recordDefinition = reader.getRecordDefinition();
+      this.geometryFactory = reader.getProperty(IoConstants.GEOMETRY_FACTORY);
+      this.shapeType = reader.getShapeType();
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+    setProperty(IoConstants.GEOMETRY_FACTORY, this.geometryFactory);
+
+    final Resource indexResource = this.resource.newResourceChangeExtension("shx");
+    if (!this.resource.isFile() || indexResource == null || !indexResource.exists()) {
+      throw new IllegalArgumentException(
+        "Parallel reading requires a .shp and .shx file: " + this.resource);
+    }
+    try {
+      this.recordCount = (int)((indexResource.contentLength() - 100) / 8);
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+    this.chunkCount = (this.recordCount + this.chunkSize - 1) / this.chunkSize;
+    this.workerCount = Math.max(1, Math.min(this.workerCount, this.chunkCount));
+
+    final var threadFactory = Concurrent.platform("ShapefileReader-");
+    for (int i = 0; i < this.workerCount; i++) {
+      final Worker worker = new Worker(i);
+      this.workers.add(worker);
+      this.threads.add(threadFactory.start(worker));
+    }
+  }
+
+  private boolean isClosed() {
+    return this.closed;
+  }
+
+  private Record newRecord(final RecordDefinition recordDefinition) {
+    return this.recordFactory.newRecord(recordDefinition);
+  }
+
+  /**
+   * Set the number of records decoded as a unit by a worker.
+   *
+   * @param chunkSize The number of records.
+   */
+  public void setChunkSize(final int chunkSize) {
+    if (chunkSize > 0) {
+      this.chunkSize = chunkSize;
+    }
+  }
+
+  public void setWorkerCount(final int workerCount) {
+    if (workerCount > 0) {
+      this.workerCount = workerCount;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return ShapefileConstants.DESCRIPTION + " " + this.resource;
+  }
+}
@@ -2,10 +2,14 @@ package com.revolsys.record.io.format.shp;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.NoSuchElementException;
 
 import com.revolsys.collection.iterator.AbstractIterator;
 import com.revolsys.data.type.DataType;
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.ClockDirection;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryDataTypes;
@@ -13,6 +17,7 @@ import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.io.EndOfFileException;
 import com.revolsys.io.IoConstants;
 import com.revolsys.io.PathName;
+import com.revolsys.io.RandomAccess;
 import com.revolsys.io.endian.EndianInput;
 import com.revolsys.io.endian.EndianInputStream;
 import com.revolsys.io.endian.EndianMappedByteBuffer;
@@ -30,8 +35,15 @@ import com.revolsys.util.BaseCloseable;
 import com.revolsys.util.Property;
 
 public class ShapefileRecordReader extends AbstractIterator<Record> implements RecordReader {
+  private static final ShapefileGeometryHandler HANDLER = ShapefileGeometryHandler.SHP_INSTANCE;
+
+  private BoundingBox boundingBox;
+
   private boolean closeFile = true;
 
+  private ByteBuffer geometryBuffer = ByteBuffer.allocate(1024)
+    .order(ByteOrder.LITTLE_ENDIAN);
+
   private GeometryFactory geometryFactory;
 
   private EndianInput in;
@@ -46,6 +58,10 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
 
   private RecordFactory recordFactory;
 
+  private int recordIndex;
+
+  private int[] recordIndexes;
+
   private Resource resource;
 
   private RecordDefinition returnRecordDefinition;
@@ -81,6 +97,7 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     this.geometryFactory = null;
     this.in = null;
     this.indexIn = null;
+    this.recordIndexes = null;
     this.recordDefinition = null;
     this.resource = null;
     this.xbaseRecordReader = null;
@@ -88,33 +105,32 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
 
   @Override
   protected Record getNext() {
-    Record record;
-    try {
-      if (this.xbaseRecordReader != null) {
-        if (this.xbaseRecordReader.hasNext()) {
-          record = this.xbaseRecordReader.next();
-          for (int i = 0; i < this.xbaseRecordReader.getDeletedCount(); i++) {
-            this.position++;
-            readGeometry();
-          }
+    if (this.boundingBox == null) {
+      return readNextRecord();
+    } else {
+      while (true) {
+        final Record record;
+        if (this.recordIndexes == null) {
+          record = readNextRecord();
         } else {
-          throw new NoSuchElementException();
+          record = readIndexedRecord();
+        }
+        if (record != null) {
+          final Geometry geometry = record.getGeometry();
+          if (geometry != null && !geometry.isEmpty()
+            && this.boundingBox.bboxIntersects(geometry.getBoundingBox())) {
+            return record;
+          }
         }
-      } else {
-        record = this.recordFactory.newRecord(this.recordDefinition);
-      }
-
-      try {
-        final Geometry geometry = readGeometry();
-        record.setGeometryValue(geometry);
-      } catch (final IllegalArgumentException e) {
-        Logs.error(this, "Error reading geometry from:" + this.resource + "\n" + record, e);
       }
-    } catch (final EndOfFileException e) {
-      throw new NoSuchElementException();
-    } catch (final IOException e) {
-      throw new RuntimeException("Error reading geometry " + this.resource, e);
     }
+  }
+
+  public BoundingBox getBoundingBox() {
+    return this.boundingBox;
+  }
+
+  private Record getReturnRecord(final Record record) {
     if (this.returnRecordDefinition == null) {
       return record;
     } else {
@@ -144,6 +160,11 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     return this.recordFactory;
   }
 
+  public int getShapeType() {
+    open();
+    return this.shapeType;
+  }
+
   public PathName getTypeName() {
     return this.typeName;
   }
@@ -214,12 +235,39 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
           this.recordDefinition = Records.newGeometryRecordDefinition();
         }
         this.recordDefinition.setGeometryFactory(this.geometryFactory);
+        if (this.boundingBox != null) {
+          this.boundingBox = this.boundingBox.bboxToCs(this.geometryFactory);
+          initSpatialIndex();
+        }
       } catch (final IOException e) {
         throw new RuntimeException("Error initializing mappedFile " + this.resource, e);
       }
     }
   }
 
+  /**
+   * Use the .qix spatial index (if it exists) to find the candidate records for
+   * the bounding box. The .shp, .shx and .dbf must all be seekable files.
+   */
+  private void initSpatialIndex() throws IOException {
+    if (this.in instanceof RandomAccess && this.resource.isFile()) {
+      final Resource indexResource = this.resource.newResourceChangeExtension("shx");
+      final Resource spatialIndexResource = this.resource
+        .newResourceChangeExtension(ShapefileConstants.SPATIAL_INDEX_FILE_EXTENSION);
+      if (indexResource != null && indexResource.exists() && spatialIndexResource != null
+        && spatialIndexResource.exists()) {
+        final int[] recordIndexes = ShapefileSpatialIndex.query(spatialIndexResource,
+          this.boundingBox.getMinX(), this.boundingBox.getMinY(), this.boundingBox.getMaxX(),
+          this.boundingBox.getMaxY());
+        if (recordIndexes != null) {
+          this.indexIn = new EndianMappedByteBuffer(indexResource.getFile(), MapMode.READ_ONLY);
+          this.recordIndexes = recordIndexes;
+          this.recordIndex = 0;
+        }
+      }
+    }
+  }
+
   public boolean isCloseFile() {
     return this.closeFile;
   }
@@ -246,76 +294,108 @@ public class ShapefileRecordReader extends AbstractIterator<Record> implements R
     final double maxM = this.in.readLEDouble();
   }
 
+  /**
+   * Read the next .shp record into the geometry buffer and decode it using the
+   * same {@link ShapefileGeometryHandler} as
+   * {@link ShapefileParallelRecordReader}.
+   *
+   * @return The geometry.
+   * @throws IOException If an I/O error occurs.
+   */
   @SuppressWarnings("unused")
   private Geometry readGeometry() throws IOException {
     final int recordNumber = this.in.readInt();
     final int recordLength = this.in.readInt();
     final int shapeType = this.in.readLEInt();
-    final ShapefileGeometryUtil util = ShapefileGeometryUtil.SHP_INSTANCE;
-    switch (shapeType) {
-      case ShapefileConstants.NULL_SHAPE:
-        switch (this.shapeType) {
-          case ShapefileConstants.POINT_SHAPE:
-          case ShapefileConstants.POINT_M_SHAPE:
-          case ShapefileConstants.POINT_Z_SHAPE:
-          case ShapefileConstants.POINT_ZM_SHAPE:
-          case ShapefileConstants.MULTI_POINT_SHAPE:
-          case ShapefileConstants.MULTI_POINT_M_SHAPE:
-          case ShapefileConstants.MULTI_POINT_Z_SHAPE:
-          case ShapefileConstants.MULTI_POINT_ZM_SHAPE:
-            return this.geometryFactory.point();
+    final int contentLength = recordLength * 2 - 4;
+    ByteBuffer buffer = this.geometryBuffer;
+    if (buffer.capacity() < contentLength) {
+      buffer = ByteBuffer.allocate(contentLength)
+        .order(ByteOrder.LITTLE_ENDIAN);
+      this.geometryBuffer = buffer;
+    }
+    buffer.clear();
+    this.in.readFully(buffer.array(), 0, contentLength);
+    buffer.limit(contentLength);
+    return HANDLER.readGeometry(this.geometryFactory, buffer, this.shapeType, shapeType,
+      recordLength);
+  }
 
-          case ShapefileConstants.POLYLINE_SHAPE:
-          case ShapefileConstants.POLYLINE_M_SHAPE:
-          case ShapefileConstants.POLYLINE_Z_SHAPE:
-          case ShapefileConstants.POLYLINE_ZM_SHAPE:
-            return this.geometryFactory.lineString();
+  /**
+   * Read the next candidate record from the spatial index. Seek to the record's
+   * offset in the .shp from the .shx and read the .dbf row at the same index.
+   *
+   * @return The record or null if the record was deleted.
+   */
+  private Record readIndexedRecord() {
+    if (this.recordIndex >= this.recordIndexes.length) {
+      throw new NoSuchElementException();
+    }
+    final int index = this.recordIndexes[this.recordIndex++];
+    try {
+      this.indexIn.seek(100 + index * 8L);
+      final long offset = this.indexIn.readInt() * 2L;
+      ((RandomAccess)this.in).seek(offset);
+      this.position = index;
+      Record record;
+      if (this.xbaseRecordReader == null) {
+        record = this.recordFactory.newRecord(this.recordDefinition);
+      } else {
+        record = this.xbaseRecordReader.readRecord(index);
+        if (record == null) {
+          return null;
+        }
+      }
+      try {
+        final Geometry geometry = readGeometry();
+        record.setGeometryValue(geometry);
+      } catch (final IllegalArgumentException e) {
+        Logs.error(this, "Error reading geometry from:" + this.resource + "\n" + record, e);
+      }
+      return getReturnRecord(record);
+    } catch (final EndOfFileException | IndexOutOfBoundsException e) {
+      throw new NoSuchElementException();
+    } catch (final IOException e) {
+      throw new RuntimeException("Error reading geometry " + this.resource, e);
+    }
+  }
 
-          case ShapefileConstants.POLYGON_SHAPE:
-          case ShapefileConstants.POLYGON_M_SHAPE:
-          case ShapefileConstants.POLYGON_Z_SHAPE:
-          case ShapefileConstants.POLYGON_ZM_SHAPE:
-            return this.geometryFactory.polygon();
-          default:
-            throw new IllegalArgumentException("Shapefile shape type not supported: " + shapeType);
+  private Record readNextRecord() {
+    Record record;
+    try {
+      if (this.xbaseRecordReader != null) {
+        if (this.xbaseRecordReader.hasNext()) {
+          record = this.xbaseRecordReader.next();
+          for (int i = 0; i < this.xbaseRecordReader.getDeletedCount(); i++) {
+            this.position++;
+            readGeometry();
+          }
+        } else {
+          throw new NoSuchElementException();
         }
-      case ShapefileConstants.POINT_SHAPE:
-        return util.readPoint(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POINT_M_SHAPE:
-        return util.readPointM(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POINT_Z_SHAPE:
-        return util.readPointZ(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POINT_ZM_SHAPE:
-        return util.readPointZM(this.geometryFactory, this.in, recordLength);
-
-      case ShapefileConstants.MULTI_POINT_SHAPE:
-        return util.readMultipoint(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.MULTI_POINT_M_SHAPE:
-        return util.readMultipointM(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.MULTI_POINT_Z_SHAPE:
-        return util.readMultipointZ(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.MULTI_POINT_ZM_SHAPE:
-        return util.readMultipointZM(this.geometryFactory, this.in, recordLength);
-
-      case ShapefileConstants.POLYLINE_SHAPE:
-        return util.readPolyline(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POLYLINE_M_SHAPE:
-        return util.readPolylineM(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POLYLINE_Z_SHAPE:
-        return util.readPolylineZ(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POLYLINE_ZM_SHAPE:
-        return util.readPolylineZM(this.geometryFactory, this.in, recordLength);
-
-      case ShapefileConstants.POLYGON_SHAPE:
-        return util.readPolygon(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POLYGON_M_SHAPE:
-        return util.readPolygonM(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POLYGON_Z_SHAPE:
-        return util.readPolygonZ(this.geometryFactory, this.in, recordLength);
-      case ShapefileConstants.POLYGON_ZM_SHAPE:
-        return util.readPolygonZM(this.geometryFactory, this.in, recordLength);
-      default:
-        throw new IllegalArgumentException("Shapefile shape type not supported: " + shapeType);
+      } else {
+        record = this.recordFactory.newRecord(this.recordDefinition);
+      }
+
+      try {
+        final Geometry geometry = readGeometry();
+        record.setGeometryValue(geometry);
+      } catch (final IllegalArgumentException e) {
+        Logs.error(this, "Error reading geometry from:" + this.resource + "\n" + record, e);
+      }
+    } catch (final EndOfFileException e) {
+      throw new NoSuchElementException();
+    } catch (final IOException e) {
+      throw new RuntimeException("Error reading geometry " + this.resource, e);
+    }
+    return getReturnRecord(record);
+  }
+
+  public void setBoundingBox(final BoundingBox boundingBox) {
+    if (boundingBox == null || boundingBox.isEmpty()) {
+      this.boundingBox = null;
+    } else {
+      this.boundingBox = boundingBox;
     }
   }
 
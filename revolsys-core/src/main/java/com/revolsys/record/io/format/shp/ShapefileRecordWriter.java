@@ -2,9 +2,11 @@ package com.revolsys.record.io.format.shp;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
 import com.revolsys.data.type.DataType;
 import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.ClockDirection;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryDataTypes;
@@ -47,8 +49,12 @@ public class ShapefileRecordWriter extends XbaseRecordWriter {
 
   private final Resource resource;
 
+  private double[] shapeBounds;
+
   private int shapeType = ShapefileConstants.NULL_SHAPE;
 
+  private boolean writeSpatialIndex = false;
+
   public ShapefileRecordWriter(final RecordDefinitionProxy recordDefinition,
     final Resource resource) {
     super(recordDefinition, resource.newResourceChangeExtension("dbf"));
@@ -79,11 +85,20 @@ public class ShapefileRecordWriter extends XbaseRecordWriter {
       if (this.indexOut != null) {
         updateHeader(this.indexOut);
       }
+      if (this.shapeBounds != null) {
+        final Resource spatialIndexResource = this.resource
+          .newResourceChangeExtension(ShapefileConstants.SPATIAL_INDEX_FILE_EXTENSION);
+        if (spatialIndexResource != null) {
+          ShapefileSpatialIndex.write(spatialIndexResource, this.shapeBounds,
+            this.recordNumber - 1);
+        }
+      }
     } catch (final IOException e) {
       Logs.error(this, e.getMessage(), e);
     } finally {
       this.out = null;
       this.indexOut = null;
+      this.shapeBounds = null;
     }
   }
 
@@ -125,6 +140,14 @@ public class ShapefileRecordWriter extends XbaseRecordWriter {
           this.indexOut = new ResourceEndianOutput(indexResource);
           writeHeader(this.indexOut);
         }
+        if (!this.writeSpatialIndex) {
+          final Object writeSpatialIndex = getProperty(ShapefileConstants.WRITE_SPATIAL_INDEX);
+          this.writeSpatialIndex = Boolean.TRUE.equals(writeSpatialIndex)
+            || "true".equals(writeSpatialIndex);
+        }
+        if (this.writeSpatialIndex) {
+          this.shapeBounds = new double[4 * 1024];
+        }
         this.geometryFactory = getProperty(IoConstants.GEOMETRY_FACTORY);
         final Object geometryType = getProperty(IoConstants.GEOMETRY_TYPE);
         if (geometryType != null) {
@@ -134,6 +157,10 @@ public class ShapefileRecordWriter extends XbaseRecordWriter {
     }
   }
 
+  public boolean isWriteSpatialIndex() {
+    return this.writeSpatialIndex;
+  }
+
   @Override
   protected void preFirstWrite(final Record record) throws IOException {
     if (this.geometryFieldName != null) {
@@ -158,11 +185,37 @@ public class ShapefileRecordWriter extends XbaseRecordWriter {
     }
   }
 
+  /**
+   * Also write a .qix quad tree spatial index so readers can use
+   * {@link ShapefileRecordReader#setBoundingBox(com.revolsys.geometry.model.BoundingBox)}
+   * without reading every record. Must be set before the first record is
+   * written.
+   *
+   * @param writeSpatialIndex True if the index should be written.
+   */
+  public void setWriteSpatialIndex(final boolean writeSpatialIndex) {
+    this.writeSpatialIndex = writeSpatialIndex;
+  }
+
   @Override
   public String toString() {
     return "ShapefileWriter(" + this.resource + ")";
   }
 
+  private void setShapeBounds(final int shapeIndex, final double minX, final double minY,
+    final double maxX, final double maxY) {
+    if (this.shapeBounds != null) {
+      final int offset = shapeIndex * 4;
+      if (offset + 4 > this.shapeBounds.length) {
+        this.shapeBounds = Arrays.copyOf(this.shapeBounds, this.shapeBounds.length * 2);
+      }
+      this.shapeBounds[offset] = minX;
+      this.shapeBounds[offset + 1] = minY;
+      this.shapeBounds[offset + 2] = maxX;
+      this.shapeBounds[offset + 3] = maxY;
+    }
+  }
+
   private void updateHeader(final ResourceEndianOutput out) throws IOException {
     if (out != null) {
       out.seek(24);
@@ -191,12 +244,17 @@ public class ShapefileRecordWriter extends XbaseRecordWriter {
       if (geometry != null) {
         geometry = geometry.convertGeometry(this.geometryFactory);
       }
+      final int shapeIndex = this.recordNumber - 1;
       this.out.writeInt(this.recordNumber++);
       if (geometry == null || geometry.isEmpty()) {
         writeNull(this.out);
+        setShapeBounds(shapeIndex, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
       } else {
         this.boundingBox.addBbox(geometry);
         SHP_WRITER.write(this.geometryWriteMethod, this.out, geometry);
+        final BoundingBox geometryBoundingBox = geometry.getBoundingBox();
+        setShapeBounds(shapeIndex, geometryBoundingBox.getMinX(), geometryBoundingBox.getMinY(),
+          geometryBoundingBox.getMaxX(), geometryBoundingBox.getMaxY());
       }
       if (this.indexOut != null) {
         final long recordLength = this.out.getFilePointer() - recordIndex;
@@ -0,0 +1,325 @@
+package com.revolsys.record.io.format.shp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.revolsys.exception.Exceptions;
+import com.revolsys.io.Buffers;
+import com.revolsys.io.channels.ChannelWriter;
+import com.revolsys.spring.resource.Resource;
+
+/**
+ * Read and write a quad tree spatial index sidecar (.qix) for a shapefile. The
+ * file layout is compatible with the MapServer/GDAL shptree .qix format so
+ * indexes created by those tools can be used and vice versa.
+ *
+ * <pre>
+ * "SQT" byteOrder(1=LSB, 2=MSB) version(1) reserved(3) shapeCount maxDepth
+ * node: childrenByteCount minX minY maxX maxY shapeCount shapeId* childCount node*
+ * </pre>
+ */
+public class ShapefileSpatialIndex {
+
+  private static class Node {
+    private final double minX;
+
+    private final double minY;
+
+    private final double maxX;
+
+    private final double maxY;
+
+    private int[] ids = new int[0];
+
+    private int idCount = 0;
+
+    private Node[] children;
+
+    private Node(final double minX, final double minY, final double maxX, final double maxY) {
+      this.minX = minX;
+      this.minY = minY;
+      this.maxX = maxX;
+      this.maxY = maxY;
+    }
+
+    private void addId(final int id) {
+      if (this.idCount == this.ids.length) {
+        this.ids = Arrays.copyOf(this.ids, Math.max(4, this.idCount * 2));
+      }
+      this.ids[this.idCount++] = id;
+    }
+
+    private boolean contains(final double minX, final double minY, final double maxX,
+      final double maxY) {
+      return this.minX <= minX && maxX <= this.maxX && this.minY <= minY && maxY <= this.maxY;
+    }
+
+    private long getChildrenByteCount() {
+      long byteCount = 0;
+      if (this.children != null) {
+        for (final Node child : this.children) {
+          byteCount += NODE_BYTE_COUNT + child.idCount * 4L + child.getChildrenByteCount();
+        }
+      }
+      return byteCount;
+    }
+
+    private void insert(final int id, final double minX, final double minY, final double maxX,
+      final double maxY, final int depth) {
+      if (depth > 1) {
+        if (this.children == null) {
+          final Node[] quads = split();
+          for (final Node quad : quads) {
+            if (quad.contains(minX, minY, maxX, maxY)) {
+              this.children = quads;
+              break;
+            }
+          }
+        }
+        if (this.children != null) {
+          for (final Node child : this.children) {
+            if (child.contains(minX, minY, maxX, maxY)) {
+              child.insert(id, minX, minY, maxX, maxY, depth - 1);
+              return;
+            }
+          }
+        }
+      }
+      addId(id);
+    }
+
+    private Node[] split() {
+      final Node[] halves = splitHalf(this.minX, this.minY, this.maxX, this.maxY);
+      final Node[] quads1 = splitHalf(halves[0].minX, halves[0].minY, halves[0].maxX,
+        halves[0].maxY);
+      final Node[] quads2 = splitHalf(halves[1].minX, halves[1].minY, halves[1].maxX,
+        halves[1].maxY);
+      return new Node[] {
+        quads1[0], quads1[1], quads2[0], quads2[1]
+      };
+    }
+
+    /**
+     * Remove the empty branches of the tree.
+     *
+     * @return True if the node and its children are empty.
+     */
+    private boolean trim() {
+      if (this.children != null) {
+        final List<Node> children = new ArrayList<>(4);
+        for (final Node child : this.children) {
+          if (!child.trim()) {
+            children.add(child);
+          }
+        }
+        if (children.isEmpty()) {
+          this.children = null;
+        } else {
+          this.children = children.toArray(new Node[children.size()]);
+        }
+      }
+      return this.children == null && this.idCount == 0;
+    }
+
+    private void write(final ChannelWriter out) {
+      out.putInt((int)getChildrenByteCount());
+      out.putDouble(this.minX);
+      out.putDouble(this.minY);
+      out.putDouble(this.maxX);
+      out.putDouble(this.maxY);
+      out.putInt(this.idCount);
+      for (int i = 0; i < this.idCount; i++) {
+        out.putInt(this.ids[i]);
+      }
+      if (this.children == null) {
+        out.putInt(0);
+      } else {
+        out.putInt(this.children.length);
+        for (final Node child : this.children) {
+          child.write(out);
+        }
+      }
+    }
+  }
+
+  private static final byte BYTE_ORDER_LSB = 1;
+
+  private static final byte BYTE_ORDER_MSB = 2;
+
+  private static final int HEADER_BYTE_COUNT = 16;
+
+  /** The maximum depth of the tree, the same limit as shptree. */
+  public static final int MAX_DEPTH = 12;
+
+  /** The bytes in a node excluding the ids and children. */
+  private static final int NODE_BYTE_COUNT = 4 + 4 * 8 + 4 + 4;
+
+  private static final byte[] SIGNATURE = {
+    'S', 'Q', 'T'
+  };
+
+  private static final double SPLIT_RATIO = 0.55;
+
+  private static final byte VERSION = 1;
+
+  /**
+   * Get the depth of the tree for the number of shapes, so there are about 4
+   * shapes per node. The depth is between 1 and {@link #MAX_DEPTH}.
+   *
+   * @param shapeCount The number of shapes.
+   * @return The depth.
+   */
+  public static int getMaxDepth(final int shapeCount) {
+    int maxDepth = 0;
+    int nodeCount = 1;
+    while (maxDepth < MAX_DEPTH && nodeCount * 4 < shapeCount) {
+      maxDepth++;
+      nodeCount *= 2;
+    }
+    return Math.max(maxDepth, 1);
+  }
+
+  /**
+   * Get the sorted 0-based record indexes of all the shapes whose index node
+   * intersects the bounding box. The shapes must still be checked against the
+   * bounding box as the index only contains the bounding box of the node.
+   *
+   * @param resource The .qix resource.
+   * @return The record indexes or null if the index doesn't exist.
+   */
+  public static int[] query(final Resource resource, final double minX, final double minY,
+    final double maxX, final double maxY) {
+    if (resource == null || !resource.exists()) {
+      return null;
+    }
+    try (
+      ReadableByteChannel in = resource.newReadableByteChannel()) {
+      final long size = resource.contentLength();
+      if (size < HEADER_BYTE_COUNT || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      final ByteBuffer buffer = ByteBuffer.allocate((int)size);
+      Buffers.readAll(in, buffer);
+      for (final byte b : SIGNATURE) {
+        if (buffer.get() != b) {
+          return null;
+        }
+      }
+      final byte byteOrder = buffer.get();
+      if (byteOrder == BYTE_ORDER_MSB) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+      } else {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+      }
+      buffer.get(); // version
+      buffer.position(HEADER_BYTE_COUNT);
+
+      final int[] counts = new int[1];
+      final int[] ids = queryNode(buffer, minX, minY, maxX, maxY, new int[1024], counts);
+      final int[] result = Arrays.copyOf(ids, counts[0]);
+      Arrays.sort(result);
+      return result;
+    } catch (final IOException e) {
+      throw Exceptions.toRuntimeException(e);
+    }
+  }
+
+  private static int[] queryNode(final ByteBuffer buffer, final double minX, final double minY,
+    final double maxX, final double maxY, int[] ids, final int[] counts) {
+    final int childrenByteCount = buffer.getInt();
+    final double nodeMinX = buffer.getDouble();
+    final double nodeMinY = buffer.getDouble();
+    final double nodeMaxX = buffer.getDouble();
+    final double nodeMaxY = buffer.getDouble();
+    final int idCount = buffer.getInt();
+    if (nodeMinX > maxX || nodeMaxX < minX || nodeMinY > maxY || nodeMaxY < minY) {
+      buffer.position(buffer.position() + idCount * 4 + 4 + childrenByteCount);
+    } else {
+      int count = counts[0];
+      if (count + idCount > ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(ids.length * 2, count + idCount));
+      }
+      for (int i = 0; i < idCount; i++) {
+        ids[count++] = buffer.getInt();
+      }
+      counts[0] = count;
+      final int childCount = buffer.getInt();
+      for (int i = 0; i < childCount; i++) {
+        ids = queryNode(buffer, minX, minY, maxX, maxY, ids, counts);
+      }
+    }
+    return ids;
+  }
+
+  private static Node[] splitHalf(final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final double width = maxX - minX;
+    final double height = maxY - minY;
+    if (width > height) {
+      final double splitWidth = width * SPLIT_RATIO;
+      return new Node[] {
+        new Node(minX, minY, minX + splitWidth, maxY), new Node(maxX - splitWidth, minY, maxX, maxY)
+      };
+    } else {
+      final double splitHeight = height * SPLIT_RATIO;
+      return new Node[] {
+        new Node(minX, minY, maxX, minY + splitHeight), new Node(minX, maxY - splitHeight, maxX, maxY)
+      };
+    }
+  }
+
+  /**
+   * Write the spatial index for the shapes.
+   *
+   * @param resource The .qix resource.
+   * @param bounds The minX, minY, maxX, maxY of each shape. Null shapes have NaN
+   *          bounds.
+   * @param shapeCount The number of shapes.
+   */
+  public static void write(final Resource resource, final double[] bounds, final int shapeCount) {
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < shapeCount; i++) {
+      final int offset = i * 4;
+      if (!Double.isNaN(bounds[offset])) {
+        minX = Math.min(minX, bounds[offset]);
+        minY = Math.min(minY, bounds[offset + 1]);
+        maxX = Math.max(maxX, bounds[offset + 2]);
+        maxY = Math.max(maxY, bounds[offset + 3]);
+      }
+    }
+    if (minX > maxX) {
+      minX = minY = maxX = maxY = 0;
+    }
+    final int maxDepth = getMaxDepth(shapeCount);
+    final Node root = new Node(minX, minY, maxX, maxY);
+    for (int i = 0; i < shapeCount; i++) {
+      final int offset = i * 4;
+      if (!Double.isNaN(bounds[offset])) {
+        root.insert(i, bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3],
+          maxDepth);
+      }
+    }
+    root.trim();
+
+    try (
+      ChannelWriter out = resource.newChannelWriter(8192, ByteOrder.LITTLE_ENDIAN)) {
+      out.putBytes(SIGNATURE);
+      out.putByte(BYTE_ORDER_LSB);
+      out.putByte(VERSION);
+      out.putByte((byte)0);
+      out.putByte((byte)0);
+      out.putByte((byte)0);
+      out.putInt(shapeCount);
+      out.putInt(maxDepth);
+      root.write(out);
+    }
+  }
+}
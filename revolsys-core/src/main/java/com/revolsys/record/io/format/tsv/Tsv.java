@@ -22,6 +22,7 @@ import com.revolsys.record.io.format.csv.CsvMapIterator;
 import com.revolsys.record.io.format.csv.CsvMapWriter;
 import com.revolsys.record.io.format.csv.CsvRecordReader;
 import com.revolsys.record.io.format.csv.CsvRecordWriter;
+import com.revolsys.record.io.format.csv.ParallelCsvRecordReader;
 import com.revolsys.record.schema.RecordDefinition;
 import com.revolsys.record.schema.RecordDefinitionProxy;
 import com.revolsys.spring.resource.Resource;
@@ -94,10 +95,19 @@ public class Tsv extends AbstractRecordIoFactory implements RecordWriterFactory,
   @Override
   public RecordReader newRecordReader(final Resource resource,
     final RecordFactory<? extends Record> recordFactory, final MapEx properties) {
-    final CsvRecordReader reader = new CsvRecordReader(resource, recordFactory,
-      Tsv.FIELD_SEPARATOR);
-    reader.setProperties(properties);
-    return reader;
+    final int threadCount = properties == null ? 1 : properties.getInteger("threadCount", 1);
+    if (threadCount > 1 && resource.isFile()) {
+      final ParallelCsvRecordReader reader = new ParallelCsvRecordReader(resource, recordFactory,
+        Tsv.FIELD_SEPARATOR).setThreadCount(threadCount)
+          .setOrdered(properties.getBoolean("ordered", true));
+      reader.setProperties(properties);
+      return reader;
+    } else {
+      final CsvRecordReader reader = new CsvRecordReader(resource, recordFactory,
+        Tsv.FIELD_SEPARATOR);
+      reader.setProperties(properties);
+      return reader;
+    }
   }
 
   @Override
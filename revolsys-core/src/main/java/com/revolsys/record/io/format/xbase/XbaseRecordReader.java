@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
@@ -12,6 +13,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 import com.revolsys.collection.iterator.AbstractIterator;
 import com.revolsys.data.type.DataType;
@@ -67,6 +69,8 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
 
   private Runnable initCallback;
 
+  private int headerSize;
+
   private int recordCount;
 
   private int position = 0;
@@ -297,7 +301,7 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
       final int d = header.get();
       // properties.put(new QName("date"), new Date(y, m - 1, d));
       this.recordCount = header.getInt();
-      final short headerSize = header.getShort();
+      this.headerSize = header.getShort() & 0xFFFF;
 
       this.recordSize = header.getShort();
     } else {
@@ -331,6 +335,78 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     return record;
   }
 
+  /**
+   * Read the record at the 0-based index in the file. The file must be
+   * seekable. The sequential {@link #next()} position is not valid after this
+   * method is called.
+   *
+   * @param index The record index.
+   * @return The record or null if the record was deleted.
+   */
+  public Record readRecord(final int index) {
+    open();
+    if (this.in instanceof final SeekableByteChannel seekableChannel) {
+      try {
+        seekableChannel.position(this.headerSize + (long)index * this.recordSize);
+        this.recordBuffer.clear();
+        final int readCount = Buffers.readAll(this.in, this.recordBuffer);
+        if (readCount != this.recordSize) {
+          throw new NoSuchElementException();
+        } else {
+          final int deleteFlag = this.recordBuffer.get();
+          if (deleteFlag == ' ') {
+            this.position = index + 1;
+            return loadRecord();
+          } else {
+            return null;
+          }
+        }
+      } catch (final IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+    } else {
+      throw new UnsupportedOperationException("Cannot seek in " + this.resource);
+    }
+  }
+
+  /**
+   * Read count records starting at the 0-based index in the file with a single
+   * read of the file. The file must be seekable. Deleted records are passed to
+   * the action as null so the caller can keep in step with the .shp file.
+   *
+   * @param index The index of the first record.
+   * @param count The number of records to read.
+   * @param action The action to perform on each record.
+   */
+  public void readRecords(final int index, final int count, final Consumer<Record> action) {
+    open();
+    if (this.in instanceof final SeekableByteChannel seekableChannel) {
+      final ByteBuffer recordBuffer = this.recordBuffer;
+      try {
+        seekableChannel.position(this.headerSize + (long)index * this.recordSize);
+        final ByteBuffer buffer = ByteBuffer.allocate(count * this.recordSize);
+        final int readCount = Buffers.readAll(this.in, buffer);
+        final int recordCount = Math.max(0, readCount) / this.recordSize;
+        for (int i = 0; i < recordCount; i++) {
+          this.recordBuffer = buffer.slice(i * this.recordSize, this.recordSize);
+          final int deleteFlag = this.recordBuffer.get();
+          if (deleteFlag == ' ') {
+            action.accept(loadRecord());
+          } else {
+            action.accept(null);
+          }
+        }
+        this.position = index + recordCount;
+      } catch (final IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      } finally {
+        this.recordBuffer = recordBuffer;
+      }
+    } else {
+      throw new UnsupportedOperationException("Cannot seek in " + this.resource);
+    }
+  }
+
   private void readRecordDefinition() throws IOException {
     this.recordDefinition = new RecordDefinitionImpl(this.typeName);
     if (this.exists) {
@@ -387,6 +463,17 @@ public class XbaseRecordReader extends AbstractIterator<Record> implements Recor
     this.closeFile = closeFile;
   }
 
+  /**
+   * Use a record definition with the same fields as the file (e.g. one shared
+   * with another reader of the same file) for new records.
+   *
+   * @param recordDefinition The record definition.
+   */
+  public void setRecordDefinition(final RecordDefinitionImpl recordDefinition) {
+    open();
+    this.recordDefinition = recordDefinition;
+  }
+
   public void setTypeName(final PathName typeName) {
     this.typeName = typeName;
   }
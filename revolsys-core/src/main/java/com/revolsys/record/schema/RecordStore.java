@@ -413,6 +413,18 @@ public interface RecordStore extends GeometryFactoryProxy, RecordDefinitionFacto
 
   int getRecordCount(Query query);
 
+  /**
+   * Get an estimate of the number of records matching the query. Record stores
+   * that can read the estimate from the database's query planner statistics
+   * override this method. The default is the exact {@link #getRecordCount(Query)}.
+   *
+   * @param query The query.
+   * @return The estimated number of records.
+   */
+  default int getRecordCountEstimate(final Query query) {
+    return getRecordCount(query);
+  }
+
   @Override
   default <RD extends RecordDefinition> RD getRecordDefinition(final CharSequence path) {
     final PathName pathName = PathName.newPathName(path);
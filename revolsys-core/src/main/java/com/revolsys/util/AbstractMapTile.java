@@ -48,6 +48,16 @@ public abstract class AbstractMapTile<D> implements BoundingBoxProxy {
     return this.heightPixels;
   }
 
+  /**
+   * Get the approximate number of bytes used by the loaded tile, used to limit
+   * the size of the in memory tile cache. Defaults to 4 bytes per pixel.
+   *
+   * @return The number of bytes.
+   */
+  public long getSizeBytes() {
+    return (long)this.widthPixels * this.heightPixels * 4;
+  }
+
   public int getWidthPixels() {
     return this.widthPixels;
   }
@@ -57,6 +67,10 @@ public abstract class AbstractMapTile<D> implements BoundingBoxProxy {
     return this.boundingBox.hashCode();
   }
 
+  public synchronized boolean isLoading() {
+    return this.loading;
+  }
+
   public final D loadData() {
     D data;
     synchronized (this) {
@@ -18,7 +18,7 @@ import com.revolsys.exception.Exceptions;
 import com.revolsys.logging.Logs;
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.channel.ChannelOutput;
-import com.revolsys.parallel.channel.store.Buffer;
+import com.revolsys.parallel.channel.RingBufferChannel;
 import com.revolsys.util.BaseCloseable;
 
 public class Parallel
@@ -109,7 +109,7 @@ public class Parallel
     final Consumer<T> inputHandler) {
     Objects.requireNonNull(source, "Source required");
     Objects.requireNonNull(inputHandler, "Input handler required");
-    final var channel = new Channel<T>(new Buffer<>(workerCount));
+    final var channel = new RingBufferChannel<T>(workerCount);
     channel.writeConnect();
 
     run(() -> {
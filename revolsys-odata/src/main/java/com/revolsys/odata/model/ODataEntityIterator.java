@@ -1,10 +1,12 @@
 package com.revolsys.odata.model;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
 
+import org.apache.http.NameValuePair;
 import org.apache.olingo.commons.api.data.AbstractEntityCollection;
 import org.apache.olingo.commons.api.data.ODataEntity;
 import org.apache.olingo.commons.api.data.Operation;
@@ -28,12 +30,48 @@ public class ODataEntityIterator extends AbstractEntityCollection
   implements BaseCloseable, Iterator<ODataEntity>, Transactionable {
 
   public static class Options {
+    private boolean estimatedCount = false;
+
+    private boolean keysetPaging = false;
+
     private boolean useMaxLimit = true;
 
+    /**
+     * Use the database's estimate of the number of records for $count instead
+     * of running select count(*).
+     *
+     * @param estimatedCount True if the estimated count is used.
+     * @return this
+     */
+    public Options estimatedCount(final boolean estimatedCount) {
+      this.estimatedCount = estimatedCount;
+      return this;
+    }
+
+    public boolean isEstimatedCount() {
+      return this.estimatedCount;
+    }
+
+    public boolean isKeysetPaging() {
+      return this.keysetPaging;
+    }
+
     public boolean isUseMaxLimit() {
       return this.useMaxLimit;
     }
 
+    /**
+     * Use a $skiptoken with the order by values of the last record for the
+     * next link instead of $skip. See {@link ODataSkipToken}.
+     *
+     * @param keysetPaging True if keyset paging is used.
+     * @return this
+     */
+    public Options keysetPaging(final boolean keysetPaging) {
+      this.keysetPaging = keysetPaging;
+      return this;
+    }
+
     public Options useMaxLimit(final boolean useMaxLimit) {
       this.useMaxLimit = useMaxLimit;
       return this;
@@ -58,6 +96,14 @@ public class ODataEntityIterator extends AbstractEntityCollection
 
   private final Query query;
 
+  private final Query countQuery;
+
+  private final boolean estimatedCount;
+
+  private final boolean keysetPaging;
+
+  private Record lastRecord;
+
   private boolean countLoaded;
 
   private Integer count;
@@ -79,6 +125,15 @@ public class ODataEntityIterator extends AbstractEntityCollection
       this.countLoaded = !countOption.getValue();
     }
     this.query = query;
+    this.estimatedCount = options.isEstimatedCount();
+    this.keysetPaging = options.isKeysetPaging()
+      && ODataSkipToken.isSupported(query.getOrderBy());
+    if (this.keysetPaging) {
+      // The count must not include the $skiptoken condition
+      this.countQuery = query.clone();
+    } else {
+      this.countQuery = query;
+    }
     final ODataEntityType odataEntityType = entityType.getEntityType();
     odataEntityType.addLimits(this.query, this.uriInfo, options);
     this.skip = query.getOffset();
@@ -102,7 +157,13 @@ public class ODataEntityIterator extends AbstractEntityCollection
       this.request.getConnection()
         .transactionRun(() -> {
           final RecordStore recordStore = this.entityType.getRecordStore();
-          final Integer count = recordStore.getRecordCount(this.query.clone());
+          final Query countQuery = this.countQuery.clone();
+          final Integer count;
+          if (this.estimatedCount) {
+            count = recordStore.getRecordCountEstimate(countQuery);
+          } else {
+            count = recordStore.getRecordCount(countQuery);
+          }
           this.count = count;
         });
     }
@@ -138,7 +199,17 @@ public class ODataEntityIterator extends AbstractEntityCollection
 
   @Override
   public URI getNext() {
-    final Integer count = getCount();
+    if (this.keysetPaging) {
+      return getNextKeyset();
+    }
+    final Integer count;
+    if (this.estimatedCount) {
+      // The estimate can be less than the number of records so it is only used
+      // for $count
+      count = null;
+    } else {
+      count = getCount();
+    }
     final int totalRead = this.skip + this.readCount;
     if (count == null) {
       if (this.readCount < this.limit) {
@@ -155,6 +226,27 @@ public class ODataEntityIterator extends AbstractEntityCollection
       .build();
   }
 
+  private URI getNextKeyset() {
+    if (this.readCount < this.limit) {
+      return null;
+    }
+    final String uri = this.request.getRawRequestUri();
+    final UriBuilder uriBuilder = new UriBuilder(uri);
+    final String skipToken = ODataSkipToken.toSkipToken(this.query.getOrderBy(), this.lastRecord);
+    if (skipToken == null) {
+      // A null order by value can't be used as a key so fall back to $skip
+      final int totalRead = this.skip + this.readCount;
+      return uriBuilder.setParameter("$skip", totalRead)
+        .build();
+    } else {
+      final List<NameValuePair> parameters = new ArrayList<>(uriBuilder.getQueryParams());
+      parameters.removeIf(parameter -> "$skip".equals(parameter.getName()));
+      return uriBuilder.setParameters(parameters)
+        .setParameter("$skiptoken", skipToken)
+        .build();
+    }
+  }
+
   /**
    * {@inheritDoc}
    * <p/>
@@ -190,6 +282,9 @@ public class ODataEntityIterator extends AbstractEntityCollection
     final Iterator<Record> iterator = getIterator();
     final Record record = iterator.next();
     this.readCount++;
+    if (this.keysetPaging) {
+      this.lastRecord = record;
+    }
     return this.resultEntityType.newEntity(record);
   }
 
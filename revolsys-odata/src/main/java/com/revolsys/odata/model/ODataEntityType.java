@@ -31,6 +31,7 @@ import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectItem;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.api.uri.queryoption.SkipOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 import org.apache.olingo.server.api.uri.queryoption.TopOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
@@ -114,6 +115,10 @@ public class ODataEntityType extends CsdlEntityType {
 
   private int maxLimit = 10000;
 
+  private boolean estimatedCount = false;
+
+  private boolean keysetPaging = false;
+
   private final AbstractODataEntitySet entitySet;
 
   public ODataEntityType(final AbstractODataEntitySet entitySet, final ODataSchema schema,
@@ -139,6 +144,14 @@ public class ODataEntityType extends CsdlEntityType {
       }
     }
 
+    final SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
+    if (skipTokenOption != null && options.isKeysetPaging()) {
+      final String skipToken = skipTokenOption.getValue();
+      final Condition condition = ODataSkipToken.toCondition(getRecordDefinition(),
+        query.getOrderBy(), skipToken);
+      query.and(condition);
+    }
+
     final TopOption topOption = uriInfo.getTopOption();
     if (topOption != null) {
       final int limit = topOption.getValue();
@@ -262,6 +275,19 @@ public class ODataEntityType extends CsdlEntityType {
     return readEntity(request, null, where);
   }
 
+  public boolean isEstimatedCount() {
+    return this.estimatedCount;
+  }
+
+  public boolean isKeysetPaging() {
+    return this.keysetPaging;
+  }
+
+  public Options newOptions() {
+    return new Options().keysetPaging(this.keysetPaging)
+      .estimatedCount(this.estimatedCount);
+  }
+
   protected Query newQuery(final ODataRequest request) {
     return this.entitySet.newQuery(request);
   }
@@ -408,6 +434,11 @@ public class ODataEntityType extends CsdlEntityType {
     return newRecordDefinition(idFieldNames, fieldNames);
   }
 
+  public ODataEntityType setEstimatedCount(final boolean estimatedCount) {
+    this.estimatedCount = estimatedCount;
+    return this;
+  }
+
   public ODataEntityType setIdFieldNames(final String... idFieldNames) {
     final RecordDefinition recordDefinition = getRecordDefinition();
     final List<String> fieldNames = new ArrayList<>(recordDefinition.getFieldNames());
@@ -415,6 +446,11 @@ public class ODataEntityType extends CsdlEntityType {
     return newRecordDefinition(idNames, fieldNames);
   }
 
+  public ODataEntityType setKeysetPaging(final boolean keysetPaging) {
+    this.keysetPaging = keysetPaging;
+    return this;
+  }
+
   public ODataEntityType setMaxLimit(final int maxLimit) {
     this.maxLimit = maxLimit;
     return this;
@@ -0,0 +1,148 @@
+package com.revolsys.odata.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+import com.revolsys.collection.json.Json;
+import com.revolsys.collection.json.JsonList;
+import com.revolsys.collection.json.JsonParser;
+import com.revolsys.record.Record;
+import com.revolsys.record.query.ColumnReference;
+import com.revolsys.record.query.Condition;
+import com.revolsys.record.query.OrderBy;
+import com.revolsys.record.query.Q;
+import com.revolsys.record.query.QueryValue;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+
+/**
+ * Keyset pagination for entity collections. The $skiptoken is the Base64 URL
+ * encoded JSON list of the values of the order by fields for the last record of
+ * the previous page. The token is converted to a condition that selects the
+ * records after that record in the query's sort order, so the database can seek
+ * to the start of the page instead of scanning and discarding the offset.
+ */
+public class ODataSkipToken {
+
+  private static List<String> getFieldNames(final List<OrderBy> orderBy) {
+    final List<String> fieldNames = new ArrayList<>();
+    for (final OrderBy order : orderBy) {
+      final QueryValue field = order.getField();
+      if (field instanceof final ColumnReference column) {
+        fieldNames.add(column.getName());
+      } else {
+        return null;
+      }
+    }
+    return fieldNames;
+  }
+
+  private static ODataApplicationException invalidToken(final String skipToken) {
+    return new ODataApplicationException("Invalid value for $skiptoken=" + skipToken,
+      HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+  }
+
+  /**
+   * Check if keyset pagination can be used for the sort order. All the order by
+   * values must be fields.
+   *
+   * @param orderBy The query's order by.
+   * @return True if keyset pagination can be used.
+   */
+  public static boolean isSupported(final List<OrderBy> orderBy) {
+    return !orderBy.isEmpty() && getFieldNames(orderBy) != null;
+  }
+
+  /**
+   * Convert the $skiptoken to the condition that selects the records after the
+   * token in the sort order. For the order by fields (a, b, c) the condition is
+   * <code>a > ? or (a = ? and b > ?) or (a = ? and b = ? and c > ?)</code>
+   * using &lt; for descending fields.
+   *
+   * @param recordDefinition The record definition.
+   * @param orderBy The query's order by.
+   * @param skipToken The $skiptoken value.
+   * @return The condition.
+   * @throws ODataApplicationException If the token is not valid for the order
+   *           by.
+   */
+  public static Condition toCondition(final RecordDefinition recordDefinition,
+    final List<OrderBy> orderBy, final String skipToken) throws ODataApplicationException {
+    final List<String> fieldNames = getFieldNames(orderBy);
+    if (fieldNames == null) {
+      throw new ODataApplicationException("$skiptoken is not supported for the $orderby",
+        HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    final List<Object> values;
+    try {
+      final byte[] bytes = Base64.getUrlDecoder()
+        .decode(skipToken);
+      final String json = new String(bytes, StandardCharsets.UTF_8);
+      values = JsonParser.read(json);
+    } catch (final RuntimeException e) {
+      throw invalidToken(skipToken);
+    }
+    if (values == null || values.size() != fieldNames.size()) {
+      throw invalidToken(skipToken);
+    }
+
+    final List<Condition> conditions = new ArrayList<>();
+    final List<Condition> equalConditions = new ArrayList<>();
+    for (int i = 0; i < fieldNames.size(); i++) {
+      final String fieldName = fieldNames.get(i);
+      final FieldDefinition field = recordDefinition.getField(fieldName);
+      final Object value = values.get(i);
+      if (field == null || value == null) {
+        throw invalidToken(skipToken);
+      }
+      final Object fieldValue = field.toFieldValue(value);
+      final Condition after;
+      if (orderBy.get(i)
+        .isAscending()) {
+        after = Q.greaterThan(field, fieldValue);
+      } else {
+        after = Q.lessThan(field, fieldValue);
+      }
+      final List<Condition> pageConditions = new ArrayList<>(equalConditions);
+      pageConditions.add(after);
+      conditions.add(Q.and(pageConditions));
+      equalConditions.add(Q.equal(fieldName, fieldValue));
+    }
+    return Q.or(conditions);
+  }
+
+  /**
+   * Create the $skiptoken for the page that starts after the record.
+   *
+   * @param orderBy The query's order by.
+   * @param record The last record read.
+   * @return The token or null if the record has a null value for one of the
+   *         order by fields.
+   */
+  public static String toSkipToken(final List<OrderBy> orderBy, final Record record) {
+    final List<String> fieldNames = getFieldNames(orderBy);
+    if (fieldNames == null || record == null) {
+      return null;
+    }
+    final JsonList values = JsonList.array();
+    for (final String fieldName : fieldNames) {
+      final Object value = record.getValue(fieldName);
+      if (value == null) {
+        return null;
+      }
+      values.add(Json.toJson(value));
+    }
+    final byte[] bytes = values.toJsonString()
+      .getBytes(StandardCharsets.UTF_8);
+    return Base64.getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(bytes);
+  }
+
+}
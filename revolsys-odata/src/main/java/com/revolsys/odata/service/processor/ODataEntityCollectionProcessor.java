@@ -32,6 +32,7 @@ import com.revolsys.logging.Logs;
 import com.revolsys.odata.model.ODataEdmProvider;
 import com.revolsys.odata.model.ODataEntityIterator;
 import com.revolsys.odata.model.ODataEntityIterator.Options;
+import com.revolsys.odata.model.ODataEntityType;
 
 public class ODataEntityCollectionProcessor extends AbstractProcessor
   implements EntityCollectionProcessor {
@@ -66,8 +67,10 @@ public class ODataEntityCollectionProcessor extends AbstractProcessor
     if (uriResource instanceof final UriResourceEntitySet uriResourceEntitySet) {
       final EdmEntitySet edmEntitySet = uriResourceEntitySet.getEntitySet();
       if (segmentCount == 1) {
-        entityIterator = edmEntitySet.getEntityType()
-          .readEntityIterator(request, uriInfo, new Options());
+        final EdmEntityType edmEntityType = edmEntitySet.getEntityType();
+        final ODataEntityType entityType = edmEntityType.getEntityType();
+        final Options options = entityType.newOptions();
+        entityIterator = edmEntityType.readEntityIterator(request, uriInfo, options);
       } else if (segmentCount == 2) {
         final UriResource lastSegment = resourceParts.get(1);
         if (lastSegment instanceof UriResourceNavigationProperty) {
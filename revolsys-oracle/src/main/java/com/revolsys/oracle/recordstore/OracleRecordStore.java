@@ -352,6 +352,30 @@ public class OracleRecordStore extends AbstractJdbcRecordStore {
     }
   }
 
+  /**
+   * Get the NUM_ROWS from the optimizer statistics for queries without a where
+   * condition. Filtered queries, views and tables without statistics use the
+   * exact count.
+   */
+  @Override
+  public int getRecordCountEstimate(final Query query) {
+    if (query != null && query.getWhereCondition()
+      .isEmpty()
+      && query.getRecordDefinition() instanceof final JdbcRecordDefinition recordDefinition) {
+      final String sql = "SELECT NUM_ROWS FROM ALL_TABLES WHERE OWNER = ? AND TABLE_NAME = ?";
+      try {
+        final long numRows = selectLong(sql, recordDefinition.getDbSchemaName(),
+          recordDefinition.getDbTableName());
+        if (numRows > 0) {
+          return (int)Math.min(numRows, Integer.MAX_VALUE);
+        }
+      } catch (final IllegalArgumentException e) {
+        // Not a table so use the exact count
+      }
+    }
+    return getRecordCount(query);
+  }
+
   @Override
   public String getRecordStoreType() {
     return "Oracle";
@@ -0,0 +1,483 @@
+package com.revolsys.gis.postgresql;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.postgresql.jdbc.PgConnection;
+
+import com.revolsys.collection.json.Jsonable;
+import com.revolsys.data.type.DataType;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.exception.Exceptions;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.gis.postgresql.type.PostgreSQLBinaryWriter;
+import com.revolsys.gis.postgresql.type.PostgreSQLGeometryJdbcFieldDefinition;
+import com.revolsys.gis.postgresql.type.PostgreSQLJdbcEnumFieldDefinition;
+import com.revolsys.io.AbstractRecordWriter;
+import com.revolsys.io.PathName;
+import com.revolsys.jdbc.JdbcConnection;
+import com.revolsys.jdbc.field.JdbcFieldDefinition;
+import com.revolsys.jdbc.io.JdbcRecordDefinition;
+import com.revolsys.number.Integers;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordState;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinitionProxy;
+import com.revolsys.transaction.Transaction;
+import com.revolsys.util.BaseCloseable;
+import com.revolsys.util.Booleans;
+
+/**
+ * Insert records using <code>COPY table (columns) FROM STDIN (FORMAT BINARY)</code>
+ * instead of batched INSERT statements. The rows are encoded in the PostgreSQL
+ * binary format into a buffer. The buffer is sent as a single COPY when it is
+ * full, when a record for a different table is written, or on flush. Records
+ * are only marked as persisted once their COPY succeeds.
+ *
+ * <p>
+ * All the non-generated columns are included in the COPY. Null values and
+ * empty geometries are written as NULL, the same as the INSERT statements
+ * used by the standard {@link RecordWriter}, so column defaults aren't
+ * applied to them.
+ * </p>
+ *
+ * <p>
+ * Geometries are written as EWKB from the geometry coordinates. Records that
+ * don't have a value for a single id field get the next value from the table's
+ * sequence, fetched in blocks. Records that aren't new, and records for
+ * tables with a column type that doesn't have a binary encoder (e.g. arrays
+ * or intervals), are written using the standard {@link RecordWriter}.
+ * </p>
+ */
+public class PostgreSQLCopyRecordWriter extends AbstractRecordWriter {
+  private static class CopyType {
+    private final String copySql;
+
+    private final ValueEncoder[] encoders;
+
+    private final JdbcFieldDefinition[] fields;
+
+    private final JdbcFieldDefinition idField;
+
+    private final Deque<Long> ids = new ArrayDeque<>();
+
+    private final JdbcRecordDefinition recordDefinition;
+
+    private final String sequenceName;
+
+    private CopyType(final JdbcRecordDefinition recordDefinition, final String sequenceName,
+      final List<JdbcFieldDefinition> fields, final List<ValueEncoder> encoders) {
+      this.recordDefinition = recordDefinition;
+      this.sequenceName = sequenceName;
+      this.fields = fields.toArray(new JdbcFieldDefinition[0]);
+      this.encoders = encoders.toArray(new ValueEncoder[0]);
+      final FieldDefinition idField = recordDefinition.getIdField();
+      if (sequenceName != null && idField instanceof final JdbcFieldDefinition jdbcIdField
+        && fields.contains(jdbcIdField)) {
+        this.idField = jdbcIdField;
+      } else {
+        this.idField = null;
+      }
+
+      final StringBuilder sql = new StringBuilder("COPY ");
+      sql.append(recordDefinition.getDbTableQualifiedName());
+      sql.append(" (");
+      boolean first = true;
+      for (final JdbcFieldDefinition field : fields) {
+        if (first) {
+          first = false;
+        } else {
+          sql.append(", ");
+        }
+        sql.append('"');
+        sql.append(field.getDbName());
+        sql.append('"');
+      }
+      sql.append(") FROM STDIN (FORMAT BINARY)");
+      this.copySql = sql.toString();
+    }
+  }
+
+  @FunctionalInterface
+  interface ValueEncoder {
+    void encode(PostgreSQLBinaryWriter out, Object value);
+  }
+
+  private static final byte[] COPY_HEADER = {
+    'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xFF, '\r', '\n', 0, // signature
+    0, 0, 0, 0, // flags
+    0, 0, 0, 0 // header extension length
+  };
+
+  /** The number of days from 1970-01-01 to the PostgreSQL epoch 2000-01-01. */
+  private static final long POSTGRES_EPOCH_DAYS = 10957;
+
+  private static final Instant POSTGRES_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+
+  private static final int SEQUENCE_BLOCK_SIZE = 1000;
+
+  private static void encodeDate(final PostgreSQLBinaryWriter out, final Object value) {
+    final LocalDate date = DataTypes.LOCAL_DATE.toObject(value);
+    out.putInt((int)(date.toEpochDay() - POSTGRES_EPOCH_DAYS));
+  }
+
+  private static void encodeJsonb(final PostgreSQLBinaryWriter out, final Object value) {
+    out.putByte((byte)1);
+    encodeJsonText(out, value);
+  }
+
+  private static void encodeJsonText(final PostgreSQLBinaryWriter out, final Object value) {
+    if (value instanceof final Jsonable json) {
+      out.putString(json.toJsonString());
+    } else {
+      out.putString(value.toString());
+    }
+  }
+
+  private static void encodeText(final PostgreSQLBinaryWriter out, final Object value) {
+    out.putString(DataTypes.toString(value));
+  }
+
+  private static void encodeTimestamp(final PostgreSQLBinaryWriter out, final Object value) {
+    final Timestamp timestamp = DataTypes.TIMESTAMP.toObject(value);
+    final LocalDateTime dateTime = timestamp.toLocalDateTime();
+    final Instant instant = dateTime.toInstant(ZoneOffset.UTC);
+    out.putLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, instant));
+  }
+
+  private static void encodeTimestampTz(final PostgreSQLBinaryWriter out, final Object value) {
+    final Instant instant = DataTypes.INSTANT.toObject(value);
+    out.putLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, instant));
+  }
+
+  private static void encodeUuid(final PostgreSQLBinaryWriter out, final Object value) {
+    final UUID uuid = DataTypes.UUID.toObject(value);
+    out.putLong(uuid.getMostSignificantBits());
+    out.putLong(uuid.getLeastSignificantBits());
+  }
+
+  private static ValueEncoder newEncoder(final JdbcFieldDefinition field) {
+    if (field instanceof final PostgreSQLGeometryJdbcFieldDefinition geometryField) {
+      final GeometryFactory geometryFactory = geometryField.getGeometryFactory();
+      final DataType dataType = geometryField.getDataType();
+      final int axisCount = geometryFactory.getAxisCount();
+      final int srid = geometryFactory.getHorizontalCoordinateSystemId();
+      return (out, value) -> {
+        if (value instanceof final Geometry geometry) {
+          final Geometry convertedGeometry = geometry.convertGeometry(geometryFactory);
+          out.putEwkb(convertedGeometry, dataType, axisCount, srid);
+        } else {
+          throw new IllegalArgumentException("Expecting a geometry not: " + value);
+        }
+      };
+    } else if (field instanceof PostgreSQLJdbcEnumFieldDefinition) {
+      return PostgreSQLCopyRecordWriter::encodeText;
+    }
+    final String dbDataType = field.getDbDataType();
+    if (dbDataType == null) {
+      return null;
+    }
+    switch (dbDataType.toLowerCase()) {
+      case "bool":
+        return (out, value) -> out.putByte((byte)(Booleans.getBoolean(value) ? 1 : 0));
+      case "int2":
+        return (out, value) -> out.putShort(Integers.toInteger(value)
+          .shortValue());
+      case "int4":
+      case "oid":
+        return (out, value) -> out.putInt(((Number)DataTypes.LONG.toObject(value)).intValue());
+      case "int8":
+        return (out, value) -> out.putLong(((Number)DataTypes.LONG.toObject(value)).longValue());
+      case "float4":
+        return (out, value) -> out.putFloat(((Number)DataTypes.FLOAT.toObject(value)).floatValue());
+      case "float8":
+        return (out, value) -> out
+          .putDouble(((Number)DataTypes.DOUBLE.toObject(value)).doubleValue());
+      case "numeric":
+        return (out, value) -> out.putNumeric((BigDecimal)DataTypes.DECIMAL.toObject(value));
+      case "text":
+      case "varchar":
+      case "bpchar":
+      case "name":
+      case "citext":
+      case "xml":
+        return PostgreSQLCopyRecordWriter::encodeText;
+      case "json":
+        return PostgreSQLCopyRecordWriter::encodeJsonText;
+      case "jsonb":
+        return PostgreSQLCopyRecordWriter::encodeJsonb;
+      case "uuid":
+        return PostgreSQLCopyRecordWriter::encodeUuid;
+      case "bytea":
+        return (out, value) -> out.putBytes((byte[])value);
+      case "date":
+        return PostgreSQLCopyRecordWriter::encodeDate;
+      case "timestamp":
+        return PostgreSQLCopyRecordWriter::encodeTimestamp;
+      case "timestamptz":
+        return PostgreSQLCopyRecordWriter::encodeTimestampTz;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Write a row with a value for each of the fields. Null values and empty
+   * geometries are written as NULL (length -1). If a value can't be encoded
+   * the partial row is removed so the other rows can still be copied.
+   *
+   * @param out The buffer to write to.
+   * @param fields The fields.
+   * @param encoders The encoder for each field.
+   * @param record The record.
+   */
+  static void writeRow(final PostgreSQLBinaryWriter out, final FieldDefinition[] fields,
+    final ValueEncoder[] encoders, final Record record) {
+    final int rowStart = out.size();
+    try {
+      out.putShort((short)fields.length);
+      for (int i = 0; i < fields.length; i++) {
+        final Object value = record.getValue(fields[i].getName());
+        if (value == null || value instanceof final Geometry geometry && geometry.isEmpty()) {
+          out.putInt(-1);
+        } else {
+          final int lengthPosition = out.size();
+          out.putInt(0);
+          encoders[i].encode(out, value);
+          out.putInt(lengthPosition, out.size() - lengthPosition - 4);
+        }
+      }
+    } catch (final RuntimeException e) {
+      out.setSize(rowStart);
+      throw e;
+    }
+  }
+
+  private JdbcConnection connection;
+
+  private final List<Record> copyRecords = new ArrayList<>();
+
+  private CopyType currentType;
+
+  private RecordWriter fallbackWriter;
+
+  private final int maxBufferSize;
+
+  private final PostgreSQLBinaryWriter out = new PostgreSQLBinaryWriter(1024 * 1024);
+
+  private PostgreSQLRecordStore recordStore;
+
+  private int rowCount = 0;
+
+  private final Map<JdbcRecordDefinition, CopyType> typeByRecordDefinition = new HashMap<>();
+
+  public PostgreSQLCopyRecordWriter(final PostgreSQLRecordStore recordStore,
+    final RecordDefinitionProxy recordDefinition, final int maxBufferSize,
+    final JdbcConnection connection) {
+    super(recordDefinition);
+    this.recordStore = recordStore;
+    this.maxBufferSize = maxBufferSize;
+    this.connection = connection;
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      flush();
+      if (this.fallbackWriter != null) {
+        this.fallbackWriter.close();
+      }
+    } finally {
+      this.fallbackWriter = null;
+      this.recordStore = null;
+      if (this.connection != null) {
+        final DataSource dataSource = this.connection.getDataSource();
+        try {
+          if (dataSource != null && !Transaction.isActive()) {
+            this.connection.commit();
+          }
+        } catch (final SQLException e) {
+          throw new RuntimeException("Failed to commit data:", e);
+        } finally {
+          BaseCloseable.closeSilent(this.connection);
+          this.connection = null;
+        }
+      }
+    }
+  }
+
+  private void copyRows() {
+    final CopyType type = this.currentType;
+    try {
+      if (type != null && this.rowCount > 0) {
+        final String copySql = type.copySql;
+        final PostgreSQLBinaryWriter out = this.out;
+        out.putShort((short)-1);
+        try {
+          final PgConnection pgConnection = this.connection.unwrap(PgConnection.class);
+          pgConnection.getCopyAPI()
+            .copyIn(copySql, new ByteArrayInputStream(out.getBuffer(), 0, out.size()));
+        } catch (final SQLException e) {
+          throw this.connection.getException("copyIn", copySql, e);
+        } catch (final IOException e) {
+          throw Exceptions.wrap("Unable to copy records: " + copySql, e);
+        }
+        this.recordStore.addStatistic("Insert", type.recordDefinition.getPath(), this.rowCount);
+        for (final Record record : this.copyRecords) {
+          record.setState(RecordState.PERSISTED);
+        }
+      }
+    } finally {
+      this.out.reset();
+      this.rowCount = 0;
+      this.copyRecords.clear();
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    copyRows();
+    if (this.fallbackWriter != null) {
+      this.fallbackWriter.flush();
+    }
+  }
+
+  private RecordWriter getFallbackWriter() {
+    if (this.fallbackWriter == null) {
+      this.fallbackWriter = this.recordStore.newRecordWriter(this.recordDefinition,
+        this.recordStore.getBatchSize());
+    }
+    return this.fallbackWriter;
+  }
+
+  private Object getNextId(final CopyType type) throws SQLException {
+    if (type.ids.isEmpty()) {
+      final String sql = "SELECT nextval(?) FROM generate_series(1, ?)";
+      try (
+        PreparedStatement statement = this.connection.prepareStatement(sql)) {
+        statement.setString(1, type.sequenceName);
+        statement.setInt(2, SEQUENCE_BLOCK_SIZE);
+        try (
+          ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            type.ids.add(resultSet.getLong(1));
+          }
+        }
+      }
+    }
+    return type.idField.toFieldValue(type.ids.removeFirst());
+  }
+
+  private CopyType getType(final JdbcRecordDefinition recordDefinition) {
+    if (this.typeByRecordDefinition.containsKey(recordDefinition)) {
+      return this.typeByRecordDefinition.get(recordDefinition);
+    }
+    CopyType type = null;
+    if (!this.recordStore.isIdFieldRowid(recordDefinition)) {
+      final List<JdbcFieldDefinition> fields = new ArrayList<>();
+      final List<ValueEncoder> encoders = new ArrayList<>();
+      boolean supported = true;
+      for (final FieldDefinition fieldDefinition : recordDefinition.getFields()) {
+        final JdbcFieldDefinition field = (JdbcFieldDefinition)fieldDefinition;
+        if (!field.isGenerated()) {
+          final ValueEncoder encoder = newEncoder(field);
+          if (encoder == null) {
+            supported = false;
+          } else {
+            fields.add(field);
+            encoders.add(encoder);
+          }
+        }
+      }
+      if (supported && !fields.isEmpty()) {
+        String sequenceName = null;
+        if (recordDefinition.getIdFieldNames()
+          .size() == 1) {
+          sequenceName = this.recordStore.getSequenceName(recordDefinition);
+        }
+        type = new CopyType(recordDefinition, sequenceName, fields, encoders);
+      }
+    }
+    this.typeByRecordDefinition.put(recordDefinition, type);
+    return type;
+  }
+
+  private boolean isInsert(final Record record) {
+    final RecordState state = record.getState();
+    if (record.getRecordStore() != this.recordStore) {
+      return state != RecordState.DELETED;
+    } else {
+      return state == RecordState.NEW;
+    }
+  }
+
+  private void setId(final CopyType type, final Record record) throws SQLException {
+    final JdbcFieldDefinition idField = type.idField;
+    if (idField != null && !record.hasValue(idField.getName())) {
+      final Object id = getNextId(type);
+      record.setValue(idField.getName(), id);
+    }
+  }
+
+  @Override
+  public synchronized void write(final Record record) {
+    try {
+      final PathName pathName = record.getPathName();
+      final JdbcRecordDefinition recordDefinition = this.recordStore.getRecordDefinition(pathName);
+      CopyType type = null;
+      if (isInsert(record)) {
+        type = getType(recordDefinition);
+      }
+      if (type == null) {
+        copyRows();
+        getFallbackWriter().write(record);
+      } else {
+        if (type != this.currentType) {
+          copyRows();
+          this.currentType = type;
+        }
+        setId(type, record);
+        writeRow(type, record);
+        if (this.out.size() >= this.maxBufferSize) {
+          copyRows();
+        }
+      }
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Exception e) {
+      throw Exceptions.wrap("Unable to write\n" + record, e);
+    }
+  }
+
+  private void writeRow(final CopyType type, final Record record) {
+    final PostgreSQLBinaryWriter out = this.out;
+    if (this.rowCount == 0) {
+      out.reset();
+      out.putBytes(COPY_HEADER);
+    }
+    writeRow(out, type.fields, type.encoders, record);
+    this.copyRecords.add(record);
+    this.rowCount++;
+  }
+}
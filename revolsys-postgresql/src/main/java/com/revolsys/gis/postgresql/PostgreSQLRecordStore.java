@@ -3,6 +3,7 @@ package com.revolsys.gis.postgresql;
 import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
@@ -11,6 +12,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.sql.DataSource;
 
@@ -46,24 +49,34 @@ import com.revolsys.jdbc.io.JdbcRecordStoreSchema;
 import com.revolsys.record.ArrayRecord;
 import com.revolsys.record.Record;
 import com.revolsys.record.RecordFactory;
+import com.revolsys.record.RecordState;
 import com.revolsys.record.property.ShortNameProperty;
 import com.revolsys.record.query.Query;
 import com.revolsys.record.query.QueryStatement;
 import com.revolsys.record.query.QueryValue;
 import com.revolsys.record.query.SqlAppendable;
+import com.revolsys.record.query.TableReference;
 import com.revolsys.record.query.functions.EnvelopeIntersects;
 import com.revolsys.record.query.functions.JsonValue;
 import com.revolsys.record.schema.FieldDefinition;
 import com.revolsys.record.schema.LockMode;
 import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionProxy;
 import com.revolsys.record.schema.RecordStoreSchemaElement;
+import com.revolsys.transaction.Transaction;
 import com.revolsys.util.Property;
 
 public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
 
+  private static final Pattern EXPLAIN_ROWS = Pattern.compile(" rows=(\\d+)");
+
   public static final List<String> POSTGRESQL_INTERNAL_SCHEMAS = Arrays.asList("information_schema",
     "pg_catalog", "pg_toast_temp_1");
 
+  private boolean useBinaryGeometry = false;
+
+  private boolean useCopy = false;
+
   private boolean useSchemaSequencePrefix = true;
 
   public PostgreSQLRecordStore() {
@@ -201,6 +214,52 @@ public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
     return Identifier.newIdentifier(selectLong(sql, sequenceName));
   }
 
+  /**
+   * Get the planner's row estimate from EXPLAIN for the query. The estimate is
+   * only as accurate as the table statistics from the last ANALYZE.
+   */
+  @Override
+  public int getRecordCountEstimate(Query query) {
+    if (query == null) {
+      return 0;
+    } else {
+      final TableReference table = query.getTable();
+      query = query.clone(table, table);
+      query.setSql(null);
+      query.clearOrderBy();
+      final String sql = "EXPLAIN " + query.getSelectSql();
+      final Query explainQuery = query;
+      final Integer estimate = transactionCall(() -> {
+        try (
+          JdbcConnection connection = getJdbcConnection()) {
+          try (
+            final PreparedStatement statement = connection.prepareStatement(sql)) {
+            explainQuery.appendParameters(1, statement);
+            try (
+              final ResultSet resultSet = statement.executeQuery()) {
+              if (resultSet.next()) {
+                final String plan = resultSet.getString(1);
+                final Matcher matcher = EXPLAIN_ROWS.matcher(plan);
+                if (matcher.find()) {
+                  final long rows = Long.parseLong(matcher.group(1));
+                  return (int)Math.min(rows, Integer.MAX_VALUE);
+                }
+              }
+              return null;
+            }
+          } catch (final SQLException e) {
+            throw connection.getException("getRecordCountEstimate", sql, e);
+          }
+        }
+      });
+      if (estimate == null) {
+        return getRecordCount(query);
+      } else {
+        return estimate;
+      }
+    }
+  }
+
   @Override
   public String getRecordStoreType() {
     return "PostgreSQL";
@@ -351,6 +410,26 @@ public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
     addSqlQueryAppender(JsonValue.class, this::appendJsonValue);
   }
 
+  /**
+   * Insert the records. If {@link #isUseCopy()} the records are written using a
+   * {@link PostgreSQLCopyRecordWriter}.
+   */
+  @Override
+  public void insertRecords(final Iterable<? extends Record> records) {
+    if (this.useCopy) {
+      transactionRun(() -> {
+        try (
+          PostgreSQLCopyRecordWriter writer = newCopyRecordWriter(null)) {
+          for (final Record record : records) {
+            write(writer, record, RecordState.NEW);
+          }
+        }
+      });
+    } else {
+      super.insertRecords(records);
+    }
+  }
+
   @Override
   public PreparedStatement insertStatementPrepareRowId(final JdbcConnection connection,
     final RecordDefinition recordDefinition, final String sql) throws SQLException {
@@ -391,6 +470,14 @@ public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
     return POSTGRESQL_INTERNAL_SCHEMAS.contains(schemaName);
   }
 
+  public boolean isUseBinaryGeometry() {
+    return this.useBinaryGeometry;
+  }
+
+  public boolean isUseCopy() {
+    return this.useCopy;
+  }
+
   public boolean isUseSchemaSequencePrefix() {
     return this.useSchemaSequencePrefix;
   }
@@ -405,6 +492,28 @@ public class PostgreSQLRecordStore extends AbstractJdbcRecordStore {
     }
   }
 
+  /**
+   * Construct a writer that inserts new records using COPY FROM STDIN (FORMAT
+   * BINARY). Must be used within a transaction.
+   *
+   * @param recordDefinition The record definition or null for any table.
+   * @return The writer.
+   */
+  public PostgreSQLCopyRecordWriter newCopyRecordWriter(
+    final RecordDefinitionProxy recordDefinition) {
+    Transaction.assertInTransaction();
+    final JdbcConnection connection = getJdbcConnection();
+    final DataSource dataSource = getDataSource();
+    if (dataSource != null) {
+      try {
+        connection.setAutoCommit(false);
+      } catch (final SQLException e) {
+        throw new RuntimeException("Unable to create connection", e);
+      }
+    }
+    return new PostgreSQLCopyRecordWriter(this, recordDefinition, 4 * 1024 * 1024, connection);
+  }
+
   @Override
   protected JdbcRecordDefinition newRecordDefinition(final JdbcRecordStoreSchema schema,
     final PathName pathName, String dbTableName) {
@@ -476,6 +585,27 @@ where
     schema.addProperty("enums", enumTypeNames);
   }
 
+  /**
+   * Transfer geometries as binary EWKB instead of text. Geometry columns are
+   * selected using ST_AsEWKB and inserted or updated using
+   * ST_GeomFromEWKB(?) with a bytea parameter.
+   *
+   * @param useBinaryGeometry True if binary EWKB is to be used.
+   */
+  public void setUseBinaryGeometry(final boolean useBinaryGeometry) {
+    this.useBinaryGeometry = useBinaryGeometry;
+  }
+
+  /**
+   * Use COPY FROM STDIN (FORMAT BINARY) for {@link #insertRecords(Iterable)}
+   * instead of batched INSERT statements.
+   *
+   * @param useCopy True if COPY is to be used.
+   */
+  public void setUseCopy(final boolean useCopy) {
+    this.useCopy = useCopy;
+  }
+
   public void setUseSchemaSequencePrefix(final boolean useSchemaSequencePrefix) {
     this.useSchemaSequencePrefix = useSchemaSequencePrefix;
   }
@@ -0,0 +1,366 @@
+package com.revolsys.gis.postgresql.type;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.revolsys.data.type.DataType;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryCollection;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Lineal;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.Polygonal;
+import com.revolsys.geometry.model.Punctual;
+
+/**
+ * A growable big-endian (network order) byte buffer used to write values in
+ * the PostgreSQL binary formats, including geometries as PostGIS EWKB.
+ */
+public class PostgreSQLBinaryWriter {
+  private static final int EWKB_M = 0x40000000;
+
+  private static final int EWKB_SRID = 0x20000000;
+
+  private static final int EWKB_Z = 0x80000000;
+
+  private static final short NUMERIC_NEGATIVE = 0x4000;
+
+  private static final short NUMERIC_POSITIVE = 0x0000;
+
+  private static final int WKB_GEOMETRY_COLLECTION = 7;
+
+  private static final int WKB_LINE_STRING = 2;
+
+  private static final int WKB_MULTI_LINE_STRING = 5;
+
+  private static final int WKB_MULTI_POINT = 4;
+
+  private static final int WKB_MULTI_POLYGON = 6;
+
+  private static final int WKB_POINT = 1;
+
+  private static final int WKB_POLYGON = 3;
+
+  private byte[] buffer;
+
+  private int size = 0;
+
+  public PostgreSQLBinaryWriter() {
+    this(8192);
+  }
+
+  public PostgreSQLBinaryWriter(final int capacity) {
+    this.buffer = new byte[capacity];
+  }
+
+  private void ensureCapacity(final int count) {
+    final int required = this.size + count;
+    if (required > this.buffer.length) {
+      final int capacity = Math.max(required, this.buffer.length * 2);
+      this.buffer = Arrays.copyOf(this.buffer, capacity);
+    }
+  }
+
+  public byte[] getBuffer() {
+    return this.buffer;
+  }
+
+  private Geometry getSinglePart(final Geometry geometry, final DataType dataType) {
+    final int geometryCount = geometry.getGeometryCount();
+    if (geometryCount == 1) {
+      return geometry.getGeometry(0);
+    } else {
+      throw new IllegalArgumentException("Cannot write a " + geometry.getGeometryType() + " with "
+        + geometryCount + " parts to a " + dataType + " column");
+    }
+  }
+
+  private IllegalArgumentException newTypeException(final Geometry geometry,
+    final DataType dataType) {
+    return new IllegalArgumentException(
+      "Cannot write a " + geometry.getGeometryType() + " to a " + dataType + " column");
+  }
+
+  public void putByte(final byte value) {
+    ensureCapacity(1);
+    this.buffer[this.size++] = value;
+  }
+
+  public void putBytes(final byte[] bytes) {
+    putBytes(bytes, 0, bytes.length);
+  }
+
+  public void putBytes(final byte[] bytes, final int offset, final int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, this.buffer, this.size, length);
+    this.size += length;
+  }
+
+  public void putDouble(final double value) {
+    putLong(Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Write the geometry as PostGIS EWKB in big-endian byte order. The geometry
+   * type is taken from the data type so single part geometries are written as
+   * multi part geometries for multi part columns. The coordinates are written
+   * with the axis count, NaN is written for missing z or m values.
+   *
+   * @param geometry The geometry.
+   * @param dataType The data type of the column.
+   * @param axisCount The number of axes to write.
+   * @param srid The srid or 0 if the srid isn't to be written.
+   * @throws IllegalArgumentException If the geometry has more than one part for
+   *           a single part column, or the parts are the wrong type.
+   */
+  public void putEwkb(final Geometry geometry, final DataType dataType, final int axisCount,
+    final int srid) {
+    putByte((byte)0);
+    if (dataType == GeometryDataTypes.POINT) {
+      if (getSinglePart(geometry, dataType) instanceof final Point point) {
+        putEwkbType(WKB_POINT, axisCount, srid);
+        putEwkbPoint(point, axisCount);
+      } else {
+        throw newTypeException(geometry, dataType);
+      }
+    } else if (dataType == GeometryDataTypes.LINE_STRING
+      || dataType == GeometryDataTypes.LINEAR_RING) {
+      if (getSinglePart(geometry, dataType) instanceof final LineString line) {
+        putEwkbType(WKB_LINE_STRING, axisCount, srid);
+        putEwkbLineString(line, axisCount);
+      } else {
+        throw newTypeException(geometry, dataType);
+      }
+    } else if (dataType == GeometryDataTypes.POLYGON) {
+      if (getSinglePart(geometry, dataType) instanceof final Polygon polygon) {
+        putEwkbType(WKB_POLYGON, axisCount, srid);
+        putEwkbPolygon(polygon, axisCount);
+      } else {
+        throw newTypeException(geometry, dataType);
+      }
+    } else if (dataType == GeometryDataTypes.MULTI_POINT) {
+      putEwkbMulti(geometry, WKB_MULTI_POINT, GeometryDataTypes.POINT, axisCount, srid);
+    } else if (dataType == GeometryDataTypes.MULTI_LINE_STRING) {
+      putEwkbMulti(geometry, WKB_MULTI_LINE_STRING, GeometryDataTypes.LINE_STRING, axisCount,
+        srid);
+    } else if (dataType == GeometryDataTypes.MULTI_POLYGON) {
+      putEwkbMulti(geometry, WKB_MULTI_POLYGON, GeometryDataTypes.POLYGON, axisCount, srid);
+    } else {
+      putEwkbGeometry(geometry, axisCount, srid);
+    }
+  }
+
+  private void putEwkbGeometry(final Geometry geometry, final int axisCount, final int srid) {
+    if (geometry instanceof final Point point) {
+      putEwkbType(WKB_POINT, axisCount, srid);
+      putEwkbPoint(point, axisCount);
+    } else if (geometry instanceof final LineString line) {
+      putEwkbType(WKB_LINE_STRING, axisCount, srid);
+      putEwkbLineString(line, axisCount);
+    } else if (geometry instanceof final Polygon polygon) {
+      putEwkbType(WKB_POLYGON, axisCount, srid);
+      putEwkbPolygon(polygon, axisCount);
+    } else if (geometry instanceof Punctual) {
+      putEwkbMulti(geometry, WKB_MULTI_POINT, GeometryDataTypes.POINT, axisCount, srid);
+    } else if (geometry instanceof Lineal) {
+      putEwkbMulti(geometry, WKB_MULTI_LINE_STRING, GeometryDataTypes.LINE_STRING, axisCount,
+        srid);
+    } else if (geometry instanceof Polygonal) {
+      putEwkbMulti(geometry, WKB_MULTI_POLYGON, GeometryDataTypes.POLYGON, axisCount, srid);
+    } else if (geometry instanceof GeometryCollection) {
+      putEwkbType(WKB_GEOMETRY_COLLECTION, axisCount, srid);
+      final int geometryCount = geometry.getGeometryCount();
+      putInt(geometryCount);
+      for (int i = 0; i < geometryCount; i++) {
+        final Geometry part = geometry.getGeometry(i);
+        putByte((byte)0);
+        putEwkbGeometry(part, axisCount, 0);
+      }
+    } else {
+      throw new IllegalArgumentException("Geometry type not supported: " + geometry);
+    }
+  }
+
+  private void putEwkbLineString(final LineString line, final int axisCount) {
+    final int vertexCount = line.getVertexCount();
+    putInt(vertexCount);
+    ensureCapacity(vertexCount * axisCount * 8);
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        putDouble(line.getCoordinate(vertexIndex, axisIndex));
+      }
+    }
+  }
+
+  private void putEwkbMulti(final Geometry geometry, final int geometryType,
+    final DataType partDataType, final int axisCount, final int srid) {
+    putEwkbType(geometryType, axisCount, srid);
+    final int geometryCount = geometry.getGeometryCount();
+    putInt(geometryCount);
+    for (int i = 0; i < geometryCount; i++) {
+      final Geometry part = geometry.getGeometry(i);
+      putEwkb(part, partDataType, axisCount, 0);
+    }
+  }
+
+  private void putEwkbPoint(final Point point, final int axisCount) {
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      putDouble(point.getCoordinate(axisIndex));
+    }
+  }
+
+  private void putEwkbPolygon(final Polygon polygon, final int axisCount) {
+    final int ringCount = polygon.getRingCount();
+    putInt(ringCount);
+    for (int ringIndex = 0; ringIndex < ringCount; ringIndex++) {
+      final LineString ring = polygon.getRing(ringIndex);
+      putEwkbLineString(ring, axisCount);
+    }
+  }
+
+  private void putEwkbType(final int geometryType, final int axisCount, final int srid) {
+    int type = geometryType;
+    if (axisCount > 2) {
+      type |= EWKB_Z;
+    }
+    if (axisCount > 3) {
+      type |= EWKB_M;
+    }
+    if (srid > 0) {
+      putInt(type | EWKB_SRID);
+      putInt(srid);
+    } else {
+      putInt(type);
+    }
+  }
+
+  public void putFloat(final float value) {
+    putInt(Float.floatToRawIntBits(value));
+  }
+
+  public void putInt(final int value) {
+    ensureCapacity(4);
+    putInt(this.size, value);
+    this.size += 4;
+  }
+
+  /**
+   * Overwrite the int at the position. Used to write a length before the value
+   * once the value has been written.
+   *
+   * @param position The position in the buffer.
+   * @param value The value.
+   */
+  public void putInt(final int position, final int value) {
+    final byte[] buffer = this.buffer;
+    buffer[position] = (byte)(value >>> 24);
+    buffer[position + 1] = (byte)(value >>> 16);
+    buffer[position + 2] = (byte)(value >>> 8);
+    buffer[position + 3] = (byte)value;
+  }
+
+  public void putLong(final long value) {
+    ensureCapacity(8);
+    final byte[] buffer = this.buffer;
+    int position = this.size;
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[position++] = (byte)(value >>> shift);
+    }
+    this.size = position;
+  }
+
+  /**
+   * Write the value in the PostgreSQL numeric binary format. The digits are
+   * base 10000 with the weight of the first digit, sign and display scale.
+   *
+   * @param value The value.
+   */
+  public void putNumeric(final BigDecimal value) {
+    final String plain = value.abs()
+      .toPlainString();
+    final int dotIndex = plain.indexOf('.');
+    String integerPart;
+    String fractionPart;
+    if (dotIndex == -1) {
+      integerPart = plain;
+      fractionPart = "";
+    } else {
+      integerPart = plain.substring(0, dotIndex);
+      fractionPart = plain.substring(dotIndex + 1);
+    }
+    final int displayScale = fractionPart.length();
+    integerPart = "0".repeat((4 - integerPart.length() % 4) % 4) + integerPart;
+    fractionPart = fractionPart + "0".repeat((4 - fractionPart.length() % 4) % 4);
+    final String digitText = integerPart + fractionPart;
+    final int groupCount = digitText.length() / 4;
+    final short[] digits = new short[groupCount];
+    for (int i = 0; i < groupCount; i++) {
+      digits[i] = Short.parseShort(digitText.substring(i * 4, i * 4 + 4));
+    }
+    int weight = integerPart.length() / 4 - 1;
+    int start = 0;
+    while (start < groupCount && digits[start] == 0) {
+      start++;
+      weight--;
+    }
+    int end = groupCount;
+    while (end > start && digits[end - 1] == 0) {
+      end--;
+    }
+    final int digitCount = end - start;
+    putShort((short)digitCount);
+    if (digitCount == 0) {
+      putShort((short)0);
+      putShort(NUMERIC_POSITIVE);
+    } else {
+      putShort((short)weight);
+      if (value.signum() < 0) {
+        putShort(NUMERIC_NEGATIVE);
+      } else {
+        putShort(NUMERIC_POSITIVE);
+      }
+    }
+    putShort((short)displayScale);
+    for (int i = start; i < end; i++) {
+      putShort(digits[i]);
+    }
+  }
+
+  public void putShort(final short value) {
+    ensureCapacity(2);
+    this.buffer[this.size++] = (byte)(value >>> 8);
+    this.buffer[this.size++] = (byte)value;
+  }
+
+  public void putString(final String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    putBytes(bytes);
+  }
+
+  public void reset() {
+    this.size = 0;
+  }
+
+  /**
+   * Discard the bytes written after the size.
+   *
+   * @param size The new size, must not be larger than the current size.
+   */
+  public void setSize(final int size) {
+    if (size < 0 || size > this.size) {
+      throw new IllegalArgumentException("size=" + size + " must be between 0 and " + this.size);
+    }
+    this.size = size;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(this.buffer, this.size);
+  }
+}
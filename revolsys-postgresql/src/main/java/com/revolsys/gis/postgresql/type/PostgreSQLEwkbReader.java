@@ -0,0 +1,190 @@
+package com.revolsys.gis.postgresql.type;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+
+/**
+ * Read a geometry from PostGIS EWKB bytes (e.g. the result of
+ * <code>ST_AsEWKB</code>). The coordinates are read directly from the bytes
+ * into the coordinate arrays of the geometries without the hex decoding used
+ * for the text representation. Either byte order can be used and each part can
+ * have a different byte order.
+ */
+public final class PostgreSQLEwkbReader {
+  private static final int EWKB_M = 0x40000000;
+
+  private static final int EWKB_SRID = 0x20000000;
+
+  private static final int EWKB_Z = 0x80000000;
+
+  /**
+   * Read the geometry from the EWKB bytes. If the srid in the EWKB is different
+   * from the geometry factory the geometry will be projected to the geometry
+   * factory.
+   *
+   * @param geometryFactory The geometry factory.
+   * @param bytes The EWKB bytes.
+   * @return The geometry.
+   */
+  public static Geometry read(final GeometryFactory geometryFactory, final byte[] bytes) {
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    final Geometry geometry = readGeometry(geometryFactory, buffer);
+    if (geometryFactory.isSameCoordinateSystem(geometry.getGeometryFactory())) {
+      return geometry;
+    } else {
+      return geometry.convertGeometry(geometryFactory);
+    }
+  }
+
+  private static double[] readCoordinates(final ByteBuffer buffer, final int axisCount,
+    final boolean hasZ, final boolean hasM) {
+    final int vertexCount = buffer.getInt();
+    final double[] coordinates = new double[axisCount * vertexCount];
+    if (hasZ || !hasM) {
+      // The axes match the coordinate array so copy them in one bulk read
+      final DoubleBuffer doubles = buffer.asDoubleBuffer();
+      doubles.get(coordinates);
+      buffer.position(buffer.position() + coordinates.length * 8);
+    } else {
+      int coordinateIndex = 0;
+      for (int vertexIndex = 0; vertexIndex < vertexCount; ++vertexIndex) {
+        coordinates[coordinateIndex++] = buffer.getDouble();
+        coordinates[coordinateIndex++] = buffer.getDouble();
+        coordinates[coordinateIndex++] = Double.NaN;
+        coordinates[coordinateIndex++] = buffer.getDouble();
+      }
+    }
+    return coordinates;
+  }
+
+  private static Geometry readGeometry(final GeometryFactory geometryFactory,
+    final ByteBuffer buffer) {
+    if (buffer.get() == 0) {
+      buffer.order(ByteOrder.BIG_ENDIAN);
+    } else {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    final int typeword = buffer.getInt();
+
+    final int realtype = typeword & 0x1FFFFFFF;
+
+    final boolean hasZ = (typeword & EWKB_Z) != 0;
+    final boolean hasM = (typeword & EWKB_M) != 0;
+    final boolean hasS = (typeword & EWKB_SRID) != 0;
+
+    GeometryFactory currentGeometryFactory = geometryFactory;
+    if (hasS) {
+      final int coordinateSystemId = buffer.getInt();
+      if (coordinateSystemId >= 0
+        && currentGeometryFactory.getHorizontalCoordinateSystemId() != coordinateSystemId) {
+        currentGeometryFactory = currentGeometryFactory.convertSrid(coordinateSystemId);
+      }
+    }
+    final int axisCount;
+    if (hasM) {
+      axisCount = 4;
+    } else if (hasZ) {
+      axisCount = 3;
+    } else {
+      axisCount = 2;
+    }
+    if (axisCount != currentGeometryFactory.getAxisCount()) {
+      currentGeometryFactory = currentGeometryFactory.convertAxisCount(axisCount);
+    }
+    switch (realtype) {
+      case 1:
+        return readPoint(currentGeometryFactory, buffer, hasZ, hasM);
+      case 2: {
+        final double[] coordinates = readCoordinates(buffer, axisCount, hasZ, hasM);
+        return currentGeometryFactory.lineString(axisCount, coordinates);
+      }
+      case 3:
+        return readPolygon(currentGeometryFactory, buffer, axisCount, hasZ, hasM);
+      case 4: {
+        final Point[] points = readParts(currentGeometryFactory, buffer, new Point[0]);
+        if (points.length == 1) {
+          return points[0];
+        } else {
+          return currentGeometryFactory.punctual(points);
+        }
+      }
+      case 5: {
+        final LineString[] lines = readParts(currentGeometryFactory, buffer, new LineString[0]);
+        if (lines.length == 1) {
+          return lines[0];
+        } else {
+          return currentGeometryFactory.lineal(lines);
+        }
+      }
+      case 6: {
+        final Polygon[] polygons = readParts(currentGeometryFactory, buffer, new Polygon[0]);
+        if (polygons.length == 1) {
+          return polygons[0];
+        } else {
+          return currentGeometryFactory.polygonal(polygons);
+        }
+      }
+      case 7: {
+        final Geometry[] geometries = readParts(currentGeometryFactory, buffer, new Geometry[0]);
+        return currentGeometryFactory.geometry(geometries);
+      }
+      default:
+        throw new IllegalArgumentException("Unknown Geometry Type: " + realtype);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <G extends Geometry> G[] readParts(final GeometryFactory geometryFactory,
+    final ByteBuffer buffer, final G[] emptyParts) {
+    final int count = buffer.getInt();
+    final G[] parts = Arrays.copyOf(emptyParts, count);
+    for (int i = 0; i < count; ++i) {
+      parts[i] = (G)readGeometry(geometryFactory, buffer);
+    }
+    return parts;
+  }
+
+  private static Point readPoint(final GeometryFactory geometryFactory, final ByteBuffer buffer,
+    final boolean hasZ, final boolean hasM) {
+    final double x = buffer.getDouble();
+    final double y = buffer.getDouble();
+    if (hasM) {
+      if (hasZ) {
+        final double z = buffer.getDouble();
+        final double m = buffer.getDouble();
+        return geometryFactory.point(x, y, z, m);
+      } else {
+        final double m = buffer.getDouble();
+        return geometryFactory.point(x, y, Double.NaN, m);
+      }
+    } else if (hasZ) {
+      final double z = buffer.getDouble();
+      return geometryFactory.point(x, y, z);
+    } else {
+      return geometryFactory.point(x, y);
+    }
+  }
+
+  private static Polygon readPolygon(final GeometryFactory geometryFactory,
+    final ByteBuffer buffer, final int axisCount, final boolean hasZ, final boolean hasM) {
+    final int count = buffer.getInt();
+    final LinearRing[] rings = new LinearRing[count];
+    for (int i = 0; i < count; ++i) {
+      final double[] coordinates = readCoordinates(buffer, axisCount, hasZ, hasM);
+      rings[i] = geometryFactory.linearRing(axisCount, coordinates);
+    }
+    return geometryFactory.polygon(rings);
+  }
+
+  private PostgreSQLEwkbReader() {
+  }
+}
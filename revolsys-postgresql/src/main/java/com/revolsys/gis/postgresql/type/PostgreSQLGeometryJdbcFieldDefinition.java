@@ -3,6 +3,7 @@ package com.revolsys.gis.postgresql.type;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Map;
 
 import com.revolsys.data.type.DataType;
@@ -10,9 +11,13 @@ import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryDataTypes;
 import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.gis.postgresql.PostgreSQLRecordStore;
 import com.revolsys.jdbc.field.JdbcFieldDefinition;
 import com.revolsys.record.query.ColumnIndexes;
+import com.revolsys.record.query.QueryStatement;
+import com.revolsys.record.query.SqlAppendable;
 import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordStore;
 import com.revolsys.util.Property;
 
 public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
@@ -30,6 +35,28 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
     setGeometryFactory(geometryFactory.convertAxisCount(axisCount));
   }
 
+  @Override
+  public void addInsertStatementPlaceHolder(final SqlAppendable sql, final boolean generateKeys) {
+    if (isUseBinaryGeometry()) {
+      sql.append("ST_GeomFromEWKB(?)");
+    } else {
+      super.addInsertStatementPlaceHolder(sql, generateKeys);
+    }
+  }
+
+  @Override
+  public void appendDefaultSelect(final QueryStatement statement, final RecordStore recordStore,
+    final SqlAppendable sql) {
+    if (isUseBinaryGeometry()) {
+      sql.append("ST_AsEWKB(");
+      appendColumnNameWithPrefix(sql);
+      sql.append(") ");
+      appendColumnName(sql, true);
+    } else {
+      super.appendDefaultSelect(statement, recordStore, sql);
+    }
+  }
+
   @Override
   public JdbcFieldDefinition clone() {
     final GeometryFactory geometryFactory = getGeometryFactory();
@@ -40,6 +67,35 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
     return clone;
   }
 
+  /**
+   * Get the geometry as PostGIS EWKB for use with ST_GeomFromEWKB(?).
+   *
+   * @param value The geometry value.
+   * @return The EWKB bytes or null if the geometry was null or empty.
+   */
+  public byte[] getEwkb(final Object value) {
+    final Geometry geometry;
+    if (value instanceof final Geometry geometryValue) {
+      geometry = geometryValue;
+    } else if (Property.hasValue(value)) {
+      geometry = getDataType().toObject(value);
+    } else {
+      geometry = null;
+    }
+    if (geometry == null || geometry.isEmpty()) {
+      return null;
+    } else {
+      final GeometryFactory geometryFactory = getGeometryFactory();
+      final Geometry convertedGeometry = geometry.convertGeometry(geometryFactory);
+      final int axisCount = geometryFactory.getAxisCount();
+      final int srid = geometryFactory.getHorizontalCoordinateSystemId();
+      final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter(
+        64 + convertedGeometry.getVertexCount() * axisCount * 8);
+      writer.putEwkb(convertedGeometry, getDataType(), axisCount, srid);
+      return writer.toByteArray();
+    }
+  }
+
   public Object getInsertUpdateValue(final Object value) throws SQLException {
     final GeometryFactory geometryFactory = getGeometryFactory();
     if (value == null) {
@@ -77,6 +133,17 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
     return false;
   }
 
+  /**
+   * Check if the record store uses binary EWKB to transfer geometries.
+   *
+   * @return True if binary EWKB is used.
+   */
+  public boolean isUseBinaryGeometry() {
+    final RecordStore recordStore = getRecordStore();
+    return recordStore instanceof final PostgreSQLRecordStore postgreSQLRecordStore
+      && postgreSQLRecordStore.isUseBinaryGeometry();
+  }
+
   @Override
   public void setGeometryFactory(final GeometryFactory geometryFactory) {
     if (geometryFactory != null) {
@@ -87,12 +154,21 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
   @Override
   public int setInsertPreparedStatementValue(final PreparedStatement statement,
     final int parameterIndex, final Object value) throws SQLException {
-    final Object jdbcValue = getInsertUpdateValue(value);
-    if (jdbcValue == null) {
-      final int sqlType = getSqlType();
-      statement.setNull(parameterIndex, sqlType);
+    if (isUseBinaryGeometry()) {
+      final byte[] ewkb = getEwkb(value);
+      if (ewkb == null) {
+        statement.setNull(parameterIndex, Types.BINARY);
+      } else {
+        statement.setBytes(parameterIndex, ewkb);
+      }
     } else {
-      statement.setObject(parameterIndex, jdbcValue);
+      final Object jdbcValue = getInsertUpdateValue(value);
+      if (jdbcValue == null) {
+        final int sqlType = getSqlType();
+        statement.setNull(parameterIndex, sqlType);
+      } else {
+        statement.setObject(parameterIndex, jdbcValue);
+      }
     }
     return parameterIndex + 1;
   }
@@ -111,7 +187,10 @@ public class PostgreSQLGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
   }
 
   public Object toJava(final Object object) throws SQLException {
-    if (object instanceof PostgreSQLGeometryWrapper) {
+    if (object instanceof final byte[] ewkb) {
+      final GeometryFactory geometryFactory = getGeometryFactory();
+      return PostgreSQLEwkbReader.read(geometryFactory, ewkb);
+    } else if (object instanceof PostgreSQLGeometryWrapper) {
       final PostgreSQLGeometryWrapper geometryType = (PostgreSQLGeometryWrapper)object;
       final GeometryFactory geometryFactory = getGeometryFactory();
       final Geometry geometry = geometryType.getGeometry(geometryFactory);
@@ -87,6 +87,60 @@ public class ArcGisRestServerTileCacheLayer
     setName(mapService.getParent().getName());
   }
 
+  /**
+   * Add the tiles for the zoom level that overlap the bounding box, expanded by
+   * the number of tiles in the ring. If the ring is greater than 0 only the
+   * tiles in the ring around the bounding box are added. Tiles outside the
+   * layer's bounding box are not added.
+   */
+  private void addMapTiles(final List<ArcGisRestServerTileCacheMapTile> tiles,
+    final MapService mapService, final int zoomLevel, final BoundingBox viewBoundingBox,
+    final int ring) {
+    final double resolution = mapService.getResolution(zoomLevel);
+    if (resolution > 0) {
+      final BoundingBox maxBoundingBox = getBoundingBox();
+      final BoundingBox boundingBox = viewBoundingBox.bboxToCs(this)
+        .bboxIntersection(maxBoundingBox);
+      if (!boundingBox.isEmpty()) {
+        final double minX = boundingBox.getMinX();
+        final double minY = boundingBox.getMinY();
+        final double maxX = boundingBox.getMaxX();
+        final double maxY = boundingBox.getMaxY();
+
+        // Tiles start at the North-West corner of the map
+        final int minTileX = mapService.getTileX(zoomLevel, minX);
+        final int minTileY = mapService.getTileY(zoomLevel, maxY);
+        final int maxTileX = mapService.getTileX(zoomLevel, maxX);
+        final int maxTileY = mapService.getTileY(zoomLevel, minY);
+
+        int startTileX = minTileX;
+        int startTileY = minTileY;
+        int endTileX = maxTileX;
+        int endTileY = maxTileY;
+        if (ring > 0) {
+          startTileX = Math.max(mapService.getTileX(zoomLevel, maxBoundingBox.getMinX()),
+            minTileX - ring);
+          startTileY = Math.max(mapService.getTileY(zoomLevel, maxBoundingBox.getMaxY()),
+            minTileY - ring);
+          endTileX = Math.min(mapService.getTileX(zoomLevel, maxBoundingBox.getMaxX()),
+            maxTileX + ring);
+          endTileY = Math.min(mapService.getTileY(zoomLevel, maxBoundingBox.getMinY()),
+            maxTileY + ring);
+        }
+        for (int tileY = startTileY; tileY <= endTileY; tileY++) {
+          for (int tileX = startTileX; tileX <= endTileX; tileX++) {
+            if (ring == 0 || tileY < minTileY || tileY > maxTileY || tileX < minTileX
+              || tileX > maxTileX) {
+              final ArcGisRestServerTileCacheMapTile tile = new ArcGisRestServerTileCacheMapTile(
+                this, mapService, zoomLevel, resolution, tileX, tileY);
+              tiles.add(tile);
+            }
+          }
+        }
+      }
+    }
+  }
+
   @Override
   public boolean equals(final Object other) {
     if (other instanceof ArcGisRestServerTileCacheLayer) {
@@ -119,31 +173,29 @@ public class ArcGisRestServerTileCacheLayer
       try {
         final double viewResolution = view.getMetresPerPixel();
         final int zoomLevel = mapService.getZoomLevel(viewResolution);
-        final double resolution = mapService.getResolution(zoomLevel);
-        if (resolution > 0) {
-          final BoundingBox viewBoundingBox = view.getBoundingBox();
-          final BoundingBox maxBoundingBox = getBoundingBox();
-          final BoundingBox boundingBox = viewBoundingBox.bboxToCs(this)
-            .bboxIntersection(maxBoundingBox);
-          final double minX = boundingBox.getMinX();
-          final double minY = boundingBox.getMinY();
-          final double maxX = boundingBox.getMaxX();
-          final double maxY = boundingBox.getMaxY();
-
-          // Tiles start at the North-West corner of the map
-          final int minTileX = mapService.getTileX(zoomLevel, minX);
-          final int minTileY = mapService.getTileY(zoomLevel, maxY);
-          final int maxTileX = mapService.getTileX(zoomLevel, maxX);
-          final int maxTileY = mapService.getTileY(zoomLevel, minY);
-
-          for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
-            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
-              final ArcGisRestServerTileCacheMapTile tile = new ArcGisRestServerTileCacheMapTile(
-                this, mapService, zoomLevel, resolution, tileX, tileY);
-              tiles.add(tile);
-            }
-          }
-        }
+        final BoundingBox viewBoundingBox = view.getBoundingBox();
+        addMapTiles(tiles, mapService, zoomLevel, viewBoundingBox, 0);
+      } catch (final Throwable e) {
+        setError(e);
+      }
+    }
+    return tiles;
+  }
+
+  @Override
+  public List<ArcGisRestServerTileCacheMapTile> getPrefetchMapTiles(
+    final AbstractTiledLayerRenderer<?, ?> renderer, final ViewRenderer view) {
+    final List<ArcGisRestServerTileCacheMapTile> tiles = new ArrayList<>();
+    final MapService mapService = getMapService();
+    if (mapService != null) {
+      try {
+        final double viewResolution = view.getMetresPerPixel();
+        final int zoomLevel = mapService.getZoomLevel(viewResolution);
+        final BoundingBox viewBoundingBox = view.getBoundingBox();
+        addMapTiles(tiles, mapService, zoomLevel, viewBoundingBox, 1);
+        final BoundingBox centreBoundingBox = viewBoundingBox
+          .bboxEdit(editor -> editor.expandPercent(-0.5));
+        addMapTiles(tiles, mapService, zoomLevel + 1, centreBoundingBox, 0);
       } catch (final Throwable e) {
         setError(e);
       }
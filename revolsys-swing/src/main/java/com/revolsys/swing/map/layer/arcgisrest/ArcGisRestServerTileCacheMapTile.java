@@ -1,8 +1,10 @@
 package com.revolsys.swing.map.layer.arcgisrest;
 
 import java.awt.image.BufferedImage;
+import java.net.URL;
 
 import com.revolsys.raster.GeoreferencedImageMapTile;
+import com.revolsys.raster.TileDiskCache;
 import com.revolsys.record.io.format.esri.rest.map.MapService;
 
 public class ArcGisRestServerTileCacheMapTile extends GeoreferencedImageMapTile {
@@ -45,6 +47,13 @@ public class ArcGisRestServerTileCacheMapTile extends GeoreferencedImageMapTile
     return false;
   }
 
+  @Override
+  protected String getDiskCachePath() {
+    final URL serviceUrl = this.mapService.getServiceUrl()
+      .getURL();
+    return TileDiskCache.path(serviceUrl, this.zoomLevel, this.tileX, this.tileY);
+  }
+
   public MapService getMapService() {
     return this.mapService;
   }
@@ -76,6 +85,16 @@ public class ArcGisRestServerTileCacheMapTile extends GeoreferencedImageMapTile
     }
   }
 
+  @Override
+  protected byte[] loadImageBytes() {
+    try {
+      return this.mapService.getTileImageBytes(this.zoomLevel, this.tileX, this.tileY);
+    } catch (final Throwable e) {
+      this.layer.setError(e);
+      return null;
+    }
+  }
+
   @Override
   public String toString() {
     return this.mapService.getMapName() + " " + this.zoomLevel + "/" + this.tileX + "/"
@@ -214,7 +214,7 @@ public class RasterizerGriddedElevationModelLayerRenderer
           } else if (!this.redrawInBackground || !view.isBackgroundDrawingEnabled()) {
             this.rasterizer.rasterize(image);
             view.drawImage(image, true, this.opacity, null);
-          } else if (this.image.hasImage() && !(this.image.isCached() && this.redraw)) {
+          } else if (this.image.hasImage() && !this.redraw) {
             view.drawImage(this.image, true, this.opacity, null);
           } else {
             synchronized (this) {
@@ -1,6 +1,7 @@
 package com.revolsys.swing.map.layer.tile;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.revolsys.collection.json.JsonObject;
@@ -23,6 +24,20 @@ public abstract class AbstractTiledLayer<D, T extends AbstractMapTile<D>> extend
   public abstract List<T> getOverlappingMapTiles(AbstractTiledLayerRenderer<?, ?> renderer,
     final ViewRenderer view);
 
+  /**
+   * Get the tiles to load in the background after the visible tiles, so they
+   * are in the cache if the view is moved or zoomed in. For example the ring of
+   * tiles around the view and the next zoom level.
+   *
+   * @param renderer The renderer.
+   * @param view The view.
+   * @return The tiles, not including the overlapping map tiles.
+   */
+  public List<T> getPrefetchMapTiles(final AbstractTiledLayerRenderer<?, ?> renderer,
+    final ViewRenderer view) {
+    return Collections.emptyList();
+  }
+
   public abstract double getResolution(final ViewRenderer view);
 
   protected abstract AbstractTiledLayerRenderer<D, T> newRenderer();
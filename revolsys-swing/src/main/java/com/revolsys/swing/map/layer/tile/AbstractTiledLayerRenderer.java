@@ -3,10 +3,10 @@ package com.revolsys.swing.map.layer.tile;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map;
+import java.util.Set;
 
 import javax.swing.Icon;
 
@@ -22,15 +22,30 @@ import com.revolsys.util.BooleanCancellable;
 import com.revolsys.util.Cancellable;
 import com.revolsys.util.Property;
 
+/**
+ * Renderer for layers made of map tiles. Loaded tiles are kept in a least
+ * recently used cache limited to {@link #getMaxCachedTileBytes()} so zooming
+ * back to a previous zoom level or panning back doesn't load the tiles again.
+ * After the visible tiles have been queued for loading the
+ * {@link AbstractTiledLayer#getPrefetchMapTiles(AbstractTiledLayerRenderer, ViewRenderer)}
+ * are loaded on a separate background worker so they don't delay the visible
+ * tiles.
+ */
 public abstract class AbstractTiledLayerRenderer<D, T extends AbstractMapTile<D>>
   extends AbstractLayerRenderer<AbstractTiledLayer<D, T>> implements PropertyChangeListener {
 
+  public static final long DEFAULT_MAX_CACHED_TILE_BYTES = 128L * 1024 * 1024;
+
   public static final String TILES_LOADED = "loading";
 
   private static RunnableSwingWorkerManager tileLoaderManager = new RunnableSwingWorkerManager(
     "Load Map Tiles");
 
-  private final Map<T, T> cachedTiles = new HashMap<>();
+  private static RunnableSwingWorkerManager tilePrefetchManager = new RunnableSwingWorkerManager(
+    "Prefetch Map Tiles");
+
+  private final MapTileCache<T> cachedTiles = new MapTileCache<>(
+    DEFAULT_MAX_CACHED_TILE_BYTES);
 
   private BooleanCancellable cancellable = new BooleanCancellable();
 
@@ -50,40 +65,59 @@ public abstract class AbstractTiledLayerRenderer<D, T extends AbstractMapTile<D>
     super(type, name, icon);
   }
 
-  protected void clearCachedTiles() {
+  /**
+   * Cancel the tiles waiting to be loaded and remove them from the cache. The
+   * loaded tiles are kept.
+   */
+  private void cancelLoading() {
     synchronized (this.cachedTiles) {
-      this.cachedTiles.clear();
-      tileLoaderManager.removeTasks(this.loadingTasks);
-      this.loadingTasks.clear();
+      synchronized (this.loadingTasks) {
+        tileLoaderManager.removeTasks(this.loadingTasks);
+        tilePrefetchManager.removeTasks(this.loadingTasks);
+        this.loadingTasks.clear();
+      }
       this.cancellable.cancel();
       this.cancellable = new BooleanCancellable();
+      this.cachedTiles.removeNotLoaded();
+    }
+  }
+
+  protected void clearCachedTiles() {
+    synchronized (this.cachedTiles) {
+      this.cachedTiles.clear();
+      cancelLoading();
     }
   }
 
   public T getCachedTile(final T mapTile) {
-    return this.cachedTiles.get(mapTile);
+    synchronized (this.cachedTiles) {
+      return this.cachedTiles.get(mapTile);
+    }
   }
 
   public double getLayerResolution() {
     return this.layerResolution;
   }
 
+  public long getMaxCachedTileBytes() {
+    synchronized (this.cachedTiles) {
+      return this.cachedTiles.getMaxSizeBytes();
+    }
+  }
+
   @Override
   public void propertyChange(final PropertyChangeEvent event) {
     final Object newValue = event.getNewValue();
     if (newValue instanceof BoundingBox) {
       final BoundingBox newBoundingBox = (BoundingBox)newValue;
       synchronized (this.cachedTiles) {
-        final List<T> mapTiles = new ArrayList<>(this.cachedTiles.keySet());
         final GeometryFactory newGeometryFactory = newBoundingBox.getGeometryFactory();
-        for (final T mapTile : mapTiles) {
+        this.cachedTiles.removeIf(mapTile -> {
           final BoundingBox boundingBox = mapTile.getBoundingBox();
           final GeometryFactory geometryFactory = boundingBox.getGeometryFactory();
-          if (!geometryFactory.equals(newGeometryFactory)
-            || !newBoundingBox.bboxIntersects(boundingBox)) {
-            this.cachedTiles.remove(mapTile);
-          }
-        }
+          return !geometryFactory.equals(newGeometryFactory)
+            || !newBoundingBox.bboxIntersects(boundingBox);
+        });
       }
     } else if (!TILES_LOADED.equals(event.getPropertyName())) {
       clearCachedTiles();
@@ -99,39 +133,67 @@ public abstract class AbstractTiledLayerRenderer<D, T extends AbstractMapTile<D>
     final double viewResolution = view.getMetresPerPixel();
     if (viewResolution > 0) {
       final double layerResolution = layer.getResolution(view);
+      final BooleanCancellable cancellable;
       synchronized (this.cachedTiles) {
-        if (viewResolution != this.viewResolution
-          || viewportGeometryFactory != this.geometryFactory) {
+        if (viewportGeometryFactory != this.geometryFactory) {
           this.layerResolution = layerResolution;
           this.viewResolution = viewResolution;
           this.geometryFactory = viewportGeometryFactory;
           clearCachedTiles();
+        } else if (viewResolution != this.viewResolution) {
+          // Keep the tiles for the previous zoom levels in case the user zooms
+          // back
+          this.layerResolution = layerResolution;
+          this.viewResolution = viewResolution;
+          cancelLoading();
         }
+        cancellable = this.cancellable;
       }
       final List<Runnable> tasks = new ArrayList<>();
       final List<T> mapTiles = layer.getOverlappingMapTiles(this, view);
-      final BooleanCancellable cancellable = this.cancellable;
       for (final ListIterator<T> iterator = mapTiles.listIterator(); !cancellable.isCancelled()
         && iterator.hasNext();) {
         final T mapTile = iterator.next();
         synchronized (this.cachedTiles) {
-          T cachedTile = getCachedTile(mapTile);
-          if (cachedTile == null) {
-            cachedTile = mapTile;
-            this.cachedTiles.put(cachedTile, cachedTile);
-            final Runnable task = new TileLoadTask<>(this, cancellable, cachedTile);
+          final T cachedTile = this.cachedTiles.get(mapTile);
+          if (cachedTile != null) {
+            iterator.set(cachedTile);
+          } else if (!cancellable.isCancelled()) {
+            this.cachedTiles.add(mapTile);
+            final Runnable task = new TileLoadTask<>(this, cancellable, mapTile);
             tasks.add(task);
           }
-          iterator.set(cachedTile);
         }
       }
       if (!mapTiles.isEmpty()) {
         renderTiles(view, cancellable, mapTiles);
       }
+      final List<Runnable> prefetchTasks = new ArrayList<>();
+      if (!cancellable.isCancelled()) {
+        final List<T> prefetchTiles = layer.getPrefetchMapTiles(this, view);
+        synchronized (this.cachedTiles) {
+          for (final T mapTile : prefetchTiles) {
+            if (!cancellable.isCancelled() && !this.cachedTiles.containsKey(mapTile)) {
+              this.cachedTiles.add(mapTile);
+              final Runnable task = new TileLoadTask<>(this, cancellable, mapTile);
+              prefetchTasks.add(task);
+            }
+          }
+          final Set<T> visibleTiles = new HashSet<>(mapTiles);
+          this.cachedTiles.evict(visibleTiles);
+        }
+      }
       synchronized (this.loadingTasks) {
-        this.loadingTasks.addAll(tasks);
-        tileLoaderManager.setDescription("Load tiles: " + layer.getPath());
-        tileLoaderManager.addTasks(tasks);
+        if (!cancellable.isCancelled()) {
+          this.loadingTasks.addAll(tasks);
+          tileLoaderManager.setDescription("Load tiles: " + layer.getPath());
+          tileLoaderManager.addTasks(tasks);
+          if (!prefetchTasks.isEmpty()) {
+            this.loadingTasks.addAll(prefetchTasks);
+            tilePrefetchManager.setDescription("Prefetch tiles: " + layer.getPath());
+            tilePrefetchManager.addTasks(prefetchTasks);
+          }
+        }
       }
     }
   }
@@ -168,11 +230,39 @@ public abstract class AbstractTiledLayerRenderer<D, T extends AbstractMapTile<D>
     }
   }
 
+  /**
+   * Called when a tile has finished loading. A tile that failed to load is
+   * removed from the cache so it doesn't count towards the cache size and is
+   * loaded again the next time the layer is rendered. The layer isn't repainted
+   * for a failed tile as there is nothing new to draw.
+   *
+   * @param tileLoadTask The task that loaded the tile.
+   */
   public void setLoaded(final TileLoadTask<D, T> tileLoadTask) {
-    this.loadingTasks.remove(tileLoadTask);
-    final AbstractTiledLayer<D, T> layer = getLayer();
-    if (layer != null) {
-      layer.firePropertyChange(TILES_LOADED, false, true);
+    synchronized (this.loadingTasks) {
+      this.loadingTasks.remove(tileLoadTask);
+    }
+    final T mapTile = tileLoadTask.getMapTile();
+    if (mapTile.getData() == null && !mapTile.isLoading()) {
+      synchronized (this.cachedTiles) {
+        this.cachedTiles.remove(mapTile);
+      }
+    } else {
+      final AbstractTiledLayer<D, T> layer = getLayer();
+      if (layer != null) {
+        layer.firePropertyChange(TILES_LOADED, false, true);
+      }
+    }
+  }
+
+  /**
+   * Set the approximate maximum number of bytes of tiles to keep in memory.
+   *
+   * @param maxCachedTileBytes The number of bytes.
+   */
+  public void setMaxCachedTileBytes(final long maxCachedTileBytes) {
+    synchronized (this.cachedTiles) {
+      this.cachedTiles.setMaxSizeBytes(maxCachedTileBytes);
     }
   }
 
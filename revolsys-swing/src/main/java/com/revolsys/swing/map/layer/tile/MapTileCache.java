@@ -0,0 +1,131 @@
+package com.revolsys.swing.map.layer.tile;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.revolsys.util.AbstractMapTile;
+
+/**
+ * A least recently used cache of map tiles limited to an approximate number of
+ * bytes using {@link AbstractMapTile#getSizeBytes()}. Tiles are added before
+ * they are loaded so the same tile isn't loaded twice, only loaded tiles are
+ * evicted.
+ *
+ * <p>
+ * This class isn't thread safe, {@link AbstractTiledLayerRenderer} synchronizes
+ * on the cache.
+ * </p>
+ */
+class MapTileCache<T extends AbstractMapTile<?>> {
+
+  /** The tiles in least recently used order. */
+  private final Map<T, T> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long sizeBytes = 0;
+
+  private long maxSizeBytes;
+
+  MapTileCache(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  void add(final T mapTile) {
+    final T oldTile = this.tiles.put(mapTile, mapTile);
+    if (oldTile != null) {
+      this.sizeBytes -= oldTile.getSizeBytes();
+    }
+    this.sizeBytes += mapTile.getSizeBytes();
+  }
+
+  void clear() {
+    this.tiles.clear();
+    this.sizeBytes = 0;
+  }
+
+  boolean containsKey(final T mapTile) {
+    return this.tiles.containsKey(mapTile);
+  }
+
+  /**
+   * Remove the least recently used loaded tiles until the cache is within the
+   * maximum size. The visible tiles and tiles still being loaded are not
+   * removed.
+   *
+   * @param visibleTiles The tiles that are visible.
+   */
+  void evict(final Collection<T> visibleTiles) {
+    for (final Iterator<T> iterator = this.tiles.keySet()
+      .iterator(); this.sizeBytes > this.maxSizeBytes && iterator.hasNext();) {
+      final T mapTile = iterator.next();
+      if (mapTile.getData() != null && !visibleTiles.contains(mapTile)) {
+        iterator.remove();
+        this.sizeBytes -= mapTile.getSizeBytes();
+      }
+    }
+  }
+
+  /**
+   * Get the cached tile and mark it as the most recently used.
+   *
+   * @param mapTile The tile to get the cached tile for.
+   * @return The cached tile or null if it isn't cached.
+   */
+  T get(final T mapTile) {
+    return this.tiles.get(mapTile);
+  }
+
+  long getMaxSizeBytes() {
+    return this.maxSizeBytes;
+  }
+
+  long getSizeBytes() {
+    return this.sizeBytes;
+  }
+
+  /**
+   * Remove the tile if it is the cached instance.
+   *
+   * @param mapTile The tile.
+   * @return True if the tile was removed.
+   */
+  boolean remove(final T mapTile) {
+    if (this.tiles.get(mapTile) == mapTile) {
+      this.tiles.remove(mapTile);
+      this.sizeBytes -= mapTile.getSizeBytes();
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  void removeIf(final Predicate<? super T> filter) {
+    for (final Iterator<T> iterator = this.tiles.keySet()
+      .iterator(); iterator.hasNext();) {
+      final T mapTile = iterator.next();
+      if (filter.test(mapTile)) {
+        iterator.remove();
+        this.sizeBytes -= mapTile.getSizeBytes();
+      }
+    }
+  }
+
+  /**
+   * Remove the tiles that haven't been loaded, the loaded tiles are kept.
+   */
+  void removeNotLoaded() {
+    removeIf(mapTile -> mapTile.getData() == null);
+  }
+
+  void setMaxSizeBytes(final long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    evict(Collections.emptySet());
+  }
+
+  int size() {
+    return this.tiles.size();
+  }
+}
@@ -32,14 +32,14 @@ public class TileLoadTask<D, T extends AbstractMapTile<D>> implements Runnable {
       if (!this.cancellable.isCancelled()) {
         this.mapTile.loadData();
       }
-      if (!this.cancellable.isCancelled()) {
-        this.renderer.setLoaded(this);
-      }
     } catch (final RuntimeException e) {
       if (!this.cancellable.isCancelled()) {
         Logs.error(this, "Unable to load " + this.mapTile, e);
       }
     }
+    if (!this.cancellable.isCancelled()) {
+      this.renderer.setLoaded(this);
+    }
   }
 
   @Override
@@ -54,6 +54,11 @@ public class WebMercatorTileCacheClient {
     return BufferedImages.readImageIo(url);
   }
 
+  public byte[] getMapImageBytes(final int zoomLevel, final int tileX, final int tileY) {
+    final String url = getMapUrl(zoomLevel, tileX, tileY);
+    return BufferedImages.readImageBytes(url);
+  }
+
   public String getMapUrl(final int zoomLevel, final double longitude, final double latitude) {
     final int tileX = getTileX(zoomLevel, longitude);
     final int tileY = getTileY(zoomLevel, latitude);
@@ -64,6 +69,10 @@ public class WebMercatorTileCacheClient {
     return this.serverUrl + zoomLevel + "/" + tileX + "/" + tileY + ".png";
   }
 
+  public int getMaxZoomLevel() {
+    return METRES_PER_PIXEL.length - 1;
+  }
+
   public double getResolution(final int zoomLevel) {
     return METRES_PER_PIXEL[zoomLevel];
   }
@@ -41,6 +41,42 @@ public class WebMercatorTileCacheLayer
     setGeometryFactory(GeometryFactory.worldMercator());
   }
 
+  /**
+   * Add the tiles for the zoom level that overlap the bounding box, expanded by
+   * the number of tiles in the ring. If the ring is greater than 0 only the
+   * tiles in the ring around the bounding box are added.
+   */
+  private void addMapTiles(final List<WebMercatorTileCacheMapTile> tiles, final int zoomLevel,
+    final BoundingBox geographicBoundingBox, final int ring) {
+    final double resolution = this.client.getResolution(zoomLevel);
+    final double minX = geographicBoundingBox.getMinX();
+    final double minY = geographicBoundingBox.getMinY();
+    final double maxX = geographicBoundingBox.getMaxX();
+    final double maxY = geographicBoundingBox.getMaxY();
+
+    // Tiles start at the North-West corner of the map
+    final int minTileY = this.client.getTileY(zoomLevel, maxY);
+    final int maxTileY = this.client.getTileY(zoomLevel, minY);
+    final int minTileX = this.client.getTileX(zoomLevel, minX);
+    final int maxTileX = this.client.getTileX(zoomLevel, maxX);
+    final int maxTile = (1 << zoomLevel) - 1;
+    final int startTileY = Math.max(0, minTileY - ring);
+    final int endTileY = Math.min(maxTile, maxTileY + ring);
+    final int startTileX = Math.max(0, minTileX - ring);
+    final int endTileX = Math.min(maxTile, maxTileX + ring);
+
+    for (int tileY = startTileY; tileY <= endTileY; tileY++) {
+      for (int tileX = startTileX; tileX <= endTileX; tileX++) {
+        if (ring == 0 || tileY < minTileY || tileY > maxTileY || tileX < minTileX
+          || tileX > maxTileX) {
+          final WebMercatorTileCacheMapTile tile = new WebMercatorTileCacheMapTile(this, zoomLevel,
+            resolution, tileX, tileY);
+          tiles.add(tile);
+        }
+      }
+    }
+  }
+
   @Override
   public boolean equals(final Object other) {
     if (other instanceof WebMercatorTileCacheLayer) {
@@ -56,6 +92,12 @@ public class WebMercatorTileCacheLayer
     return this.client;
   }
 
+  private BoundingBox getGeographicBoundingBox(final ViewRenderer view) {
+    return view.getBoundingBox()
+      .bboxToCs(GEOMETRY_FACTORY)
+      .bboxIntersection(MAX_BOUNDING_BOX);
+  }
+
   @Override
   public List<WebMercatorTileCacheMapTile> getOverlappingMapTiles(
     final AbstractTiledLayerRenderer<?, ?> renderer, final ViewRenderer view) {
@@ -63,29 +105,30 @@ public class WebMercatorTileCacheLayer
     try {
       final double metresPerPixel = view.getMetresPerPixel();
       final int zoomLevel = this.client.getZoomLevel(metresPerPixel);
-      final double resolution = this.client.getResolution(zoomLevel);
-      final BoundingBox geographicBoundingBox = view.getBoundingBox()
-        .bboxToCs(GEOMETRY_FACTORY)
-        .bboxIntersection(MAX_BOUNDING_BOX);
-      final double minX = geographicBoundingBox.getMinX();
-      final double minY = geographicBoundingBox.getMinY();
-      final double maxX = geographicBoundingBox.getMaxX();
-      final double maxY = geographicBoundingBox.getMaxY();
-
-      // Tiles start at the North-West corner of the map
-      final int minTileY = this.client.getTileY(zoomLevel, maxY);
-      final int maxTileY = this.client.getTileY(zoomLevel, minY);
-      final int minTileX = this.client.getTileX(zoomLevel, minX);
-      final int maxTileX = this.client.getTileX(zoomLevel, maxX);
-
-      for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
-        for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
-          final WebMercatorTileCacheMapTile tile = new WebMercatorTileCacheMapTile(this, zoomLevel,
-            resolution, tileX, tileY);
-          tiles.add(tile);
-        }
-      }
+      final BoundingBox geographicBoundingBox = getGeographicBoundingBox(view);
+      addMapTiles(tiles, zoomLevel, geographicBoundingBox, 0);
+    } catch (final Throwable e) {
+      setError(e);
+    }
+    return tiles;
+  }
 
+  @Override
+  public List<WebMercatorTileCacheMapTile> getPrefetchMapTiles(
+    final AbstractTiledLayerRenderer<?, ?> renderer, final ViewRenderer view) {
+    final List<WebMercatorTileCacheMapTile> tiles = new ArrayList<>();
+    try {
+      final double metresPerPixel = view.getMetresPerPixel();
+      final int zoomLevel = this.client.getZoomLevel(metresPerPixel);
+      final BoundingBox geographicBoundingBox = getGeographicBoundingBox(view);
+      addMapTiles(tiles, zoomLevel, geographicBoundingBox, 1);
+      if (zoomLevel < this.client.getMaxZoomLevel()) {
+        final BoundingBox centreBoundingBox = view.getBoundingBox()
+          .bboxEdit(editor -> editor.expandPercent(-0.5))
+          .bboxToCs(GEOMETRY_FACTORY)
+          .bboxIntersection(MAX_BOUNDING_BOX);
+        addMapTiles(tiles, zoomLevel + 1, centreBoundingBox, 0);
+      }
     } catch (final Throwable e) {
       setError(e);
     }
@@ -3,6 +3,7 @@ package com.revolsys.swing.map.layer.webmercatortilecache;
 import java.awt.image.BufferedImage;
 
 import com.revolsys.raster.GeoreferencedImageMapTile;
+import com.revolsys.raster.TileDiskCache;
 
 public class WebMercatorTileCacheMapTile extends GeoreferencedImageMapTile {
   private final WebMercatorTileCacheLayer layer;
@@ -39,6 +40,11 @@ public class WebMercatorTileCacheMapTile extends GeoreferencedImageMapTile {
     return false;
   }
 
+  @Override
+  protected String getDiskCachePath() {
+    return TileDiskCache.path(this.layer.getUrl(), this.zoomLevel, this.tileX, this.tileY);
+  }
+
   public int getTileX() {
     return this.tileX;
   }
@@ -68,6 +74,17 @@ public class WebMercatorTileCacheMapTile extends GeoreferencedImageMapTile {
     }
   }
 
+  @Override
+  protected byte[] loadImageBytes() {
+    try {
+      final WebMercatorTileCacheClient client = this.layer.getClient();
+      return client.getMapImageBytes(this.zoomLevel, this.tileX, this.tileY);
+    } catch (final Throwable e) {
+      this.layer.setError(e);
+      return null;
+    }
+  }
+
   @Override
   public String toString() {
     return this.layer + " " + this.zoomLevel + "/" + this.tileX + "/" + this.tileY;
@@ -17,10 +17,9 @@ import java.util.function.Predicate;
 import com.revolsys.awt.WebColors;
 import com.revolsys.collection.list.Lists;
 import com.revolsys.data.type.DataType;
-import com.revolsys.geometry.graph.Edge;
-import com.revolsys.geometry.graph.Node;
-import com.revolsys.geometry.graph.RecordGraph;
-import com.revolsys.geometry.graph.algorithm.ShortestPath;
+import com.revolsys.geometry.graph.CompactGraph;
+import com.revolsys.geometry.graph.algorithm.CompactPath;
+import com.revolsys.geometry.graph.algorithm.CompactShortestPath;
 import com.revolsys.geometry.graph.linemerge.LineMerger;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
@@ -428,18 +427,20 @@ public class ShortestPathOverlay extends AbstractOverlay {
           .addBbox(record2) //
         ;
         final List<LayerRecord> viewRecords = layer.getRecords(boundingBox);
-        final RecordGraph graph = new RecordGraph(viewRecords);
-        final Node<Record> fromNode = graph.getNode(geometry1.getPoint());
-        final ShortestPath<Record> paths = new ShortestPath<>(graph, fromNode);
-        final Node<Record> toNode = graph.getNode(geometry2.getPoint());
-        final List<Edge<Record>> path = paths.getPath(toNode);
-        for (final Edge<Record> edge : path) {
-          final LayerRecord record = (LayerRecord)edge.getObject();
-          if (!record1.isSame(record) && !record2.isSame(record)) {
-            if (!records.contains(record)) {
-              records.add(record);
-              final Geometry geometry = record.getGeometry();
-              addGeometry(lines, points, geometry);
+        final CompactGraph<LayerRecord> graph = CompactGraph.newGraph(viewRecords,
+          record -> (LayerRecord)record);
+        final int fromNode = graph.getNodeIndex(geometry1.getPoint());
+        final int toNode = graph.getNodeIndex(geometry2.getPoint());
+        if (fromNode != -1 && toNode != -1) {
+          final CompactPath<LayerRecord> path = new CompactShortestPath<>(graph).aStar(fromNode,
+            toNode);
+          for (final LayerRecord record : path.getEdgeObjects()) {
+            if (!record1.isSame(record) && !record2.isSame(record)) {
+              if (!records.contains(record)) {
+                records.add(record);
+                final Geometry geometry = record.getGeometry();
+                addGeometry(lines, points, geometry);
+              }
             }
           }
         }
@@ -0,0 +1,195 @@
+package com.revolsys.core.test.geometry.cs;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.coordinatesystem.model.Ellipsoid;
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.coordinatesystem.operation.ChainedCoordinatesOperation;
+import com.revolsys.geometry.coordinatesystem.operation.CoordinatesOperation;
+import com.revolsys.geometry.coordinatesystem.operation.CoordinatesOperationPoint;
+import com.revolsys.geometry.coordinatesystem.operation.gridshift.HorizontalShiftOperation;
+import com.revolsys.geometry.coordinatesystem.operation.projection.CoordinatesProjection;
+import com.revolsys.geometry.coordinatesystem.operation.projection.TransverseMercatorJhs;
+import com.revolsys.geometry.coordinatesystem.operation.projection.TransverseMercatorUsgs;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * Check that transforming a coordinates array gives the same result as
+ * transforming each vertex with {@link CoordinatesOperation#perform(CoordinatesOperationPoint)}.
+ */
+public class CoordinatesOperationBulkTest {
+
+  /**
+   * A shift that changes the vertices in alternate 0.001 bands of y so both
+   * shifted and not shifted vertices are tested.
+   */
+  private static class TestShiftOperation implements HorizontalShiftOperation {
+    private final AtomicInteger shiftCount = new AtomicInteger();
+
+    @Override
+    public boolean horizontalShift(final CoordinatesOperationPoint point) {
+      if ((long)Math.floor(point.y * 1000) % 2 == 0) {
+        point.x += 1e-6 * Math.cos(point.y);
+        point.y += 1e-6;
+        this.shiftCount.incrementAndGet();
+        return true;
+      } else {
+        return false;
+      }
+    }
+  }
+
+  private static final Ellipsoid NAD83_ELLIPSOID = new Ellipsoid("NAD83", 6378137,
+    298.257222101);
+
+  private static void assertBulkEqualsPerPoint(final String message,
+    final CoordinatesOperation operation, final int axisCount, final double[] coordinates,
+    final int offset, final int vertexCount, final boolean parallel, final double delta) {
+    final double[] expected = coordinates.clone();
+    final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+    for (int i = 0; i < vertexCount; i++) {
+      final int coordinateOffset = offset + i * axisCount;
+      if (axisCount > 2) {
+        point.setPoint(expected[coordinateOffset], expected[coordinateOffset + 1],
+          expected[coordinateOffset + 2]);
+      } else {
+        point.setPoint(expected[coordinateOffset], expected[coordinateOffset + 1]);
+      }
+      operation.perform(point);
+      expected[coordinateOffset] = point.x;
+      expected[coordinateOffset + 1] = point.y;
+    }
+
+    final double[] actual = coordinates.clone();
+    if (parallel) {
+      operation.performParallel(axisCount, actual, offset, vertexCount);
+    } else {
+      operation.perform(axisCount, actual, offset, vertexCount);
+    }
+    for (int i = 0; i < actual.length; i++) {
+      Assert.assertEquals(message + " " + i, expected[i], actual[i], delta);
+    }
+  }
+
+  private static void assertProjectionBulkEqualsPerPoint(final CoordinatesProjection projection) {
+    final int vertexCount = 1000;
+    final double[] lonLat = newCoordinates(3, 3, vertexCount, Math.toRadians(-126),
+      Math.toRadians(48), Math.toRadians(0.006), Math.toRadians(0.01));
+    assertBulkEqualsPerPoint("project", projection.getProjectOperation(), 3, lonLat, 3,
+      vertexCount, false, 0);
+
+    final double[] xy = newCoordinates(2, 0, vertexCount, 300000, 5300000, 400, 1000);
+    assertBulkEqualsPerPoint("inverse", projection.getInverseOperation(), 2, xy, 0, vertexCount,
+      false, 0);
+  }
+
+  /**
+   * Create an array of vertices with the offset coordinates before the first
+   * vertex and 3 coordinates after the last vertex set to marker values that
+   * must not be changed.
+   */
+  private static double[] newCoordinates(final int axisCount, final int offset,
+    final int vertexCount, final double x, final double y, final double xStep,
+    final double yStep) {
+    final double[] coordinates = new double[offset + vertexCount * axisCount + 3];
+    for (int i = 0; i < coordinates.length; i++) {
+      coordinates[i] = -999;
+    }
+    for (int i = 0; i < vertexCount; i++) {
+      final int coordinateOffset = offset + i * axisCount;
+      coordinates[coordinateOffset] = x + i * xStep;
+      coordinates[coordinateOffset + 1] = y + i * yStep;
+      if (axisCount > 2) {
+        coordinates[coordinateOffset + 2] = i;
+      }
+    }
+    return coordinates;
+  }
+
+  @Test
+  public void testChained() {
+    final GeometryFactory sourceGeometryFactory = GeometryFactory
+      .floating3d(EpsgId.nad83Utm(10));
+    final GeometryFactory targetGeometryFactory = GeometryFactory.floating3d(3005);
+    final CoordinatesOperation operation = sourceGeometryFactory
+      .getCoordinatesOperation(targetGeometryFactory);
+    Assert.assertTrue(operation instanceof ChainedCoordinatesOperation);
+
+    final int vertexCount = 1000;
+    for (final int axisCount : new int[] {
+      2, 3
+    }) {
+      final double[] coordinates = newCoordinates(axisCount, axisCount, vertexCount, 400000,
+        5400000, 250, 500);
+      assertBulkEqualsPerPoint("chained " + axisCount, operation, axisCount, coordinates,
+        axisCount, vertexCount, false, 1e-9);
+    }
+  }
+
+  @Test
+  public void testGridShift() {
+    final GeometryFactory sourceGeometryFactory = GeometryFactory
+      .floating2d(EpsgId.nad27Utm(10));
+    // NAD83(CSRS) UTM 10 so the operation isn't cached without the shift
+    final GeometryFactory targetGeometryFactory = GeometryFactory.floating2d(3157);
+    final GeometryFactory sourceGeographic = sourceGeometryFactory
+      .getGeographicGeometryFactory();
+    final GeometryFactory targetGeographic = targetGeometryFactory
+      .getGeographicGeometryFactory();
+    final TestShiftOperation shiftOperation = new TestShiftOperation();
+    sourceGeographic.addGridShiftOperation(targetGeographic, shiftOperation);
+    try {
+      final CoordinatesOperation operation = sourceGeometryFactory
+        .getCoordinatesOperation(targetGeometryFactory);
+      final int vertexCount = CoordinatesOperation.PARALLEL_VERTEX_COUNT * 2 + 7;
+      final double[] coordinates = newCoordinates(2, 2, vertexCount, 400000, 5400000, 0.5, 1);
+      assertBulkEqualsPerPoint("grid shift", operation, 2, coordinates, 2, vertexCount, false,
+        1e-9);
+      assertBulkEqualsPerPoint("grid shift parallel", operation, 2, coordinates, 2, vertexCount,
+        true, 1e-9);
+      Assert.assertTrue("shifted", shiftOperation.shiftCount.get() > 0);
+
+      // The shift on its own and chained with projections
+      final CoordinatesProjection projection = TransverseMercatorUsgs.newUtm(NAD83_ELLIPSOID,
+        -123);
+      final ChainedCoordinatesOperation chained = new ChainedCoordinatesOperation(
+        projection.getInverseOperation(), shiftOperation, projection.getProjectOperation());
+      final double[] coordinates3d = newCoordinates(3, 0, 1000, 400000, 5400000, 100, 250);
+      assertBulkEqualsPerPoint("shift", shiftOperation, 3, coordinates3d, 0, 1000, false, 0);
+      assertBulkEqualsPerPoint("shift chained", chained, 3, coordinates3d, 0, 1000, false, 0);
+    } finally {
+      sourceGeographic.removeGridShiftOperation(targetGeographic, shiftOperation);
+    }
+  }
+
+  @Test
+  public void testPerformParallel() {
+    final GeometryFactory sourceGeometryFactory = GeometryFactory
+      .floating3d(EpsgId.nad83Utm(10));
+    final GeometryFactory targetGeometryFactory = GeometryFactory.floating3d(3005);
+    final CoordinatesOperation operation = sourceGeometryFactory
+      .getCoordinatesOperation(targetGeometryFactory);
+    final int vertexCount = CoordinatesOperation.PARALLEL_VERTEX_COUNT * 3 + 11;
+    final double[] coordinates = newCoordinates(3, 3, vertexCount, 300000, 5300000, 0.5, 2);
+    assertBulkEqualsPerPoint("parallel", operation, 3, coordinates, 3, vertexCount, true, 1e-9);
+
+    final CoordinatesProjection projection = TransverseMercatorUsgs.newUtm(NAD83_ELLIPSOID,
+      -123);
+    final double[] xy = newCoordinates(2, 0, vertexCount, 300000, 5300000, 0.5, 2);
+    assertBulkEqualsPerPoint("parallel inverse", projection.getInverseOperation(), 2, xy, 0,
+      vertexCount, true, 0);
+  }
+
+  @Test
+  public void testTransverseMercatorJhs() {
+    assertProjectionBulkEqualsPerPoint(TransverseMercatorJhs.newUtm(NAD83_ELLIPSOID, -123));
+  }
+
+  @Test
+  public void testTransverseMercatorUsgs() {
+    assertProjectionBulkEqualsPerPoint(TransverseMercatorUsgs.newUtm(NAD83_ELLIPSOID, -123));
+  }
+}
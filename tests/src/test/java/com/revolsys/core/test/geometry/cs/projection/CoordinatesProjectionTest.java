@@ -82,6 +82,17 @@ public class CoordinatesProjectionTest {
     final double yActual = opPoint.y;
     assertXyMM("CoordinatesProjection ", x, y, xActual, yActual);
 
+    final double[] coordinates = {
+      λActual, φActual, λActual, φActual
+    };
+    projection.project(2, coordinates, 0, 2);
+    for (int i = 0; i < coordinates.length; i += 2) {
+      Assert.assertEquals("bulk project x", xActual, coordinates[i], 0);
+      Assert.assertEquals("bulk project y", yActual, coordinates[i + 1], 0);
+    }
+    projection.inverse(2, coordinates, 0, 2);
+    assertDegrees(lon, lat, coordinates[2], coordinates[3]);
+
     final GeometryFactory geographicGeometryFactory = geometryFactory
       .getGeographicGeometryFactory();
     assertPoint("convertGeometry", geometryFactory, x, y, geographicGeometryFactory, lon, lat,
@@ -0,0 +1,65 @@
+package com.revolsys.core.test.geometry.test.model;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * Look up the same geometry factories from many threads at once and check
+ * every thread gets the canonical instance.
+ */
+class GeometryFactoryContentionTest {
+
+  private static final int[] COORDINATE_SYSTEM_IDS = {
+    EpsgId.WGS84, EpsgId.NAD83, 3005, 26910, 0, 102100
+  };
+
+  private static final int THREAD_COUNT = 64;
+
+  @Test
+  void canonicalInstances() throws InterruptedException {
+    final AtomicReferenceArray<GeometryFactory> first = new AtomicReferenceArray<>(
+      COORDINATE_SYSTEM_IDS.length * 3);
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] threads = new Thread[THREAD_COUNT];
+    final Throwable[] errors = new Throwable[THREAD_COUNT];
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      final int threadIndex = t;
+      threads[t] = Thread.ofPlatform()
+        .start(() -> {
+          try {
+            start.await();
+            for (int i = 0; i < COORDINATE_SYSTEM_IDS.length; i++) {
+              final int coordinateSystemId = COORDINATE_SYSTEM_IDS[i];
+              final GeometryFactory[] factories = {
+                GeometryFactory.floating2d(coordinateSystemId),
+                GeometryFactory.floating3d(coordinateSystemId),
+                GeometryFactory.fixed2d(coordinateSystemId, 1000.0, 1000.0)
+              };
+              for (int j = 0; j < factories.length; j++) {
+                final int index = i * 3 + j;
+                first.compareAndSet(index, null, factories[j]);
+                Assertions.assertSame(first.get(index), factories[j]);
+              }
+            }
+          } catch (final Throwable e) {
+            errors[threadIndex] = e;
+          }
+        });
+    }
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    for (final Throwable error : errors) {
+      if (error != null) {
+        Assertions.fail(error);
+      }
+    }
+  }
+}
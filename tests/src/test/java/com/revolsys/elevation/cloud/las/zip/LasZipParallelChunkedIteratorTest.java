@@ -0,0 +1,148 @@
+package com.revolsys.elevation.cloud.las.zip;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.collection.json.JsonObject;
+import com.revolsys.collection.map.MapEx;
+import com.revolsys.elevation.cloud.PointCloud;
+import com.revolsys.elevation.cloud.las.LasPointCloud;
+import com.revolsys.elevation.cloud.las.LasPointCloudWriter;
+import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
+import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
+import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.util.ServiceInitializer;
+
+class LasZipParallelChunkedIteratorTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory
+    .fixed3d(EpsgId.nad83Utm(10), 1000.0, 1000.0, 1000.0);
+
+  /** More than two chunks with a partial last chunk. */
+  private static final int POINT_COUNT = LasZipHeader.LASZIP_CHUNK_SIZE_DEFAULT * 2 + 12345;
+
+  private static void assertParallelSameAsSequential(final LasPointFormat pointFormat,
+    final int lasZipVersion) throws IOException {
+    final Path directory = Files.createTempDirectory("lasZipParallel");
+    try {
+      final Path file = directory.resolve("test.laz");
+      writePoints(file, pointFormat, lasZipVersion);
+
+      final List<LasPoint> expectedPoints = readPoints(file, JsonObject.hash(), false);
+      Assert.assertEquals(POINT_COUNT, expectedPoints.size());
+
+      final MapEx orderedProperties = JsonObject
+        .hash(LasZipParallelChunkedIterator.WORKER_COUNT, 3);
+      final List<LasPoint> orderedPoints = readPoints(file, orderedProperties, true);
+      assertPointsEqual(expectedPoints, orderedPoints);
+
+      final MapEx unorderedProperties = JsonObject
+        .hash(LasZipParallelChunkedIterator.WORKER_COUNT, 3)
+        .addValue(LasZipParallelChunkedIterator.ORDERED, false);
+      final List<LasPoint> unorderedPoints = readPoints(file, unorderedProperties, true);
+      // The x values are unique and increasing in file order
+      unorderedPoints.sort(Comparator.comparingInt(LasPoint::getXInt));
+      assertPointsEqual(expectedPoints, unorderedPoints);
+    } finally {
+      try (
+        Stream<Path> paths = Files.list(directory)) {
+        for (final Path path : (Iterable<Path>)paths::iterator) {
+          Files.delete(path);
+        }
+      }
+      Files.delete(directory);
+    }
+  }
+
+  private static void assertPointEqual(final int index, final LasPoint expected,
+    final LasPoint actual) {
+    final String message = "point " + index;
+    Assert.assertEquals(message, expected.getXInt(), actual.getXInt());
+    Assert.assertEquals(message, expected.getYInt(), actual.getYInt());
+    Assert.assertEquals(message, expected.getZInt(), actual.getZInt());
+    Assert.assertEquals(message, expected.getIntensity(), actual.getIntensity());
+    Assert.assertEquals(message, expected.getReturnNumber(), actual.getReturnNumber());
+    Assert.assertEquals(message, expected.getNumberOfReturns(), actual.getNumberOfReturns());
+    Assert.assertEquals(message, expected.getClassification(), actual.getClassification());
+    Assert.assertEquals(message, expected.getUserData(), actual.getUserData());
+    Assert.assertEquals(message, expected.getPointSourceID(), actual.getPointSourceID());
+    Assert.assertEquals(message, expected.getGpsTime(), actual.getGpsTime(), 0);
+  }
+
+  private static void assertPointsEqual(final List<LasPoint> expectedPoints,
+    final List<LasPoint> actualPoints) {
+    Assert.assertEquals(expectedPoints.size(), actualPoints.size());
+    for (int i = 0; i < expectedPoints.size(); i++) {
+      assertPointEqual(i, expectedPoints.get(i), actualPoints.get(i));
+    }
+  }
+
+  @BeforeAll
+  static void init() {
+    ServiceInitializer.initializeServices();
+  }
+
+  private static List<LasPoint> readPoints(final Path file, final MapEx properties,
+    final boolean parallel) {
+    final List<LasPoint> points = new ArrayList<>();
+    try (
+      LasPointCloud pointCloud = PointCloud.newPointCloud(file, properties)) {
+      final Iterable<LasPoint> iterable = pointCloud.iterable();
+      Assert.assertEquals(parallel, iterable instanceof LasZipParallelChunkedIterator);
+      for (final LasPoint point : iterable) {
+        points.add(point);
+      }
+    }
+    return points;
+  }
+
+  private static void writePoints(final Path file, final LasPointFormat pointFormat,
+    final int lasZipVersion) {
+    final Random random = new Random(0);
+    final boolean extended = pointFormat.getId() >= 6;
+    final MapEx writeProperties = JsonObject.hash("lasZipVersion", lasZipVersion);
+    try (
+      LasPointCloudWriter writer = LasPointCloud.newWriter(pointFormat, GEOMETRY_FACTORY, file,
+        writeProperties)) {
+      for (int i = 0; i < POINT_COUNT; i++) {
+        final double x = 500000 + i * 0.001;
+        final double y = 5500000 + random.nextInt(1000000) * 0.001;
+        final double z = random.nextInt(100000) * 0.001;
+        final LasPoint point = writer.newLasPoint(x, y, z);
+        final int numberOfReturns = 1 + random.nextInt(extended ? 15 : 7);
+        point.setIntensity(random.nextInt(65536));
+        point.setNumberOfReturns((byte)numberOfReturns);
+        point.setReturnNumber((byte)(1 + random.nextInt(numberOfReturns)));
+        point.setClassification((short)random.nextInt(32));
+        point.setUserData((short)random.nextInt(256));
+        point.setPointSourceID(random.nextInt(65536));
+        if (pointFormat.name()
+          .contains("GpsTime")) {
+          point.setGpsTime(i * 0.0001 + random.nextInt(1000) * 0.000001);
+        }
+        writer.writePoint(point);
+      }
+    }
+  }
+
+  @Test
+  void testLayeredChunked() throws IOException {
+    assertParallelSameAsSequential(LasPointFormat.ExtendedGpsTime, 3);
+  }
+
+  @Test
+  void testPointwiseChunked() throws IOException {
+    assertParallelSameAsSequential(LasPointFormat.Core, 2);
+  }
+}
@@ -0,0 +1,69 @@
+package com.revolsys.elevation.gridded.rasterizer;
+
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.elevation.gridded.DoubleArrayGriddedElevationModel;
+import com.revolsys.elevation.gridded.GriddedElevationModel;
+import com.revolsys.geometry.model.GeometryFactory;
+
+class GriddedElevationModelRasterizerTest {
+
+  /**
+   * Rasterizing the whole grid in bands of rows must give the same colours as
+   * calculating each cell on its own.
+   */
+  private static void assertRasterize(final GriddedElevationModelRasterizer rasterizer) {
+    final int width = rasterizer.getWidth();
+    final int height = rasterizer.getHeight();
+    final DataBufferInt imageBuffer = new DataBufferInt(width * height);
+    rasterizer.rasterize(imageBuffer);
+    int index = 0;
+    for (int gridY = height - 1; gridY >= 0; gridY--) {
+      for (int gridX = 0; gridX < width; gridX++) {
+        final String message = rasterizer.getName() + " (" + gridX + "," + gridY + ")";
+        Assert.assertEquals(message, rasterizer.getValue(gridX, gridY),
+          imageBuffer.getElem(index++));
+      }
+    }
+  }
+
+  private static GriddedElevationModel newModel(final int width, final int height) {
+    final GeometryFactory geometryFactory = GeometryFactory.fixed3d(3005, 1000.0, 1000.0,
+      1000.0);
+    final GriddedElevationModel model = new DoubleArrayGriddedElevationModel(geometryFactory,
+      1000000, 500000, width, height, 2);
+    final Random random = new Random(1);
+    for (int gridY = 0; gridY < height; gridY++) {
+      for (int gridX = 0; gridX < width; gridX++) {
+        if (random.nextInt(10) != 0) {
+          final double elevation = 100 + 50 * Math.sin(gridX * 0.1) * Math.cos(gridY * 0.07)
+            + random.nextDouble();
+          model.setValue(gridX, gridY, elevation);
+        }
+      }
+    }
+    return model;
+  }
+
+  @Test
+  void testRasterize() {
+    for (final int[] size : new int[][] {
+      {
+        1, 1
+      }, {
+        7, 3
+      }, {
+        150, 200
+      }
+    }) {
+      final GriddedElevationModel model = newModel(size[0], size[1]);
+      assertRasterize(new ColorGradientGriddedElevationModelRasterizer(model));
+      assertRasterize(new HillShadeGriddedElevationModelRasterizer(model));
+      assertRasterize(new SlopeColorGradientGriddedElevationModelRasterizer(model));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.revolsys.elevation.tin.quadedge.intscale;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.model.GeometryFactory;
+
+class IntArrayDelaunayTinBuilderTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed3d(3005, 1000.0,
+    1000.0, 1000.0);
+
+  /**
+   * Each triangle must be CCW and have no vertices inside its circumcircle.
+   */
+  private static void assertDelaunay(final IntArrayDelaunayTinBuilder builder, final int[] xs,
+    final int[] ys) {
+    builder.forEachTriangleVertex((vertexIndex1, vertexIndex2, vertexIndex3) -> {
+      final int x1 = xs[vertexIndex1];
+      final int y1 = ys[vertexIndex1];
+      final int x2 = xs[vertexIndex2];
+      final int y2 = ys[vertexIndex2];
+      final int x3 = xs[vertexIndex3];
+      final int y3 = ys[vertexIndex3];
+      final long area = ((long)x2 - x1) * ((long)y3 - y1) - ((long)y2 - y1) * ((long)x3 - x1);
+      Assert.assertTrue("CCW", area > 0);
+      for (int i = 0; i < xs.length; i++) {
+        Assert.assertFalse("Empty circumcircle",
+          IntArrayQuadEdgeSubdivision.isInCircle(x1, y1, x2, y2, x3, y3, xs[i], ys[i]));
+      }
+    });
+  }
+
+  private static Set<String> getTriangles(final IntArrayDelaunayTinBuilder builder) {
+    final Set<String> triangles = new HashSet<>();
+    builder.forEachTriangleVertex((vertexIndex1, vertexIndex2, vertexIndex3) -> {
+      final int[] vertexIndexes = {
+        vertexIndex1, vertexIndex2, vertexIndex3
+      };
+      Arrays.sort(vertexIndexes);
+      triangles.add(Arrays.toString(vertexIndexes));
+    });
+    return triangles;
+  }
+
+  @Test
+  void testDuplicateVertices() {
+    final IntArrayDelaunayTinBuilder builder = new IntArrayDelaunayTinBuilder(GEOMETRY_FACTORY);
+    builder.insertVertexInt(0, 0, 1);
+    builder.insertVertexInt(1000, 0, 2);
+    builder.insertVertexInt(1000, 0, 3);
+    builder.insertVertexInt(0, 1000, 4);
+    builder.insertVertexInt(0, 0, 5);
+    Assert.assertEquals(1, builder.getTriangleCount());
+    builder.forEachTriangleVertex((vertexIndex1, vertexIndex2, vertexIndex3) -> {
+      Assert.assertEquals(0 + 1 + 3, vertexIndex1 + vertexIndex2 + vertexIndex3);
+    });
+  }
+
+  @Test
+  void testGrid() {
+    final int size = 40;
+    final int[] xs = new int[size * size];
+    final int[] ys = new int[size * size];
+    final IntArrayDelaunayTinBuilder builder = new IntArrayDelaunayTinBuilder(GEOMETRY_FACTORY);
+    builder.setTilePointCount(100);
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i % size * 1000;
+      ys[i] = i / size * 1000;
+      builder.insertVertexInt(xs[i], ys[i], i);
+    }
+    Assert.assertEquals(2 * (size - 1) * (size - 1), builder.getTriangleCount());
+    assertDelaunay(builder, xs, ys);
+  }
+
+  @Test
+  void testLargeExtent() {
+    final IntArrayDelaunayTinBuilder builder = new IntArrayDelaunayTinBuilder(GEOMETRY_FACTORY);
+    builder.insertVertexInt(0, 0, 1);
+    builder.insertVertexInt(1 << 30, 0, 2);
+    builder.insertVertexInt(1 << 30, 1 << 30, 3);
+    builder.insertVertexInt(0, 1 << 30, 4);
+    Assert.assertFalse(builder.isFrameSupported());
+    Assert.assertThrows(IllegalArgumentException.class, builder::getTriangleCount);
+    // Falls back to the double coordinate builder
+    Assert.assertEquals(2, builder.newTriangulatedIrregularNetwork()
+      .getTriangleCount());
+  }
+
+  @Test
+  void testNearIntLimits() {
+    final IntArrayDelaunayTinBuilder builder = new IntArrayDelaunayTinBuilder(GEOMETRY_FACTORY);
+    builder.insertVertexInt(Integer.MAX_VALUE - 1000, 0, 1);
+    builder.insertVertexInt(Integer.MAX_VALUE, 0, 2);
+    builder.insertVertexInt(Integer.MAX_VALUE, 1000, 3);
+    Assert.assertFalse(builder.isFrameSupported());
+
+    Assert.assertThrows(IllegalArgumentException.class,
+      () -> builder.insertVertex(1.0e7, 0, 0));
+  }
+
+  @Test
+  void testTilesMatchSingleTriangulation() {
+    final int vertexCount = 5000;
+    final Random random = new Random(1);
+    final int[] xs = new int[vertexCount];
+    final int[] ys = new int[vertexCount];
+    final IntArrayDelaunayTinBuilder single = new IntArrayDelaunayTinBuilder(GEOMETRY_FACTORY);
+    final IntArrayDelaunayTinBuilder tiled = new IntArrayDelaunayTinBuilder(GEOMETRY_FACTORY);
+    tiled.setTilePointCount(200);
+    for (int i = 0; i < vertexCount; i++) {
+      xs[i] = 1000000000 + random.nextInt(5000000);
+      ys[i] = random.nextInt(3000000);
+      single.insertVertexInt(xs[i], ys[i], i);
+      tiled.insertVertexInt(xs[i], ys[i], i);
+    }
+    assertDelaunay(single, xs, ys);
+    Assert.assertEquals(getTriangles(single), getTriangles(tiled));
+  }
+}
@@ -0,0 +1,126 @@
+package com.revolsys.geometry.graph;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.graph.algorithm.CompactPath;
+import com.revolsys.geometry.graph.algorithm.CompactShortestPath;
+import com.revolsys.geometry.graph.algorithm.ConnectedComponents;
+import com.revolsys.geometry.graph.algorithm.ShortestPath;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+
+class CompactGraphTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.DEFAULT_2D;
+
+  private static final int SIZE = 20;
+
+  /**
+   * Construct a grid graph where the horizontal edges have a bend in them so
+   * the edge lengths vary.
+   */
+  private static Graph<Integer> newGridGraph() {
+    final Graph<Integer> graph = new Graph<>();
+    int id = 0;
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        if (x < SIZE - 1) {
+          final double bend = (x * 7 + y * 3) % 5 * 0.2;
+          final LineString line = GEOMETRY_FACTORY.lineString(2, x, y, x + 0.5, y + bend, x + 1,
+            y);
+          graph.addEdge(id++, line);
+        }
+        if (y < SIZE - 1) {
+          final LineString line = GEOMETRY_FACTORY.lineString(2, x, y, x, y + 1);
+          graph.addEdge(id++, line);
+        }
+      }
+    }
+    return graph;
+  }
+
+  @Test
+  void testConnectedComponents() {
+    final CompactGraphBuilder<String> builder = new CompactGraphBuilder<>(GEOMETRY_FACTORY);
+    builder.addEdge("a", 0, 0, 1, 0, 1);
+    builder.addEdge("b", 1, 0, 1, 1, 1);
+    builder.addEdge("c", 10, 10, 11, 10, 1);
+    builder.addEdge("d", 20, 20, 20, 20, 0);
+    final CompactGraph<String> graph = builder.newGraph();
+    Assert.assertEquals(6, graph.getNodeCount());
+    Assert.assertEquals(1, graph.getNodeDegree(graph.getNodeIndex(20, 20)));
+
+    final ConnectedComponents components = new ConnectedComponents(graph);
+    Assert.assertEquals(3, components.getComponentCount());
+    Assert.assertEquals(3, components.getComponentSize(components.getLargestComponent()));
+    Assert.assertTrue(
+      components.isConnected(graph.getNodeIndex(0, 0), graph.getNodeIndex(1, 1)));
+    Assert.assertFalse(
+      components.isConnected(graph.getNodeIndex(0, 0), graph.getNodeIndex(10, 10)));
+
+    final CompactShortestPath<String> shortestPath = new CompactShortestPath<>(graph);
+    final CompactPath<String> path = shortestPath.bidirectional(graph.getNodeIndex(0, 0),
+      graph.getNodeIndex(11, 10));
+    Assert.assertFalse(path.isFound());
+    Assert.assertEquals(Double.POSITIVE_INFINITY, path.getDistance(), 0);
+  }
+
+  @Test
+  void testNodeIndex() {
+    final CompactGraph<Integer> graph = CompactGraph.newGraph(newGridGraph());
+    Assert.assertEquals(SIZE * SIZE, graph.getNodeCount());
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        final int nodeIndex = graph.getNodeIndex(x, y);
+        Assert.assertNotEquals(-1, nodeIndex);
+        Assert.assertEquals(x, graph.getNodeX(nodeIndex), 0);
+        Assert.assertEquals(y, graph.getNodeY(nodeIndex), 0);
+      }
+    }
+    Assert.assertEquals(graph.getNodeIndex(0, 0), graph.getNodeIndex(-0.0, -0.0));
+    Assert.assertEquals(-1, graph.getNodeIndex(0.5, 0.5));
+    Assert.assertEquals(graph.getNodeIndex(3, 4), graph.getNearestNode(3.1, 4.1, 1));
+    Assert.assertEquals(-1, graph.getNearestNode(-5, -5, 1));
+  }
+
+  @Test
+  void testShortestPath() {
+    final Graph<Integer> graph = newGridGraph();
+    final CompactGraph<Integer> compactGraph = CompactGraph.newGraph(graph);
+    final CompactShortestPath<Integer> shortestPath = new CompactShortestPath<>(compactGraph);
+
+    final Node<Integer> fromNode = graph.findNode(0, 0);
+    final ShortestPath<Integer> expectedShortestPath = new ShortestPath<>(graph, fromNode);
+    final int fromIndex = compactGraph.getNodeIndex(0, 0);
+    final double[] distances = shortestPath.getDistances(fromIndex);
+    for (int y = 0; y < SIZE; y += 3) {
+      for (int x = 0; x < SIZE; x += 2) {
+        final List<Edge<Integer>> expectedPath = expectedShortestPath
+          .getPath(graph.findNode(x, y));
+        double expectedDistance = 0;
+        for (final Edge<Integer> edge : expectedPath) {
+          expectedDistance += edge.getLength();
+        }
+
+        final int toIndex = compactGraph.getNodeIndex(x, y);
+        Assert.assertEquals(expectedDistance, distances[toIndex], 1e-9);
+        for (final CompactPath<Integer> path : List.of(shortestPath.dijkstra(fromIndex, toIndex),
+          shortestPath.aStar(fromIndex, toIndex), shortestPath.bidirectional(fromIndex, toIndex))) {
+          Assert.assertTrue(path.isFound());
+          Assert.assertEquals(expectedDistance, path.getDistance(), 1e-9);
+          Assert.assertEquals(fromIndex, path.getNode(0));
+          Assert.assertEquals(toIndex, path.getNode(path.getNodeCount() - 1));
+          Assert.assertEquals(path.getEdgeCount(), path.getEdgeObjects()
+            .size());
+          for (int i = 0; i < path.getEdgeCount(); i++) {
+            Assert.assertEquals(path.getNode(i + 1),
+              compactGraph.getEdgeOppositeNode(path.getEdge(i), path.getNode(i)));
+          }
+        }
+      }
+    }
+  }
+}
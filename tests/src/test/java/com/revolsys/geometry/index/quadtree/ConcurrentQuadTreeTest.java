@@ -0,0 +1,195 @@
+package com.revolsys.geometry.index.quadtree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.model.GeometryFactory;
+
+class ConcurrentQuadTreeTest {
+
+  private static boolean intersects(final double[] bounds, final double[] query) {
+    return !(bounds[0] > query[2] || bounds[2] < query[0] || bounds[1] > query[3]
+      || bounds[3] < query[1]);
+  }
+
+  private static ConcurrentQuadTree<Integer> newTree() {
+    final ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<>(GeometryFactory.DEFAULT_2D);
+    tree.setUseEquals(true);
+    return tree;
+  }
+
+  private static double[] randomBounds(final Random random, final double centreX,
+    final double centreY, final double extent, final double maxSize) {
+    final double x = centreX + (random.nextDouble() * 2 - 1) * extent;
+    final double y = centreY + (random.nextDouble() * 2 - 1) * extent;
+    if (random.nextInt(10) == 0) {
+      return new double[] {
+        x, y, x, y
+      };
+    } else {
+      return new double[] {
+        x, y, x + random.nextDouble() * maxSize, y + random.nextDouble() * maxSize
+      };
+    }
+  }
+
+  private static Thread startWriter(final ConcurrentQuadTree<Integer> tree, final int writerIndex,
+    final AtomicBoolean stop, final AtomicInteger errors) {
+    return Thread.ofPlatform()
+      .start(() -> {
+        final Random random = new Random(writerIndex);
+        final int firstItem = 1_000_000 * (writerIndex + 1);
+        final List<double[]> itemBounds = new ArrayList<>();
+        final List<Integer> items = new ArrayList<>();
+        int itemCount = 0;
+        while (!stop.get()) {
+          if (items.size() < 5000 && random.nextBoolean()) {
+            final double[] bounds = randomBounds(random, 500000, 5400000, 50000, 500);
+            final int item = firstItem + itemCount++;
+            tree.insertItem(bounds[0], bounds[1], bounds[2], bounds[3], item);
+            itemBounds.add(bounds);
+            items.add(item);
+          } else if (!items.isEmpty()) {
+            final int index = random.nextInt(items.size());
+            final double[] bounds = itemBounds.remove(index);
+            final int item = items.remove(index);
+            if (!tree.removeItem(bounds[0], bounds[1], bounds[2], bounds[3], item)) {
+              errors.incrementAndGet();
+            }
+          }
+        }
+        for (int i = 0; i < items.size(); i++) {
+          final double[] bounds = itemBounds.get(i);
+          if (!tree.removeItem(bounds[0], bounds[1], bounds[2], bounds[3], items.get(i))) {
+            errors.incrementAndGet();
+          }
+        }
+      });
+  }
+
+  @Test
+  void testConcurrentReadersAndWriters() throws InterruptedException {
+    final ConcurrentQuadTree<Integer> tree = newTree();
+    final Random random = new Random(1);
+    final int fixedCount = 20000;
+    final List<double[]> fixedBounds = new ArrayList<>();
+    final List<Integer> fixedItems = new ArrayList<>();
+    for (int i = 0; i < fixedCount; i++) {
+      fixedBounds.add(randomBounds(random, 500000, 5400000, 50000, 500));
+      fixedItems.add(i);
+    }
+    tree.insertItems(fixedItems, item -> {
+      final double[] bounds = fixedBounds.get(item);
+      return GeometryFactory.DEFAULT_2D.newBoundingBox(bounds[0], bounds[1], bounds[2],
+        bounds[3]);
+    });
+    Assert.assertEquals(fixedCount, tree.getSize());
+
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicInteger errors = new AtomicInteger();
+    final AtomicInteger queryCount = new AtomicInteger();
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      threads.add(startWriter(tree, i, stop, errors));
+    }
+    for (int i = 0; i < 6; i++) {
+      final int readerIndex = i;
+      threads.add(Thread.ofPlatform()
+        .start(() -> {
+          final Random readerRandom = new Random(100 + readerIndex);
+          while (!stop.get()) {
+            final double[] query = randomBounds(readerRandom, 500000, 5400000, 50000, 5000);
+            final Set<Integer> found = new HashSet<>();
+            tree.forEach(query[0], query[1], query[2], query[3], item -> {
+              if (!found.add(item)) {
+                // Returned more than once
+                errors.incrementAndGet();
+              }
+            });
+            // Items that aren't being modified must always be found
+            for (int item = 0; item < fixedCount; item += 7) {
+              if (intersects(fixedBounds.get(item), query) && !found.contains(item)) {
+                errors.incrementAndGet();
+              }
+            }
+            queryCount.incrementAndGet();
+          }
+        }));
+    }
+    Thread.sleep(2000);
+    stop.set(true);
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(0, errors.get());
+    Assert.assertTrue(queryCount.get() > 0);
+    Assert.assertEquals(fixedCount, tree.getSize());
+    Assert.assertEquals(fixedCount, tree.getItems()
+      .size());
+  }
+
+  @Test
+  void testMatchesBruteForce() {
+    final Random random = new Random(2);
+    for (int trial = 0; trial < 6; trial++) {
+      final ConcurrentQuadTree<Integer> tree = newTree();
+      // Around the origin items straddle the axes and stay in the root
+      final double centre = trial % 2 == 0 ? 0 : 500000;
+      final double extent = trial < 3 ? 100 : 100000;
+      final Map<Integer, double[]> expectedItems = new HashMap<>();
+      int nextItem = 0;
+      for (int step = 0; step < 3000; step++) {
+        final int operation = random.nextInt(10);
+        if (operation < 5) {
+          final double[] bounds;
+          if (trial == 2 && random.nextBoolean()) {
+            // Many items at the same point
+            bounds = new double[] {
+              centre, centre, centre, centre
+            };
+          } else {
+            bounds = randomBounds(random, centre, centre, extent, extent / 50);
+          }
+          tree.insertItem(bounds[0], bounds[1], bounds[2], bounds[3], nextItem);
+          expectedItems.put(nextItem++, bounds);
+        } else if (operation < 7 && !expectedItems.isEmpty()) {
+          final List<Integer> items = new ArrayList<>(expectedItems.keySet());
+          final Integer item = items.get(random.nextInt(items.size()));
+          final double[] bounds = expectedItems.remove(item);
+          Assert.assertTrue(tree.removeItem(bounds[0], bounds[1], bounds[2], bounds[3], item));
+          Assert.assertFalse(tree.removeItem(bounds[0], bounds[1], bounds[2], bounds[3], item));
+        } else {
+          final double[] query = randomBounds(random, centre, centre, extent, extent / 3);
+          final Set<Integer> expected = new HashSet<>();
+          for (final Map.Entry<Integer, double[]> entry : expectedItems.entrySet()) {
+            if (intersects(entry.getValue(), query)) {
+              expected.add(entry.getKey());
+            }
+          }
+          final List<Integer> actual = tree.getItems(query[0], query[1], query[2], query[3]);
+          Assert.assertEquals(expected.size(), actual.size());
+          Assert.assertEquals(expected, new HashSet<>(actual));
+        }
+        Assert.assertEquals(expectedItems.size(), tree.getSize());
+      }
+      final List<Integer> items = tree.getItems();
+      Assert.assertEquals(expectedItems.size(), items.size());
+      Assert.assertEquals(expectedItems.keySet(), new HashSet<>(items));
+
+      tree.clear();
+      Assert.assertEquals(0, tree.getSize());
+      Assert.assertTrue(tree.getItems()
+        .isEmpty());
+    }
+  }
+}
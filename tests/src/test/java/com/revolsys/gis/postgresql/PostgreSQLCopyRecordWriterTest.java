@@ -0,0 +1,106 @@
+package com.revolsys.gis.postgresql;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.gis.postgresql.PostgreSQLCopyRecordWriter.ValueEncoder;
+import com.revolsys.gis.postgresql.type.PostgreSQLBinaryWriter;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+
+class PostgreSQLCopyRecordWriterTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.floating2d(3005);
+
+  private static final RecordDefinition RECORD_DEFINITION = new RecordDefinitionBuilder("/TEST")
+    .addField("ID", DataTypes.INT)
+    .addField("NAME", DataTypes.STRING)
+    .addField("STATUS", DataTypes.STRING)
+    .addField("GEOMETRY", GeometryDataTypes.POINT)
+    .getRecordDefinition();
+
+  private static final FieldDefinition[] FIELDS = RECORD_DEFINITION.getFields()
+    .toArray(new FieldDefinition[0]);
+
+  private static final ValueEncoder INT_ENCODER = (out, value) -> out
+    .putInt(((Number)value).intValue());
+
+  private static final ValueEncoder TEXT_ENCODER = (out, value) -> out
+    .putString(value.toString());
+
+  private static final ValueEncoder[] ENCODERS = {
+    INT_ENCODER, TEXT_ENCODER, TEXT_ENCODER, (out, value) -> out.putByte((byte)9)
+  };
+
+  private static ByteBuffer writeRow(final Record record) {
+    final PostgreSQLBinaryWriter out = new PostgreSQLBinaryWriter();
+    PostgreSQLCopyRecordWriter.writeRow(out, FIELDS, ENCODERS, record);
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  @Test
+  void encodeFailureRemovesRow() {
+    final PostgreSQLBinaryWriter out = new PostgreSQLBinaryWriter();
+    out.putInt(7);
+    final Record record = RECORD_DEFINITION.newRecord();
+    record.setValue("ID", 1);
+    final ValueEncoder[] encoders = {
+      (o, value) -> {
+        o.putByte((byte)1);
+        throw new IllegalArgumentException();
+      }, TEXT_ENCODER, TEXT_ENCODER, TEXT_ENCODER
+    };
+    try {
+      PostgreSQLCopyRecordWriter.writeRow(out, FIELDS, encoders, record);
+      Assert.fail("Expecting IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      Assert.assertEquals(4, out.size());
+    }
+  }
+
+  @Test
+  void nullValuesWrittenAsNull() {
+    final Record record = RECORD_DEFINITION.newRecord();
+    record.setValue("ID", 1);
+    record.setValue("STATUS", "b");
+    record.setValue("GEOMETRY", GEOMETRY_FACTORY.point());
+    final ByteBuffer row = writeRow(record);
+    // Every column is listed, null and empty geometry are NULL not the default
+    Assert.assertEquals(4, row.getShort());
+    Assert.assertEquals(4, row.getInt());
+    Assert.assertEquals(1, row.getInt());
+    Assert.assertEquals(-1, row.getInt());
+    Assert.assertEquals(1, row.getInt());
+    Assert.assertEquals('b', row.get());
+    Assert.assertEquals(-1, row.getInt());
+    Assert.assertFalse(row.hasRemaining());
+  }
+
+  @Test
+  void values() {
+    final Record record = RECORD_DEFINITION.newRecord();
+    record.setValue("ID", 2);
+    record.setValue("NAME", "ab");
+    record.setValue("STATUS", "c");
+    record.setValue("GEOMETRY", GEOMETRY_FACTORY.point(1, 2));
+    final ByteBuffer row = writeRow(record);
+    Assert.assertEquals(4, row.getShort());
+    Assert.assertEquals(4, row.getInt());
+    Assert.assertEquals(2, row.getInt());
+    Assert.assertEquals(2, row.getInt());
+    Assert.assertEquals('a', row.get());
+    Assert.assertEquals('b', row.get());
+    Assert.assertEquals(1, row.getInt());
+    Assert.assertEquals('c', row.get());
+    Assert.assertEquals(1, row.getInt());
+    Assert.assertEquals(9, row.get());
+    Assert.assertFalse(row.hasRemaining());
+  }
+}
@@ -0,0 +1,76 @@
+package com.revolsys.gis.postgresql.type;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataType;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+
+class PostgreSQLEwkbReaderTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY_2D = GeometryFactory.floating2d(3005);
+
+  private static final GeometryFactory GEOMETRY_FACTORY_3D = GeometryFactory.floating3d(3005);
+
+  private void assertRoundTrip(final GeometryFactory geometryFactory, final DataType dataType,
+    final String wkt) {
+    final Geometry geometry = geometryFactory.geometry(wkt);
+    final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter();
+    writer.putEwkb(geometry, dataType, geometryFactory.getAxisCount(),
+      geometryFactory.getHorizontalCoordinateSystemId());
+    final Geometry actual = PostgreSQLEwkbReader.read(geometryFactory, writer.toByteArray());
+    Assert.assertEquals(wkt, geometry.toEwkt(), actual.toEwkt());
+  }
+
+  @Test
+  void lineString() {
+    assertRoundTrip(GEOMETRY_FACTORY_2D, GeometryDataTypes.LINE_STRING,
+      "LINESTRING(1 2,3 4,5 6)");
+    assertRoundTrip(GEOMETRY_FACTORY_3D, GeometryDataTypes.LINE_STRING,
+      "LINESTRING Z(1 2 3,4 5 6)");
+  }
+
+  @Test
+  void multi() {
+    assertRoundTrip(GEOMETRY_FACTORY_2D, GeometryDataTypes.MULTI_POINT, "MULTIPOINT((1 2),(3 4))");
+    assertRoundTrip(GEOMETRY_FACTORY_2D, GeometryDataTypes.MULTI_LINE_STRING,
+      "MULTILINESTRING((1 2,3 4),(5 6,7 8))");
+    assertRoundTrip(GEOMETRY_FACTORY_2D, GeometryDataTypes.MULTI_POLYGON,
+      "MULTIPOLYGON(((0 0,10 0,10 10,0 10,0 0)),((20 20,30 20,30 30,20 20)))");
+  }
+
+  @Test
+  void multiPartToSinglePartColumn() {
+    final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter();
+    Assert.assertThrows(IllegalArgumentException.class,
+      () -> writer.putEwkb(GEOMETRY_FACTORY_2D.geometry("MULTIPOINT((1 2),(3 4))"),
+        GeometryDataTypes.POINT, 2, 3005));
+    Assert.assertThrows(IllegalArgumentException.class,
+      () -> writer.putEwkb(GEOMETRY_FACTORY_2D.geometry("POINT(1 2)"),
+        GeometryDataTypes.LINE_STRING, 2, 3005));
+  }
+
+  @Test
+  void point() {
+    assertRoundTrip(GEOMETRY_FACTORY_2D, GeometryDataTypes.POINT, "POINT(1 2)");
+    assertRoundTrip(GEOMETRY_FACTORY_3D, GeometryDataTypes.POINT, "POINT Z(1 2 3)");
+  }
+
+  @Test
+  void singlePartMultiToSinglePartColumn() {
+    final Geometry geometry = GEOMETRY_FACTORY_2D.geometry("MULTIPOINT((1 2))");
+    final PostgreSQLBinaryWriter writer = new PostgreSQLBinaryWriter();
+    writer.putEwkb(geometry, GeometryDataTypes.POINT, 2, 3005);
+    final Geometry actual = PostgreSQLEwkbReader.read(GEOMETRY_FACTORY_2D, writer.toByteArray());
+    Assert.assertEquals(GEOMETRY_FACTORY_2D.geometry("POINT(1 2)")
+      .toEwkt(), actual.toEwkt());
+  }
+
+  @Test
+  void polygon() {
+    assertRoundTrip(GEOMETRY_FACTORY_2D, GeometryDataTypes.POLYGON,
+      "POLYGON((0 0,10 0,10 10,0 10,0 0),(2 2,2 4,4 4,2 2))");
+  }
+}
@@ -0,0 +1,119 @@
+package com.revolsys.grid;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class GridTileCacheTest {
+
+  private static String tile(final int tileIndexX, final int tileIndexY) {
+    return tileIndexX + "," + tileIndexY;
+  }
+
+  @Test
+  void testClearDuringLoad() throws InterruptedException {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch cleared = new CountDownLatch(1);
+    final GridTileCache<String> cache = new GridTileCache<>(10, (tileIndexX, tileIndexY) -> {
+      loading.countDown();
+      try {
+        cleared.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread()
+          .interrupt();
+      }
+      return tile(tileIndexX, tileIndexY);
+    });
+    final Thread thread = new Thread(() -> cache.getTile(0, 0));
+    thread.start();
+    loading.await();
+    cache.clear();
+    cleared.countDown();
+    thread.join();
+
+    // The tile was removed while loading so its weight isn't counted
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getTotalWeight());
+
+    Assert.assertEquals("0,0", cache.getTile(0, 0));
+    Assert.assertEquals(1, cache.getTotalWeight());
+  }
+
+  @Test
+  void testHitUpdatesLeastRecentlyUsed() {
+    final GridTileCache<String> cache = new GridTileCache<>(2, GridTileCacheTest::tile);
+    cache.getTile(0, 0);
+    cache.getTile(1, 0);
+    // The hit makes 1,0 the least recently used tile
+    Assert.assertEquals("0,0", cache.getTile(0, 0));
+    Assert.assertEquals(1, cache.getHitCount());
+
+    cache.getTile(2, 0);
+    Assert.assertEquals(1, cache.getEvictionCount());
+    Assert.assertEquals(2, cache.getTotalWeight());
+    final long missCount = cache.getMissCount();
+    cache.getTile(0, 0);
+    cache.getTile(2, 0);
+    Assert.assertEquals(missCount, cache.getMissCount());
+    cache.getTile(1, 0);
+    Assert.assertEquals(missCount + 1, cache.getMissCount());
+  }
+
+  @Test
+  void testManyTiles() {
+    final GridTileCache<String> cache = new GridTileCache<>(100000, GridTileCacheTest::tile);
+    // Enough tiles to resize the table, including negative indexes
+    for (int tileIndexX = -50; tileIndexX < 50; tileIndexX++) {
+      for (int tileIndexY = -50; tileIndexY < 50; tileIndexY++) {
+        Assert.assertEquals(tile(tileIndexX, tileIndexY), cache.getTile(tileIndexX, tileIndexY));
+      }
+    }
+    Assert.assertEquals(10000, cache.size());
+    Assert.assertEquals(10000, cache.getMissCount());
+    for (int tileIndexX = -50; tileIndexX < 50; tileIndexX++) {
+      for (int tileIndexY = -50; tileIndexY < 50; tileIndexY++) {
+        Assert.assertEquals(tile(tileIndexX, tileIndexY), cache.getTile(tileIndexX, tileIndexY));
+      }
+    }
+    Assert.assertEquals(10000, cache.getHitCount());
+    Assert.assertEquals(10000, cache.getMissCount());
+
+    cache.setMaxWeight(1000);
+    Assert.assertEquals(900, cache.size());
+    Assert.assertEquals(900, cache.getTotalWeight());
+    Assert.assertEquals(9100, cache.getEvictionCount());
+  }
+
+  @Test
+  void testNullTileNotCached() {
+    final AtomicInteger loadCount = new AtomicInteger();
+    final GridTileCache<String> cache = new GridTileCache<>(10, (tileIndexX, tileIndexY) -> {
+      loadCount.incrementAndGet();
+      return null;
+    });
+    Assert.assertNull(cache.getTile(0, 0));
+    Assert.assertNull(cache.getTile(0, 0));
+    Assert.assertEquals(2, loadCount.get());
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getTotalWeight());
+  }
+
+  @Test
+  void testWeigher() {
+    final GridTileCache<String> cache = new GridTileCache<>(10, GridTileCacheTest::tile)
+      .setWeigher(tile -> 4);
+    cache.getTile(0, 0);
+    cache.getTile(1, 0);
+    Assert.assertEquals(8, cache.getTotalWeight());
+    cache.getTile(2, 0);
+    // Evicted to 90% of the maximum weight
+    Assert.assertEquals(8, cache.getTotalWeight());
+    Assert.assertEquals(2, cache.size());
+
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getTotalWeight());
+  }
+}
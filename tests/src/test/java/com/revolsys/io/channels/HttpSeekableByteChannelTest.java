@@ -0,0 +1,232 @@
+package com.revolsys.io.channels;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class HttpSeekableByteChannelTest {
+
+  private static final int BLOCK_SIZE = 1024;
+
+  private byte[] data = new byte[100 * BLOCK_SIZE + 123];
+
+  private String eTag = "\"1\"";
+
+  private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+  private boolean rangeSupported = true;
+
+  private HttpServer server;
+
+  private void assertRead(final HttpSeekableByteChannel channel, final long position,
+    final int length) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    channel.position(position);
+    while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+    }
+    final int expectedLength = (int)Math.max(0, Math.min(length, this.data.length - position));
+    Assert.assertEquals(expectedLength, buffer.position());
+    for (int i = 0; i < expectedLength; i++) {
+      Assert.assertEquals(this.data[(int)position + i], buffer.get(i));
+    }
+  }
+
+  /**
+   * Change the contents and the ETag of the file on the server.
+   */
+  private void changeData() {
+    this.data = new byte[this.data.length];
+    new Random(3).nextBytes(this.data);
+    this.eTag = "\"2\"";
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    final String range = exchange.getRequestHeaders()
+      .getFirst("Range");
+    final String ifRange = exchange.getRequestHeaders()
+      .getFirst("If-Range");
+    this.ranges.add(String.valueOf(range));
+    int start = 0;
+    int end = this.data.length - 1;
+    exchange.getResponseHeaders()
+      .add("ETag", this.eTag);
+    if (this.rangeSupported && range != null && (ifRange == null || ifRange.equals(this.eTag))) {
+      final int dashIndex = range.indexOf('-');
+      start = Integer.parseInt(range.substring("bytes=".length(), dashIndex));
+      end = Math.min(end, Integer.parseInt(range.substring(dashIndex + 1)));
+      exchange.getResponseHeaders()
+        .add("Content-Range", "bytes " + start + "-" + end + "/" + this.data.length);
+      exchange.sendResponseHeaders(206, end - start + 1);
+    } else {
+      exchange.sendResponseHeaders(200, this.data.length);
+    }
+    try (
+      OutputStream out = exchange.getResponseBody()) {
+      out.write(this.data, start, end - start + 1);
+    }
+  }
+
+  private HttpSeekableByteChannel newChannel(final String path) throws IOException {
+    return newDefaultCacheChannel(path).setCache(new HttpBlockCache(1024 * 1024));
+  }
+
+  private HttpSeekableByteChannel newDefaultCacheChannel(final String path) throws IOException {
+    return new HttpSeekableByteChannel(newUrl(path)).setBlockSize(BLOCK_SIZE);
+  }
+
+  private URL newUrl(final String path) throws IOException {
+    return new URL("http://127.0.0.1:" + this.server.getAddress()
+      .getPort() + path);
+  }
+
+  @BeforeEach
+  void startServer() throws IOException {
+    new Random(1).nextBytes(this.data);
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.createContext("/", this::handle);
+    this.server.setExecutor(Executors.newCachedThreadPool());
+    this.server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    this.server.stop(0);
+  }
+
+  @Test
+  void testAdjacentBlocksMerged() throws IOException {
+    try (
+      HttpSeekableByteChannel channel = newChannel("/merged.bin")) {
+      channel.setReadAheadBlockCount(0);
+      assertRead(channel, 0, 10 * BLOCK_SIZE);
+      // The first byte to get the version and size, then one bounded request
+      Assert.assertEquals(List.of("bytes=0-0", "bytes=0-10239"), this.ranges);
+    }
+  }
+
+  @Test
+  void testCachedBlockUsedForSameVersion() throws IOException {
+    final String path = "/cached-first-block.bin";
+    final HttpBlockCache cache = new HttpBlockCache(1024 * 1024);
+    cache.putBlock(newUrl(path).toString(), this.eTag, BLOCK_SIZE, 0,
+      Arrays.copyOf(this.data, BLOCK_SIZE));
+    try (
+      HttpSeekableByteChannel channel = newDefaultCacheChannel(path).setCache(cache)) {
+      assertRead(channel, 0, 100);
+      Assert.assertEquals(this.data.length, channel.size());
+      Assert.assertEquals(List.of("bytes=0-0"), this.ranges);
+    }
+  }
+
+  @Test
+  void testChangedFileNotReadFromCache() throws IOException {
+    final HttpBlockCache cache = new HttpBlockCache(1024 * 1024);
+    try (
+      HttpSeekableByteChannel channel = newDefaultCacheChannel("/changed.bin").setCache(cache)) {
+      assertRead(channel, 0, 3000);
+    }
+    changeData();
+    try (
+      HttpSeekableByteChannel channel = newDefaultCacheChannel("/changed.bin").setCache(cache)) {
+      assertRead(channel, 0, 3000);
+    }
+  }
+
+  @Test
+  void testDefaultCacheSharedByChannels() throws IOException {
+    try (
+      HttpSeekableByteChannel channel = newDefaultCacheChannel("/default-cache.bin")) {
+      assertRead(channel, 0, 3000);
+    }
+    final int requestCount = this.ranges.size();
+    // The blocks are in the default cache, only the version is requested
+    try (
+      HttpSeekableByteChannel channel = newDefaultCacheChannel("/default-cache.bin")) {
+      assertRead(channel, 0, 3000);
+      Assert.assertEquals(this.data.length, channel.size());
+      Assert.assertEquals(requestCount + 1, this.ranges.size());
+      Assert.assertEquals("bytes=0-0", this.ranges.get(requestCount));
+    }
+  }
+
+  @Test
+  void testFileChangedWhileOpen() throws IOException {
+    try (
+      HttpSeekableByteChannel channel = newChannel("/changed-open.bin")) {
+      assertRead(channel, 0, 3000);
+      changeData();
+      // The If-Range doesn't match so the whole new file is returned
+      assertRead(channel, 50 * BLOCK_SIZE, 3000);
+      final int requestCount = this.ranges.size();
+      assertRead(channel, 0, 3000);
+      Assert.assertEquals(requestCount, this.ranges.size());
+    }
+  }
+
+  @Test
+  void testNoRangeSupport() throws IOException {
+    this.rangeSupported = false;
+    try (
+      HttpSeekableByteChannel channel = newChannel("/norange.bin")) {
+      assertRead(channel, 5000, 3000);
+      assertRead(channel, 0, 100);
+      assertRead(channel, this.data.length - 10, 100);
+      Assert.assertEquals(this.data.length, channel.size());
+      Assert.assertEquals(1, this.ranges.size());
+    }
+  }
+
+  @Test
+  void testRandomReadsCached() throws IOException {
+    try (
+      HttpSeekableByteChannel channel = newChannel("/random.bin")) {
+      final Random random = new Random(2);
+      final long[] positions = new long[50];
+      final int[] lengths = new int[positions.length];
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = random.nextInt(this.data.length + 100);
+        lengths[i] = 1 + random.nextInt(5000);
+        assertRead(channel, positions[i], lengths[i]);
+      }
+      Assert.assertEquals(this.data.length, channel.size());
+      final int requestCount = this.ranges.size();
+      for (final String range : this.ranges) {
+        Assert.assertTrue(range, range.matches("bytes=\\d+-\\d+"));
+      }
+
+      // Reading the same bytes again only uses the cached blocks
+      for (int i = 0; i < positions.length; i++) {
+        assertRead(channel, positions[i], lengths[i]);
+      }
+      Assert.assertEquals(requestCount, this.ranges.size());
+    }
+  }
+
+  @Test
+  void testSequentialReadAhead() throws IOException {
+    try (
+      HttpSeekableByteChannel channel = newChannel("/sequential.bin")) {
+      channel.setReadAheadBlockCount(8);
+      for (int position = 0; position < this.data.length; position += 512) {
+        assertRead(channel, position, 512);
+      }
+      // Each request is for up to 8 blocks ahead of the one being read
+      Assert.assertTrue(String.valueOf(this.ranges.size()), this.ranges.size() < 30);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.revolsys.odata.model;
+
+import java.util.List;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.record.Record;
+import com.revolsys.record.query.Condition;
+import com.revolsys.record.query.OrderBy;
+import com.revolsys.record.query.functions.F;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+
+class ODataSkipTokenTest {
+
+  private static final RecordDefinition RECORD_DEFINITION = new RecordDefinitionBuilder("/TEST")
+    .addField("ID", DataTypes.INT)
+    .addField("NAME", DataTypes.STRING)
+    .getRecordDefinition();
+
+  /** Sorted by NAME ascending then ID descending. */
+  private static final List<OrderBy> ORDER_BY = List.of(
+    new OrderBy(RECORD_DEFINITION.getField("NAME"), true),
+    new OrderBy(RECORD_DEFINITION.getField("ID"), false));
+
+  private static Record newRecord(final int id, final String name) {
+    final Record record = RECORD_DEFINITION.newRecord();
+    record.setValue("ID", id);
+    record.setValue("NAME", name);
+    return record;
+  }
+
+  @Test
+  void testConditionSelectsRecordsAfterToken() throws ODataApplicationException {
+    final String skipToken = ODataSkipToken.toSkipToken(ORDER_BY, newRecord(5, "b"));
+    Assert.assertNotNull(skipToken);
+    Assert.assertTrue(skipToken, skipToken.matches("[A-Za-z0-9_-]+"));
+
+    final Condition condition = ODataSkipToken.toCondition(RECORD_DEFINITION, ORDER_BY,
+      skipToken);
+    Assert.assertFalse(condition.test(newRecord(1, "a")));
+    Assert.assertFalse(condition.test(newRecord(6, "b")));
+    Assert.assertFalse(condition.test(newRecord(5, "b")));
+    Assert.assertTrue(condition.test(newRecord(4, "b")));
+    Assert.assertTrue(condition.test(newRecord(9, "c")));
+  }
+
+  @Test
+  void testInvalidToken() {
+    // Not Base64, not JSON, the wrong number of values and a null value
+    for (final String skipToken : List.of("not base64!", "bm90IGpzb24", "WzFd",
+      "WyJiIixudWxsXQ")) {
+      Assert.assertThrows(skipToken, ODataApplicationException.class,
+        () -> ODataSkipToken.toCondition(RECORD_DEFINITION, ORDER_BY, skipToken));
+    }
+  }
+
+  @Test
+  void testNullValueHasNoToken() {
+    Assert.assertNull(ODataSkipToken.toSkipToken(ORDER_BY, newRecord(5, null)));
+    Assert.assertNull(ODataSkipToken.toSkipToken(ORDER_BY, null));
+  }
+
+  @Test
+  void testSupported() {
+    Assert.assertTrue(ODataSkipToken.isSupported(ORDER_BY));
+    Assert.assertFalse(ODataSkipToken.isSupported(List.of()));
+    Assert.assertFalse(ODataSkipToken.isSupported(List.of(new OrderBy(F.upper("NAME"), true))));
+  }
+}
@@ -0,0 +1,111 @@
+package com.revolsys.parallel.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class RingBufferChannelTest {
+
+  private static Thread startWriter(final RingBufferChannel<Integer> channel, final int start,
+    final int count, final int batchSize) {
+    channel.writeConnect();
+    return Thread.ofPlatform()
+      .start(() -> {
+        try {
+          final List<Integer> batch = new ArrayList<>();
+          for (int i = start; i < start + count; i++) {
+            if (batchSize <= 1) {
+              channel.write(i);
+            } else {
+              batch.add(i);
+              if (batch.size() == batchSize) {
+                channel.writeBatch(batch);
+                batch.clear();
+              }
+            }
+          }
+          channel.writeBatch(batch);
+        } finally {
+          channel.writeDisconnect();
+        }
+      });
+  }
+
+  @Test
+  void closeAfterWritersDisconnect() {
+    final RingBufferChannel<Integer> channel = new RingBufferChannel<>(4);
+    channel.readConnect();
+    channel.writeConnect();
+    channel.write(1);
+    channel.write(null);
+    channel.writeDisconnect();
+    Assert.assertFalse(channel.isClosed());
+    Assert.assertEquals(Integer.valueOf(1), channel.read());
+    Assert.assertNull(channel.read());
+    Assert.assertTrue(channel.isClosed());
+    Assert.assertThrows(ClosedException.class, channel::read);
+  }
+
+  @Test
+  void multipleWritersAndReaders() throws InterruptedException {
+    final int writerCount = 4;
+    final int valueCount = 100000;
+    final RingBufferChannel<Integer> channel = new RingBufferChannel<>(64);
+    final List<Thread> writers = new ArrayList<>();
+    for (int i = 0; i < writerCount; i++) {
+      writers.add(startWriter(channel, i * valueCount, valueCount, i % 2 == 0 ? 1 : 10));
+    }
+    final AtomicLong sum = new AtomicLong();
+    final AtomicLong count = new AtomicLong();
+    final List<Thread> readers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      channel.readConnect();
+      readers.add(Thread.ofPlatform()
+        .start(() -> {
+          try {
+            while (true) {
+              for (final Integer value : channel.readBatch(16)) {
+                sum.addAndGet(value);
+                count.incrementAndGet();
+              }
+            }
+          } catch (final ClosedException e) {
+          } finally {
+            channel.readDisconnect();
+          }
+        }));
+    }
+    for (final Thread writer : writers) {
+      writer.join();
+    }
+    for (final Thread reader : readers) {
+      reader.join();
+    }
+    final long total = (long)writerCount * valueCount;
+    Assert.assertEquals(total, count.get());
+    Assert.assertEquals(total * (total - 1) / 2, sum.get());
+  }
+
+  @Test
+  void readTimeout() {
+    final RingBufferChannel<Integer> channel = new RingBufferChannel<>(2);
+    Assert.assertNull(channel.read(10));
+  }
+
+  @Test
+  void singleWriterOrder() throws InterruptedException {
+    final int valueCount = 100000;
+    final RingBufferChannel<Integer> channel = new RingBufferChannel<>(16);
+    channel.readConnect();
+    final Thread writer = startWriter(channel, 0, valueCount, 7);
+    int expected = 0;
+    for (final Integer value : channel) {
+      Assert.assertEquals(expected++, value.intValue());
+    }
+    writer.join();
+    Assert.assertEquals(valueCount, expected);
+  }
+}
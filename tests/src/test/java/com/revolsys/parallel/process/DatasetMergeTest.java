@@ -1,5 +1,11 @@
 package com.revolsys.parallel.process;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
@@ -14,6 +20,64 @@ class DatasetMergeTest {
     return JsonObject.hash("id", id);
   }
 
+  private static ListEx<JsonObject> createRange(final int start, final int end,
+    final String name) {
+    final ListEx<JsonObject> records = Lists.newArray();
+    for (int id = start; id < end; id++) {
+      records.add(create(id).addValue("name", name + (id % 7 == 0 ? "-changed" : "")));
+    }
+    return records;
+  }
+
+  @Test
+  void digestSnapshot() throws IOException {
+    final Path directory = Files.createTempDirectory("digests");
+    final DigestSnapshot<Integer> snapshot = new DigestSnapshot<>(directory, Integer::compare,
+      Object::toString, Integer::valueOf);
+    final RecordDigester<JsonObject> digester = RecordDigester.md5("name");
+    final var firstCounts = DatasetMerge.<JsonObject, Integer> builder(snapshot)
+      .sourceRecords(createRange(0, 100, "a"))
+      .sourceRecordToId(record -> record.getInteger("id"))
+      .sourceRecordDigest(digester)
+      .run();
+    Assert.assertEquals(100, firstCounts.getCount("insert"));
+
+    final ListEx<JsonObject> sourceRecords = createRange(50, 150, "a");
+    for (final JsonObject record : sourceRecords) {
+      if (record.getInteger("id") % 10 == 0) {
+        record.addValue("name", "b");
+      }
+    }
+    final Set<Integer> updatedIds = ConcurrentHashMap.newKeySet();
+    final var counts = DatasetMerge.<JsonObject, Integer> builder(snapshot)
+      .sourceRecords(sourceRecords)
+      .sourceRecordToId(record -> record.getInteger("id"))
+      .sourceRecordDigest(digester)
+      .partitionCount(3)
+      .updateRecordHandler((source, target) -> updatedIds.add(target.id()))
+      .run();
+    Assert.assertEquals(50, counts.getCount("delete"));
+    Assert.assertEquals(50, counts.getCount("insert"));
+    Assert.assertEquals(5, counts.getCount("update"));
+    Assert.assertEquals(45, counts.getCount("unchanged"));
+    Assert.assertEquals(Set.of(50, 60, 70, 80, 90), updatedIds);
+
+    final var unchangedCounts = DatasetMerge.<JsonObject, Integer> builder(snapshot)
+      .sourceRecords(sourceRecords)
+      .sourceRecordToId(record -> record.getInteger("id"))
+      .sourceRecordDigest(digester)
+      .run();
+    Assert.assertEquals(100, unchangedCounts.getCount("unchanged"));
+    Assert.assertEquals(0, unchangedCounts.getCount("update"));
+    try (
+      var files = Files.list(directory)) {
+      for (final Path file : files.toList()) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
   @Test
   void multipleRecords() {
     final var record1 = create(1);
@@ -159,6 +223,47 @@ class DatasetMergeTest {
     Assert.assertEquals("count.update", counts.getCount("update"), expectedUpdatedRecords.size());
   }
 
+  @Test
+  void partitionedWithDigest() {
+    final var sourceRecords = createRange(0, 1000, "source");
+    final var targetRecords = createRange(500, 1500, "target");
+    for (final JsonObject record : targetRecords) {
+      if (record.getInteger("id") % 2 == 0) {
+        record.addValue("name", "source" + (record.getInteger("id") % 7 == 0 ? "-changed" : ""));
+      }
+    }
+    final Set<Integer> insertedIds = ConcurrentHashMap.newKeySet();
+    final Set<Integer> deletedIds = ConcurrentHashMap.newKeySet();
+    final Set<Integer> updatedIds = ConcurrentHashMap.newKeySet();
+    final RecordDigester<JsonObject> digester = RecordDigester.sha256("name");
+    final var counts = DatasetMerge.<JsonObject, JsonObject, Integer> builder()
+      .sourceRecords(sourceRecords)
+      .targetRecords(targetRecords)
+      .sourceRecordToId(record -> record.getInteger("id"))
+      .targetRecordToId(record -> record.getInteger("id"))
+      .sourceRecordDigest(digester)
+      .targetRecordDigest(digester)
+      .comparator(Integer::compare)
+      .partitionCount(4)
+      .deleteRecordHandler(record -> deletedIds.add(record.getInteger("id")))
+      .insertRecordHandler(record -> insertedIds.add(record.getInteger("id")))
+      .updateRecordHandler((source, target) -> {
+        Assert.assertEquals(source.getInteger("id"), target.getInteger("id"));
+        updatedIds.add(source.getInteger("id"));
+      })
+      .run();
+    Assert.assertEquals(1000, counts.getCount("source"));
+    Assert.assertEquals(1000, counts.getCount("target"));
+    Assert.assertEquals(500, insertedIds.size());
+    Assert.assertEquals(500, deletedIds.size());
+    Assert.assertEquals(250, updatedIds.size());
+    Assert.assertEquals(250, counts.getCount("update"));
+    Assert.assertEquals(250, counts.getCount("unchanged"));
+    for (final Integer id : updatedIds) {
+      Assert.assertEquals(1, id % 2);
+    }
+  }
+
   @Test
   void source1Record() {
     final var record1 = create(1);
@@ -0,0 +1,134 @@
+package com.revolsys.raster;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+class TileDiskCacheTest {
+
+  private static BufferedImage newImage(final int seed) {
+    final BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < 64; y++) {
+      for (int x = 0; x < 64; x++) {
+        image.setRGB(x, y, 0xFF000000 | seed * 7919 + x * 31 + y * 17);
+      }
+    }
+    return image;
+  }
+
+  @Test
+  void testEvictLeastRecentlyUsed() throws IOException {
+    final Path directory = Files.createTempDirectory("tileDiskCache");
+    final TileDiskCache firstCache = new TileDiskCache(directory, Long.MAX_VALUE);
+    final String oldPath = TileDiskCache.path("layer", 1, 0, 0);
+    firstCache.writeImage(oldPath, newImage(1));
+    final long tileSize = Files.size(directory.resolve(oldPath + ".tile"));
+
+    // Room for 2 tiles, after eviction there is room for 1 more
+    final TileDiskCache cache = new TileDiskCache(directory, tileSize * 3 - 1);
+    final String newPath = TileDiskCache.path("layer", 1, 0, 1);
+    cache.writeImage(newPath, newImage(1));
+    Assert.assertNotNull(cache.readImage(oldPath));
+    Assert.assertNotNull(cache.readImage(newPath));
+
+    // Over the maximum size so the least recently used tile is removed
+    final String otherPath = TileDiskCache.path("layer", 1, 1, 1);
+    Assert.assertNotNull(cache.readImage(oldPath));
+    cache.writeImage(otherPath, newImage(1));
+    Assert.assertNotNull(cache.readImage(oldPath));
+    Assert.assertNull(cache.readImage(newPath));
+    Assert.assertNotNull(cache.readImage(otherPath));
+  }
+
+  @Test
+  void testExistingFilesCounted() throws IOException {
+    final Path directory = Files.createTempDirectory("tileDiskCache");
+    final TileDiskCache firstCache = new TileDiskCache(directory, 1024 * 1024);
+    firstCache.writeBytes(TileDiskCache.path("layer", 1, 0, 0), new byte[100]);
+    firstCache.writeBytes(TileDiskCache.path("layer", 1, 0, 1), new byte[50]);
+
+    // The files from the previous cache are found by the first write
+    final TileDiskCache cache = new TileDiskCache(directory, 1024 * 1024);
+    Assert.assertEquals(-1, cache.getSizeBytes());
+    cache.writeBytes(TileDiskCache.path("layer", 1, 1, 1), new byte[25]);
+    Assert.assertEquals(175, cache.getSizeBytes());
+    cache.writeBytes(TileDiskCache.path("layer", 1, 0, 0), new byte[10]);
+    Assert.assertEquals(85, cache.getSizeBytes());
+  }
+
+  @Test
+  void testOriginalBytes() throws IOException {
+    final Path directory = Files.createTempDirectory("tileDiskCache");
+    final TileDiskCache cache = new TileDiskCache(directory, 1024 * 1024);
+    final String path = TileDiskCache.path("layer", 1, 0, 0);
+    final BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+    final byte[] bytes = BufferedImages.writeImageIo(image, "jpg");
+
+    cache.writeBytes(path, bytes);
+    Assert.assertArrayEquals(bytes, Files.readAllBytes(directory.resolve(path + ".tile")));
+    final BufferedImage cachedImage = cache.readImage(path);
+    Assert.assertNotNull(cachedImage);
+    Assert.assertEquals(64, cachedImage.getWidth());
+  }
+
+  @Test
+  void testPath() {
+    Assert.assertEquals("https___tile.example.com_osm_/12/3/-4",
+      TileDiskCache.path("https://tile.example.com/osm/", 12, 3, -4));
+    Assert.assertEquals("_./_.", TileDiskCache.path("..", ".."));
+  }
+
+  @Test
+  void testReplaceSize() throws IOException {
+    final Path directory = Files.createTempDirectory("tileDiskCache");
+    final TileDiskCache cache = new TileDiskCache(directory, 1024 * 1024);
+    final String path = TileDiskCache.path("layer", 1, 0, 0);
+    cache.writeBytes(path, new byte[100]);
+    Assert.assertEquals(100, cache.getSizeBytes());
+
+    // Replacing a tile only counts the new file
+    cache.writeBytes(path, new byte[150]);
+    Assert.assertEquals(150, cache.getSizeBytes());
+    cache.writeBytes(path, new byte[150]);
+    Assert.assertEquals(150, cache.getSizeBytes());
+
+    cache.writeBytes(TileDiskCache.path("layer", 1, 0, 1), new byte[50]);
+    Assert.assertEquals(200, cache.getSizeBytes());
+  }
+
+  @Test
+  void testReadWrite() throws IOException {
+    final Path directory = Files.createTempDirectory("tileDiskCache");
+    final TileDiskCache cache = new TileDiskCache(directory, 1024 * 1024);
+    final String path = TileDiskCache.path("https://tile.example.com/", 3, 2, 1);
+    Assert.assertNull(cache.readImage(path));
+
+    final BufferedImage image = newImage(1);
+    cache.writeImage(path, image);
+    final BufferedImage cachedImage = cache.readImage(path);
+    Assert.assertNotNull(cachedImage);
+    Assert.assertEquals(image.getWidth(), cachedImage.getWidth());
+    Assert.assertEquals(image.getHeight(), cachedImage.getHeight());
+    for (int y = 0; y < 64; y += 7) {
+      for (int x = 0; x < 64; x += 5) {
+        Assert.assertEquals(image.getRGB(x, y), cachedImage.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  void testSymbolicLinkDirectory() throws IOException {
+    final Path directory = Files.createTempDirectory("tileDiskCache");
+    final Path target = Files.createDirectory(directory.resolve("target"));
+    final Path link = Files.createSymbolicLink(directory.resolve("link"), target);
+    final TileDiskCache cache = new TileDiskCache(link, 1024 * 1024);
+    final String path = TileDiskCache.path("layer", 1, 0, 0);
+    cache.writeBytes(path, new byte[100]);
+    Assert.assertFalse(Files.exists(target.resolve(path + ".tile")));
+    Assert.assertNull(cache.readImage(path));
+  }
+}
@@ -0,0 +1,92 @@
+package com.revolsys.raster.io.format.tiff;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.raster.BufferedGeoreferencedImage;
+import com.revolsys.raster.io.format.tiff.code.TiffCompression;
+import com.revolsys.spring.resource.PathResource;
+
+class TiffTiledImageWriterTest {
+
+  private static BufferedImage newImage(final int width, final int height) {
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, 0xFF000000 | (x * 3 & 0xff) << 16 | (y & 0xff) << 8 | x + y & 0xff);
+      }
+    }
+    return image;
+  }
+
+  private void assertWrite(final TiffCompression compression, final boolean predictor,
+    final boolean planarSeparate) throws IOException {
+    final BufferedImage image = newImage(301, 157);
+    final GeometryFactory geometryFactory = GeometryFactory.floating2d(3005);
+    final BoundingBox boundingBox = geometryFactory.newBoundingBox(1000000, 500000,
+      1000000 + 301, 500000 + 157);
+    final Path file = Files.createTempFile("tiled", ".tif");
+    try {
+      final TiffTiledImageWriter writer = new TiffTiledImageWriter(new PathResource(file));
+      writer.setCompression(compression);
+      writer.setPredictor(predictor);
+      writer.setPlanarSeparate(planarSeparate);
+      writer.setTileSize(64);
+      writer.write(new BufferedGeoreferencedImage(boundingBox, image));
+      writer.close();
+
+      // The first directory is immediately after the header
+      final ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file), 0, 8);
+      Assert.assertEquals(8, header.getInt(4));
+
+      final ImageReader reader = ImageIO.getImageReadersByFormatName("tiff")
+        .next();
+      try (
+        ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+        reader.setInput(in);
+        // 301x157, 151x79, 76x40 and 38x20
+        Assert.assertEquals(4, reader.getNumImages(true));
+        final BufferedImage readImage = reader.read(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+          for (int x = 0; x < image.getWidth(); x++) {
+            Assert.assertEquals(image.getRGB(x, y), readImage.getRGB(x, y));
+          }
+        }
+        final BufferedImage overview = reader.read(3);
+        Assert.assertEquals(38, overview.getWidth());
+        Assert.assertEquals(20, overview.getHeight());
+      } finally {
+        reader.dispose();
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testWriteDeflatePredictor() throws IOException {
+    assertWrite(TiffCompression.ADOBE_DEFLATE, true, false);
+  }
+
+  @Test
+  void testWriteLzwPlanarSeparate() throws IOException {
+    assertWrite(TiffCompression.LZW, true, true);
+  }
+
+  @Test
+  void testWritePackbits() throws IOException {
+    assertWrite(TiffCompression.PACKBITS, false, false);
+  }
+}
@@ -0,0 +1,82 @@
+package com.revolsys.raster.io.format.tiff.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.raster.BufferedGeoreferencedImage;
+import com.revolsys.raster.io.format.tiff.TiffImageFactory;
+import com.revolsys.raster.io.format.tiff.TiffTiledImageWriter;
+import com.revolsys.raster.io.format.tiff.code.TiffCompression;
+import com.revolsys.spring.resource.PathResource;
+
+class AbstractTiffImageTest {
+
+  private static BufferedImage newImage(final int width, final int height) {
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, 0xFF000000 | (x * 3 & 0xff) << 16 | (y & 0xff) << 8 | x + y & 0xff);
+      }
+    }
+    return image;
+  }
+
+  @Test
+  void testReadBufferedImage() throws IOException {
+    final BufferedImage image = newImage(301, 157);
+    final GeometryFactory geometryFactory = GeometryFactory.floating2d(3005);
+    final BoundingBox boundingBox = geometryFactory.newBoundingBox(1000000, 500000,
+      1000000 + 301, 500000 + 157);
+    final Path file = Files.createTempFile("tiled", ".tif");
+    try {
+      final TiffTiledImageWriter writer = new TiffTiledImageWriter(new PathResource(file));
+      writer.setCompression(TiffCompression.LZW);
+      writer.setTileSize(64);
+      writer.write(new BufferedGeoreferencedImage(boundingBox, image));
+      writer.close();
+
+      final TiffMultiResolutionImage tiffImage = (TiffMultiResolutionImage)new TiffImageFactory()
+        .readGeoreferencedImage(new PathResource(file));
+      Assert.assertEquals(4, tiffImage.getOverviewCount());
+
+      // Crosses tile boundaries and the right edge of the image
+      final int windowX = 50;
+      final int windowY = 30;
+      final BufferedImage window = tiffImage.readBufferedImage(0, windowX, windowY, 300, 100);
+      Assert.assertEquals(300, window.getWidth());
+      Assert.assertEquals(100, window.getHeight());
+      for (int y = 0; y < window.getHeight(); y++) {
+        for (int x = 0; x < window.getWidth(); x++) {
+          final int imageX = windowX + x;
+          final int imageY = windowY + y;
+          if (imageX < image.getWidth()) {
+            Assert.assertEquals(image.getRGB(imageX, imageY), window.getRGB(x, y));
+          } else {
+            Assert.assertEquals(0, window.getRGB(x, y));
+          }
+        }
+      }
+
+      // The second read uses the cached tiles
+      final BufferedImage cachedWindow = tiffImage.readBufferedImage(0, windowX, windowY, 300,
+        100);
+      Assert.assertEquals(window.getRGB(10, 10), cachedWindow.getRGB(10, 10));
+
+      final TiffImage overview = tiffImage.getOverview(3);
+      Assert.assertEquals(38, overview.getImageWidth());
+      Assert.assertEquals(20, overview.getImageHeight());
+      final BufferedImage overviewWindow = tiffImage.readBufferedImage(3, 30, 10, 20, 20);
+      Assert.assertEquals(0xFF000000, overviewWindow.getRGB(0, 0) & 0xFF000000);
+      Assert.assertEquals(0, overviewWindow.getRGB(19, 19));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.revolsys.record;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+
+class CopyOnWriteRecordTest {
+
+  private static final RecordDefinition RECORD_DEFINITION = new RecordDefinitionBuilder("/TEST")
+    .addField("ID", DataTypes.INT)
+    .addField("NAME", DataTypes.STRING)
+    .getRecordDefinition();
+
+  @Test
+  void changeCopiesValues() {
+    final Record record = RECORD_DEFINITION.newRecord();
+    record.setValue("ID", 1);
+    record.setValue("NAME", "a");
+    record.setState(RecordState.PERSISTED);
+
+    final CopyOnWriteRecord view1 = new CopyOnWriteRecord(record);
+    final CopyOnWriteRecord view2 = new CopyOnWriteRecord(view1);
+    Assert.assertSame(record, view2.getSource());
+    Assert.assertEquals("a", view1.getValue("NAME"));
+    Assert.assertEquals(RecordState.PERSISTED, view1.getState());
+
+    view1.setValue("NAME", "a");
+    Assert.assertFalse(view1.isCopied());
+
+    view1.setValue("NAME", "b");
+    Assert.assertTrue(view1.isCopied());
+    Assert.assertEquals(RecordState.MODIFIED, view1.getState());
+    Assert.assertEquals("b", view1.getValue("NAME"));
+    Assert.assertEquals(Integer.valueOf(1), view1.getInteger("ID"));
+    Assert.assertEquals("a", record.getValue("NAME"));
+    Assert.assertEquals("a", view2.getValue("NAME"));
+    Assert.assertEquals(RecordState.PERSISTED, view2.getState());
+  }
+}
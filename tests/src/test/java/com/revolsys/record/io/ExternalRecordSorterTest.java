@@ -0,0 +1,121 @@
+package com.revolsys.record.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.collection.iterator.Reader;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.comparator.RecordFieldComparator;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+
+class ExternalRecordSorterTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static List<Record> newRecords(final int count) {
+    final RecordDefinition recordDefinition = new RecordDefinitionBuilder("/SORT")
+      .addField("KEY", DataTypes.INT)
+      .addField("SEQUENCE", DataTypes.LONG)
+      .addField("NAME", DataTypes.STRING, 30)
+      .addField("VALUE", DataTypes.DOUBLE)
+      .addField("GEOMETRY", GeometryDataTypes.POINT)
+      .setGeometryFactory(GEOMETRY_FACTORY)
+      .getRecordDefinition();
+    final Random random = new Random(1);
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final Record record = recordDefinition.newRecord();
+      record.setValue("KEY", random.nextInt(1000));
+      record.setValue("SEQUENCE", (long)i);
+      if (i % 10 != 0) {
+        record.setValue("NAME", "Name " + i);
+      }
+      record.setValue("VALUE", random.nextDouble());
+      record.setGeometryValue(GEOMETRY_FACTORY.point(random.nextDouble() * 1000,
+        random.nextDouble() * 1000));
+      records.add(record);
+    }
+    return records;
+  }
+
+  @Test
+  void inMemory() {
+    final List<Record> records = newRecords(1000);
+    final Comparator<Record> comparator = new RecordFieldComparator("KEY");
+    final ExternalRecordSorter sorter = new ExternalRecordSorter(comparator);
+    final ExternalRecordSort sort = sorter.newSort();
+    for (final Record record : records) {
+      sort.add(record);
+    }
+    try (
+      Reader<Record> reader = sort.read()) {
+      Assert.assertEquals(0, sort.getRunCount());
+      assertSorted(records, reader);
+    }
+  }
+
+  private void assertSorted(final List<Record> records, final Reader<Record> reader) {
+    final List<Record> expected = new ArrayList<>(records);
+    expected.sort(new RecordFieldComparator("KEY"));
+    int i = 0;
+    for (final Record actual : reader) {
+      final Record expectedRecord = expected.get(i++);
+      for (final String fieldName : expectedRecord.getRecordDefinition()
+        .getFieldNames()) {
+        Assert.assertEquals(fieldName, expectedRecord.getValue(fieldName),
+          actual.getValue(fieldName));
+      }
+      Assert.assertEquals(expectedRecord.getState(), actual.getState());
+    }
+    Assert.assertEquals(expected.size(), i);
+  }
+
+  @Test
+  void spilledRecordClass() {
+    final Set<Record> records = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (final Record record : newRecords(2000)) {
+      records.add(new ArrayRecord(record) {
+      });
+    }
+    final Comparator<Record> comparator = new RecordFieldComparator("KEY");
+    final ExternalRecordSorter sorter = new ExternalRecordSorter(comparator, 20000);
+    int spilledCount = 0;
+    try (
+      Reader<Record> reader = sorter.sort(records)) {
+      for (final Record record : reader) {
+        if (!records.contains(record)) {
+          // Records read from disk are created by the record definition
+          Assert.assertEquals(ArrayRecord.class, record.getClass());
+          spilledCount++;
+        }
+      }
+    }
+    Assert.assertTrue(spilledCount > 0);
+  }
+
+  @Test
+  void spillToDisk() {
+    final List<Record> records = newRecords(20000);
+    final Comparator<Record> comparator = new RecordFieldComparator("KEY");
+    final ExternalRecordSorter sorter = new ExternalRecordSorter(comparator, 200000)
+      .setThreadCount(3);
+    try (
+      Reader<Record> reader = sorter.sort(records)) {
+      assertSorted(records, reader);
+    }
+  }
+}
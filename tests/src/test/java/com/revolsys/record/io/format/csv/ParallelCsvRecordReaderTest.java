@@ -0,0 +1,119 @@
+package com.revolsys.record.io.format.csv;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+import com.revolsys.spring.resource.PathResource;
+
+class ParallelCsvRecordReaderTest {
+
+  private static Path newCsvFile(final int rowCount) throws IOException {
+    final StringBuilder csv = new StringBuilder("ID,NAME,VALUE\r\n");
+    for (int i = 0; i < rowCount; i++) {
+      csv.append(i)
+        .append(',');
+      if (i % 7 == 0) {
+        csv.append("\"Name, with \"\"quotes\"\"\nand a new line ")
+          .append(i)
+          .append('"');
+      } else if (i % 5 != 0) {
+        csv.append("Name ")
+          .append(i);
+      }
+      csv.append(',')
+        .append(i * 1.25)
+        .append(i % 3 == 0 ? "\n" : "\r\n");
+    }
+    final Path file = Files.createTempFile("parallel", ".csv");
+    Files.writeString(file, csv, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  private static List<Record> read(final RecordReader reader) {
+    final List<Record> records = new ArrayList<>();
+    try (
+      reader) {
+      for (final Record record : reader) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  private void assertRecords(final List<Record> expected, final List<Record> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(expected.get(i)
+        .getValues(),
+        actual.get(i)
+          .getValues());
+    }
+  }
+
+  @Test
+  void ordered() throws IOException {
+    final Path file = newCsvFile(200000);
+    try {
+      final PathResource resource = new PathResource(file);
+      final List<Record> expected = read(new CsvRecordReader(resource));
+      final List<Record> actual = read(new ParallelCsvRecordReader(resource).setThreadCount(4));
+      assertRecords(expected, actual);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void typed() throws IOException {
+    final Path file = newCsvFile(1000);
+    try {
+      final RecordDefinition recordDefinition = new RecordDefinitionBuilder("/TEST")
+        .addField("ID", DataTypes.INT)
+        .addField("NAME", DataTypes.STRING)
+        .addField("VALUE", DataTypes.DOUBLE)
+        .getRecordDefinition();
+      final ParallelCsvRecordReader reader = new ParallelCsvRecordReader(new PathResource(file))
+        .setThreadCount(2);
+      reader.setRecordDefinition(recordDefinition);
+      final List<Record> records = read(reader);
+      Assert.assertEquals(1000, records.size());
+      for (int i = 0; i < records.size(); i++) {
+        final Record record = records.get(i);
+        Assert.assertEquals(Integer.valueOf(i), record.getValue("ID"));
+        Assert.assertEquals(Double.valueOf(i * 1.25), record.getValue("VALUE"));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void unordered() throws IOException {
+    final Path file = newCsvFile(200000);
+    try {
+      final PathResource resource = new PathResource(file);
+      final List<Record> expected = read(new CsvRecordReader(resource));
+      final List<Record> actual = read(new ParallelCsvRecordReader(resource).setThreadCount(4)
+        .setOrdered(false));
+      final Comparator<Record> comparator = Comparator
+        .comparing(record -> Integer.valueOf(record.getString("ID")));
+      actual.sort(comparator);
+      assertRecords(expected, actual);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package com.revolsys.record.io.format.geojson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.collection.json.Json;
+import com.revolsys.collection.json.JsonObject;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.spring.resource.PathResource;
+
+class GeoJsonRecordReaderTest {
+
+  private static String geometry(final int i) {
+    final double x = -120 + i * 0.001;
+    final double y = 50 + i * 0.0005;
+    switch (i % 5) {
+      case 0:
+        return "{\"type\":\"Point\",\"coordinates\":[" + x + "," + y + "]}";
+      case 1:
+        return "{\"type\":\"LineString\",\"coordinates\":[[" + x + "," + y + ",10.5],["
+          + (x + 1) + "," + (y + 1) + ",11]]}";
+      case 2:
+        return "{\"type\":\"Polygon\",\"coordinates\":[[[" + x + "," + y + "],[" + (x + 1) + ","
+          + y + "],[" + (x + 1) + "," + (y + 1) + "],[" + x + "," + y + "]],[[" + (x + 0.5) + ","
+          + (y + 0.1) + "],[" + (x + 0.9) + "," + (y + 0.1) + "],[" + (x + 0.9) + ","
+          + (y + 0.5) + "],[" + (x + 0.5) + "," + (y + 0.1) + "]]]}";
+      case 3:
+        return "{\"type\":\"MultiPolygon\",\"coordinates\":[[[[" + x + "," + y + "],[" + (x + 1)
+          + "," + y + "],[" + (x + 1) + "," + (y + 1) + "],[" + x + "," + y + "]]],[[[" + (x + 2)
+          + "," + y + "],[" + (x + 3) + "," + y + "],[" + (x + 3) + "," + (y + 1) + "],["
+          + (x + 2) + "," + y + "]]]]}";
+      default:
+        return "null";
+    }
+  }
+
+  private static Path newGeoJsonFile(final int featureCount) throws IOException {
+    final StringBuilder json = new StringBuilder(
+      "{\"type\":\"FeatureCollection\",\"features\":[\n");
+    for (int i = 0; i < featureCount; i++) {
+      if (i > 0) {
+        json.append(",\n");
+      }
+      json.append("{\"type\":\"Feature\",\"id\":")
+        .append(i)
+        .append(",\"properties\":{\"ID\":")
+        .append(i)
+        .append(",\"NAME\":\"Name \\\"")
+        .append(i)
+        .append("\\\"\",\"VALUE\":")
+        .append(i % 2 == 0 ? Integer.toString(i) : Double.toString(i * 1.25))
+        .append(",\"ACTIVE\":")
+        .append(i % 3 == 0)
+        .append(",\"TAGS\":{\"a\":[1,2,{\"b\":null}]}");
+      if (i > 20) {
+        json.append(",\"LATE\":\"ignored\"");
+      }
+      json.append("},\"geometry\":")
+        .append(geometry(i))
+        .append('}');
+    }
+    json.append("]}");
+    final Path file = Files.createTempFile("streaming", ".geojson");
+    Files.writeString(file, json, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  private static Path newWidenFile() throws IOException {
+    final Path file = Files.createTempFile("streaming", ".geojson");
+    Files.writeString(file, "{\"type\":\"FeatureCollection\",\"features\":[\n"
+      + "{\"type\":\"Feature\",\"properties\":{\"VALUE\":1,\"CODE\":1,\"ACTIVE\":true},\"geometry\":null},\n"
+      + "{\"type\":\"Feature\",\"properties\":{\"VALUE\":1.5,\"CODE\":\"A1\",\"ACTIVE\":2},\"geometry\":null},\n"
+      + "{\"type\":\"Feature\",\"properties\":{\"VALUE\":3,\"CODE\":2,\"ACTIVE\":false},\"geometry\":null}\n"
+      + "]}");
+    return file;
+  }
+
+  private static List<Record> read(final GeoJsonRecordReader reader) {
+    final List<Record> records = new ArrayList<>();
+    try (
+      reader) {
+      for (final Record record : reader) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  @Test
+  void testEmptyCollection() throws IOException {
+    final Path file = Files.createTempFile("streaming", ".geojson");
+    try {
+      Files.writeString(file, "{\"type\":\"FeatureCollection\",\"features\":[]}");
+      final List<Record> records = read(new GeoJsonRecordReader(new PathResource(file)));
+      Assert.assertTrue(records.isEmpty());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testFeatureCollection() throws IOException {
+    final int featureCount = 1000;
+    final Path file = newGeoJsonFile(featureCount);
+    try {
+      final PathResource resource = new PathResource(file);
+      final List<Geometry> expectedGeometries = new ArrayList<>();
+      try (
+        GeoJsonGeometryReader geometryReader = new GeoJsonGeometryReader(resource,
+          JsonObject.hash())) {
+        for (final Geometry geometry : geometryReader) {
+          expectedGeometries.add(geometry);
+        }
+      }
+
+      final GeoJsonRecordReader reader = new GeoJsonRecordReader(resource).setSampleSize(10);
+      final RecordDefinition recordDefinition = reader.getRecordDefinition();
+      Assert.assertEquals(DataTypes.LONG, recordDefinition.getFieldType("ID"));
+      Assert.assertEquals(DataTypes.STRING, recordDefinition.getFieldType("NAME"));
+      Assert.assertEquals(DataTypes.DOUBLE, recordDefinition.getFieldType("VALUE"));
+      Assert.assertEquals(DataTypes.BOOLEAN, recordDefinition.getFieldType("ACTIVE"));
+      Assert.assertFalse(recordDefinition.hasField("LATE"));
+
+      final List<Record> records = read(reader);
+      Assert.assertEquals(featureCount, records.size());
+      int geometryIndex = 0;
+      for (int i = 0; i < featureCount; i++) {
+        final Record record = records.get(i);
+        Assert.assertEquals(Long.valueOf(i), record.getValue("ID"));
+        Assert.assertEquals("Name \"" + i + "\"", record.getValue("NAME"));
+        final double value = i % 2 == 0 ? i : i * 1.25;
+        Assert.assertEquals(value, record.getDouble("VALUE"), 0);
+        Assert.assertEquals(i % 3 == 0, record.getValue("ACTIVE"));
+        final JsonObject tags = record.getValue("TAGS");
+        Assert.assertEquals(3, tags.getJsonList("a")
+          .size());
+
+        final Geometry geometry = record.getGeometry();
+        if (i % 5 == 4) {
+          Assert.assertNull(geometry);
+        } else {
+          final Geometry expected = expectedGeometries.get(geometryIndex++);
+          Assert.assertEquals(expected.getGeometryType(), geometry.getGeometryType());
+          Assert.assertTrue(expected + "\n" + geometry, expected.equals(2, geometry));
+        }
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testFeatureSequence() throws IOException {
+    final Path file = Files.createTempFile("streaming", ".geojson");
+    try {
+      Files.writeString(file,
+        "{\"type\":\"Feature\",\"properties\":{\"NAME\":\"a\"},\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}}\n"
+          + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4]]},\"properties\":{\"NAME\":\"b\"}}\n"
+          + "{\"type\":\"Feature\",\"geometry\":{\"coordinates\":[[[0,0],[1,0],[1,1],[0,0]]],\"type\":\"Polygon\"},\"properties\":{\"NAME\":\"c\"}}\n");
+      final List<Record> records = read(new GeoJsonRecordReader(new PathResource(file)));
+      Assert.assertEquals(3, records.size());
+      Assert.assertEquals("a", records.get(0)
+        .getValue("NAME"));
+      Assert.assertEquals("b", records.get(1)
+        .getValue("NAME"));
+      Assert.assertEquals(2, records.get(1)
+        .getGeometry()
+        .getVertexCount());
+      Assert.assertEquals("Polygon", records.get(2)
+        .getGeometry()
+        .getGeometryType());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testFieldTypeNotChangedAfterSample() throws IOException {
+    final Path file = newWidenFile();
+    try {
+      final GeoJsonRecordReader reader = new GeoJsonRecordReader(new PathResource(file))
+        .setSampleSize(1);
+      final RecordDefinition recordDefinition = reader.getRecordDefinition();
+      Assert.assertEquals(DataTypes.LONG, recordDefinition.getFieldType("VALUE"));
+      Assert.assertEquals(DataTypes.LONG, recordDefinition.getFieldType("CODE"));
+      Assert.assertEquals(DataTypes.BOOLEAN, recordDefinition.getFieldType("ACTIVE"));
+
+      final List<Record> records = read(reader);
+      Assert.assertEquals(3, records.size());
+      // The published record definition isn't modified while reading
+      Assert.assertEquals(DataTypes.LONG, recordDefinition.getFieldType("VALUE"));
+      Assert.assertEquals(DataTypes.LONG, recordDefinition.getFieldType("CODE"));
+      Assert.assertEquals(DataTypes.BOOLEAN, recordDefinition.getFieldType("ACTIVE"));
+
+      // Values after the sample are converted to the field type
+      Assert.assertEquals(1L, records.get(1)
+        .<Object> getValue("VALUE"));
+      Assert.assertEquals(2L, records.get(2)
+        .<Object> getValue("CODE"));
+      Assert.assertEquals(Boolean.FALSE, records.get(2)
+        .getValue("ACTIVE"));
+      // Values that can't be converted are kept as read
+      Assert.assertEquals("A1", records.get(1)
+        .getValue("CODE"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testWidenFieldType() throws IOException {
+    final Path file = newWidenFile();
+    try {
+      final GeoJsonRecordReader reader = new GeoJsonRecordReader(new PathResource(file))
+        .setSampleSize(3);
+      final RecordDefinition recordDefinition = reader.getRecordDefinition();
+      Assert.assertEquals(DataTypes.DOUBLE, recordDefinition.getFieldType("VALUE"));
+      Assert.assertEquals(DataTypes.STRING, recordDefinition.getFieldType("CODE"));
+      Assert.assertEquals(Json.JSON_TYPE, recordDefinition.getFieldType("ACTIVE"));
+
+      final List<Record> records = read(reader);
+      Assert.assertEquals(3, records.size());
+      Assert.assertEquals(1.5, records.get(1)
+        .getDouble("VALUE"), 0);
+      Assert.assertEquals("A1", records.get(1)
+        .getValue("CODE"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.revolsys.record.io.format.shp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataType;
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.IoConstants;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+import com.revolsys.spring.resource.PathResource;
+
+class ShapefileParallelRecordReaderTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY_2D = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static final GeometryFactory GEOMETRY_FACTORY_3D = GeometryFactory.fixed3d(3005, 1000.0,
+    1000.0, 1000.0);
+
+  private static final int RECORD_COUNT = 1000;
+
+  private static void assertSameRecords(final GeometryFactory geometryFactory,
+    final DataType geometryType, final IntFunction<Geometry> geometryFunction)
+    throws IOException {
+    final Path directory = Files.createTempDirectory("shapefileParallel");
+    try {
+      final PathResource resource = new PathResource(directory.resolve("test.shp"));
+      writeShapefile(resource, geometryFactory, geometryType, geometryFunction);
+
+      final List<Record> expectedRecords = new ArrayList<>();
+      try (
+        ShapefileRecordReader reader = new ShapefileRecordReader(resource, ArrayRecord.FACTORY)) {
+        for (final Record record : reader) {
+          expectedRecords.add(record);
+        }
+      }
+      Assert.assertEquals(RECORD_COUNT, expectedRecords.size());
+
+      final List<Record> actualRecords = new ArrayList<>();
+      try (
+        ShapefileParallelRecordReader reader = new ShapefileParallelRecordReader(resource,
+          ArrayRecord.FACTORY)) {
+        reader.setChunkSize(37);
+        reader.setWorkerCount(3);
+        for (final Record record : reader) {
+          actualRecords.add(record);
+        }
+      }
+      Assert.assertEquals(expectedRecords.size(), actualRecords.size());
+      for (int i = 0; i < expectedRecords.size(); i++) {
+        final Record expected = expectedRecords.get(i);
+        final Record actual = actualRecords.get(i);
+        Assert.assertEquals(expected.getValue("ID"), actual.getValue("ID"));
+        Assert.assertEquals(expected.getValue("NAME"), actual.getValue("NAME"));
+        final Geometry expectedGeometry = expected.getGeometry();
+        final Geometry actualGeometry = actual.getGeometry();
+        Assert.assertEquals(expectedGeometry.toEwkt(), actualGeometry.toEwkt());
+      }
+    } finally {
+      try (
+        Stream<Path> paths = Files.list(directory)) {
+        for (final Path path : (Iterable<Path>)paths::iterator) {
+          Files.delete(path);
+        }
+      }
+      Files.delete(directory);
+    }
+  }
+
+  private static void writeShapefile(final PathResource resource,
+    final GeometryFactory geometryFactory, final DataType geometryType,
+    final IntFunction<Geometry> geometryFunction) {
+    final RecordDefinition recordDefinition = new RecordDefinitionBuilder("/TEST")
+      .addField("ID", DataTypes.INT)
+      .addField("NAME", DataTypes.STRING, 20)
+      .addField("GEOMETRY", geometryType)
+      .setGeometryFactory(geometryFactory)
+      .getRecordDefinition();
+    try (
+      RecordWriter writer = RecordWriter.newRecordWriter(recordDefinition, resource)) {
+      writer.setProperty(IoConstants.GEOMETRY_FACTORY, geometryFactory);
+      for (int i = 0; i < RECORD_COUNT; i++) {
+        final Record record = recordDefinition.newRecord();
+        record.setValue("ID", i);
+        record.setValue("NAME", "Name " + i);
+        // Include null shapes
+        if (i % 13 != 0) {
+          record.setGeometryValue(geometryFunction.apply(i));
+        }
+        writer.write(record);
+      }
+    }
+  }
+
+  @Test
+  void testLineStrings() throws IOException {
+    assertSameRecords(GEOMETRY_FACTORY_3D, GeometryDataTypes.LINE_STRING,
+      i -> GEOMETRY_FACTORY_3D.lineString(3, i, i, i, i + 1, i + 2, i + 3, i + 5, i, i + 0.5));
+  }
+
+  @Test
+  void testPoints() throws IOException {
+    assertSameRecords(GEOMETRY_FACTORY_2D, GeometryDataTypes.POINT,
+      i -> GEOMETRY_FACTORY_2D.point(i * 1.5, i * 2.25));
+  }
+
+  @Test
+  void testPolygons() throws IOException {
+    assertSameRecords(GEOMETRY_FACTORY_2D, GeometryDataTypes.POLYGON, i -> {
+      final double x = i * 20;
+      final double[] shell = {
+        x, 0, x + 10, 0, x + 10, 10, x, 10, x, 0
+      };
+      if (i % 2 == 0) {
+        return GEOMETRY_FACTORY_2D.polygon(2, shell);
+      } else {
+        final double[] hole = {
+          x + 2, 2, x + 2, 8, x + 8, 8, x + 8, 2, x + 2, 2
+        };
+        return GEOMETRY_FACTORY_2D.polygon(2, shell, hole);
+      }
+    });
+  }
+}
@@ -0,0 +1,200 @@
+package com.revolsys.record.io.format.shp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.data.type.DataTypes;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.IoConstants;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.record.schema.RecordDefinitionBuilder;
+import com.revolsys.spring.resource.PathResource;
+
+class ShapefileSpatialIndexTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static final int RECORD_COUNT = 5000;
+
+  private static void deleteDirectory(final Path directory) throws IOException {
+    try (
+      Stream<Path> paths = Files.list(directory)) {
+      for (final Path path : (Iterable<Path>)paths::iterator) {
+        Files.delete(path);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  private static List<Integer> readIds(final PathResource resource,
+    final BoundingBox boundingBox) throws IOException {
+    final List<Integer> ids = new ArrayList<>();
+    try (
+      ShapefileRecordReader reader = new ShapefileRecordReader(resource, ArrayRecord.FACTORY)) {
+      reader.setBoundingBox(boundingBox);
+      for (final Record record : reader) {
+        ids.add(record.getInteger("ID"));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Read all the records and return the ids of those whose geometry intersects
+   * the bounding box.
+   */
+  private static List<Integer> scanIds(final PathResource resource,
+    final BoundingBox boundingBox) throws IOException {
+    final List<Integer> ids = new ArrayList<>();
+    try (
+      ShapefileRecordReader reader = new ShapefileRecordReader(resource, ArrayRecord.FACTORY)) {
+      for (final Record record : reader) {
+        final Geometry geometry = record.getGeometry();
+        if (geometry != null && !geometry.isEmpty()
+          && boundingBox.bboxIntersects(geometry.getBoundingBox())) {
+          ids.add(record.getInteger("ID"));
+        }
+      }
+    }
+    return ids;
+  }
+
+  private static void writeShapefile(final PathResource resource) {
+    final RecordDefinition recordDefinition = new RecordDefinitionBuilder("/TEST")
+      .addField("ID", DataTypes.INT)
+      .addField("GEOMETRY", GeometryDataTypes.POLYGON)
+      .setGeometryFactory(GEOMETRY_FACTORY)
+      .getRecordDefinition();
+    final Random random = new Random(1);
+    try (
+      RecordWriter writer = RecordWriter.newRecordWriter(recordDefinition, resource)) {
+      writer.setProperty(IoConstants.GEOMETRY_FACTORY, GEOMETRY_FACTORY);
+      writer.setProperty(ShapefileConstants.WRITE_SPATIAL_INDEX, true);
+      for (int i = 0; i < RECORD_COUNT; i++) {
+        final Record record = recordDefinition.newRecord();
+        record.setValue("ID", i);
+        // Include null shapes, which aren't in the index
+        if (i % 17 != 0) {
+          final double x = random.nextDouble() * 10000;
+          final double y = random.nextDouble() * 10000;
+          // Mostly small shapes with some large ones that stay in the upper levels
+          final double size = i % 50 == 0 ? 2500 : 1 + random.nextDouble() * 50;
+          record.setGeometryValue(GEOMETRY_FACTORY.polygon(2, new double[] {
+            x, y, x + size, y, x + size, y + size, x, y + size, x, y
+          }));
+        }
+        writer.write(record);
+      }
+    }
+  }
+
+  @Test
+  void testMaxDepth() {
+    Assert.assertEquals(1, ShapefileSpatialIndex.getMaxDepth(0));
+    Assert.assertEquals(1, ShapefileSpatialIndex.getMaxDepth(8));
+    Assert.assertEquals(4, ShapefileSpatialIndex.getMaxDepth(40));
+    Assert.assertEquals(ShapefileSpatialIndex.MAX_DEPTH,
+      ShapefileSpatialIndex.getMaxDepth(100_000_000));
+    Assert.assertEquals(ShapefileSpatialIndex.MAX_DEPTH,
+      ShapefileSpatialIndex.getMaxDepth(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void testQuery() throws IOException {
+    final Path directory = Files.createTempDirectory("shapefileSpatialIndex");
+    try {
+      final PathResource resource = new PathResource(directory.resolve("index.qix"));
+      final Random random = new Random(2);
+      final int shapeCount = 2000;
+      final double[] bounds = new double[shapeCount * 4];
+      for (int i = 0; i < shapeCount; i++) {
+        final int offset = i * 4;
+        if (i % 11 == 0) {
+          Arrays.fill(bounds, offset, offset + 4, Double.NaN);
+        } else {
+          bounds[offset] = random.nextDouble() * 1000;
+          bounds[offset + 1] = random.nextDouble() * 1000;
+          bounds[offset + 2] = bounds[offset] + random.nextDouble() * 20;
+          bounds[offset + 3] = bounds[offset + 1] + random.nextDouble() * 20;
+        }
+      }
+      ShapefileSpatialIndex.write(resource, bounds, shapeCount);
+
+      for (int q = 0; q < 50; q++) {
+        final double minX = random.nextDouble() * 1000;
+        final double minY = random.nextDouble() * 1000;
+        final double maxX = minX + random.nextDouble() * 200;
+        final double maxY = minY + random.nextDouble() * 200;
+        final int[] ids = ShapefileSpatialIndex.query(resource, minX, minY, maxX, maxY);
+        for (int i = 1; i < ids.length; i++) {
+          Assert.assertTrue(ids[i - 1] < ids[i]);
+        }
+        // Every shape that intersects is a candidate
+        for (int i = 0; i < shapeCount; i++) {
+          final int offset = i * 4;
+          final boolean intersects = !Double.isNaN(bounds[offset]) && bounds[offset] <= maxX
+            && bounds[offset + 2] >= minX && bounds[offset + 1] <= maxY
+            && bounds[offset + 3] >= minY;
+          if (intersects) {
+            Assert.assertTrue(Integer.toString(i), Arrays.binarySearch(ids, i) >= 0);
+          }
+        }
+      }
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  void testReadBoundingBox() throws IOException {
+    final Path directory = Files.createTempDirectory("shapefileSpatialIndex");
+    try {
+      final PathResource resource = new PathResource(directory.resolve("test.shp"));
+      writeShapefile(resource);
+      final Path spatialIndexFile = directory.resolve("test.qix");
+      Assert.assertTrue(Files.exists(spatialIndexFile));
+
+      final Random random = new Random(3);
+      final List<BoundingBox> boundingBoxes = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        final double minX = random.nextDouble() * 10000;
+        final double minY = random.nextDouble() * 10000;
+        final double size = random.nextDouble() * 2000;
+        boundingBoxes.add(GEOMETRY_FACTORY.newBoundingBox(minX, minY, minX + size, minY + size));
+      }
+      // Outside all the shapes
+      boundingBoxes.add(GEOMETRY_FACTORY.newBoundingBox(20000, 20000, 21000, 21000));
+
+      final List<List<Integer>> indexedIds = new ArrayList<>();
+      for (final BoundingBox boundingBox : boundingBoxes) {
+        final List<Integer> ids = readIds(resource, boundingBox);
+        Assert.assertEquals(boundingBox.toString(), scanIds(resource, boundingBox), ids);
+        indexedIds.add(ids);
+      }
+
+      // Same records without the index
+      Files.delete(spatialIndexFile);
+      for (int i = 0; i < boundingBoxes.size(); i++) {
+        Assert.assertEquals(indexedIds.get(i), readIds(resource, boundingBoxes.get(i)));
+      }
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+}
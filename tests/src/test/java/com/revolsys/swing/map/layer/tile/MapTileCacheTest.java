@@ -0,0 +1,148 @@
+package com.revolsys.swing.map.layer.tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.util.AbstractMapTile;
+
+class MapTileCacheTest {
+
+  private static class TestTile extends AbstractMapTile<String> {
+    private final int level;
+
+    private final int x;
+
+    private final int y;
+
+    private TestTile(final int level, final int x, final int y) {
+      super(newBoundingBox(level, x, y), 16, 16);
+      this.level = level;
+      this.x = x;
+      this.y = y;
+    }
+
+    /**
+     * A new tile equal to this tile, as created by a layer for each render.
+     */
+    private TestTile copy() {
+      return new TestTile(this.level, this.x, this.y);
+    }
+
+    @Override
+    protected String loadDataDo() {
+      return "tile";
+    }
+  }
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.floating2d(3857);
+
+  /** 16 x 16 pixels at 4 bytes per pixel. */
+  private static final long TILE_BYTES = 1024;
+
+  private static BoundingBox newBoundingBox(final int level, final int x, final int y) {
+    final double size = 1000.0 / (1 << level);
+    return GEOMETRY_FACTORY.newBoundingBox(x * size, y * size, (x + 1) * size, (y + 1) * size);
+  }
+
+  private static List<TestTile> newTiles(final MapTileCache<TestTile> cache, final int level) {
+    final List<TestTile> tiles = new ArrayList<>();
+    for (int x = 0; x < 2; x++) {
+      for (int y = 0; y < 2; y++) {
+        final TestTile tile = new TestTile(level, x, y);
+        cache.add(tile);
+        tile.loadData();
+        tiles.add(tile);
+      }
+    }
+    return tiles;
+  }
+
+  @Test
+  void testEvictLeastRecentlyUsed() {
+    final MapTileCache<TestTile> cache = new MapTileCache<>(TILE_BYTES * 3);
+    final TestTile tile1 = new TestTile(1, 0, 0);
+    final TestTile tile2 = new TestTile(1, 0, 1);
+    final TestTile tile3 = new TestTile(1, 1, 0);
+    final TestTile tile4 = new TestTile(1, 1, 1);
+    for (final TestTile tile : List.of(tile1, tile2, tile3, tile4)) {
+      cache.add(tile);
+      tile.loadData();
+    }
+    Assert.assertEquals(TILE_BYTES * 4, cache.getSizeBytes());
+
+    // Getting a tile makes it the most recently used
+    Assert.assertSame(tile1, cache.get(tile1.copy()));
+    cache.evict(Collections.emptySet());
+    Assert.assertEquals(3, cache.size());
+    Assert.assertEquals(TILE_BYTES * 3, cache.getSizeBytes());
+    Assert.assertTrue(cache.containsKey(tile1));
+    Assert.assertFalse(cache.containsKey(tile2));
+    Assert.assertTrue(cache.containsKey(tile3));
+    Assert.assertTrue(cache.containsKey(tile4));
+
+    cache.setMaxSizeBytes(TILE_BYTES);
+    Assert.assertEquals(1, cache.size());
+    Assert.assertTrue(cache.containsKey(tile1));
+  }
+
+  @Test
+  void testLoadingAndVisibleTilesNotEvicted() {
+    final MapTileCache<TestTile> cache = new MapTileCache<>(TILE_BYTES);
+    final TestTile loadingTile = new TestTile(1, 0, 0);
+    cache.add(loadingTile);
+    final List<TestTile> tiles = newTiles(cache, 2);
+    final TestTile visibleTile = tiles.get(0);
+
+    cache.evict(List.of(visibleTile));
+    Assert.assertEquals(2, cache.size());
+    Assert.assertTrue(cache.containsKey(loadingTile));
+    Assert.assertTrue(cache.containsKey(visibleTile));
+    Assert.assertEquals(TILE_BYTES * 2, cache.getSizeBytes());
+
+    // A failed tile is only removed if it is the cached instance
+    Assert.assertFalse(cache.remove(loadingTile.copy()));
+    Assert.assertTrue(cache.remove(loadingTile));
+    Assert.assertEquals(TILE_BYTES, cache.getSizeBytes());
+  }
+
+  @Test
+  void testZoomLevelsRetained() {
+    final MapTileCache<TestTile> cache = new MapTileCache<>(TILE_BYTES * 8);
+    final List<TestTile> level1Tiles = newTiles(cache, 1);
+    final TestTile level1LoadingTile = new TestTile(1, 2, 2);
+    cache.add(level1LoadingTile);
+
+    // Zoom in, the tiles still loading for the previous level are removed
+    cache.removeNotLoaded();
+    Assert.assertFalse(cache.containsKey(level1LoadingTile));
+    final List<TestTile> level2Tiles = newTiles(cache, 2);
+    cache.evict(level2Tiles);
+    Assert.assertEquals(8, cache.size());
+    Assert.assertEquals(TILE_BYTES * 8, cache.getSizeBytes());
+
+    // Zoom back out, the loaded tiles are used
+    for (final TestTile tile : level1Tiles) {
+      Assert.assertSame(tile, cache.get(tile.copy()));
+    }
+
+    // Zoom in to a new level, the least recently used level is evicted
+    final List<TestTile> level3Tiles = newTiles(cache, 3);
+    cache.evict(level3Tiles);
+    Assert.assertEquals(8, cache.size());
+    for (final TestTile tile : level1Tiles) {
+      Assert.assertTrue(cache.containsKey(tile));
+    }
+    for (final TestTile tile : level2Tiles) {
+      Assert.assertFalse(cache.containsKey(tile));
+    }
+    for (final TestTile tile : level3Tiles) {
+      Assert.assertTrue(cache.containsKey(tile));
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.revolsys.elevation.cloud.PointCloud;
 import com.revolsys.elevation.cloud.las.LasPointCloud;
 import com.revolsys.elevation.cloud.las.LasPointCloudHeader;
 import com.revolsys.elevation.cloud.las.LasPointCloudWriter;
+import com.revolsys.elevation.cloud.las.LasPointColumns;
 import com.revolsys.elevation.cloud.las.pointformat.LasPoint;
 import com.revolsys.elevation.cloud.las.pointformat.LasPointFormat;
 import com.revolsys.geometry.coordinatesystem.model.systems.EpsgId;
@@ -548,6 +549,70 @@ public class LasTest {
     }
   }
 
+  @Test
+  public void testPointColumns() {
+    for (final LasPointFormat pointFormat : Arrays.asList(LasPointFormat.Core,
+      LasPointFormat.GpsTimeRgb, LasPointFormat.ExtendedGpsTimeRgb)) {
+      try (
+        LasPointCloud cloud = new LasPointCloud(pointFormat, GEOMETRY_FACTORY_0)) {
+        addRgbPoints(cloud);
+        addGpsTimePoints(cloud);
+        addIntensityPoints(cloud);
+        if (pointFormat.getId() < 6) {
+          addReturnPoints10(cloud);
+        } else {
+          addReturnPoints14(cloud);
+        }
+        addClassificationAndFlags(cloud);
+        cloud.refreshClassificationCounts();
+        final long[] classificationCounts = cloud.getClassificationCounts();
+
+        final LasPointColumns columns = cloud.loadPointColumns();
+        final List<LasPoint> points = cloud.getPoints();
+        Assert.assertEquals("pointCount", points.size(), columns.getPointCount());
+        for (int i = 0; i < points.size(); i++) {
+          final LasPoint point1 = points.get(i);
+          final LasPoint point2 = columns.getPoint(i);
+          Assert.assertEquals("xInt", point1.getXInt(), point2.getXInt());
+          Assert.assertEquals("yInt", point1.getYInt(), point2.getYInt());
+          Assert.assertEquals("zInt", point1.getZInt(), point2.getZInt());
+          Assert.assertEquals("intensity", point1.getIntensity(), point2.getIntensity());
+          Assert.assertEquals("returnNumber", point1.getReturnNumber(), point2.getReturnNumber());
+          Assert.assertEquals("numberOfReturns", point1.getNumberOfReturns(),
+            point2.getNumberOfReturns());
+          Assert.assertEquals("scanDirectionFlag", point1.isScanDirectionFlag(),
+            point2.isScanDirectionFlag());
+          Assert.assertEquals("edgeOfFlightLine", point1.isEdgeOfFlightLine(),
+            point2.isEdgeOfFlightLine());
+          Assert.assertEquals("classification", point1.getClassification(),
+            point2.getClassification());
+          Assert.assertEquals("synthetic", point1.isSynthetic(), point2.isSynthetic());
+          Assert.assertEquals("keyPoint", point1.isKeyPoint(), point2.isKeyPoint());
+          Assert.assertEquals("withheld", point1.isWithheld(), point2.isWithheld());
+          Assert.assertEquals("gpsTime", point1.getGpsTime(), point2.getGpsTime(), 0);
+          Assert.assertEquals("red", point1.getRed(), point2.getRed());
+          Assert.assertEquals("green", point1.getGreen(), point2.getGreen());
+          Assert.assertEquals("blue", point1.getBlue(), point2.getBlue());
+        }
+
+        cloud.refreshClassificationCounts();
+        Assert.assertArrayEquals("classificationCounts", classificationCounts,
+          cloud.getClassificationCounts());
+
+        // The columns are only a view, forEachPoint must return the full points
+        final List<LasPoint> forEachPoints = new ArrayList<>();
+        cloud.forEachPoint(forEachPoints::add);
+        Assert.assertEquals("forEachPoint", points.size(), forEachPoints.size());
+        for (int i = 0; i < points.size(); i++) {
+          Assert.assertSame("forEachPoint", points.get(i), forEachPoints.get(i));
+        }
+
+        cloud.addPoint(1, 2, 3);
+        Assert.assertNull("columns after addPoint", cloud.getPointColumns());
+      }
+    }
+  }
+
   @Test
   public void testWriter() {
     final BiFunction<LasPointCloudWriter, Integer, List<LasPoint>> writerAction = (writer,